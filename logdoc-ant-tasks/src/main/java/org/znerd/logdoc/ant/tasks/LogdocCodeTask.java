@@ -1,18 +1,72 @@
 // See the COPYRIGHT file for copyright and license information
 package org.znerd.logdoc.ant.tasks;
 
+import static org.apache.tools.ant.Project.MSG_VERBOSE;
+
 import java.io.File;
+import java.util.Locale;
 
+import org.apache.tools.ant.BuildException;
 import org.znerd.logdoc.gen.CodeGenerator;
 import org.znerd.logdoc.gen.Generator;
+import org.znerd.util.log.LogLevel;
 
 /**
  * An Apache Ant task for generating source files from Logdoc definitions.
+ * <p>
+ * In addition to the parameters supported by {@link AbstractLogdocTask}, this task supports:
+ * <dl>
+ * <dt>deferredTranslation
+ * <dd>Whether the generated <code>Log</code> classes defer translation until the <code>LogBridge</code> needs the message text. Optional, defaults to <code>false</code>.
+ * <dt>minLevel
+ * <dd>The minimum level of the entries that can be logged, for example <code>INFO</code>. Methods for entries below this level are generated with empty bodies. Optional, by default all
+ * entries are kept.
+ * <dt>statistics
+ * <dd>Whether the generated <code>Log</code> classes count the enabled and suppressed calls of each entry, for the <code>LogdocStatistics</code> MXBean. Optional, defaults to
+ * <code>false</code>.
+ * <dt>jfrEvents
+ * <dd>Whether the generated <code>Log</code> classes emit a Java Flight Recorder event for each call of a log method whose entry is enabled. The generated code requires Java 11 or up. Optional, defaults to
+ * <code>false</code>.
+ * </dl>
  */
 public final class LogdocCodeTask extends AbstractLogdocTask {
 
+    private boolean _deferredTranslation;
+    private LogLevel _minLevel;
+    private boolean _statistics;
+    private boolean _jfrEvents;
+
+    public void setDeferredTranslation(boolean deferredTranslation) {
+        log("Setting \"deferredTranslation\" to: " + deferredTranslation + '.', MSG_VERBOSE);
+        _deferredTranslation = deferredTranslation;
+    }
+
+    public void setMinLevel(String minLevel) {
+        log("Setting \"minLevel\" to: " + minLevel + '.', MSG_VERBOSE);
+        try {
+            _minLevel = LogLevel.valueOf(minLevel.trim().toUpperCase(Locale.ENGLISH));
+        } catch (IllegalArgumentException cause) {
+            throw new BuildException("Invalid minLevel \"" + minLevel + "\". Expected DEBUG, INFO, NOTICE, WARNING, ERROR or FATAL.");
+        }
+    }
+
+    public void setStatistics(boolean statistics) {
+        log("Setting \"statistics\" to: " + statistics + '.', MSG_VERBOSE);
+        _statistics = statistics;
+    }
+
+    public void setJfrEvents(boolean jfrEvents) {
+        log("Setting \"jfrEvents\" to: " + jfrEvents + '.', MSG_VERBOSE);
+        _jfrEvents = jfrEvents;
+    }
+
     @Override
     protected Generator createGenerator(File sourceDir, File destDir) {
-        return new CodeGenerator(sourceDir, destDir);
+        CodeGenerator generator = new CodeGenerator(sourceDir, destDir);
+        generator.setDeferredTranslation(_deferredTranslation);
+        generator.setMinLevel(_minLevel);
+        generator.setStatistics(_statistics);
+        generator.setJfrEvents(_jfrEvents);
+        return generator;
     }
 }
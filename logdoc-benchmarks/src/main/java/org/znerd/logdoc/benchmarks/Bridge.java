@@ -0,0 +1,97 @@
+// See the COPYRIGHT file for copyright and license information
+package org.znerd.logdoc.benchmarks;
+
+import java.io.PrintWriter;
+import java.util.logging.Handler;
+import java.util.logging.Level;
+import java.util.logging.LogManager;
+import java.util.logging.Logger;
+import java.util.logging.SimpleFormatter;
+import java.util.logging.StreamHandler;
+
+import org.apache.log4j.PatternLayout;
+import org.apache.log4j.WriterAppender;
+import org.znerd.logdoc.JulLogBridge;
+import org.znerd.logdoc.LogBridge;
+import org.znerd.logdoc.PrintWriterLogBridge;
+import org.znerd.logdoc.log4j.Log4jLogBridge;
+import org.znerd.logdoc.slf4j.Slf4jLogBridge;
+import org.znerd.util.log.LogLevel;
+
+/**
+ * The <code>LogBridge</code> implementations that are benchmarked. Each one is configured to log at level INFO and higher, and to format the messages as usual, but to discard the result.
+ */
+public enum Bridge {
+
+    /**
+     * {@link PrintWriterLogBridge} writing to a {@link NullWriter}.
+     */
+    PRINT_WRITER {
+        @Override
+        LogBridge create() {
+            PrintWriterLogBridge logBridge = new PrintWriterLogBridge(new PrintWriter(new NullWriter()));
+            logBridge.setLevel(LogLevel.INFO);
+            return logBridge;
+        }
+    },
+
+    /**
+     * {@link JulLogBridge} with a root logger that has a single <code>StreamHandler</code> writing to a {@link NullOutputStream}.
+     */
+    JUL {
+        @Override
+        LogBridge create() {
+            LogManager.getLogManager().reset();
+            Logger rootLogger = Logger.getLogger("");
+            for (Handler handler : rootLogger.getHandlers()) {
+                rootLogger.removeHandler(handler);
+            }
+            StreamHandler handler = new StreamHandler(new NullOutputStream(), new SimpleFormatter());
+            handler.setLevel(Level.ALL);
+            rootLogger.addHandler(handler);
+            rootLogger.setLevel(Level.INFO);
+
+            JulLogBridge logBridge = JulLogBridge.getInstance();
+            logBridge.setLevel(LogLevel.INFO);
+            return logBridge;
+        }
+    },
+
+    /**
+     * {@link Log4jLogBridge} with a root logger that has a single <code>WriterAppender</code> writing to a {@link NullWriter}.
+     */
+    LOG4J {
+        @Override
+        LogBridge create() {
+            configureLog4j();
+            Log4jLogBridge logBridge = Log4jLogBridge.getInstance();
+            logBridge.setLevel(LogLevel.INFO);
+            return logBridge;
+        }
+    },
+
+    /**
+     * {@link Slf4jLogBridge}, bound to Log4J through <code>slf4j-log4j12</code>, with the same Log4J configuration as {@link #LOG4J}.
+     */
+    SLF4J {
+        @Override
+        LogBridge create() {
+            configureLog4j();
+            return new Slf4jLogBridge();
+        }
+    };
+
+    /**
+     * Configures the underlying logging framework, if any, and creates the <code>LogBridge</code>.
+     *
+     * @return the <code>LogBridge</code>, never <code>null</code>.
+     */
+    abstract LogBridge create();
+
+    private static void configureLog4j() {
+        org.apache.log4j.LogManager.resetConfiguration();
+        org.apache.log4j.Logger rootLogger = org.apache.log4j.Logger.getRootLogger();
+        rootLogger.addAppender(new WriterAppender(new PatternLayout("%d %-5p [%X{contextID}] %c %m%n"), new NullWriter()));
+        rootLogger.setLevel(org.apache.log4j.Level.INFO);
+    }
+}
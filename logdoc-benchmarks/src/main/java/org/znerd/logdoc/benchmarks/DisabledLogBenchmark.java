@@ -0,0 +1,153 @@
+// See the COPYRIGHT file for copyright and license information
+package org.znerd.logdoc.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures calls to <code>Log</code> methods for entries that are disabled, in a tight loop. Each call should cost no more than a load and a compare, regardless of the number of parameters,
+ * since the generated method is a small check that is inlined into the loop; the actual logging is in a separate method that is never called.
+ * <p>
+ * To see the inlining decisions, run with <code>-jvmArgsAppend "-XX:+UnlockDiagnosticVMOptions -XX:+PrintInlining"</code>. See the <code>README.txt</code> of this module.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class DisabledLogBenchmark {
+
+    private static final int CALLS = 1000;
+
+    private int counter;
+
+    @Benchmark
+    @OperationsPerInvocation(CALLS)
+    public int baseline() {
+        int c = counter;
+        for (int i = 0; i < CALLS; i++) {
+            c += i;
+        }
+        counter = c;
+        return c;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(CALLS)
+    public int noParams(LoggingState state) {
+        int c = counter;
+        for (int i = 0; i < CALLS; i++) {
+            Log.log_1000();
+            c += i;
+        }
+        counter = c;
+        return c;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(CALLS)
+    public int onePrimitiveParam(LoggingState state) {
+        int c = counter;
+        for (int i = 0; i < CALLS; i++) {
+            Log.log_1001(i);
+            c += i;
+        }
+        counter = c;
+        return c;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(CALLS)
+    public int oneBoxedParam(LoggingState state) {
+        int c = counter;
+        for (int i = 0; i < CALLS; i++) {
+            Log.log_1002(state.boxedInt);
+            c += i;
+        }
+        counter = c;
+        return c;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(CALLS)
+    public int fourPrimitiveParams(LoggingState state) {
+        int c = counter;
+        for (int i = 0; i < CALLS; i++) {
+            Log.log_1004(i, state.longValue, state.booleanValue, state.doubleValue);
+            c += i;
+        }
+        counter = c;
+        return c;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(CALLS)
+    public int fourBoxedParams(LoggingState state) {
+        int c = counter;
+        for (int i = 0; i < CALLS; i++) {
+            Log.log_1005(state.boxedInt, state.boxedLong, state.boxedBoolean, state.boxedDouble);
+            c += i;
+        }
+        counter = c;
+        return c;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(CALLS)
+    public int eightPrimitiveParams(LoggingState state) {
+        int c = counter;
+        for (int i = 0; i < CALLS; i++) {
+            Log.log_1008(i, state.longValue, state.booleanValue, state.doubleValue, c, state.longValue, state.booleanValue, state.doubleValue);
+            c += i;
+        }
+        counter = c;
+        return c;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(CALLS)
+    public int eightBoxedParams(LoggingState state) {
+        int c = counter;
+        for (int i = 0; i < CALLS; i++) {
+            Log.log_1009(state.boxedInt, state.boxedLong, state.boxedBoolean, state.boxedDouble, state.boxedInt, state.boxedLong, state.boxedBoolean, state.boxedDouble);
+            c += i;
+        }
+        counter = c;
+        return c;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(CALLS)
+    public int filteredParam(LoggingState state) {
+        int c = counter;
+        for (int i = 0; i < CALLS; i++) {
+            Log.log_1010(state.user, state.password);
+            c += i;
+        }
+        counter = c;
+        return c;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(CALLS)
+    public int exception(LoggingState state) {
+        int c = counter;
+        for (int i = 0; i < CALLS; i++) {
+            Log.log_1020(state.exception, i);
+            c += i;
+        }
+        counter = c;
+        return c;
+    }
+}
@@ -0,0 +1,64 @@
+// See the COPYRIGHT file for copyright and license information
+package org.znerd.logdoc.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures calls to <code>Log</code> methods for entries that are enabled: the translation, the formatting by the <code>LogBridge</code> and the underlying logging framework, and the write
+ * to a stream that discards the output. Run with <code>-prof gc</code> to see the allocations per call.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EnabledLogBenchmark {
+
+    @Benchmark
+    public void noParams(LoggingState state) {
+        Log.log_2000();
+    }
+
+    @Benchmark
+    public void onePrimitiveParam(LoggingState state) {
+        Log.log_2001(state.intValue);
+    }
+
+    @Benchmark
+    public void oneBoxedParam(LoggingState state) {
+        Log.log_2002(state.boxedInt);
+    }
+
+    @Benchmark
+    public void fourPrimitiveParams(LoggingState state) {
+        Log.log_2004(state.intValue, state.longValue, state.booleanValue, state.doubleValue);
+    }
+
+    @Benchmark
+    public void fourBoxedParams(LoggingState state) {
+        Log.log_2005(state.boxedInt, state.boxedLong, state.boxedBoolean, state.boxedDouble);
+    }
+
+    @Benchmark
+    public void eightPrimitiveParams(LoggingState state) {
+        Log.log_2008(state.intValue, state.longValue, state.booleanValue, state.doubleValue, state.intValue, state.longValue, state.booleanValue, state.doubleValue);
+    }
+
+    @Benchmark
+    public void eightBoxedParams(LoggingState state) {
+        Log.log_2009(state.boxedInt, state.boxedLong, state.boxedBoolean, state.boxedDouble, state.boxedInt, state.boxedLong, state.boxedBoolean, state.boxedDouble);
+    }
+
+    @Benchmark
+    public void filteredParam(LoggingState state) {
+        Log.log_2010(state.user, state.password);
+    }
+}
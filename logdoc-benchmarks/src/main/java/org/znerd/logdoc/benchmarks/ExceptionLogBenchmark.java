@@ -0,0 +1,50 @@
+// See the COPYRIGHT file for copyright and license information
+package org.znerd.logdoc.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.znerd.logdoc.Library;
+
+/**
+ * Measures calls to the <code>Log</code> method for an enabled WARNING entry with an exception, with the stack trace logged at the message level or separately at DEBUG. In the latter case
+ * the stack trace is discarded, since the benchmarks log at INFO and higher.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ExceptionLogBenchmark {
+
+    @Param({ "false", "true" })
+    public boolean stackTraceAtMessageLevel;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Library.setStackTraceAtMessageLevel(stackTraceAtMessageLevel);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        Library.setStackTraceAtMessageLevel(false);
+    }
+
+    @Benchmark
+    public void exception(LoggingState state) {
+        Log.log_2020(state.exception, state.intValue);
+    }
+}
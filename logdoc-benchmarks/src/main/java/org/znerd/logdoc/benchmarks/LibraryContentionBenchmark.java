@@ -0,0 +1,55 @@
+// See the COPYRIGHT file for copyright and license information
+package org.znerd.logdoc.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.znerd.logdoc.Library;
+import org.znerd.logdoc.LogFilter;
+import org.znerd.logdoc.SimpleLogFilter;
+
+/**
+ * Measures the <code>Library</code> getters that are called on the logging hot path, called from as many threads as there are processors. As a baseline, the same getters are measured on a
+ * class that guards its settings with <code>static synchronized</code> methods, like <code>Library</code> used to.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(Threads.MAX)
+public class LibraryContentionBenchmark {
+
+    @Benchmark
+    public boolean synchronizedGetters() {
+        return SynchronizedSettings.getLogFilter() != null && SynchronizedSettings.isStackTraceAtMessageLevel();
+    }
+
+    @Benchmark
+    public boolean libraryGetters() {
+        return Library.getLogFilter() != null && Library.isStackTraceAtMessageLevel();
+    }
+
+    /**
+     * The previous, lock-based way of guarding the settings.
+     */
+    private static final class SynchronizedSettings {
+        private static LogFilter LOG_FILTER = new SimpleLogFilter();
+        private static boolean STACK_TRACE_AT_MESSAGE_LEVEL = true;
+
+        static synchronized LogFilter getLogFilter() {
+            return LOG_FILTER;
+        }
+
+        static synchronized boolean isStackTraceAtMessageLevel() {
+            return STACK_TRACE_AT_MESSAGE_LEVEL;
+        }
+    }
+}
@@ -0,0 +1,46 @@
+// See the COPYRIGHT file for copyright and license information
+package org.znerd.logdoc.benchmarks;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.znerd.logdoc.Library;
+
+/**
+ * Installs the <code>LogBridge</code> that is benchmarked, and holds the arguments passed to the <code>Log</code> methods. The arguments are fields, so that the JIT compiler cannot treat them
+ * as constants; the boxed ones are allocated once, so that boxing in the benchmark itself is not measured.
+ */
+@State(Scope.Benchmark)
+public class LoggingState {
+
+    @Param({ "PRINT_WRITER", "JUL", "LOG4J", "SLF4J" })
+    public Bridge bridge;
+
+    public int intValue = 12345;
+    public long longValue = 1234567890123L;
+    public boolean booleanValue = true;
+    public double doubleValue = 1.5;
+
+    public Integer boxedInt = Integer.valueOf(intValue);
+    public Long boxedLong = Long.valueOf(longValue);
+    public Boolean boxedBoolean = Boolean.valueOf(booleanValue);
+    public Double boxedDouble = Double.valueOf(doubleValue);
+
+    public String user = "jdoe";
+    public String password = "secret";
+
+    public Exception exception = new Exception("Benchmark");
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Library.setLogBridge(bridge.create());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        Library.resetLogBridge();
+    }
+}
@@ -0,0 +1,18 @@
+// See the COPYRIGHT file for copyright and license information
+package org.znerd.logdoc.benchmarks;
+
+import java.io.OutputStream;
+
+/**
+ * <code>OutputStream</code> that discards everything written to it.
+ */
+final class NullOutputStream extends OutputStream {
+
+    @Override
+    public void write(int b) {
+    }
+
+    @Override
+    public void write(byte[] bytes, int offset, int length) {
+    }
+}
@@ -0,0 +1,26 @@
+// See the COPYRIGHT file for copyright and license information
+package org.znerd.logdoc.benchmarks;
+
+import java.io.Writer;
+
+/**
+ * <code>Writer</code> that discards everything written to it.
+ */
+final class NullWriter extends Writer {
+
+    @Override
+    public void write(char[] chars, int offset, int length) {
+    }
+
+    @Override
+    public void write(String s, int offset, int length) {
+    }
+
+    @Override
+    public void flush() {
+    }
+
+    @Override
+    public void close() {
+    }
+}
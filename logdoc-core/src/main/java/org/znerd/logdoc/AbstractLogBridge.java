@@ -6,19 +6,88 @@ import org.znerd.util.log.LogLevel;
 
 /**
  * Abstract base class for <code>LogBridge</code> implementations. Implements the <em>level</em> property by storing it internally.
+ * <p>
+ * Subclasses should check levels with {@link #getLevel(String, String)}, which applies the level overrides of the {@link Library}.
+ * <p>
+ * The {@link EntryHandle}-based methods are implemented by delegating to their <code>String</code>-based counterparts, and {@link LogEvent}s are rendered right away. Subclasses should override these to avoid repeated lookups.
  */
-public abstract class AbstractLogBridge implements LogBridge {
+public abstract class AbstractLogBridge implements EntryLogBridge {
 
     private LogLevel level = LogLevel.DEBUG;
 
+    @Override
+    public EntryHandle resolveEntry(String domain, String groupId, String entryId) {
+        return new EntryHandle(this, domain, groupId, entryId);
+    }
+
+    @Override
+    public boolean shouldLog(EntryHandle entry, LogLevel level) {
+        return shouldLog(entry.getDomain(), entry.getGroupId(), entry.getEntryId(), level);
+    }
+
+    @Override
+    public void logOneMessage(String fqcn, EntryHandle entry, LogLevel level, String message, Throwable exception) {
+        logOneMessage(fqcn, entry.getDomain(), entry.getGroupId(), entry.getEntryId(), level, message, exception);
+    }
+
+    @Override
+    public void logEvent(String fqcn, EntryHandle entry, LogLevel level, LogEvent event, Throwable exception) {
+        logOneMessage(fqcn, entry, level, event.render(), exception);
+    }
+
     @Override
     public void setLevel(LogLevel level) {
         Preconditions.checkArgument(level == null, "level == null");
         this.level = level;
+        Library.refreshLevels();
     }
 
     @Override
     public LogLevel getLevel() {
         return level;
     }
+
+    /**
+     * Returns the level that applies to the specified entry group: the level override set through {@link Library#setLevelOverride(String, String, LogLevel)}, if any, otherwise the level of this
+     * bridge.
+     *
+     * @param domain
+     *        the domain, cannot be <code>null</code>.
+     * @param groupId
+     *        the entry group ID, cannot be <code>null</code>.
+     * @return the level, never <code>null</code>.
+     */
+    protected final LogLevel getLevel(String domain, String groupId) {
+        LogLevel override = Library.getLevelOverride(domain, groupId);
+        return override != null ? override : level;
+    }
+
+    /**
+     * Called by the {@link Library} when a level override is set or removed while this bridge is in use, and for each override in effect when this bridge starts or stops being used. Bridges
+     * whose backend has levels of its own should apply the override to the backend logger of the domain or group, so that the backend does not filter out the messages that the override enables.
+     * The default implementation does nothing.
+     *
+     * @param domain
+     *        the domain, never <code>null</code>.
+     * @param groupId
+     *        the entry group ID, or <code>null</code> if the override applies to the whole domain.
+     * @param level
+     *        the level of the override, or <code>null</code> if the override is removed.
+     * @throws UnsupportedOperationException
+     *         if this bridge does not support level overrides.
+     */
+    protected void levelOverrideChanged(String domain, String groupId, LogLevel level) throws UnsupportedOperationException {
+        // Only Logdoc's own level applies
+    }
+
+    /**
+     * Indicates whether this bridge calls {@link Library#refreshLevels()} when the levels of its backend change. If not, the cached <em>enabled</em> decisions are refreshed periodically while
+     * this bridge is in use, see {@link org.znerd.logdoc.internal.LevelRefresher}. The default implementation returns <code>true</code>, since the level of this bridge itself can only be changed
+     * through {@link #setLevel(LogLevel)}.
+     *
+     * @return <code>true</code> if level changes are reported, <code>false</code> if they have to be polled for.
+     */
+    protected boolean isLevelChangeReported() {
+        return true;
+    }
 }
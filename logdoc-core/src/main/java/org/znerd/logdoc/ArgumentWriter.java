@@ -0,0 +1,43 @@
+// See the COPYRIGHT file for copyright and license information
+package org.znerd.logdoc;
+
+/**
+ * Receives the arguments of a {@link LogEvent} as typed values, in the order of the parameters in <code>log.xml</code>. Used by bridges that store the arguments instead of the translated
+ * message, such as {@link org.znerd.logdoc.journal.JournalLogBridge}.
+ * <p>
+ * Each method corresponds to a parameter type. A <code>null</code> value of a nullable parameter is passed to {@link #writeNull()}.
+ */
+public interface ArgumentWriter {
+
+    void writeNull();
+
+    void writeInt8(byte value);
+
+    void writeInt16(short value);
+
+    void writeInt32(int value);
+
+    void writeInt64(long value);
+
+    void writeFloat32(float value);
+
+    void writeFloat64(double value);
+
+    void writeBoolean(boolean value);
+
+    /**
+     * Writes a <code>text</code> argument.
+     *
+     * @param value
+     *        the value, can be <code>null</code>.
+     */
+    void writeText(String value);
+
+    /**
+     * Writes an <code>object</code> or <code>serializable</code> argument. Since its type is not known, implementations typically store its string representation.
+     *
+     * @param value
+     *        the value, can be <code>null</code>.
+     */
+    void writeObject(Object value);
+}
@@ -0,0 +1,483 @@
+// See the COPYRIGHT file for copyright and license information
+package org.znerd.logdoc;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import org.znerd.util.Preconditions;
+import org.znerd.util.log.Limb;
+import org.znerd.util.log.LogLevel;
+
+/**
+ * <code>LogBridge</code> that hands messages to a background thread, which writes them to the wrapped bridge. This keeps slow backends (a full disk, a blocked appender) from stalling the threads
+ * that log.
+ * <p>
+ * Messages are stored in a preallocated, bounded ring buffer that multiple threads can write to without locking. What happens when the buffer is full is determined by the
+ * {@link OverflowPolicy}. Messages at or above the {@link #setSynchronousLevel(LogLevel) synchronous level} (by default <code>ERROR</code>) bypass the buffer and are written on the calling
+ * thread, so they can appear before messages that were logged earlier but are still buffered.
+ * <p>
+ * The context ID is captured when a message is logged and restored on the background thread while the message is written. {@link LogEvent}s are passed to the wrapped bridge as they are, so
+ * their translation is rendered on the background thread.
+ * <p>
+ * Call {@link #close()} to write all buffered messages and stop the background thread. This is also done by a shutdown hook. A message that is buffered while the bridge is being closed is written
+ * by the thread that logged it if the background thread has already stopped, so no message is lost.
+ */
+public class AsyncLogBridge extends LogBridgeDecorator {
+
+    /**
+     * What to do with a message when the buffer is full.
+     */
+    public enum OverflowPolicy {
+
+        /**
+         * Wait until there is room in the buffer.
+         */
+        BLOCK,
+
+        /**
+         * Drop the message.
+         */
+        DROP_NEWEST,
+
+        /**
+         * Drop the message if its level is below the {@link AsyncLogBridge#setOverflowLevel(LogLevel) overflow level}, otherwise wait until there is room.
+         */
+        DROP_BELOW_LEVEL,
+
+        /**
+         * Drop all but one out of every {@link AsyncLogBridge#setSampleRate(int) sample rate} messages; wait for room for that one.
+         */
+        SAMPLE
+    }
+
+    public static final int DEFAULT_CAPACITY = 8192;
+
+    private static final long DROPPED = -1L;
+    private static final long CLOSED = -2L;
+
+    private final Slot[] slots;
+    private final int mask;
+    private final OverflowPolicy overflowPolicy;
+    private final AtomicLong tail = new AtomicLong();
+    private final AtomicLong droppedCount = new AtomicLong();
+    private final AtomicLong overflowCount = new AtomicLong();
+    private final Thread consumer;
+    private final Thread shutdownHook;
+    private final Queue<Thread> flushers = new ConcurrentLinkedQueue<Thread>();
+    private final Object drainLock = new Object();
+    private volatile long head;
+    private volatile long written;
+    private volatile boolean consumerWaiting;
+    private volatile boolean closed;
+    private volatile boolean stopped;
+    private volatile LogLevel synchronousLevel = LogLevel.ERROR;
+    private volatile LogLevel overflowLevel = LogLevel.WARNING;
+    private volatile int sampleRate = 10;
+
+    public AsyncLogBridge(LogBridge delegate) {
+        this(delegate, DEFAULT_CAPACITY, OverflowPolicy.BLOCK);
+    }
+
+    /**
+     * Constructs a new <code>AsyncLogBridge</code> and starts its background thread.
+     *
+     * @param delegate
+     *        the {@link LogBridge} to write the messages to, cannot be <code>null</code>.
+     * @param capacity
+     *        the maximum number of buffered messages, must be a power of two.
+     * @param overflowPolicy
+     *        what to do when the buffer is full, cannot be <code>null</code>.
+     */
+    public AsyncLogBridge(LogBridge delegate, int capacity, OverflowPolicy overflowPolicy) {
+        super(delegate);
+        Preconditions.checkArgument(capacity < 1 || Integer.bitCount(capacity) != 1, "capacity (" + capacity + ") is not a power of two");
+        Preconditions.checkArgument(overflowPolicy == null, "overflowPolicy == null");
+
+        slots = new Slot[capacity];
+        for (int i = 0; i < capacity; i++) {
+            slots[i] = new Slot(i);
+        }
+        mask = capacity - 1;
+        this.overflowPolicy = overflowPolicy;
+
+        consumer = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                consume();
+            }
+        }, "Logdoc AsyncLogBridge");
+        consumer.setDaemon(true);
+        consumer.start();
+
+        shutdownHook = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                close();
+            }
+        }, "Logdoc AsyncLogBridge shutdown");
+        Runtime.getRuntime().addShutdownHook(shutdownHook);
+    }
+
+    /**
+     * Sets the level from which messages are written on the calling thread instead of being buffered.
+     *
+     * @param level
+     *        the lowest level that is written synchronously, or <code>null</code> to buffer all messages.
+     */
+    public void setSynchronousLevel(LogLevel level) {
+        synchronousLevel = level;
+    }
+
+    public LogLevel getSynchronousLevel() {
+        return synchronousLevel;
+    }
+
+    /**
+     * Sets the level below which messages are dropped when the buffer is full. Only used with {@link OverflowPolicy#DROP_BELOW_LEVEL}.
+     *
+     * @param level
+     *        the lowest level that is never dropped, cannot be <code>null</code>.
+     */
+    public void setOverflowLevel(LogLevel level) {
+        Preconditions.checkArgument(level == null, "level == null");
+        overflowLevel = level;
+    }
+
+    public LogLevel getOverflowLevel() {
+        return overflowLevel;
+    }
+
+    /**
+     * Sets how many messages make up one sample when the buffer is full. Only used with {@link OverflowPolicy#SAMPLE}.
+     *
+     * @param rate
+     *        one out of this many overflowing messages is kept, must be at least 1.
+     */
+    public void setSampleRate(int rate) {
+        Preconditions.checkArgument(rate < 1, "rate (" + rate + ") < 1");
+        sampleRate = rate;
+    }
+
+    public int getSampleRate() {
+        return sampleRate;
+    }
+
+    public OverflowPolicy getOverflowPolicy() {
+        return overflowPolicy;
+    }
+
+    public int getCapacity() {
+        return slots.length;
+    }
+
+    /**
+     * Returns the number of messages that have been put in the buffer since this bridge was constructed.
+     *
+     * @return the number of buffered messages, including the ones that have already been written.
+     */
+    public long getEnqueuedCount() {
+        return tail.get();
+    }
+
+    /**
+     * Returns the number of messages that have been dropped because the buffer was full.
+     *
+     * @return the number of dropped messages.
+     */
+    public long getDroppedCount() {
+        return droppedCount.get();
+    }
+
+    @Override
+    public void logOneMessage(String fqcn, String domain, String groupId, String entryId, LogLevel level, String message, Throwable exception) {
+        if (isSynchronous(level)) {
+            super.logOneMessage(fqcn, domain, groupId, entryId, level, message, exception);
+        } else {
+            enqueue(fqcn, null, domain, groupId, entryId, level, message, null, exception);
+        }
+    }
+
+    @Override
+    public void logOneMessage(String fqcn, EntryHandle entry, LogLevel level, String message, Throwable exception) {
+        if (isSynchronous(level)) {
+            super.logOneMessage(fqcn, entry, level, message, exception);
+        } else {
+            enqueue(fqcn, getDelegateEntry(entry), null, null, null, level, message, null, exception);
+        }
+    }
+
+    @Override
+    public void logEvent(String fqcn, EntryHandle entry, LogLevel level, LogEvent event, Throwable exception) {
+        if (isSynchronous(level)) {
+            super.logEvent(fqcn, entry, level, event, exception);
+        } else {
+            enqueue(fqcn, getDelegateEntry(entry), null, null, null, level, null, event, exception);
+        }
+    }
+
+    private boolean isSynchronous(LogLevel level) {
+        LogLevel threshold = synchronousLevel;
+        return closed || (threshold != null && threshold.isSmallerThanOrEqualTo(level));
+    }
+
+    private void enqueue(String fqcn, EntryHandle entry, String domain, String groupId, String entryId, LogLevel level, String message, LogEvent event, Throwable exception) {
+        long sequence = claim(level);
+        if (sequence == DROPPED) {
+            droppedCount.incrementAndGet();
+            return;
+        } else if (sequence == CLOSED) {
+            write(fqcn, entry, domain, groupId, entryId, level, message, event, exception, getDelegate().getContextId());
+            return;
+        }
+
+        Slot slot = slots[(int) sequence & mask];
+        slot.fqcn = fqcn;
+        slot.entry = entry;
+        slot.domain = domain;
+        slot.groupId = groupId;
+        slot.entryId = entryId;
+        slot.level = level;
+        slot.message = message;
+        slot.event = event;
+        slot.exception = exception;
+        slot.contextId = getDelegate().getContextId();
+        slot.sequence = sequence + 1;
+
+        if (consumerWaiting) {
+            LockSupport.unpark(consumer);
+        }
+
+        // The background thread may have stopped between the check for closed in isSynchronous and the claim
+        if (closed) {
+            drainAfterClose();
+        }
+    }
+
+    /**
+     * Writes the messages that were buffered after the background thread stopped, on the calling thread.
+     */
+    private void drainAfterClose() {
+        if (Thread.currentThread() == consumer) {
+            return;
+        }
+        boolean interrupted = false;
+        while (consumer.isAlive()) {
+            try {
+                consumer.join();
+            } catch (InterruptedException cause) {
+                interrupted = true;
+            }
+        }
+        synchronized (drainLock) {
+            while (writeNext()) {
+                // Keep writing until the buffer is empty
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Claims a slot in the buffer, applying the overflow policy if the buffer is full.
+     *
+     * @return the sequence number of the claimed slot, {@link #DROPPED} if the message should be dropped, or {@link #CLOSED} if the buffer is full and the bridge is being closed, in which case
+     *         the message should be written on the calling thread.
+     */
+    private long claim(LogLevel level) {
+        boolean mayWait = false;
+        boolean overflowHandled = false;
+        while (true) {
+            long sequence = tail.get();
+            long available = slots[(int) sequence & mask].sequence - sequence;
+            if (available == 0L) {
+                if (tail.compareAndSet(sequence, sequence + 1)) {
+                    return sequence;
+                }
+            } else if (available < 0L) {
+                if (!overflowHandled) {
+                    mayWait = shouldWaitOnOverflow(level);
+                    overflowHandled = true;
+                }
+                if (!mayWait) {
+                    return DROPPED;
+                }
+                if (closed) {
+                    return CLOSED;
+                }
+                LockSupport.unpark(consumer);
+                Thread.yield();
+            }
+        }
+    }
+
+    private boolean shouldWaitOnOverflow(LogLevel level) {
+        switch (overflowPolicy) {
+            case BLOCK:
+                return true;
+            case DROP_NEWEST:
+                return false;
+            case DROP_BELOW_LEVEL:
+                return overflowLevel.isSmallerThanOrEqualTo(level);
+            default:
+                return overflowCount.incrementAndGet() % sampleRate == 0L;
+        }
+    }
+
+    private void consume() {
+        while (true) {
+            if (!writeNext()) {
+                if (closed && head == tail.get()) {
+                    stopped = true;
+                    wakeFlushers();
+                    return;
+                }
+                consumerWaiting = true;
+                if (!isAvailable()) {
+                    LockSupport.parkNanos(this, TimeUnit.MILLISECONDS.toNanos(10L));
+                }
+                consumerWaiting = false;
+            }
+        }
+    }
+
+    private boolean isAvailable() {
+        long sequence = head;
+        return slots[(int) sequence & mask].sequence == sequence + 1;
+    }
+
+    private boolean writeNext() {
+        long sequence = head;
+        Slot slot = slots[(int) sequence & mask];
+        if (slot.sequence != sequence + 1) {
+            return false;
+        }
+
+        String fqcn = slot.fqcn;
+        EntryHandle entry = slot.entry;
+        String domain = slot.domain;
+        String groupId = slot.groupId;
+        String entryId = slot.entryId;
+        LogLevel level = slot.level;
+        String message = slot.message;
+        LogEvent event = slot.event;
+        Throwable exception = slot.exception;
+        String contextId = slot.contextId;
+        slot.clear();
+        slot.sequence = sequence + slots.length;
+        head = sequence + 1;
+
+        write(fqcn, entry, domain, groupId, entryId, level, message, event, exception, contextId);
+        written = sequence + 1;
+        if (!flushers.isEmpty()) {
+            wakeFlushers();
+        }
+        return true;
+    }
+
+    private void wakeFlushers() {
+        for (Thread flusher : flushers) {
+            LockSupport.unpark(flusher);
+        }
+    }
+
+    private void write(String fqcn, EntryHandle entry, String domain, String groupId, String entryId, LogLevel level, String message, LogEvent event, Throwable exception, String contextId) {
+        EntryLogBridge delegate = getDelegate();
+        if (contextId != null) {
+            delegate.putContextId(contextId);
+        }
+        try {
+            if (event != null) {
+                delegate.logEvent(fqcn, entry, level, event, exception);
+            } else if (entry != null) {
+                delegate.logOneMessage(fqcn, entry, level, message, exception);
+            } else {
+                delegate.logOneMessage(fqcn, domain, groupId, entryId, level, message, exception);
+            }
+        } catch (Throwable cause) {
+            Limb.log(LogLevel.ERROR, "Failed to write message asynchronously.", cause);
+        } finally {
+            if (contextId != null) {
+                delegate.unputContextId();
+            }
+        }
+    }
+
+    /**
+     * Waits until all messages that were buffered before this method was called have been written.
+     *
+     * @throws InterruptedException
+     *         if the calling thread is interrupted while waiting.
+     */
+    public void flush() throws InterruptedException {
+        long target = tail.get();
+        Thread flusher = Thread.currentThread();
+        flushers.add(flusher);
+        try {
+            while (written < target && !stopped) {
+                LockSupport.unpark(consumer);
+                LockSupport.park(this);
+                if (Thread.interrupted()) {
+                    throw new InterruptedException();
+                }
+            }
+        } finally {
+            flushers.remove(flusher);
+        }
+    }
+
+    /**
+     * Writes all buffered messages and stops the background thread. Messages logged after this method has been called are written on the calling thread.
+     */
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        LockSupport.unpark(consumer);
+        try {
+            consumer.join();
+        } catch (InterruptedException cause) {
+            Thread.currentThread().interrupt();
+        }
+        try {
+            Runtime.getRuntime().removeShutdownHook(shutdownHook);
+        } catch (IllegalStateException cause) {
+            // The JVM is already shutting down, possibly running this very hook
+        }
+    }
+
+    private static final class Slot {
+        volatile long sequence;
+        String fqcn;
+        EntryHandle entry;
+        String domain;
+        String groupId;
+        String entryId;
+        LogLevel level;
+        String message;
+        LogEvent event;
+        Throwable exception;
+        String contextId;
+
+        Slot(long sequence) {
+            this.sequence = sequence;
+        }
+
+        void clear() {
+            fqcn = null;
+            entry = null;
+            domain = null;
+            groupId = null;
+            entryId = null;
+            level = null;
+            message = null;
+            event = null;
+            exception = null;
+            contextId = null;
+        }
+    }
+}
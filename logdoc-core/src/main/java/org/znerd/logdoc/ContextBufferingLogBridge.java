@@ -0,0 +1,238 @@
+// See the COPYRIGHT file for copyright and license information
+package org.znerd.logdoc;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.znerd.util.Preconditions;
+import org.znerd.util.log.LogLevel;
+
+/**
+ * <code>LogBridge</code> that holds back the records of a context that are below the level of another bridge, and writes them only if the context fails. This gives the full detail of failed
+ * transactions, at the I/O cost of the level of the wrapped bridge.
+ * <p>
+ * While a context ID is put, records for which the wrapped bridge's <code>shouldLog</code> returns <code>false</code> are kept in a buffer of the current thread. Events are kept as they are, so
+ * they are only rendered if they are written. When an <code>ERROR</code> or <code>FATAL</code> record is logged, the context fails: the buffered records are written first, followed by the error
+ * and all further records of the context. When the context ID is unput, the buffer of a context that did not fail is discarded.
+ * <p>
+ * Buffers are bounded; when one is full, its oldest record is dropped. Contexts can be nested, see {@link ContextScope}; a failure of a nested context also fails the enclosing ones. Buffered
+ * records are written with the time at which they are written, not the time at which they were logged.
+ * <p>
+ * For the records to be buffered, the entries must be enabled: <code>shouldLog</code> returns <code>true</code> for all entries at or above the capture level. Generated <code>Log</code> classes
+ * cache this decision, so outside a context the records below the level of the wrapped bridge are passed to this bridge and dropped here. Generate the <code>Log</code> classes with the
+ * <code>deferredTranslation</code> option to keep that cheap; a warning is logged when the entries of a <code>Log</code> class that translates eagerly are bound to this bridge. Only records
+ * logged through an {@link EntryHandle} are buffered.
+ * <p>
+ * Each put of a context ID starts a new context, also when the ID is the same as that of the enclosing context, so that each unput ends the context of the matching put. When a nested context
+ * ends, the ID of the enclosing context is put on the wrapped bridge again if that bridge does not restore it by itself.
+ */
+public class ContextBufferingLogBridge extends LogBridgeDecorator {
+
+    public static final int DEFAULT_CAPACITY = 256;
+
+    private final LogLevel captureLevel;
+    private final int capacity;
+    private final ThreadLocal<Buffer> buffers = new ThreadLocal<Buffer>();
+    private final AtomicLong discardedCount = new AtomicLong();
+
+    public ContextBufferingLogBridge(LogBridge delegate) {
+        this(delegate, LogLevel.DEBUG, DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Constructs a new <code>ContextBufferingLogBridge</code>.
+     *
+     * @param delegate
+     *        the {@link LogBridge} to write the records to, cannot be <code>null</code>.
+     * @param captureLevel
+     *        the lowest level that is buffered, cannot be <code>null</code>.
+     * @param capacity
+     *        the maximum number of records buffered per context, must be at least 1.
+     */
+    public ContextBufferingLogBridge(LogBridge delegate, LogLevel captureLevel, int capacity) {
+        super(delegate);
+        Preconditions.checkArgument(captureLevel == null, "captureLevel == null");
+        Preconditions.checkArgument(capacity < 1, "capacity (" + capacity + ") < 1");
+        this.captureLevel = captureLevel;
+        this.capacity = capacity;
+    }
+
+    public LogLevel getCaptureLevel() {
+        return captureLevel;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Returns the number of buffered records that have been discarded, because their context did not fail or because the buffer was full.
+     *
+     * @return the number of records.
+     */
+    public long getDiscardedCount() {
+        return discardedCount.get();
+    }
+
+    /**
+     * Returns the number of records buffered for the context of the current thread.
+     *
+     * @return the number of records, or <code>0</code> if no context ID is put.
+     */
+    public int getBufferedCount() {
+        Buffer buffer = buffers.get();
+        return buffer == null ? 0 : buffer.records.size();
+    }
+
+    @Override
+    public void putContextId(String newContextId) {
+        super.putContextId(newContextId);
+        if (newContextId == null) {
+            return;
+        }
+        buffers.set(new Buffer(newContextId, buffers.get()));
+    }
+
+    @Override
+    public void unputContextId() {
+        Buffer buffer = buffers.get();
+        super.unputContextId();
+        if (buffer != null) {
+            discardedCount.addAndGet(buffer.records.size() + buffer.droppedCount);
+            if (buffer.parent == null) {
+                buffers.remove();
+            } else {
+                buffers.set(buffer.parent);
+
+                // Restore the enclosing context ID also if the wrapped bridge does not keep a stack of them, so ContextScope does not put it again
+                if (!buffer.parent.contextId.equals(super.getContextId())) {
+                    super.putContextId(buffer.parent.contextId);
+                }
+            }
+        }
+    }
+
+    @Override
+    public boolean shouldLog(EntryHandle entry, LogLevel level) {
+        return captureLevel.isSmallerThanOrEqualTo(level) || super.shouldLog(entry, level);
+    }
+
+    @Override
+    public void logOneMessage(String fqcn, EntryHandle entry, LogLevel level, String message, Throwable exception) {
+        log(fqcn, getDelegateEntry(entry), level, message, null, exception);
+    }
+
+    @Override
+    public void logEvent(String fqcn, EntryHandle entry, LogLevel level, LogEvent event, Throwable exception) {
+        log(fqcn, getDelegateEntry(entry), level, null, event, exception);
+    }
+
+    private void log(String fqcn, EntryHandle delegateEntry, LogLevel level, String message, LogEvent event, Throwable exception) {
+        EntryLogBridge delegate = getDelegate();
+        Buffer buffer = buffers.get();
+        if (buffer == null) {
+            // Below the capture level, shouldLog only enabled the entry because the wrapped bridge did
+            if (!captureLevel.isSmallerThanOrEqualTo(level) || delegate.shouldLog(delegateEntry, level)) {
+                write(delegate, fqcn, delegateEntry, level, message, event, exception);
+            }
+            return;
+        }
+
+        if (!buffer.failed && LogLevel.ERROR.isSmallerThanOrEqualTo(level)) {
+            fail(buffer);
+        }
+        if (buffer.failed || delegate.shouldLog(delegateEntry, level)) {
+            write(delegate, fqcn, delegateEntry, level, message, event, exception);
+        } else if (captureLevel.isSmallerThanOrEqualTo(level)) {
+            buffer.add(new Record(fqcn, delegateEntry, level, message, event, exception));
+        }
+    }
+
+    private static void write(EntryLogBridge delegate, String fqcn, EntryHandle delegateEntry, LogLevel level, String message, LogEvent event, Throwable exception) {
+        if (event != null) {
+            delegate.logEvent(fqcn, delegateEntry, level, event, exception);
+        } else {
+            delegate.logOneMessage(fqcn, delegateEntry, level, message, exception);
+        }
+    }
+
+    /**
+     * Marks a context and the contexts that enclose it as failed and writes their buffered records, outermost first.
+     */
+    private void fail(Buffer buffer) {
+        List<Buffer> chain = new ArrayList<Buffer>();
+        for (Buffer current = buffer; current != null && !current.failed; current = current.parent) {
+            chain.add(0, current);
+        }
+        for (Buffer current : chain) {
+            current.failed = true;
+            if (current.records.isEmpty()) {
+                continue;
+            }
+            if (current == buffer) {
+                current.flushTo(getDelegate());
+            } else {
+                ContextScope scope = ContextScope.open(getDelegate(), current.contextId);
+                try {
+                    current.flushTo(getDelegate());
+                } finally {
+                    scope.close();
+                }
+            }
+        }
+    }
+
+    private final class Buffer {
+        private final String contextId;
+        private final Buffer parent;
+        private final ArrayDeque<Record> records = new ArrayDeque<Record>();
+        private int droppedCount;
+        private boolean failed;
+
+        Buffer(String contextId, Buffer parent) {
+            this.contextId = contextId;
+            this.parent = parent;
+        }
+
+        void add(Record record) {
+            if (records.size() == capacity) {
+                records.removeFirst();
+                droppedCount++;
+            }
+            records.addLast(record);
+        }
+
+        void flushTo(EntryLogBridge delegate) {
+            Record oldest = records.peekFirst();
+            if (droppedCount > 0) {
+                delegate.logOneMessage(oldest.fqcn, oldest.entry, oldest.level, "Dropped " + droppedCount + " earlier record(s) of this context, because the buffer holds at most " + capacity
+                        + ".", null);
+                discardedCount.addAndGet(droppedCount);
+                droppedCount = 0;
+            }
+            for (Record record = records.pollFirst(); record != null; record = records.pollFirst()) {
+                write(delegate, record.fqcn, record.entry, record.level, record.message, record.event, record.exception);
+            }
+        }
+    }
+
+    private static final class Record {
+        private final String fqcn;
+        private final EntryHandle entry;
+        private final LogLevel level;
+        private final String message;
+        private final LogEvent event;
+        private final Throwable exception;
+
+        Record(String fqcn, EntryHandle entry, LogLevel level, String message, LogEvent event, Throwable exception) {
+            this.fqcn = fqcn;
+            this.entry = entry;
+            this.level = level;
+            this.message = message;
+            this.event = event;
+            this.exception = exception;
+        }
+    }
+}
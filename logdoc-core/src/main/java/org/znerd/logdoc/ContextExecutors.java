@@ -0,0 +1,143 @@
+// See the COPYRIGHT file for copyright and license information
+package org.znerd.logdoc;
+
+import java.util.List;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.znerd.util.Preconditions;
+
+/**
+ * Carries the context ID of the submitting thread over to tasks that run on other threads. The context ID is captured when a task is wrapped or submitted and set in a {@link ContextScope} while
+ * the task runs, so pooled threads are left without a context ID afterwards.
+ */
+public final class ContextExecutors {
+
+    private ContextExecutors() {
+    }
+
+    /**
+     * Wraps a task so that it runs with the context ID of the current thread.
+     *
+     * @param task
+     *        the task, cannot be <code>null</code>.
+     * @return the wrapped task, never <code>null</code>.
+     */
+    public static Runnable withContext(final Runnable task) {
+        Preconditions.checkArgument(task == null, "task == null");
+        final String contextId = LogFacade.getContextId();
+        if (contextId == null) {
+            return task;
+        }
+        return new Runnable() {
+            @Override
+            public void run() {
+                ContextScope scope = ContextScope.open(contextId);
+                try {
+                    task.run();
+                } finally {
+                    scope.close();
+                }
+            }
+        };
+    }
+
+    /**
+     * Wraps a task so that it runs with the context ID of the current thread.
+     *
+     * @param task
+     *        the task, cannot be <code>null</code>.
+     * @return the wrapped task, never <code>null</code>.
+     */
+    public static <T> Callable<T> withContext(final Callable<T> task) {
+        Preconditions.checkArgument(task == null, "task == null");
+        final String contextId = LogFacade.getContextId();
+        if (contextId == null) {
+            return task;
+        }
+        return new Callable<T>() {
+            @Override
+            public T call() throws Exception {
+                ContextScope scope = ContextScope.open(contextId);
+                try {
+                    return task.call();
+                } finally {
+                    scope.close();
+                }
+            }
+        };
+    }
+
+    /**
+     * Returns an <code>Executor</code> that runs each task with the context ID of the thread that submitted it.
+     *
+     * @param executor
+     *        the executor that runs the tasks, cannot be <code>null</code>.
+     * @return the wrapping executor, never <code>null</code>.
+     */
+    public static Executor propagating(final Executor executor) {
+        Preconditions.checkArgument(executor == null, "executor == null");
+        return new Executor() {
+            @Override
+            public void execute(Runnable command) {
+                executor.execute(withContext(command));
+            }
+        };
+    }
+
+    /**
+     * Returns an <code>ExecutorService</code> that runs each task with the context ID of the thread that submitted it. Shutting down the returned service shuts down the wrapped one.
+     *
+     * @param executorService
+     *        the executor service that runs the tasks, cannot be <code>null</code>.
+     * @return the wrapping executor service, never <code>null</code>.
+     */
+    public static ExecutorService propagating(ExecutorService executorService) {
+        Preconditions.checkArgument(executorService == null, "executorService == null");
+        return new PropagatingExecutorService(executorService);
+    }
+
+    /**
+     * Uses the <code>submit</code> and <code>invoke</code> methods of <code>AbstractExecutorService</code>, which all call {@link #execute(Runnable)} on the submitting thread.
+     */
+    private static final class PropagatingExecutorService extends AbstractExecutorService {
+        private final ExecutorService delegate;
+
+        PropagatingExecutorService(ExecutorService delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public void execute(Runnable command) {
+            delegate.execute(withContext(command));
+        }
+
+        @Override
+        public void shutdown() {
+            delegate.shutdown();
+        }
+
+        @Override
+        public List<Runnable> shutdownNow() {
+            return delegate.shutdownNow();
+        }
+
+        @Override
+        public boolean isShutdown() {
+            return delegate.isShutdown();
+        }
+
+        @Override
+        public boolean isTerminated() {
+            return delegate.isTerminated();
+        }
+
+        @Override
+        public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+            return delegate.awaitTermination(timeout, unit);
+        }
+    }
+}
@@ -0,0 +1,73 @@
+// See the COPYRIGHT file for copyright and license information
+package org.znerd.logdoc;
+
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.znerd.util.Preconditions;
+
+/**
+ * Generates context IDs that are unique within the JVM and, through a node prefix, across JVMs. An ID consists of the prefix, a dash and a sequence number in base 36, for example
+ * <code>k2x9m4qa-1z</code>.
+ * <p>
+ * Each thread takes a block of {@value #BLOCK_SIZE} sequence numbers from a shared counter and then counts through its block without synchronization, so generating an ID is much cheaper than a
+ * random UUID and threads do not contend.
+ * <p>
+ * The prefix of the {@link #getDefault() default generator} is the value of the system property {@value #NODE_ID_PROPERTY} or, if that is not set, a random string that is chosen when this class
+ * is loaded.
+ */
+public final class ContextIdGenerator {
+
+    public static final String NODE_ID_PROPERTY = "org.znerd.logdoc.nodeId";
+
+    static final int BLOCK_SIZE = 1024;
+
+    private static final ContextIdGenerator DEFAULT = new ContextIdGenerator(determineNodeId());
+
+    private final String prefix;
+    private final AtomicLong nextBlock = new AtomicLong();
+    private final ThreadLocal<long[]> blocks = new ThreadLocal<long[]>() {
+        @Override
+        protected long[] initialValue() {
+            return new long[2];
+        }
+    };
+
+    /**
+     * Constructs a new <code>ContextIdGenerator</code>.
+     *
+     * @param nodeId
+     *        the prefix of the IDs, cannot be <code>null</code>.
+     */
+    public ContextIdGenerator(String nodeId) {
+        Preconditions.checkArgument(nodeId == null, "nodeId == null");
+        prefix = nodeId + '-';
+    }
+
+    public static ContextIdGenerator getDefault() {
+        return DEFAULT;
+    }
+
+    private static String determineNodeId() {
+        String nodeId = System.getProperty(NODE_ID_PROPERTY);
+        if (nodeId == null || nodeId.trim().length() < 1) {
+            return Long.toString((new Random().nextLong() >>> 23) | (1L << 40), 36);
+        } else {
+            return nodeId.trim();
+        }
+    }
+
+    /**
+     * Returns a new context ID.
+     *
+     * @return the context ID, never <code>null</code>.
+     */
+    public String next() {
+        long[] block = blocks.get();
+        if (block[0] == block[1]) {
+            block[0] = nextBlock.getAndIncrement() * BLOCK_SIZE;
+            block[1] = block[0] + BLOCK_SIZE;
+        }
+        return prefix + Long.toString(block[0]++, 36);
+    }
+}
@@ -0,0 +1,81 @@
+// See the COPYRIGHT file for copyright and license information
+package org.znerd.logdoc;
+
+import java.io.Closeable;
+
+import org.znerd.util.Preconditions;
+
+/**
+ * Scope in which a context ID is set for the current thread. Opening a scope puts the context ID; closing it removes the context ID and restores the one that was set when the scope was opened, so
+ * scopes can be nested. On Java 7 and up, use it in a <code>try</code>-with-resources statement:
+ *
+ * <pre>
+ * try (ContextScope scope = ContextScope.open(requestId)) {
+ *     ...
+ * }
+ * </pre>
+ *
+ * A scope must be closed by the thread that opened it, in the reverse order of opening. To carry the context ID over to tasks that run on other threads, see {@link ContextExecutors}.
+ */
+public final class ContextScope implements Closeable {
+
+    private final LogBridge logBridge;
+    private final String previousContextId;
+    private boolean closed;
+
+    private ContextScope(LogBridge logBridge, String contextId) {
+        this.logBridge = logBridge;
+        previousContextId = logBridge.getContextId();
+        logBridge.putContextId(contextId);
+    }
+
+    /**
+     * Opens a scope with the specified context ID on the current {@link LogBridge}.
+     *
+     * @param contextId
+     *        the context ID, cannot be <code>null</code>.
+     * @return the scope, never <code>null</code>.
+     */
+    public static ContextScope open(String contextId) {
+        return open(Library.getLogBridge(), contextId);
+    }
+
+    /**
+     * Opens a scope with the specified context ID on a specific {@link LogBridge}. The scope is closed on the same bridge, even if {@link Library#setLogBridge(LogBridge)} is called in between.
+     *
+     * @param logBridge
+     *        the bridge, cannot be <code>null</code>.
+     * @param contextId
+     *        the context ID, cannot be <code>null</code>.
+     * @return the scope, never <code>null</code>.
+     */
+    public static ContextScope open(LogBridge logBridge, String contextId) {
+        Preconditions.checkArgument(logBridge == null, "logBridge == null");
+        Preconditions.checkArgument(contextId == null, "contextId == null");
+        return new ContextScope(logBridge, contextId);
+    }
+
+    /**
+     * Returns the context ID that was set when this scope was opened and that is restored when it is closed.
+     *
+     * @return the context ID, or <code>null</code> if there was none.
+     */
+    public String getPreviousContextId() {
+        return previousContextId;
+    }
+
+    /**
+     * Removes the context ID of this scope and restores the previous one. Calling this method more than once has no effect.
+     */
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        logBridge.unputContextId();
+        if (previousContextId != null && !previousContextId.equals(logBridge.getContextId())) {
+            logBridge.putContextId(previousContextId);
+        }
+    }
+}
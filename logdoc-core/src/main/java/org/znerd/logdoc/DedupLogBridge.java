@@ -0,0 +1,428 @@
+// See the COPYRIGHT file for copyright and license information
+package org.znerd.logdoc;
+
+import java.util.Arrays;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+
+import org.znerd.util.Preconditions;
+import org.znerd.util.log.Limb;
+import org.znerd.util.log.LogLevel;
+
+/**
+ * <code>LogBridge</code> that suppresses repeats of the same message within a time window. The first occurrence is written to the wrapped bridge right away; when the window closes, one record
+ * saying how many times it was repeated is written instead of the repeats.
+ * <p>
+ * Two messages are the same if they are for the same entry and level, have the same exception (type, message and stack trace) and, depending on the {@link Mode}, have the same rendered message
+ * or the same hash of their arguments.
+ * <p>
+ * Recent messages are kept in a fixed-size table that is indexed by the hash of the message and updated with compare-and-set, so threads that log different messages do not contend. A message
+ * that hashes to a slot taken by another message evicts it, which closes the window of the evicted message early. Windows are also closed by a background thread, so the number of repeats is
+ * written even if the message is not logged again. The number of repeats of an evicted message is written by the background thread as well, under the context ID of the message, so the logging
+ * thread keeps its own context ID.
+ * <p>
+ * Only messages logged through an {@link EntryHandle} are deduplicated. Call {@link #close()} to write the pending repeat counts and stop the background thread. This is also done by a shutdown
+ * hook.
+ */
+public class DedupLogBridge extends LogBridgeDecorator {
+
+    /**
+     * How messages are compared.
+     */
+    public enum Mode {
+
+        /**
+         * Compare the rendered messages. {@link LogEvent}s are rendered before they are compared.
+         */
+        MESSAGE,
+
+        /**
+         * Compare a 64-bit hash of the arguments, as written by {@link LogEvent#writeArguments(ArgumentWriter)}. This avoids rendering the repeats, at the risk of treating two different messages
+         * with the same hash as repeats. Events that do not write their arguments and plain messages are compared as in {@link #MESSAGE} mode.
+         */
+        ARGUMENTS
+    }
+
+    public static final long DEFAULT_WINDOW = 1000L;
+    public static final int DEFAULT_CAPACITY = 1024;
+
+    private static final long CLOSED = Long.MIN_VALUE;
+
+    private final long window;
+    private final long windowNanos;
+    private final Mode mode;
+    private final AtomicReferenceArray<Record> records;
+    private final int mask;
+    private final AtomicLong suppressedCount = new AtomicLong();
+    private final Queue<Record> evicted = new ConcurrentLinkedQueue<Record>();
+    private final Thread sweeper;
+    private final Thread shutdownHook;
+    private volatile boolean closed;
+
+    public DedupLogBridge(LogBridge delegate) {
+        this(delegate, DEFAULT_WINDOW, DEFAULT_CAPACITY, Mode.MESSAGE);
+    }
+
+    /**
+     * Constructs a new <code>DedupLogBridge</code> and starts its background thread.
+     *
+     * @param delegate
+     *        the {@link LogBridge} to write the messages to, cannot be <code>null</code>.
+     * @param window
+     *        the time in milliseconds during which repeats of a message are suppressed, counted from its first occurrence, must be at least 1.
+     * @param capacity
+     *        the maximum number of distinct messages that are tracked at the same time, must be a power of two.
+     * @param mode
+     *        how messages are compared, cannot be <code>null</code>.
+     */
+    public DedupLogBridge(LogBridge delegate, long window, int capacity, Mode mode) {
+        super(delegate);
+        Preconditions.checkArgument(window < 1L, "window (" + window + ") < 1");
+        Preconditions.checkArgument(capacity < 1 || Integer.bitCount(capacity) != 1, "capacity (" + capacity + ") is not a power of two");
+        Preconditions.checkArgument(mode == null, "mode == null");
+
+        this.window = window;
+        this.windowNanos = TimeUnit.MILLISECONDS.toNanos(window);
+        this.mode = mode;
+        records = new AtomicReferenceArray<Record>(capacity);
+        mask = capacity - 1;
+
+        sweeper = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                sweepUntilClosed();
+            }
+        }, "Logdoc DedupLogBridge");
+        sweeper.setDaemon(true);
+        sweeper.start();
+
+        shutdownHook = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                close();
+            }
+        }, "Logdoc DedupLogBridge shutdown");
+        Runtime.getRuntime().addShutdownHook(shutdownHook);
+    }
+
+    public long getWindow() {
+        return window;
+    }
+
+    public int getCapacity() {
+        return records.length();
+    }
+
+    public Mode getMode() {
+        return mode;
+    }
+
+    /**
+     * Returns the number of repeats that have been suppressed since this bridge was constructed.
+     *
+     * @return the number of suppressed messages.
+     */
+    public long getSuppressedCount() {
+        return suppressedCount.get();
+    }
+
+    @Override
+    public void logOneMessage(String fqcn, EntryHandle entry, LogLevel level, String message, Throwable exception) {
+        if (closed) {
+            super.logOneMessage(fqcn, entry, level, message, exception);
+        } else {
+            logOnce(fqcn, entry, level, message, null, 0L, exception);
+        }
+    }
+
+    @Override
+    public void logEvent(String fqcn, EntryHandle entry, LogLevel level, LogEvent event, Throwable exception) {
+        if (closed) {
+            super.logEvent(fqcn, entry, level, event, exception);
+        } else if (mode == Mode.ARGUMENTS) {
+            ArgumentHasher hasher = new ArgumentHasher();
+            if (event.writeArguments(hasher)) {
+                logOnce(fqcn, entry, level, null, event, hasher.hash, exception);
+            } else {
+                logOnce(fqcn, entry, level, event.render(), null, 0L, exception);
+            }
+        } else {
+            logOnce(fqcn, entry, level, event.render(), null, 0L, exception);
+        }
+    }
+
+    private void logOnce(String fqcn, EntryHandle entry, LogLevel level, String message, LogEvent event, long argumentHash, Throwable exception) {
+        String category = entry.getCategory();
+        String exceptionClass = exception == null ? null : exception.getClass().getName();
+        String exceptionMessage = exception == null ? null : exception.getMessage();
+        int stackHash = exception == null ? 0 : Arrays.hashCode(exception.getStackTrace());
+
+        int hash = category.hashCode();
+        hash = 31 * hash + level.ordinal();
+        hash = 31 * hash + (message == null ? (int) (argumentHash ^ (argumentHash >>> 32)) : message.hashCode());
+        hash = 31 * hash + (exceptionClass == null ? 0 : exceptionClass.hashCode());
+        hash = 31 * hash + (exceptionMessage == null ? 0 : exceptionMessage.hashCode());
+        hash = 31 * hash + stackHash;
+        int index = (hash ^ (hash >>> 16)) & mask;
+
+        long now = System.nanoTime();
+        Record record = null;
+        while (true) {
+            Record current = records.get(index);
+            if (current != null && now - current.start < windowNanos && current.matches(category, level, message, argumentHash, exceptionClass, exceptionMessage, stackHash) && current.repeat()) {
+                suppressedCount.incrementAndGet();
+                return;
+            }
+            if (record == null) {
+                EntryHandle delegateEntry = getDelegateEntry(entry);
+                record = new Record(fqcn, delegateEntry, level, message, event, argumentHash, exceptionClass, exceptionMessage, stackHash, getDelegate().getContextId(), now);
+            }
+            if (records.compareAndSet(index, current, record)) {
+                if (current != null) {
+                    evict(current);
+                }
+                if (event != null) {
+                    getDelegate().logEvent(fqcn, record.entry, level, event, exception);
+                } else {
+                    getDelegate().logOneMessage(fqcn, record.entry, level, message, exception);
+                }
+                return;
+            }
+        }
+    }
+
+    /**
+     * Closes the window of a record that has been replaced in its slot and leaves its number of repeats to the background thread, since putting its context ID on the delegate would disturb the
+     * context ID of the calling thread.
+     */
+    private void evict(Record record) {
+        long repeats = record.close();
+        if (repeats > 0L) {
+            record.evictedRepeats = repeats;
+            evicted.add(record);
+
+            // Evicted while closing, after the background thread has stopped
+            if (closed) {
+                writeEvicted();
+            }
+        }
+    }
+
+    private void writeEvicted() {
+        for (Record record = evicted.poll(); record != null; record = evicted.poll()) {
+            writeRepeats(record, record.evictedRepeats);
+        }
+    }
+
+    private void writeRepeats(Record record) {
+        long repeats = record.close();
+        if (repeats > 0L) {
+            writeRepeats(record, repeats);
+        }
+    }
+
+    private void writeRepeats(Record record, long repeats) {
+
+        EntryLogBridge delegate = getDelegate();
+        String message = record.message != null ? record.message : record.event.render();
+        if (record.contextId != null) {
+            delegate.putContextId(record.contextId);
+        }
+        try {
+            delegate.logOneMessage(record.fqcn, record.entry, record.level, "Repeated " + repeats + " more time(s) within " + window + " ms: " + message, null);
+        } catch (Throwable cause) {
+            Limb.log(LogLevel.ERROR, "Failed to write number of repeated messages.", cause);
+        } finally {
+            if (record.contextId != null) {
+                delegate.unputContextId();
+            }
+        }
+    }
+
+    private void sweepUntilClosed() {
+        long interval = Math.max(TimeUnit.MILLISECONDS.toNanos(1L), windowNanos / 2L);
+        while (!closed) {
+            LockSupport.parkNanos(this, interval);
+            writeEvicted();
+            sweep(false);
+        }
+    }
+
+    /**
+     * Closes the windows that have expired, or all windows.
+     */
+    private void sweep(boolean all) {
+        long now = System.nanoTime();
+        for (int i = 0; i < records.length(); i++) {
+            Record record = records.get(i);
+            if (record != null && (all || now - record.start >= windowNanos) && records.compareAndSet(i, record, null)) {
+                writeRepeats(record);
+            }
+        }
+    }
+
+    /**
+     * Closes all windows, writing the number of repeats that have been suppressed so far.
+     */
+    public void flush() {
+        writeEvicted();
+        sweep(true);
+    }
+
+    /**
+     * Writes the pending number of repeats and stops the background thread. Messages logged after this method has been called are passed to the wrapped bridge as they are.
+     */
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        LockSupport.unpark(sweeper);
+        try {
+            sweeper.join();
+        } catch (InterruptedException cause) {
+            Thread.currentThread().interrupt();
+        }
+        flush();
+        try {
+            Runtime.getRuntime().removeShutdownHook(shutdownHook);
+        } catch (IllegalStateException cause) {
+            // The JVM is already shutting down, possibly running this very hook
+        }
+    }
+
+    private static final class Record {
+        final String fqcn;
+        final EntryHandle entry;
+        final LogLevel level;
+        final String message;
+        final LogEvent event;
+        final long argumentHash;
+        final String exceptionClass;
+        final String exceptionMessage;
+        final int stackHash;
+        final String contextId;
+        final long start;
+        final AtomicLong repeats = new AtomicLong();
+        long evictedRepeats;
+
+        Record(String fqcn, EntryHandle entry, LogLevel level, String message, LogEvent event, long argumentHash, String exceptionClass, String exceptionMessage, int stackHash, String contextId, long start) {
+            this.fqcn = fqcn;
+            this.entry = entry;
+            this.level = level;
+            this.message = message;
+            this.event = event;
+            this.argumentHash = argumentHash;
+            this.exceptionClass = exceptionClass;
+            this.exceptionMessage = exceptionMessage;
+            this.stackHash = stackHash;
+            this.contextId = contextId;
+            this.start = start;
+        }
+
+        boolean matches(String category, LogLevel level, String message, long argumentHash, String exceptionClass, String exceptionMessage, int stackHash) {
+            return this.level == level && this.argumentHash == argumentHash && this.stackHash == stackHash && entry.getCategory().equals(category) && equal(this.message, message)
+                    && equal(this.exceptionClass, exceptionClass) && equal(this.exceptionMessage, exceptionMessage);
+        }
+
+        private static boolean equal(String a, String b) {
+            return a == null ? b == null : a.equals(b);
+        }
+
+        /**
+         * Counts a repeat, unless the window has been closed.
+         */
+        boolean repeat() {
+            while (true) {
+                long count = repeats.get();
+                if (count == CLOSED) {
+                    return false;
+                }
+                if (repeats.compareAndSet(count, count + 1L)) {
+                    return true;
+                }
+            }
+        }
+
+        /**
+         * Closes the window, after which no more repeats are counted.
+         *
+         * @return the number of repeats.
+         */
+        long close() {
+            return repeats.getAndSet(CLOSED);
+        }
+    }
+
+    /**
+     * Computes a 64-bit FNV-1a hash of the arguments of an event.
+     */
+    private static final class ArgumentHasher implements ArgumentWriter {
+        long hash = 0xcbf29ce484222325L;
+
+        private void mix(long value) {
+            for (int i = 0; i < 8; i++) {
+                hash = (hash ^ (value & 0xFFL)) * 0x100000001b3L;
+                value >>>= 8;
+            }
+        }
+
+        @Override
+        public void writeNull() {
+            mix(0x4E554C4CL);
+        }
+
+        @Override
+        public void writeInt8(byte value) {
+            mix(value);
+        }
+
+        @Override
+        public void writeInt16(short value) {
+            mix(value);
+        }
+
+        @Override
+        public void writeInt32(int value) {
+            mix(value);
+        }
+
+        @Override
+        public void writeInt64(long value) {
+            mix(value);
+        }
+
+        @Override
+        public void writeFloat32(float value) {
+            mix(Float.floatToIntBits(value));
+        }
+
+        @Override
+        public void writeFloat64(double value) {
+            mix(Double.doubleToLongBits(value));
+        }
+
+        @Override
+        public void writeBoolean(boolean value) {
+            mix(value ? 1L : 0L);
+        }
+
+        @Override
+        public void writeText(String value) {
+            int length = value.length();
+            mix(length);
+            for (int i = 0; i < length; i++) {
+                hash = (hash ^ value.charAt(i)) * 0x100000001b3L;
+            }
+        }
+
+        @Override
+        public void writeObject(Object value) {
+            writeText(String.valueOf(value));
+        }
+    }
+}
@@ -0,0 +1,140 @@
+// See the COPYRIGHT file for copyright and license information
+package org.znerd.logdoc;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.znerd.util.Preconditions;
+import org.znerd.util.log.LogLevel;
+
+/**
+ * Metadata of a log entry, as declared in the <code>log.xml</code> file of its domain. Each generated <code>Log</code> class has a catalog of descriptors for all its entries, see
+ * {@link org.znerd.logdoc.internal.LogCentral#getEntryDescriptors()}.
+ * <p>
+ * The ordinal of an entry is its position in the <code>Log</code> class, counting from <code>0</code> in the order of declaration. Ordinals are dense, so per-entry state can be kept in an array
+ * indexed by ordinal instead of a map keyed by the entry ID.
+ */
+public final class EntryDescriptor {
+
+    private final String domain;
+    private final int ordinal;
+    private final String groupId;
+    private final String entryId;
+    private final LogLevel level;
+    private final String methodName;
+    private final List<String> paramNames;
+    private final List<String> paramTypes;
+    private final boolean exception;
+    private final String category;
+
+    /**
+     * Constructs a new <code>EntryDescriptor</code>.
+     *
+     * @param domain
+     *        the domain, cannot be <code>null</code>.
+     * @param ordinal
+     *        the position of the entry in its <code>Log</code> class, must be at least 0.
+     * @param groupId
+     *        the entry group ID, cannot be <code>null</code>.
+     * @param entryId
+     *        the entry ID, cannot be <code>null</code>.
+     * @param level
+     *        the level, cannot be <code>null</code>.
+     * @param methodName
+     *        the name of the log method, cannot be <code>null</code>.
+     * @param paramNames
+     *        the names of the parameters, in order, cannot be <code>null</code>.
+     * @param paramTypes
+     *        the types of the parameters as declared in <code>log.xml</code>, such as <code>text</code> or <code>int32</code>, cannot be <code>null</code> and must have the same length as
+     *        <code>paramNames</code>.
+     * @param exception
+     *        <code>true</code> if the log method takes an exception.
+     */
+    public EntryDescriptor(String domain, int ordinal, String groupId, String entryId, LogLevel level, String methodName, String[] paramNames, String[] paramTypes, boolean exception) {
+        Preconditions.checkArgument(domain == null, "domain == null");
+        Preconditions.checkArgument(ordinal < 0, "ordinal (" + ordinal + ") < 0");
+        Preconditions.checkArgument(groupId == null, "groupId == null");
+        Preconditions.checkArgument(entryId == null, "entryId == null");
+        Preconditions.checkArgument(level == null, "level == null");
+        Preconditions.checkArgument(methodName == null, "methodName == null");
+        Preconditions.checkArgument(paramNames == null, "paramNames == null");
+        Preconditions.checkArgument(paramTypes == null, "paramTypes == null");
+        Preconditions.checkArgument(paramNames.length != paramTypes.length, "paramNames.length (" + paramNames.length + ") != paramTypes.length (" + paramTypes.length + ')');
+        this.domain = domain;
+        this.ordinal = ordinal;
+        this.groupId = groupId;
+        this.entryId = entryId;
+        this.level = level;
+        this.methodName = methodName;
+        this.paramNames = Collections.unmodifiableList(Arrays.asList(paramNames.clone()));
+        this.paramTypes = Collections.unmodifiableList(Arrays.asList(paramTypes.clone()));
+        this.exception = exception;
+        this.category = domain + '.' + groupId + '.' + entryId;
+    }
+
+    public String getDomain() {
+        return domain;
+    }
+
+    public int getOrdinal() {
+        return ordinal;
+    }
+
+    public String getGroupId() {
+        return groupId;
+    }
+
+    public String getEntryId() {
+        return entryId;
+    }
+
+    public LogLevel getLevel() {
+        return level;
+    }
+
+    public String getMethodName() {
+        return methodName;
+    }
+
+    /**
+     * Returns the names of the parameters of the log method, excluding the exception.
+     *
+     * @return the names, in order, never <code>null</code>.
+     */
+    public List<String> getParamNames() {
+        return paramNames;
+    }
+
+    /**
+     * Returns the types of the parameters of the log method, as declared in <code>log.xml</code>.
+     *
+     * @return the types, in the order of {@link #getParamNames()}, never <code>null</code>.
+     */
+    public List<String> getParamTypes() {
+        return paramTypes;
+    }
+
+    /**
+     * Checks if the log method takes an exception, as its first argument.
+     *
+     * @return <code>true</code> if it does.
+     */
+    public boolean hasException() {
+        return exception;
+    }
+
+    /**
+     * Returns the category, which consists of the domain, group ID and entry ID, separated by dots. This matches {@link EntryHandle#getCategory()}.
+     *
+     * @return the category, never <code>null</code>.
+     */
+    public String getCategory() {
+        return category;
+    }
+
+    @Override
+    public String toString() {
+        return category;
+    }
+}
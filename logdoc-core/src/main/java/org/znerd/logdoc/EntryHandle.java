@@ -0,0 +1,78 @@
+// See the COPYRIGHT file for copyright and license information
+package org.znerd.logdoc;
+
+import org.znerd.util.Preconditions;
+
+/**
+ * Log entry that has been resolved by a specific <code>LogBridge</code>. Obtained by calling {@link EntryLogBridge#resolveEntry(String, String, String)}.
+ * <p>
+ * Generated <code>Log</code> classes keep one handle per entry, so that bridges can do expensive lookups (such as constructing the logger name and retrieving the backend logger) once, instead of on
+ * every call. Bridges typically subclass this class to store their backend logger.
+ */
+public class EntryHandle {
+
+    private final EntryLogBridge logBridge;
+    private final String domain;
+    private final String groupId;
+    private final String entryId;
+    private final String category;
+
+    /**
+     * Constructs a new <code>EntryHandle</code>.
+     *
+     * @param logBridge
+     *        the {@link EntryLogBridge} that resolved the entry, cannot be <code>null</code>.
+     * @param domain
+     *        the domain, cannot be <code>null</code>.
+     * @param groupId
+     *        the entry group ID, cannot be <code>null</code>.
+     * @param entryId
+     *        the entry ID, cannot be <code>null</code>.
+     */
+    public EntryHandle(EntryLogBridge logBridge, String domain, String groupId, String entryId) {
+        Preconditions.checkArgument(logBridge == null, "logBridge == null");
+        Preconditions.checkArgument(domain == null, "domain == null");
+        Preconditions.checkArgument(groupId == null, "groupId == null");
+        Preconditions.checkArgument(entryId == null, "entryId == null");
+        this.logBridge = logBridge;
+        this.domain = domain;
+        this.groupId = groupId;
+        this.entryId = entryId;
+        this.category = domain + '.' + groupId + '.' + entryId;
+    }
+
+    /**
+     * Returns the bridge that resolved this entry.
+     *
+     * @return the {@link EntryLogBridge}, never <code>null</code>.
+     */
+    public final EntryLogBridge getLogBridge() {
+        return logBridge;
+    }
+
+    public final String getDomain() {
+        return domain;
+    }
+
+    public final String getGroupId() {
+        return groupId;
+    }
+
+    public final String getEntryId() {
+        return entryId;
+    }
+
+    /**
+     * Returns the category of this entry, which is the domain, group ID and entry ID separated by dots.
+     *
+     * @return the category, for example <code>"org.znerd.mylibrary.transactions.104"</code>, never <code>null</code>.
+     */
+    public final String getCategory() {
+        return category;
+    }
+
+    @Override
+    public String toString() {
+        return category;
+    }
+}
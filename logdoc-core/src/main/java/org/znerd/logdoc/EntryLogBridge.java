@@ -0,0 +1,37 @@
+// See the COPYRIGHT file for copyright and license information
+package org.znerd.logdoc;
+
+import org.znerd.util.log.LogLevel;
+
+/**
+ * <code>LogBridge</code> that can resolve entries once and then log them through the resulting {@link EntryHandle}, without repeating any lookups. Generated <code>Log</code> classes use these
+ * methods.
+ * <p>
+ * All bridges in Logdoc implement this interface, typically by extending {@link AbstractLogBridge} or {@link LogBridgeDecorator}. A bridge that only implements {@link LogBridge} is still
+ * supported: it is adapted with {@link LogFacade#asEntryLogBridge(LogBridge)}, which falls back to the <code>String</code>-based methods.
+ */
+public interface EntryLogBridge extends LogBridge {
+
+    /**
+     * Resolves the specified entry, so it can be passed to {@link #shouldLog(EntryHandle, LogLevel)} and
+     * {@link #logOneMessage(String, EntryHandle, LogLevel, String, Throwable)} without repeating any lookups.
+     *
+     * @return the {@link EntryHandle}, never <code>null</code>; its {@link EntryHandle#getLogBridge() bridge} is this bridge.
+     */
+    EntryHandle resolveEntry(String domain, String groupId, String entryId);
+
+    boolean shouldLog(EntryHandle entry, LogLevel level);
+
+    void logOneMessage(String fqcn, EntryHandle entry, LogLevel level, String message, Throwable exception);
+
+    /**
+     * Logs a message whose translation has not been rendered yet. Bridges that write the message on the calling thread render it right away; bridges that write it elsewhere may defer
+     * rendering.
+     *
+     * @param event
+     *        the untranslated message, cannot be <code>null</code>.
+     * @param exception
+     *        the exception to log with the message, or <code>null</code>.
+     */
+    void logEvent(String fqcn, EntryHandle entry, LogLevel level, LogEvent event, Throwable exception);
+}
@@ -1,24 +1,79 @@
 // See the COPYRIGHT file for copyright and license information
 package org.znerd.logdoc;
 
+import java.lang.reflect.Method;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.logging.Filter;
+import java.util.logging.Handler;
 import java.util.logging.Level;
+import java.util.logging.LogManager;
+import java.util.logging.LogRecord;
 import java.util.logging.Logger;
 
 import org.znerd.logdoc.internal.ContextIdSupport;
+import org.znerd.logdoc.internal.MessageBuilders;
+import org.znerd.util.log.Limb;
 import org.znerd.util.log.LogLevel;
 
+/**
+ * <code>LogBridge</code> implementation that sends all messages to <code>java.util.logging</code>.
+ * <p>
+ * On Java 9 and up, this bridge detects when the <code>LogManager</code> configuration is re-read and then calls {@link Library#refreshLevels()}. Levels set directly on a <code>Logger</code> are not
+ * detected; call {@link Library#refreshLevels()} after changing those.
+ * <p>
+ * A level override set through {@link Library#setLevelOverride(String, String, LogLevel)} is also set on the <code>Logger</code> named after the domain or group, so that the entry loggers below
+ * it inherit the level. The previous level of that <code>Logger</code> is restored when the override is removed. Handler levels are not changed.
+ * <p>
+ * A record of a context that is traced through {@link TracedContexts} is passed to the handlers even if the level of its <code>Logger</code> rejects it, the way <code>Logger</code> itself
+ * would pass it on. The levels of the handlers still apply.
+ */
 public class JulLogBridge extends AbstractLogBridge {
 
     private static final JulLogBridge SINGLETON_INSTANCE = new JulLogBridge();
     private final ContextIdSupport contextIdSupport = new ContextIdSupport();
 
+    // Also keeps the overridden loggers reachable, since the LogManager only keeps weak references to them
+    private final Map<Logger, Level> originalLevels = new HashMap<Logger, Level>();
+
     private JulLogBridge() {
+        listenForReconfiguration();
+    }
+
+    private void listenForReconfiguration() {
+        Runnable listener = new Runnable() {
+            @Override
+            public void run() {
+                Library.refreshLevels();
+            }
+        };
+        try {
+            Method method = LogManager.class.getMethod("addConfigurationListener", Runnable.class);
+            method.invoke(LogManager.getLogManager(), listener);
+        } catch (NoSuchMethodException cause) {
+            Limb.log(LogLevel.DEBUG, "LogManager does not support configuration listeners; call Library.refreshLevels() after reconfiguring java.util.logging.");
+        } catch (Exception cause) {
+            Limb.log(LogLevel.WARNING, "Failed to register configuration listener with LogManager; call Library.refreshLevels() after reconfiguring java.util.logging.", cause);
+        }
     }
 
     public static final JulLogBridge getInstance() {
         return SINGLETON_INSTANCE;
     }
 
+    @Override
+    protected synchronized void levelOverrideChanged(String domain, String groupId, LogLevel level) {
+        Logger logger = Logger.getLogger(groupId == null ? domain : domain + '.' + groupId);
+        if (level != null) {
+            if (!originalLevels.containsKey(logger)) {
+                originalLevels.put(logger, logger.getLevel());
+            }
+            logger.setLevel(toJulLevel(level));
+        } else if (originalLevels.containsKey(logger)) {
+            logger.setLevel(originalLevels.remove(logger));
+        }
+    }
+
     @Override
     public void putContextId(String newContextId) {
         contextIdSupport.putContextId(newContextId);
@@ -36,7 +91,7 @@ public class JulLogBridge extends AbstractLogBridge {
 
     @Override
     public boolean shouldLog(String domain, String groupId, String entryId, LogLevel level) {
-        if (!getLevel().isSmallerThanOrEqualTo(level)) {
+        if (!getLevel(domain, groupId).isSmallerThanOrEqualTo(level)) {
             return false;
         }
         Logger logger = getLogger(domain, groupId, entryId);
@@ -48,6 +103,27 @@ public class JulLogBridge extends AbstractLogBridge {
         return Logger.getLogger(domain + '.' + groupId + '.' + entryId);
     }
 
+    private Logger getLogger(EntryHandle entry) {
+        if (entry instanceof JulEntryHandle) {
+            return ((JulEntryHandle) entry).logger;
+        } else {
+            return Logger.getLogger(entry.getCategory());
+        }
+    }
+
+    @Override
+    public EntryHandle resolveEntry(String domain, String groupId, String entryId) {
+        return new JulEntryHandle(this, domain, groupId, entryId);
+    }
+
+    @Override
+    public boolean shouldLog(EntryHandle entry, LogLevel level) {
+        if (!getLevel(entry.getDomain(), entry.getGroupId()).isSmallerThanOrEqualTo(level)) {
+            return false;
+        }
+        return getLogger(entry).isLoggable(toJulLevel(level));
+    }
+
     private Level toJulLevel(LogLevel level) {
         if (LogLevel.DEBUG.equals(level)) {
             return Level.FINE;
@@ -69,16 +145,98 @@ public class JulLogBridge extends AbstractLogBridge {
         final String sourceClass = fqcn;
         final String sourceMethod = null;
         final String composedMessage = composeMessage(fqcn, domain, groupId, entryId, level, message, exception);
-        logger.logp(julLevel, sourceClass, sourceMethod, composedMessage, exception);
+        log(logger, julLevel, sourceClass, sourceMethod, composedMessage, exception);
     }
     
+    @Override
+    public void logOneMessage(String fqcn, EntryHandle entry, LogLevel level, String message, Throwable exception) {
+        final Logger logger = getLogger(entry);
+        final Level julLevel = toJulLevel(level);
+        final String sourceClass = fqcn;
+        final String sourceMethod = null;
+        final String composedMessage = composeMessage(fqcn, entry.getDomain(), entry.getGroupId(), entry.getEntryId(), level, message, exception);
+        log(logger, julLevel, sourceClass, sourceMethod, composedMessage, exception);
+    }
+
+    @Override
+    public void logEvent(String fqcn, EntryHandle entry, LogLevel level, LogEvent event, Throwable exception) {
+        final Logger logger = getLogger(entry);
+        final Level julLevel = toJulLevel(level);
+        final String sourceClass = fqcn;
+        final String sourceMethod = null;
+        final String composedMessage;
+        StringBuilder builder = MessageBuilders.acquire();
+        try {
+            appendPrefix(builder, level);
+            builder.append(entry.getCategory()).append(' ');
+            event.appendTo(builder);
+            composedMessage = builder.toString();
+        } finally {
+            MessageBuilders.release(builder);
+        }
+        log(logger, julLevel, sourceClass, sourceMethod, composedMessage, exception);
+    }
+
+    private void log(Logger logger, Level julLevel, String sourceClass, String sourceMethod, String message, Throwable exception) {
+        if (logger.isLoggable(julLevel)) {
+            logger.logp(julLevel, sourceClass, sourceMethod, message, exception);
+        } else if (TracedContexts.isCurrentContextTraced(this)) {
+            LogRecord record = new LogRecord(julLevel, message);
+            record.setLoggerName(logger.getName());
+            record.setSourceClassName(sourceClass);
+            record.setSourceMethodName(sourceMethod);
+            record.setThrown(exception);
+            publish(logger, record);
+        }
+    }
+
+    /**
+     * Passes a record to the handlers of the specified logger and its parents, like <code>Logger.log(LogRecord)</code> does, but without checking the levels of the loggers.
+     */
+    private static void publish(Logger logger, LogRecord record) {
+        Filter filter = logger.getFilter();
+        if (filter != null && !filter.isLoggable(record)) {
+            return;
+        }
+        for (Logger current = logger; current != null; current = current.getParent()) {
+            for (Handler handler : current.getHandlers()) {
+                handler.publish(record);
+            }
+            if (!current.getUseParentHandlers()) {
+                break;
+            }
+        }
+    }
+
     protected String composeMessage(String fqcn, String domain, String groupId, String entryId, LogLevel level, String message, Throwable exception) {
-        String composedMessage = level.name() + " [";
+        StringBuilder builder = MessageBuilders.acquire();
+        try {
+            appendPrefix(builder, level);
+            builder.append(domain).append('.').append(groupId).append('.').append(entryId).append(' ');
+            builder.append(message);
+            return builder.toString();
+        } finally {
+            MessageBuilders.release(builder);
+        }
+    }
+
+    private void appendPrefix(StringBuilder builder, LogLevel level) {
+        builder.append(level.name()).append(" [");
         String contextId = getContextId();
         if (contextId != null) {
-            composedMessage += contextId;
+            builder.append(contextId);
+        }
+        builder.append("] ");
+    }
+
+    private static final class JulEntryHandle extends EntryHandle {
+
+        // Strong reference, since the LogManager only keeps weak references to loggers
+        private final Logger logger;
+
+        JulEntryHandle(JulLogBridge logBridge, String domain, String groupId, String entryId) {
+            super(logBridge, domain, groupId, entryId);
+            logger = Logger.getLogger(getCategory());
         }
-        composedMessage += "] " + domain + '.' + groupId + '.' + entryId + " " + message;
-        return composedMessage;
     }
 }
@@ -0,0 +1,62 @@
+// See the COPYRIGHT file for copyright and license information
+package org.znerd.logdoc;
+
+import org.znerd.util.log.LogLevel;
+
+/**
+ * Adapts a <code>LogBridge</code> that does not implement {@link EntryLogBridge}. The {@link EntryHandle}-based methods fall back to the <code>String</code>-based methods of the adapted bridge,
+ * see {@link AbstractLogBridge}.
+ */
+final class LegacyLogBridgeAdapter extends AbstractLogBridge {
+
+    private final LogBridge logBridge;
+
+    LegacyLogBridgeAdapter(LogBridge logBridge) {
+        this.logBridge = logBridge;
+    }
+
+    LogBridge getAdaptedLogBridge() {
+        return logBridge;
+    }
+
+    @Override
+    public void putContextId(String newContextId) {
+        logBridge.putContextId(newContextId);
+    }
+
+    @Override
+    public void unputContextId() {
+        logBridge.unputContextId();
+    }
+
+    @Override
+    public String getContextId() {
+        return logBridge.getContextId();
+    }
+
+    @Override
+    public boolean shouldLog(String domain, String groupId, String entryId, LogLevel level) {
+        return logBridge.shouldLog(domain, groupId, entryId, level);
+    }
+
+    @Override
+    public void logOneMessage(String fqcn, String domain, String groupId, String entryId, LogLevel level, String message, Throwable exception) {
+        logBridge.logOneMessage(fqcn, domain, groupId, entryId, level, message, exception);
+    }
+
+    @Override
+    public void setLevel(LogLevel level) {
+        logBridge.setLevel(level);
+        Library.refreshLevels();
+    }
+
+    @Override
+    public LogLevel getLevel() {
+        return logBridge.getLevel();
+    }
+
+    @Override
+    public String toString() {
+        return logBridge.toString();
+    }
+}
@@ -0,0 +1,104 @@
+// See the COPYRIGHT file for copyright and license information
+package org.znerd.logdoc;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.znerd.util.log.LogLevel;
+
+/**
+ * Immutable set of level overrides for domains and entry groups. Part of the {@link Library} configuration snapshot; changing an override creates a new instance.
+ */
+final class LevelOverrides {
+
+    static final LevelOverrides NONE = new LevelOverrides(new HashMap<String, DomainOverrides>());
+
+    /**
+     * Separates the domain from the group ID in the names returned by {@link #toMap()}. Neither can contain this character.
+     */
+    static final char SEPARATOR = ':';
+
+    private final Map<String, DomainOverrides> domains;
+
+    private LevelOverrides(Map<String, DomainOverrides> domains) {
+        this.domains = domains;
+    }
+
+    boolean isEmpty() {
+        return domains.isEmpty();
+    }
+
+    /**
+     * Returns the level that applies to the specified group: the override of the group if there is one, otherwise the override of the domain.
+     *
+     * @return the level, or <code>null</code> if neither is overridden.
+     */
+    LogLevel get(String domain, String groupId) {
+        if (domains.isEmpty()) {
+            return null;
+        }
+        DomainOverrides overrides = domains.get(domain);
+        if (overrides == null) {
+            return null;
+        }
+        LogLevel groupLevel = overrides.groups.get(groupId);
+        return groupLevel != null ? groupLevel : overrides.level;
+    }
+
+    /**
+     * Returns a copy with the override of a domain or group changed.
+     *
+     * @param groupId
+     *        the group ID, or <code>null</code> to change the override of the whole domain.
+     * @param level
+     *        the new level, or <code>null</code> to remove the override.
+     */
+    LevelOverrides with(String domain, String groupId, LogLevel level) {
+        Map<String, DomainOverrides> newDomains = new HashMap<String, DomainOverrides>(domains);
+        DomainOverrides current = domains.get(domain);
+        LogLevel domainLevel = current == null ? null : current.level;
+        Map<String, LogLevel> groups = current == null ? new HashMap<String, LogLevel>() : new HashMap<String, LogLevel>(current.groups);
+        if (groupId == null) {
+            domainLevel = level;
+        } else if (level == null) {
+            groups.remove(groupId);
+        } else {
+            groups.put(groupId, level);
+        }
+
+        if (domainLevel == null && groups.isEmpty()) {
+            newDomains.remove(domain);
+        } else {
+            newDomains.put(domain, new DomainOverrides(domainLevel, groups));
+        }
+        return newDomains.isEmpty() ? NONE : new LevelOverrides(newDomains);
+    }
+
+    /**
+     * Returns all overrides, keyed by domain for domain overrides and by domain and group ID separated by {@value #SEPARATOR} for group overrides.
+     */
+    Map<String, LogLevel> toMap() {
+        Map<String, LogLevel> map = new TreeMap<String, LogLevel>();
+        for (Map.Entry<String, DomainOverrides> domain : domains.entrySet()) {
+            if (domain.getValue().level != null) {
+                map.put(domain.getKey(), domain.getValue().level);
+            }
+            for (Map.Entry<String, LogLevel> group : domain.getValue().groups.entrySet()) {
+                map.put(domain.getKey() + SEPARATOR + group.getKey(), group.getValue());
+            }
+        }
+        return Collections.unmodifiableMap(map);
+    }
+
+    private static final class DomainOverrides {
+        private final LogLevel level;
+        private final Map<String, LogLevel> groups;
+
+        DomainOverrides(LogLevel level, Map<String, LogLevel> groups) {
+            this.level = level;
+            this.groups = groups;
+        }
+    }
+}
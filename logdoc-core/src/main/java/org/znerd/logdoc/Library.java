@@ -4,8 +4,11 @@ package org.znerd.logdoc;
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.URL;
+import java.util.Map;
 
+import org.znerd.logdoc.internal.LevelRefresher;
 import org.znerd.logdoc.internal.LogCentral;
+import org.znerd.logdoc.internal.RateLimiter;
 import org.znerd.util.Preconditions;
 import org.znerd.util.log.Limb;
 import org.znerd.util.log.LogLevel;
@@ -15,6 +18,10 @@ import org.znerd.util.log.LogLevel;
  * <p>
  * When this class is run as a program, then it prints the name and version (if known) of this
  * library to standard out.
+ * <p>
+ * The settings are kept in an immutable snapshot that the setters replace atomically, while
+ * holding the class lock. The getters are called on the logging hot path, so they do not lock:
+ * each one performs a single volatile read.
  */
 public final class Library {
 
@@ -23,10 +30,7 @@ public final class Library {
     public static final String DEFAULT_LOCALE;
     private static final LogBridge DEFAULT_LOG_BRIDGE;
     private static final String VERSION;
-    private static String CURRENT_LOCALE;
-    private static LogBridge CURRENT_LOG_BRIDGE;
-    private static boolean STACK_TRACE_AT_MESSAGE_LEVEL;
-    private static LogFilter LOG_FILTER;
+    private static volatile Configuration CONFIGURATION;
 
     private Library() {
     }
@@ -37,10 +41,7 @@ public final class Library {
         DEFAULT_LOCALE = "en_US";
         DEFAULT_LOG_BRIDGE = JulLogBridge.getInstance();
         VERSION = Library.class.getPackage().getImplementationVersion();
-        CURRENT_LOCALE = determineStartupLocale();
-        CURRENT_LOG_BRIDGE = DEFAULT_LOG_BRIDGE;
-        STACK_TRACE_AT_MESSAGE_LEVEL = true;
-        LOG_FILTER = initLogFilter();
+        CONFIGURATION = new Configuration(determineStartupLocale(), DEFAULT_LOG_BRIDGE, initLogFilter(), true, LevelOverrides.NONE);
     }
 
     private static String determineStartupLocale() {
@@ -113,9 +114,10 @@ public final class Library {
      */
     public static synchronized void setLocale(String newLocale) throws UnsupportedLocaleException {
         Preconditions.checkArgument(newLocale == null, "newLocale == null");
-        if (!newLocale.equals(CURRENT_LOCALE)) {
+        Configuration current = CONFIGURATION;
+        if (!newLocale.equals(current.locale)) {
             LogCentral.setLocale(newLocale);
-            CURRENT_LOCALE = newLocale;
+            CONFIGURATION = new Configuration(newLocale, current.logBridge, current.logFilter, current.stackTraceAtMessageLevel, current.levelOverrides);
         }
     }
 
@@ -131,12 +133,12 @@ public final class Library {
      * 
      * @return the locale, e.g. <code>"fr_FR"</code>; never <code>null</code>.
      */
-    public static synchronized String getLocale() {
-        return CURRENT_LOCALE;
+    public static String getLocale() {
+        return CONFIGURATION.locale;
     }
 
-    public static void resetLogBridge() {
-        CURRENT_LOG_BRIDGE = DEFAULT_LOG_BRIDGE;
+    public static synchronized void resetLogBridge() {
+        setLogBridge(DEFAULT_LOG_BRIDGE);
     }
 
     /**
@@ -145,18 +147,134 @@ public final class Library {
      * @return the logging bridge, never <code>null</code>.
      */
     public static LogBridge getLogBridge() {
-        return CURRENT_LOG_BRIDGE;
+        return CONFIGURATION.logBridge;
     }
 
     /**
-     * Sets the logging bridge to be used.
+     * Sets the logging bridge to be used. The entries of all registered <code>Log</code> classes are resolved against the new bridge.
+     * <p>
+     * While the bridge does not report level changes in its backend (see {@link AbstractLogBridge#isLevelChangeReported()}), the levels are refreshed periodically by
+     * {@link LevelRefresher}.
      * 
      * @param logBridge
      *        the {@link LogBridge} to use, cannot be <code>null</code>.
      */
     public static synchronized void setLogBridge(LogBridge logBridge) {
         Preconditions.checkArgument(logBridge == null, "logBridge == null");
-        CURRENT_LOG_BRIDGE = logBridge;
+        RateLimiter.reportAll();
+        Configuration current = CONFIGURATION;
+        if (logBridge != current.logBridge && !current.levelOverrides.isEmpty()) {
+            applyLevelOverrides(current.logBridge, current.levelOverrides, false);
+            try {
+                applyLevelOverrides(logBridge, current.levelOverrides, true);
+            } catch (UnsupportedOperationException cause) {
+                Limb.log(LogLevel.WARNING, "The level overrides are ignored by the new LogBridge.", cause);
+            }
+        }
+        CONFIGURATION = new Configuration(current.locale, logBridge, current.logFilter, current.stackTraceAtMessageLevel, current.levelOverrides);
+        LogCentral.bindEntries(logBridge);
+        LogCentral.refreshLevels();
+        if (isLevelChangeReported(logBridge)) {
+            LevelRefresher.stop();
+        } else {
+            LevelRefresher.start();
+        }
+    }
+
+    private static boolean isLevelChangeReported(LogBridge logBridge) {
+        while (logBridge instanceof LogBridgeDecorator) {
+            logBridge = ((LogBridgeDecorator) logBridge).getDelegate();
+        }
+        return !(logBridge instanceof AbstractLogBridge) || ((AbstractLogBridge) logBridge).isLevelChangeReported();
+    }
+
+    /**
+     * Makes all <code>Log</code> classes re-evaluate which entries are enabled. Logdoc caches these decisions, so this method must be called after the levels have been changed directly in the
+     * logging backend, for example through <code>java.util.logging.Logger.setLevel</code>.
+     * <p>
+     * This is done automatically when the {@link LogBridge} is changed, when {@link LogBridge#setLevel(LogLevel)} is called on a bridge derived from {@link AbstractLogBridge} and when a bridge
+     * detects that its backend has been reconfigured.
+     */
+    public static void refreshLevels() {
+        LogCentral.refreshLevels();
+    }
+
+    /**
+     * Overrides the level of a domain or an entry group. While an override is in effect, bridges derived from {@link AbstractLogBridge} use it instead of their own level (see
+     * {@link AbstractLogBridge#getLevel(String, String)}); an override of a group takes precedence over an override of its domain. Bridges whose backend has levels of its own, such as
+     * {@link JulLogBridge}, also set the level of the backend logger named after the domain or group, and restore it when the override is removed (see
+     * {@link AbstractLogBridge#levelOverrideChanged(String, String, LogLevel)}). Thresholds of handlers or appenders in the backend still apply.
+     * <p>
+     * The enabled entries of all <code>Log</code> classes are re-evaluated, so the change takes effect right away, without any locking on the logging path.
+     *
+     * @param domain
+     *        the domain, cannot be <code>null</code>.
+     * @param groupId
+     *        the entry group ID, or <code>null</code> to override the level of the whole domain.
+     * @param level
+     *        the new level, or <code>null</code> to remove the override.
+     * @throws UnsupportedOperationException
+     *         if the current {@link LogBridge} does not support level overrides.
+     */
+    public static synchronized void setLevelOverride(String domain, String groupId, LogLevel level) throws UnsupportedOperationException {
+        Preconditions.checkArgument(domain == null, "domain == null");
+        Configuration current = CONFIGURATION;
+        applyLevelOverride(current.logBridge, domain, groupId, level);
+        CONFIGURATION = new Configuration(current.locale, current.logBridge, current.logFilter, current.stackTraceAtMessageLevel, current.levelOverrides.with(domain, groupId, level));
+        LogCentral.refreshLevels();
+    }
+
+    /**
+     * Removes all level overrides.
+     */
+    public static synchronized void clearLevelOverrides() {
+        Configuration current = CONFIGURATION;
+        if (!current.levelOverrides.isEmpty()) {
+            applyLevelOverrides(current.logBridge, current.levelOverrides, false);
+            CONFIGURATION = new Configuration(current.locale, current.logBridge, current.logFilter, current.stackTraceAtMessageLevel, LevelOverrides.NONE);
+            LogCentral.refreshLevels();
+        }
+    }
+
+    private static void applyLevelOverrides(LogBridge logBridge, LevelOverrides levelOverrides, boolean set) {
+        for (Map.Entry<String, LogLevel> override : levelOverrides.toMap().entrySet()) {
+            String name = override.getKey();
+            int separator = name.indexOf(LevelOverrides.SEPARATOR);
+            String domain = separator < 0 ? name : name.substring(0, separator);
+            String groupId = separator < 0 ? null : name.substring(separator + 1);
+            applyLevelOverride(logBridge, domain, groupId, set ? override.getValue() : null);
+        }
+    }
+
+    private static void applyLevelOverride(LogBridge logBridge, String domain, String groupId, LogLevel level) {
+        while (logBridge instanceof LogBridgeDecorator) {
+            logBridge = ((LogBridgeDecorator) logBridge).getDelegate();
+        }
+        if (logBridge instanceof AbstractLogBridge) {
+            ((AbstractLogBridge) logBridge).levelOverrideChanged(domain, groupId, level);
+        }
+    }
+
+    /**
+     * Returns the level override that applies to the specified entry group: the override of the group if there is one, otherwise the override of its domain.
+     *
+     * @param domain
+     *        the domain, cannot be <code>null</code>.
+     * @param groupId
+     *        the entry group ID, cannot be <code>null</code>.
+     * @return the level, or <code>null</code> if neither the group nor the domain is overridden.
+     */
+    public static LogLevel getLevelOverride(String domain, String groupId) {
+        return CONFIGURATION.levelOverrides.get(domain, groupId);
+    }
+
+    /**
+     * Returns all level overrides.
+     *
+     * @return an unmodifiable map from the domain, or the domain and group ID separated by a colon, to the level; never <code>null</code>.
+     */
+    public static Map<String, LogLevel> getLevelOverrides() {
+        return CONFIGURATION.levelOverrides.toMap();
     }
 
     /**
@@ -167,7 +285,8 @@ public final class Library {
      *        if the stack trace should be at LOG4J_DEBUG_LEVEL level.
      */
     public static synchronized void setStackTraceAtMessageLevel(boolean sameLevel) {
-        STACK_TRACE_AT_MESSAGE_LEVEL = sameLevel;
+        Configuration current = CONFIGURATION;
+        CONFIGURATION = new Configuration(current.locale, current.logBridge, current.logFilter, sameLevel, current.levelOverrides);
     }
 
     /**
@@ -176,8 +295,8 @@ public final class Library {
      * @return <code>true</code> if the stack trace should be at the same level, <code>false</code>
      *         if the stack trace should be at LOG4J_DEBUG_LEVEL level.
      */
-    public static synchronized boolean isStackTraceAtMessageLevel() {
-        return STACK_TRACE_AT_MESSAGE_LEVEL;
+    public static boolean isStackTraceAtMessageLevel() {
+        return CONFIGURATION.stackTraceAtMessageLevel;
     }
 
     /**
@@ -189,7 +308,8 @@ public final class Library {
     public static synchronized void setLogFilter(LogFilter logFilter) {
         Preconditions.checkArgument(logFilter == null, "logFilter == null");
         Limb.log(LogLevel.DEBUG, "Set LogFilter to instance of class " + logFilter.getClass().getName() + '.');
-        LOG_FILTER = logFilter;
+        Configuration current = CONFIGURATION;
+        CONFIGURATION = new Configuration(current.locale, current.logBridge, logFilter, current.stackTraceAtMessageLevel, current.levelOverrides);
     }
 
     /**
@@ -211,8 +331,8 @@ public final class Library {
      * 
      * @return the current {@link LogFilter}, never <code>null</code>.
      */
-    public static synchronized LogFilter getLogFilter() {
-        return LOG_FILTER;
+    public static LogFilter getLogFilter() {
+        return CONFIGURATION.logFilter;
     }
 
     /**
@@ -252,4 +372,23 @@ public final class Library {
     public static InputStream getMetaResourceAsStream(String path) throws NoSuchResourceException, IOException {
         return getMetaResource(path).openStream();
     }
+
+    /**
+     * Immutable snapshot of the library settings.
+     */
+    private static final class Configuration {
+        private final String locale;
+        private final LogBridge logBridge;
+        private final LogFilter logFilter;
+        private final boolean stackTraceAtMessageLevel;
+        private final LevelOverrides levelOverrides;
+
+        Configuration(String locale, LogBridge logBridge, LogFilter logFilter, boolean stackTraceAtMessageLevel, LevelOverrides levelOverrides) {
+            this.locale = locale;
+            this.logBridge = logBridge;
+            this.logFilter = logFilter;
+            this.stackTraceAtMessageLevel = stackTraceAtMessageLevel;
+            this.levelOverrides = levelOverrides;
+        }
+    }
 }
@@ -0,0 +1,171 @@
+// See the COPYRIGHT file for copyright and license information
+package org.znerd.logdoc;
+
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+
+import org.znerd.util.log.LogLevel;
+
+/**
+ * The line format shared by the bridges that write text: an optional timestamp, the level, the context ID in brackets, the category and the message, followed by a line separator and the stack
+ * trace of the exception, if any. For example:
+ *
+ * <pre>
+ * 2012-06-28 14:31:12.117 NOTICE [ctx-1] org.znerd.mylibrary.transactions.102 Starting transaction 7.
+ * </pre>
+ */
+final class LineFormat {
+
+    static final String LINE_SEPARATOR = System.getProperty("line.separator");
+
+    private static final String[] LEVEL_PREFIXES = levelPrefixes();
+
+    private LineFormat() {
+    }
+
+    private static String[] levelPrefixes() {
+        LogLevel[] levels = LogLevel.values();
+        String[] prefixes = new String[levels.length];
+        for (LogLevel level : levels) {
+            prefixes[level.ordinal()] = level.name() + " [";
+        }
+        return prefixes;
+    }
+
+    /**
+     * Appends the timestamp (if any), the level and the context ID.
+     */
+    static void appendPrefix(StringBuilder builder, TimestampCache timestampCache, LogLevel level, String contextId) {
+        if (timestampCache != null) {
+            timestampCache.appendTo(builder);
+            builder.append(' ');
+        }
+        builder.append(LEVEL_PREFIXES[level.ordinal()]);
+        if (contextId != null) {
+            builder.append(contextId);
+        }
+        builder.append("] ");
+    }
+
+    static void appendCategory(StringBuilder builder, String domain, String groupId, String entryId) {
+        builder.append(domain).append('.').append(groupId).append('.').append(entryId).append(' ');
+    }
+
+    static void appendCategory(StringBuilder builder, EntryHandle entry) {
+        if (entry instanceof LineEntryHandle) {
+            builder.append(((LineEntryHandle) entry).categoryPrefix);
+        } else {
+            builder.append(entry.getCategory()).append(' ');
+        }
+    }
+
+    /**
+     * Appends the line separator and the stack trace of the exception, if any.
+     */
+    static void appendEnd(StringBuilder builder, Throwable exception) {
+        builder.append(LINE_SEPARATOR);
+        if (exception != null) {
+            PrintWriter printWriter = new PrintWriter(new BuilderWriter(builder));
+            exception.printStackTrace(printWriter);
+            printWriter.flush();
+        }
+    }
+
+    /**
+     * Entry handle that holds the category prefix of each line for the entry.
+     */
+    static final class LineEntryHandle extends EntryHandle {
+        private final String categoryPrefix;
+
+        LineEntryHandle(EntryLogBridge logBridge, String domain, String groupId, String entryId) {
+            super(logBridge, domain, groupId, entryId);
+            categoryPrefix = getCategory() + ' ';
+        }
+    }
+
+    /**
+     * Timestamp that is formatted again only when the current time in milliseconds has changed. Threads logging within the same millisecond share the formatted timestamp.
+     */
+    static final class TimestampCache {
+        private final String pattern;
+        private final SimpleDateFormat format;
+        private volatile FormattedTimestamp current = new FormattedTimestamp(Long.MIN_VALUE, "");
+
+        TimestampCache(String pattern) {
+            this.pattern = pattern;
+            this.format = new SimpleDateFormat(pattern);
+        }
+
+        static TimestampCache forPattern(String pattern) {
+            return pattern == null ? null : new TimestampCache(pattern);
+        }
+
+        static String patternOf(TimestampCache cache) {
+            return cache == null ? null : cache.pattern;
+        }
+
+        void appendTo(StringBuilder builder) {
+            long now = System.currentTimeMillis();
+            FormattedTimestamp timestamp = current;
+            if (timestamp.millis != now) {
+                timestamp = format(now);
+            }
+            builder.append(timestamp.text);
+        }
+
+        private synchronized FormattedTimestamp format(long now) {
+            FormattedTimestamp timestamp = current;
+            if (timestamp.millis != now) {
+                timestamp = new FormattedTimestamp(now, format.format(new Date(now)));
+                current = timestamp;
+            }
+            return timestamp;
+        }
+    }
+
+    private static final class FormattedTimestamp {
+        private final long millis;
+        private final String text;
+
+        FormattedTimestamp(long millis, String text) {
+            this.millis = millis;
+            this.text = text;
+        }
+    }
+
+    /**
+     * <code>Writer</code> that appends to a <code>StringBuilder</code>, used to render stack traces as part of the line.
+     */
+    private static final class BuilderWriter extends Writer {
+        private final StringBuilder builder;
+
+        BuilderWriter(StringBuilder builder) {
+            this.builder = builder;
+        }
+
+        @Override
+        public void write(char[] chars, int offset, int length) {
+            builder.append(chars, offset, length);
+        }
+
+        @Override
+        public void write(String s, int offset, int length) {
+            builder.append(s, offset, offset + length);
+        }
+
+        @Override
+        public void write(int c) {
+            builder.append((char) c);
+        }
+
+        @Override
+        public void flush() {
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
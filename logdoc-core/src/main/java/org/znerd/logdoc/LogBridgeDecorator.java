@@ -0,0 +1,115 @@
+// See the COPYRIGHT file for copyright and license information
+package org.znerd.logdoc;
+
+import org.znerd.util.Preconditions;
+import org.znerd.util.log.LogLevel;
+
+/**
+ * Abstract base class for <code>LogBridge</code> implementations that add behaviour to another bridge. All methods forward to the wrapped bridge; subclasses override the ones they decorate.
+ * <p>
+ * Entries are resolved by the wrapped bridge and then wrapped in a handle of this bridge, so that the generated <code>Log</code> classes call this bridge. Use {@link #getDelegateEntry(EntryHandle)}
+ * to obtain the wrapped bridge's handle.
+ */
+public abstract class LogBridgeDecorator implements EntryLogBridge {
+
+    private final EntryLogBridge delegate;
+
+    /**
+     * Constructs a new <code>LogBridgeDecorator</code>.
+     *
+     * @param delegate
+     *        the bridge to wrap, cannot be <code>null</code>. A bridge that does not implement {@link EntryLogBridge} is adapted, see {@link LogFacade#asEntryLogBridge(LogBridge)}.
+     */
+    protected LogBridgeDecorator(LogBridge delegate) {
+        Preconditions.checkArgument(delegate == null, "delegate == null");
+        this.delegate = LogFacade.asEntryLogBridge(delegate);
+    }
+
+    /**
+     * Returns the wrapped bridge.
+     *
+     * @return the wrapped bridge, never <code>null</code>.
+     */
+    public final EntryLogBridge getDelegate() {
+        return delegate;
+    }
+
+    /**
+     * Returns the handle of the wrapped bridge for the specified entry.
+     *
+     * @param entry
+     *        an entry resolved by this bridge, cannot be <code>null</code>.
+     * @return the corresponding entry resolved by the wrapped bridge, never <code>null</code>.
+     */
+    protected final EntryHandle getDelegateEntry(EntryHandle entry) {
+        if (entry instanceof DecoratedEntryHandle && entry.getLogBridge() == this) {
+            return ((DecoratedEntryHandle) entry).delegateEntry;
+        } else {
+            return delegate.resolveEntry(entry.getDomain(), entry.getGroupId(), entry.getEntryId());
+        }
+    }
+
+    @Override
+    public void putContextId(String newContextId) {
+        delegate.putContextId(newContextId);
+    }
+
+    @Override
+    public void unputContextId() {
+        delegate.unputContextId();
+    }
+
+    @Override
+    public String getContextId() {
+        return delegate.getContextId();
+    }
+
+    @Override
+    public boolean shouldLog(String domain, String groupId, String entryId, LogLevel level) {
+        return delegate.shouldLog(domain, groupId, entryId, level);
+    }
+
+    @Override
+    public void logOneMessage(String fqcn, String domain, String groupId, String entryId, LogLevel level, String message, Throwable exception) {
+        delegate.logOneMessage(fqcn, domain, groupId, entryId, level, message, exception);
+    }
+
+    @Override
+    public EntryHandle resolveEntry(String domain, String groupId, String entryId) {
+        return new DecoratedEntryHandle(this, delegate.resolveEntry(domain, groupId, entryId));
+    }
+
+    @Override
+    public boolean shouldLog(EntryHandle entry, LogLevel level) {
+        return delegate.shouldLog(getDelegateEntry(entry), level);
+    }
+
+    @Override
+    public void logOneMessage(String fqcn, EntryHandle entry, LogLevel level, String message, Throwable exception) {
+        delegate.logOneMessage(fqcn, getDelegateEntry(entry), level, message, exception);
+    }
+
+    @Override
+    public void logEvent(String fqcn, EntryHandle entry, LogLevel level, LogEvent event, Throwable exception) {
+        delegate.logEvent(fqcn, getDelegateEntry(entry), level, event, exception);
+    }
+
+    @Override
+    public void setLevel(LogLevel logLevel) {
+        delegate.setLevel(logLevel);
+    }
+
+    @Override
+    public LogLevel getLevel() {
+        return delegate.getLevel();
+    }
+
+    private static final class DecoratedEntryHandle extends EntryHandle {
+        private final EntryHandle delegateEntry;
+
+        DecoratedEntryHandle(LogBridgeDecorator logBridge, EntryHandle delegateEntry) {
+            super(logBridge, delegateEntry.getDomain(), delegateEntry.getGroupId(), delegateEntry.getEntryId());
+            this.delegateEntry = delegateEntry;
+        }
+    }
+}
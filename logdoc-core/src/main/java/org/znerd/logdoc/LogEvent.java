@@ -0,0 +1,68 @@
+// See the COPYRIGHT file for copyright and license information
+package org.znerd.logdoc;
+
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+
+/**
+ * Log message that has not been translated yet. Holds the entry's arguments; the translation is only rendered when {@link #render()} is called.
+ * <p>
+ * <code>Log</code> classes generated with deferred translation pass events to {@link LogBridge#logEvent(String, EntryHandle, org.znerd.util.log.LogLevel, LogEvent, Throwable)} instead of
+ * translating on the calling thread. A bridge that hands messages to another thread, such as {@link AsyncLogBridge}, can pass the event along, so the translation is rendered there.
+ * <p>
+ * Events are immutable and may be rendered any number of times, on any thread. The translation bundle that is current at the time of rendering is used.
+ */
+public abstract class LogEvent {
+
+    protected LogEvent() {
+    }
+
+    /**
+     * Renders the translation of this event.
+     *
+     * @return the translated message, never <code>null</code>.
+     */
+    public abstract String render();
+
+    /**
+     * Renders the translation of this event into the specified buffer. Subclasses should override this method to append the translation without creating an intermediate string; by default
+     * the result of {@link #render()} is appended.
+     *
+     * @param buffer
+     *        the buffer to append the translated message to, cannot be <code>null</code>.
+     */
+    public void appendTo(StringBuilder buffer) {
+        buffer.append(render());
+    }
+
+    /**
+     * Writes the arguments of this event to the specified writer, without translating. Events of generated <code>Log</code> classes override this method; by default, nothing is written and
+     * <code>false</code> is returned, in which case the caller should fall back to {@link #render()}.
+     *
+     * @param writer
+     *        the writer to pass the arguments to, cannot be <code>null</code>.
+     * @return <code>true</code> if the arguments were written, <code>false</code> if this event does not support it.
+     */
+    public boolean writeArguments(ArgumentWriter writer) {
+        return false;
+    }
+
+    /**
+     * Writes the translation of this event as UTF-8 to the specified buffer. Events of generated <code>Log</code> classes override this method to write the literal parts of the translation
+     * as pre-encoded bytes; by default, nothing is written and <code>false</code> is returned, in which case the caller should fall back to {@link #appendTo(StringBuilder)}.
+     *
+     * @param buffer
+     *        the buffer to write the translated message to, cannot be <code>null</code>.
+     * @return <code>true</code> if the translation was written, <code>false</code> if this event does not support it.
+     * @throws BufferOverflowException
+     *         if the buffer does not have enough room left; the position of the buffer is then undefined.
+     */
+    public boolean encodeTo(ByteBuffer buffer) throws BufferOverflowException {
+        return false;
+    }
+
+    @Override
+    public String toString() {
+        return render();
+    }
+}
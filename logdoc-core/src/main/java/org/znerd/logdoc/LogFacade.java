@@ -22,7 +22,8 @@ public class LogFacade { // TODO: Change to final once org.znerd.logdoc.internal
     }
 
     public static boolean shouldLog(String domain, String groupId, String entryId, LogLevel level) {
-        return Library.getLogBridge().shouldLog(domain, groupId, entryId, level);
+        LogBridge logBridge = Library.getLogBridge();
+        return logBridge.shouldLog(domain, groupId, entryId, level) || TracedContexts.isCurrentContextTraced(logBridge);
     }
 
     public static void log(String fqcn, String domain, String groupId, String entryId, LogLevel level, String message) {
@@ -39,4 +40,53 @@ public class LogFacade { // TODO: Change to final once org.znerd.logdoc.internal
             logBridge.logOneMessage(fqcn, domain, groupId, entryId, level, message, exception);
         }
     }
+
+    /**
+     * Returns the specified bridge as an {@link EntryLogBridge}. A bridge that does not implement that interface is wrapped in an adapter, whose {@link EntryHandle}-based methods fall back to
+     * the <code>String</code>-based methods of the bridge.
+     *
+     * @param logBridge
+     *        the bridge, cannot be <code>null</code>.
+     * @return the bridge itself if it implements {@link EntryLogBridge}, otherwise an adapter; never <code>null</code>.
+     */
+    public static EntryLogBridge asEntryLogBridge(LogBridge logBridge) {
+        if (logBridge instanceof EntryLogBridge) {
+            return (EntryLogBridge) logBridge;
+        }
+        return new LegacyLogBridgeAdapter(logBridge);
+    }
+
+    public static boolean shouldLog(EntryHandle entry, LogLevel level) {
+        return entry.getLogBridge().shouldLog(entry, level) || TracedContexts.isCurrentContextTraced(entry.getLogBridge());
+    }
+
+    public static void log(String fqcn, EntryHandle entry, LogLevel level, String message) {
+        Throwable exception = null;
+        log(fqcn, entry, level, message, exception);
+    }
+
+    public static void log(String fqcn, EntryHandle entry, LogLevel level, String message, Throwable exception) {
+        EntryLogBridge logBridge = entry.getLogBridge();
+        if (!(LogLevel.DEBUG.equals(level) || Library.isStackTraceAtMessageLevel() || exception == null)) {
+            logBridge.logOneMessage(fqcn, entry, level, message, null);
+            logBridge.logOneMessage(fqcn, entry, LogLevel.DEBUG, message, exception);
+        } else {
+            logBridge.logOneMessage(fqcn, entry, level, message, exception);
+        }
+    }
+
+    public static void log(String fqcn, EntryHandle entry, LogLevel level, LogEvent event) {
+        Throwable exception = null;
+        log(fqcn, entry, level, event, exception);
+    }
+
+    public static void log(String fqcn, EntryHandle entry, LogLevel level, LogEvent event, Throwable exception) {
+        EntryLogBridge logBridge = entry.getLogBridge();
+        if (!(LogLevel.DEBUG.equals(level) || Library.isStackTraceAtMessageLevel() || exception == null)) {
+            logBridge.logEvent(fqcn, entry, level, event, null);
+            logBridge.logEvent(fqcn, entry, LogLevel.DEBUG, event, exception);
+        } else {
+            logBridge.logEvent(fqcn, entry, level, event, exception);
+        }
+    }
 }
@@ -4,14 +4,82 @@ package org.znerd.logdoc;
 import java.io.PrintWriter;
 
 import org.znerd.logdoc.internal.ContextIdSupport;
+import org.znerd.logdoc.internal.MessageBuilders;
 import org.znerd.util.log.LogLevel;
 
+/**
+ * <code>LogBridge</code> implementation that writes all messages to a <code>PrintWriter</code>.
+ * <p>
+ * Each record, including the line separator and the stack trace of the exception (if any), is composed in a per-thread buffer and passed to the stream in a single <code>write</code> call, so
+ * records logged concurrently by different threads are never interleaved. The category prefix of each entry is computed once, when the entry is resolved. Optionally each record starts with a
+ * timestamp, see {@link #setTimestampFormat(String)}; it is formatted at most once per millisecond.
+ * <p>
+ * Since the record is not written using <code>println</code>, the automatic flushing of the <code>PrintWriter</code> does not apply. Instead the stream is flushed after each record, unless
+ * this is turned off using {@link #setAutoFlush(boolean)}.
+ * <p>
+ * Subclasses that override {@link #composeMessage(String, String, String, String, LogLevel, String, Throwable)} or {@link #log(PrintWriter, String, Throwable)} get a composed
+ * <code>String</code> passed to these methods instead, as before.
+ */
 public class PrintWriterLogBridge extends AbstractLogBridge {
+
     private final PrintWriter stream;
     private final ContextIdSupport contextIdSupport = new ContextIdSupport();
+    private final boolean customized;
+    private volatile LineFormat.TimestampCache timestampCache;
+    private volatile boolean autoFlush = true;
 
     public PrintWriterLogBridge(PrintWriter stream) {
         this.stream = stream;
+        this.customized = overrides("composeMessage", String.class, String.class, String.class, String.class, LogLevel.class, String.class, Throwable.class)
+                || overrides("log", PrintWriter.class, String.class, Throwable.class);
+    }
+
+    private boolean overrides(String methodName, Class<?>... parameterTypes) {
+        for (Class<?> c = getClass(); c != PrintWriterLogBridge.class; c = c.getSuperclass()) {
+            try {
+                c.getDeclaredMethod(methodName, parameterTypes);
+                return true;
+            } catch (NoSuchMethodException cause) {
+                // Not declared in this class, try the superclass
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Sets the format of the timestamp that each record starts with.
+     *
+     * @param pattern
+     *        the pattern, as supported by <code>SimpleDateFormat</code>, for example <code>"yyyy-MM-dd HH:mm:ss.SSS"</code>, or <code>null</code> if records should not start with a timestamp
+     *        (the default).
+     * @throws IllegalArgumentException
+     *         if the pattern is invalid.
+     */
+    public void setTimestampFormat(String pattern) {
+        timestampCache = LineFormat.TimestampCache.forPattern(pattern);
+    }
+
+    /**
+     * Returns the format of the timestamp that each record starts with.
+     *
+     * @return the pattern, or <code>null</code> if records do not start with a timestamp.
+     */
+    public String getTimestampFormat() {
+        return LineFormat.TimestampCache.patternOf(timestampCache);
+    }
+
+    /**
+     * Sets whether the stream should be flushed after each record. Default is <code>true</code>.
+     *
+     * @param autoFlush
+     *        <code>true</code> if the stream should be flushed after each record.
+     */
+    public void setAutoFlush(boolean autoFlush) {
+        this.autoFlush = autoFlush;
+    }
+
+    public boolean isAutoFlush() {
+        return autoFlush;
     }
 
     @Override
@@ -31,7 +99,7 @@ public class PrintWriterLogBridge extends AbstractLogBridge {
 
     @Override
     public boolean shouldLog(String domain, String groupId, String entryId, LogLevel level) {
-        switch (getLevel()) {
+        switch (getLevel(domain, groupId)) {
             case DEBUG:
                 return true;
             case INFO:
@@ -47,21 +115,85 @@ public class PrintWriterLogBridge extends AbstractLogBridge {
         }
     }
 
+    @Override
+    public EntryHandle resolveEntry(String domain, String groupId, String entryId) {
+        return new LineFormat.LineEntryHandle(this, domain, groupId, entryId);
+    }
+
     @Override
     public void logOneMessage(String fqcn, String domain, String groupId, String entryId, LogLevel level, String message, Throwable exception) {
-        String composedMessage = composeMessage(fqcn, domain, groupId, entryId, level, message, exception);
-        PrintWriter stream = getStream(fqcn, domain, groupId, entryId, level);
-        log(stream, composedMessage, exception);
+        if (customized) {
+            String composedMessage = composeMessage(fqcn, domain, groupId, entryId, level, message, exception);
+            PrintWriter stream = getStream(fqcn, domain, groupId, entryId, level);
+            log(stream, composedMessage, exception);
+            return;
+        }
+
+        StringBuilder builder = MessageBuilders.acquire();
+        try {
+            appendPrefix(builder, level);
+            LineFormat.appendCategory(builder, domain, groupId, entryId);
+            builder.append(message);
+            write(getStream(fqcn, domain, groupId, entryId, level), builder, exception);
+        } finally {
+            MessageBuilders.release(builder);
+        }
     }
 
-    protected String composeMessage(String fqcn, String domain, String groupId, String entryId, LogLevel level, String message, Throwable exception) {
-        String composedMessage = level.name() + " [";
-        String contextId = getContextId();
-        if (contextId != null) {
-            composedMessage += contextId;
+    @Override
+    public void logOneMessage(String fqcn, EntryHandle entry, LogLevel level, String message, Throwable exception) {
+        if (customized) {
+            super.logOneMessage(fqcn, entry, level, message, exception);
+            return;
+        }
+
+        StringBuilder builder = MessageBuilders.acquire();
+        try {
+            appendPrefix(builder, level);
+            LineFormat.appendCategory(builder, entry);
+            builder.append(message);
+            write(getStream(fqcn, entry.getDomain(), entry.getGroupId(), entry.getEntryId(), level), builder, exception);
+        } finally {
+            MessageBuilders.release(builder);
+        }
+    }
+
+    @Override
+    public void logEvent(String fqcn, EntryHandle entry, LogLevel level, LogEvent event, Throwable exception) {
+        if (customized) {
+            super.logEvent(fqcn, entry, level, event, exception);
+            return;
+        }
+
+        StringBuilder builder = MessageBuilders.acquire();
+        try {
+            appendPrefix(builder, level);
+            LineFormat.appendCategory(builder, entry);
+            event.appendTo(builder);
+            write(getStream(fqcn, entry.getDomain(), entry.getGroupId(), entry.getEntryId(), level), builder, exception);
+        } finally {
+            MessageBuilders.release(builder);
         }
-        composedMessage += "] " + domain + '.' + groupId + '.' + entryId + " " + message;
-        return composedMessage;
+    }
+
+    private void appendPrefix(StringBuilder builder, LogLevel level) {
+        LineFormat.appendPrefix(builder, timestampCache, level, getContextId());
+    }
+
+    private void write(PrintWriter stream, StringBuilder builder, Throwable exception) {
+        LineFormat.appendEnd(builder, exception);
+        stream.write(MessageBuilders.toChars(builder), 0, builder.length());
+        if (autoFlush) {
+            stream.flush();
+        }
+    }
+
+    protected String composeMessage(String fqcn, String domain, String groupId, String entryId, LogLevel level, String message, Throwable exception) {
+        StringBuilder builder = new StringBuilder(128);
+        appendPrefix(builder, level);
+        LineFormat.appendCategory(builder, domain, groupId, entryId);
+        builder.append(message);
+        return builder.toString();
     }
 
     protected PrintWriter getStream(String fqcn, String domain, String groupId, String entryId, LogLevel level) {
@@ -69,9 +201,12 @@ public class PrintWriterLogBridge extends AbstractLogBridge {
     }
 
     protected void log(PrintWriter stream, String composedMessage, Throwable exception) {
-        stream.println(composedMessage);
-        if (exception != null) {
-            exception.printStackTrace(stream);
+        StringBuilder builder = MessageBuilders.acquire();
+        try {
+            builder.append(composedMessage);
+            write(stream, builder, exception);
+        } finally {
+            MessageBuilders.release(builder);
         }
     }
 }
@@ -0,0 +1,799 @@
+// See the COPYRIGHT file for copyright and license information
+package org.znerd.logdoc;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.text.SimpleDateFormat;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.GZIPOutputStream;
+
+import org.znerd.logdoc.internal.ContextIdSupport;
+import org.znerd.logdoc.internal.MessageBuilders;
+import org.znerd.util.Preconditions;
+import org.znerd.util.log.Limb;
+import org.znerd.util.log.LogLevel;
+
+/**
+ * <code>LogBridge</code> that writes all messages to a file, using the same line format as {@link PrintWriterLogBridge}. The file is rotated when it reaches a maximum size or age; rotated files
+ * are compressed with gzip on a background thread.
+ * <p>
+ * Each record is encoded as UTF-8 into a per-thread buffer on the calling thread. {@link LogEvent}s of generated <code>Log</code> classes are encoded without rendering them to a string
+ * first: the literal parts of their translations are pre-encoded. The buffer is then handed to a background thread through a bounded ring, without locking; the calling thread takes the
+ * buffer of an earlier record from the ring in exchange. The background thread copies the records into the direct buffers of the pending batch and writes the batch to a
+ * <code>FileChannel</code> with a single gathering write (group commit) when the {@link #setCommitSize(int) commit size} is reached or the {@link #setCommitInterval(long) commit interval} has
+ * passed, and optionally forces it to disk. If more than {@link #setMaxPendingSize(int) the maximum pending size} is waiting to be written, logging threads wait.
+ * <p>
+ * Files are only rotated between batches, so a file may become larger than the maximum size by at most one batch. The age of a file is checked independently of its size; an empty file is not
+ * rotated when it reaches the maximum age, instead its age starts again. A rotated file is renamed to the name of the file followed by the time of
+ * rotation, for example <code>app.log.20120628-143112.117</code>, and then compressed to <code>app.log.20120628-143112.117.gz</code>. If the file is rotated more than once within a
+ * millisecond, a counter is appended (<code>_1</code>, <code>_2</code>, ...), so that the names of the rotated files sort in the order they were written.
+ * <p>
+ * Call {@link #close()} to write all pending records, close the file and wait for the compression of rotated files to finish. This is also done by a shutdown hook.
+ */
+public class RollingFileLogBridge extends AbstractLogBridge implements Closeable {
+
+    public static final long DEFAULT_MAX_FILE_SIZE = 64L * 1024L * 1024L;
+    public static final long DEFAULT_COMMIT_INTERVAL = 100L;
+    public static final int DEFAULT_COMMIT_SIZE = 256 * 1024;
+    public static final int DEFAULT_MAX_PENDING_SIZE = 4 * 1024 * 1024;
+
+    private static final int CHUNK_SIZE = 64 * 1024;
+    private static final int RING_CAPACITY = 1024;
+    private static final int INITIAL_ENCODER_CAPACITY = 1024;
+    private static final int MAX_RETAINED_ENCODER_CAPACITY = 64 * 1024;
+    private static final String ARCHIVE_TIMESTAMP_FORMAT = "yyyyMMdd-HHmmss.SSS";
+
+    private final File file;
+    private final long maxFileSize;
+    private final long maxFileAge;
+    private final ContextIdSupport contextIdSupport = new ContextIdSupport();
+    private final ThreadLocal<Encoder> encoders = new ThreadLocal<Encoder>() {
+        @Override
+        protected Encoder initialValue() {
+            return new Encoder();
+        }
+    };
+    private final ExecutorService compressor;
+    private final Thread writer;
+    private final Thread shutdownHook;
+    private volatile LineFormat.TimestampCache timestampCache;
+    private volatile long commitInterval = DEFAULT_COMMIT_INTERVAL;
+    private volatile int commitSize = DEFAULT_COMMIT_SIZE;
+    private volatile int maxPendingSize = DEFAULT_MAX_PENDING_SIZE;
+    private volatile boolean sync;
+    private volatile boolean compress = true;
+
+    private final Record[] records = new Record[RING_CAPACITY];
+    private final AtomicLong tail = new AtomicLong();
+    private final AtomicLong pendingBytes = new AtomicLong();
+    private final AtomicLong droppedCount = new AtomicLong();
+    private volatile long head;
+    private volatile long completedRecords;
+    private volatile boolean writerWaiting;
+    private volatile boolean flushRequested;
+    private volatile boolean closed;
+
+    // Only used to wait for the writer thread
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition batchTaken = lock.newCondition();
+
+    // Only used by the writer thread
+    private ByteBuffer[] pending = new ByteBuffer[16];
+    private int pendingCount;
+    private long batchBytes;
+    private long batchRecords;
+    private final ArrayDeque<ByteBuffer> freeChunks = new ArrayDeque<ByteBuffer>();
+    private FileChannel channel;
+    private long fileSize;
+    private long fileOpened;
+
+    public RollingFileLogBridge(File file) throws IOException {
+        this(file, DEFAULT_MAX_FILE_SIZE, 0L);
+    }
+
+    /**
+     * Constructs a new <code>RollingFileLogBridge</code>, opens the file and starts the background threads. If the file exists, records are appended to it.
+     *
+     * @param file
+     *        the file to write to, cannot be <code>null</code>; its directory is created if it does not exist.
+     * @param maxFileSize
+     *        the size in bytes at which the file is rotated, must be at least 1.
+     * @param maxFileAge
+     *        the number of milliseconds after which the file is rotated, or <code>0L</code> to only rotate by size.
+     * @throws IOException
+     *         if the file could not be opened.
+     */
+    public RollingFileLogBridge(File file, long maxFileSize, long maxFileAge) throws IOException {
+        Preconditions.checkArgument(file == null, "file == null");
+        Preconditions.checkArgument(maxFileSize < 1L, "maxFileSize (" + maxFileSize + ") < 1");
+        Preconditions.checkArgument(maxFileAge < 0L, "maxFileAge (" + maxFileAge + ") < 0");
+        this.file = file.getAbsoluteFile();
+        this.maxFileSize = maxFileSize;
+        this.maxFileAge = maxFileAge;
+        for (int i = 0; i < RING_CAPACITY; i++) {
+            records[i] = new Record(i);
+        }
+
+        File directory = this.file.getParentFile();
+        if (directory != null && !directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Failed to create directory \"" + directory.getPath() + "\".");
+        }
+        openFile();
+
+        compressor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "Logdoc RollingFileLogBridge compressor");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+
+        writer = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                writeBatches();
+            }
+        }, "Logdoc RollingFileLogBridge");
+        writer.setDaemon(true);
+        writer.start();
+
+        shutdownHook = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                close();
+            }
+        }, "Logdoc RollingFileLogBridge shutdown");
+        Runtime.getRuntime().addShutdownHook(shutdownHook);
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    public long getMaxFileSize() {
+        return maxFileSize;
+    }
+
+    public long getMaxFileAge() {
+        return maxFileAge;
+    }
+
+    /**
+     * Sets the format of the timestamp that each record starts with, see {@link PrintWriterLogBridge#setTimestampFormat(String)}.
+     *
+     * @param pattern
+     *        the pattern, as supported by <code>SimpleDateFormat</code>, or <code>null</code> if records should not start with a timestamp (the default).
+     * @throws IllegalArgumentException
+     *         if the pattern is invalid.
+     */
+    public void setTimestampFormat(String pattern) {
+        timestampCache = LineFormat.TimestampCache.forPattern(pattern);
+    }
+
+    public String getTimestampFormat() {
+        return LineFormat.TimestampCache.patternOf(timestampCache);
+    }
+
+    /**
+     * Sets the maximum number of milliseconds that a record waits before it is written to the file. Default is {@value #DEFAULT_COMMIT_INTERVAL}.
+     *
+     * @param interval
+     *        the interval in milliseconds, must be at least 1.
+     */
+    public void setCommitInterval(long interval) {
+        Preconditions.checkArgument(interval < 1L, "interval (" + interval + ") < 1");
+        commitInterval = interval;
+    }
+
+    public long getCommitInterval() {
+        return commitInterval;
+    }
+
+    /**
+     * Sets the number of pending bytes at which they are written to the file, without waiting for the commit interval to pass. Default is {@value #DEFAULT_COMMIT_SIZE}.
+     *
+     * @param size
+     *        the size in bytes, must be at least 1.
+     */
+    public void setCommitSize(int size) {
+        Preconditions.checkArgument(size < 1, "size (" + size + ") < 1");
+        commitSize = size;
+    }
+
+    public int getCommitSize() {
+        return commitSize;
+    }
+
+    /**
+     * Sets the number of pending bytes at which logging threads wait until they have been written. Default is {@value #DEFAULT_MAX_PENDING_SIZE}.
+     *
+     * @param size
+     *        the size in bytes, must be at least 1.
+     */
+    public void setMaxPendingSize(int size) {
+        Preconditions.checkArgument(size < 1, "size (" + size + ") < 1");
+        maxPendingSize = size;
+    }
+
+    public int getMaxPendingSize() {
+        return maxPendingSize;
+    }
+
+    /**
+     * Sets whether each batch is forced to disk after it has been written. Default is <code>false</code>.
+     *
+     * @param sync
+     *        <code>true</code> if each batch should be forced to disk.
+     */
+    public void setSync(boolean sync) {
+        this.sync = sync;
+    }
+
+    public boolean isSync() {
+        return sync;
+    }
+
+    /**
+     * Sets whether rotated files are compressed. Default is <code>true</code>.
+     *
+     * @param compress
+     *        <code>true</code> if rotated files should be compressed with gzip.
+     */
+    public void setCompress(boolean compress) {
+        this.compress = compress;
+    }
+
+    public boolean isCompress() {
+        return compress;
+    }
+
+    /**
+     * Returns the number of records that were not written, because they were logged after this bridge was closed or because writing them failed.
+     *
+     * @return the number of dropped records.
+     */
+    public long getDroppedCount() {
+        return droppedCount.get();
+    }
+
+    @Override
+    public void putContextId(String newContextId) {
+        contextIdSupport.putContextId(newContextId);
+    }
+
+    @Override
+    public void unputContextId() {
+        contextIdSupport.unputContextId();
+    }
+
+    @Override
+    public String getContextId() {
+        return contextIdSupport.getContextId();
+    }
+
+    @Override
+    public boolean shouldLog(String domain, String groupId, String entryId, LogLevel level) {
+        return getLevel(domain, groupId).isSmallerThanOrEqualTo(level);
+    }
+
+    @Override
+    public EntryHandle resolveEntry(String domain, String groupId, String entryId) {
+        return new LineFormat.LineEntryHandle(this, domain, groupId, entryId);
+    }
+
+    @Override
+    public void logOneMessage(String fqcn, String domain, String groupId, String entryId, LogLevel level, String message, Throwable exception) {
+        StringBuilder builder = MessageBuilders.acquire();
+        try {
+            LineFormat.appendPrefix(builder, timestampCache, level, getContextId());
+            LineFormat.appendCategory(builder, domain, groupId, entryId);
+            builder.append(message);
+            write(builder, exception);
+        } finally {
+            MessageBuilders.release(builder);
+        }
+    }
+
+    @Override
+    public void logOneMessage(String fqcn, EntryHandle entry, LogLevel level, String message, Throwable exception) {
+        StringBuilder builder = MessageBuilders.acquire();
+        try {
+            LineFormat.appendPrefix(builder, timestampCache, level, getContextId());
+            LineFormat.appendCategory(builder, entry);
+            builder.append(message);
+            write(builder, exception);
+        } finally {
+            MessageBuilders.release(builder);
+        }
+    }
+
+    @Override
+    public void logEvent(String fqcn, EntryHandle entry, LogLevel level, LogEvent event, Throwable exception) {
+        StringBuilder builder = MessageBuilders.acquire();
+        try {
+            LineFormat.appendPrefix(builder, timestampCache, level, getContextId());
+            LineFormat.appendCategory(builder, entry);
+            Encoder encoder = encoders.get();
+            if (encoder.encode(builder, event)) {
+                builder.setLength(0);
+                LineFormat.appendEnd(builder, exception);
+                encoder.append(builder);
+                enqueue(encoder);
+            } else {
+                event.appendTo(builder);
+                write(builder, exception);
+            }
+        } finally {
+            MessageBuilders.release(builder);
+        }
+    }
+
+    private void write(StringBuilder builder, Throwable exception) {
+        LineFormat.appendEnd(builder, exception);
+        Encoder encoder = encoders.get();
+        encoder.encode(builder);
+        enqueue(encoder);
+    }
+
+    private void enqueue(Encoder encoder) {
+        int length = encoder.buffer.position();
+        if (!closed && isOverPendingSize(length)) {
+            awaitRoom(length);
+        }
+        long sequence = closed ? -1L : claim();
+        if (sequence < 0L) {
+            droppedCount.incrementAndGet();
+            return;
+        }
+
+        Record record = records[(int) sequence & (RING_CAPACITY - 1)];
+        ByteBuffer spare = record.buffer;
+        record.buffer = encoder.buffer;
+        encoder.buffer = spare != null ? spare : ByteBuffer.allocate(INITIAL_ENCODER_CAPACITY);
+        long pending = pendingBytes.addAndGet(length);
+        record.sequence = sequence + 1;
+
+        if (writerWaiting && (pending >= commitSize || sequence - head >= RING_CAPACITY / 2)) {
+            LockSupport.unpark(writer);
+        }
+
+        // The writer thread may have stopped between the check for closed and the claim
+        if (closed) {
+            dropIfNotWritten(sequence);
+        }
+    }
+
+    private boolean isOverPendingSize(int length) {
+        long pending = pendingBytes.get();
+        return pending > 0L && pending + length > maxPendingSize;
+    }
+
+    private void awaitRoom(int length) {
+        boolean interrupted = false;
+        lock.lock();
+        try {
+            while (!closed && writer.isAlive() && isOverPendingSize(length)) {
+                flushRequested = true;
+                LockSupport.unpark(writer);
+                try {
+                    batchTaken.await(10L, TimeUnit.MILLISECONDS);
+                } catch (InterruptedException cause) {
+                    interrupted = true;
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Claims a slot in the ring, waiting for the writer thread if the ring is full.
+     *
+     * @return the sequence number of the claimed slot, or <code>-1L</code> if the record should be dropped because the bridge is closed or the writer thread has stopped.
+     */
+    private long claim() {
+        while (true) {
+            long sequence = tail.get();
+            long available = records[(int) sequence & (RING_CAPACITY - 1)].sequence - sequence;
+            if (available == 0L) {
+                if (tail.compareAndSet(sequence, sequence + 1)) {
+                    return sequence;
+                }
+            } else if (available < 0L) {
+                if (closed || !writer.isAlive()) {
+                    return -1L;
+                }
+                LockSupport.unpark(writer);
+                Thread.yield();
+            }
+        }
+    }
+
+    private void dropIfNotWritten(long sequence) {
+        if (Thread.currentThread() == writer) {
+            return;
+        }
+        boolean interrupted = false;
+        while (writer.isAlive()) {
+            try {
+                writer.join();
+            } catch (InterruptedException cause) {
+                interrupted = true;
+            }
+        }
+        if (head <= sequence) {
+            droppedCount.incrementAndGet();
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void writeBatches() {
+        try {
+            while (true) {
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(commitInterval);
+                boolean stopping;
+                while (true) {
+                    stopping = closed;
+                    takeRecords();
+                    if (stopping || flushRequested || batchBytes >= commitSize) {
+                        break;
+                    }
+                    long remaining = deadline - System.nanoTime();
+                    if (remaining <= 0L) {
+                        break;
+                    }
+                    writerWaiting = true;
+                    if (!isAvailable()) {
+                        LockSupport.parkNanos(this, remaining);
+                    }
+                    writerWaiting = false;
+                }
+                flushRequested = false;
+                if (batchRecords > 0L) {
+                    commitBatch();
+                }
+                if (stopping && head == tail.get()) {
+                    break;
+                }
+            }
+        } finally {
+            closeFile();
+            signalBatchTaken();
+        }
+    }
+
+    private boolean isAvailable() {
+        long sequence = head;
+        return records[(int) sequence & (RING_CAPACITY - 1)].sequence == sequence + 1;
+    }
+
+    private void takeRecords() {
+        while (true) {
+            long sequence = head;
+            Record record = records[(int) sequence & (RING_CAPACITY - 1)];
+            if (record.sequence != sequence + 1) {
+                return;
+            }
+            ByteBuffer buffer = record.buffer;
+            append(buffer.array(), buffer.position());
+            if (buffer.capacity() > MAX_RETAINED_ENCODER_CAPACITY) {
+                record.buffer = null;
+            }
+            batchRecords++;
+            record.sequence = sequence + RING_CAPACITY;
+            head = sequence + 1;
+        }
+    }
+
+    private void append(byte[] bytes, int length) {
+        for (int offset = 0; offset < length;) {
+            ByteBuffer chunk = pendingCount > 0 ? pending[pendingCount - 1] : null;
+            if (chunk == null || !chunk.hasRemaining()) {
+                chunk = takeChunk();
+            }
+            int count = Math.min(length - offset, chunk.remaining());
+            chunk.put(bytes, offset, count);
+            offset += count;
+        }
+        batchBytes += length;
+    }
+
+    private ByteBuffer takeChunk() {
+        ByteBuffer chunk = freeChunks.poll();
+        if (chunk == null) {
+            chunk = ByteBuffer.allocateDirect(CHUNK_SIZE);
+        }
+        if (pendingCount == pending.length) {
+            pending = Arrays.copyOf(pending, pendingCount * 2);
+        }
+        pending[pendingCount++] = chunk;
+        return chunk;
+    }
+
+    private void commitBatch() {
+        int count = pendingCount;
+        long bytes = batchBytes;
+        long committed = batchRecords;
+        boolean written = commit(count, bytes);
+
+        for (int i = 0; i < count; i++) {
+            ByteBuffer chunk = pending[i];
+            pending[i] = null;
+            chunk.clear();
+            if ((freeChunks.size() + 1) * (long) CHUNK_SIZE <= maxPendingSize) {
+                freeChunks.add(chunk);
+            }
+        }
+        pendingCount = 0;
+        batchBytes = 0L;
+        batchRecords = 0L;
+        if (!written) {
+            droppedCount.addAndGet(committed);
+        }
+        pendingBytes.addAndGet(-bytes);
+        completedRecords += committed;
+        signalBatchTaken();
+    }
+
+    private void signalBatchTaken() {
+        lock.lock();
+        try {
+            batchTaken.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private boolean commit(int count, long bytes) {
+        try {
+            // If a previous rotation failed to open the new file, try again
+            if (channel == null) {
+                openFile();
+            } else if (shouldRotate(bytes)) {
+                rotate();
+            }
+            for (int i = 0; i < count; i++) {
+                pending[i].flip();
+            }
+            long remaining = bytes;
+            while (remaining > 0L) {
+                remaining -= channel.write(pending, 0, count);
+            }
+            if (sync) {
+                channel.force(false);
+            }
+            fileSize += bytes;
+            return true;
+        } catch (IOException cause) {
+            Limb.log(LogLevel.ERROR, "Failed to write to log file \"" + file.getPath() + "\".", cause);
+            return false;
+        }
+    }
+
+    private boolean shouldRotate(long bytes) {
+        if (maxFileAge > 0L && System.currentTimeMillis() - fileOpened >= maxFileAge) {
+            if (fileSize > 0L) {
+                return true;
+            }
+            // Nothing to archive, so the age of the empty file starts again
+            fileOpened = System.currentTimeMillis();
+        }
+        return fileSize > 0L && fileSize + bytes > maxFileSize;
+    }
+
+    private void rotate() throws IOException {
+        closeFile();
+        File archive = archiveFileFor(System.currentTimeMillis());
+        if (!file.renameTo(archive)) {
+            Limb.log(LogLevel.ERROR, "Failed to rename log file \"" + file.getPath() + "\" to \"" + archive.getPath() + "\".");
+        } else if (compress) {
+            compressLater(archive);
+        }
+        openFile();
+    }
+
+    private File archiveFileFor(long time) {
+        String baseName = file.getName() + '.' + new SimpleDateFormat(ARCHIVE_TIMESTAMP_FORMAT).format(new Date(time));
+        File archive = new File(file.getParentFile(), baseName);
+        for (int i = 1; archive.exists() || new File(archive.getPath() + ".gz").exists(); i++) {
+            archive = new File(file.getParentFile(), baseName + '_' + i);
+        }
+        return archive;
+    }
+
+    private void openFile() throws IOException {
+        channel = new FileOutputStream(file, true).getChannel();
+        fileSize = channel.size();
+        fileOpened = System.currentTimeMillis();
+    }
+
+    private void closeFile() {
+        if (channel != null) {
+            try {
+                channel.close();
+            } catch (IOException cause) {
+                Limb.log(LogLevel.ERROR, "Failed to close log file \"" + file.getPath() + "\".", cause);
+            }
+            channel = null;
+        }
+    }
+
+    private void compressLater(final File archive) {
+        compressor.execute(new Runnable() {
+            @Override
+            public void run() {
+                compress(archive);
+            }
+        });
+    }
+
+    private static void compress(File archive) {
+        File compressed = new File(archive.getPath() + ".gz");
+        InputStream in = null;
+        OutputStream out = null;
+        try {
+            in = new FileInputStream(archive);
+            out = new GZIPOutputStream(new FileOutputStream(compressed));
+            byte[] buffer = new byte[CHUNK_SIZE];
+            for (int count = in.read(buffer); count >= 0; count = in.read(buffer)) {
+                out.write(buffer, 0, count);
+            }
+            out.close();
+            out = null;
+            in.close();
+            in = null;
+            if (!archive.delete()) {
+                Limb.log(LogLevel.WARNING, "Failed to delete log file \"" + archive.getPath() + "\" after compressing it.");
+            }
+        } catch (IOException cause) {
+            Limb.log(LogLevel.ERROR, "Failed to compress log file \"" + archive.getPath() + "\".", cause);
+            closeQuietly(out);
+            if (!compressed.delete()) {
+                Limb.log(LogLevel.WARNING, "Failed to delete incomplete file \"" + compressed.getPath() + "\".");
+            }
+        } finally {
+            closeQuietly(in);
+            closeQuietly(out);
+        }
+    }
+
+    private static void closeQuietly(Closeable closeable) {
+        if (closeable != null) {
+            try {
+                closeable.close();
+            } catch (IOException cause) {
+                // Already failed or done
+            }
+        }
+    }
+
+    /**
+     * Waits until all records that were logged before this method was called have been written to the file.
+     *
+     * @throws InterruptedException
+     *         if the calling thread is interrupted while waiting.
+     */
+    public void flush() throws InterruptedException {
+        long target = tail.get();
+        lock.lock();
+        try {
+            while (completedRecords < target && writer.isAlive()) {
+                flushRequested = true;
+                LockSupport.unpark(writer);
+                batchTaken.await(10L, TimeUnit.MILLISECONDS);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Writes all pending records, closes the file and waits until rotated files have been compressed. Records logged after this method has been called are dropped.
+     */
+    @Override
+    public void close() {
+        lock.lock();
+        try {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            batchTaken.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        LockSupport.unpark(writer);
+        try {
+            writer.join();
+            compressor.shutdown();
+            compressor.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException cause) {
+            Thread.currentThread().interrupt();
+        }
+        try {
+            Runtime.getRuntime().removeShutdownHook(shutdownHook);
+        } catch (IllegalStateException cause) {
+            // The JVM is already shutting down, possibly running this very hook
+        }
+    }
+
+    /**
+     * Slot in the ring through which records are handed to the writer thread. The sequence tells whether the slot holds a record or is free, as in {@link AsyncLogBridge}.
+     */
+    private static final class Record {
+        volatile long sequence;
+        ByteBuffer buffer;
+
+        Record(long sequence) {
+            this.sequence = sequence;
+        }
+    }
+
+    /**
+     * Per-thread buffer that records are encoded into as UTF-8, before they are handed to the writer thread. Events of generated <code>Log</code> classes write their
+     * translation into it directly, see {@link LogEvent#encodeTo(ByteBuffer)}.
+     */
+    private static final class Encoder {
+        private ByteBuffer buffer = ByteBuffer.allocate(INITIAL_ENCODER_CAPACITY);
+
+        void encode(CharSequence chars) {
+            buffer.clear();
+            append(chars);
+        }
+
+        void append(CharSequence chars) {
+            int required = chars.length() * 3;
+            if (buffer.remaining() < required) {
+                grow(buffer.position() + required);
+            }
+            Utf8.putText(buffer, chars);
+        }
+
+        /**
+         * Encodes the specified prefix followed by the translation of the event, if the event supports it.
+         *
+         * @return <code>true</code> if the event was encoded, <code>false</code> if it does not support it.
+         */
+        boolean encode(CharSequence prefix, LogEvent event) {
+            while (true) {
+                encode(prefix);
+                try {
+                    return event.encodeTo(buffer);
+                } catch (BufferOverflowException cause) {
+                    buffer = ByteBuffer.allocate(buffer.capacity() * 2);
+                }
+            }
+        }
+
+        private void grow(int capacity) {
+            ByteBuffer grown = ByteBuffer.allocate(Math.max(capacity, buffer.capacity() * 2));
+            buffer.flip();
+            grown.put(buffer);
+            buffer = grown;
+        }
+    }
+}
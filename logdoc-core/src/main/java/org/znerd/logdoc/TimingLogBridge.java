@@ -0,0 +1,410 @@
+// See the COPYRIGHT file for copyright and license information
+package org.znerd.logdoc;
+
+import java.beans.ConstructorProperties;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Timer;
+import java.util.TimerTask;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+import org.znerd.logdoc.internal.LatencyHistogram;
+import org.znerd.util.Preconditions;
+import org.znerd.util.log.Limb;
+import org.znerd.util.log.LogLevel;
+
+/**
+ * <code>LogBridge</code> that measures how long the calls to another bridge take. This shows whether the appenders behind a bridge block the threads that log, and how often.
+ * <p>
+ * The latencies of <code>shouldLog</code>, <code>logOneMessage</code> and <code>logEvent</code> are recorded in a {@link LatencyHistogram} per operation and level. Recording does not lock. To
+ * reduce the overhead further, only one call in every {@link #getSampleInterval() sampleInterval} calls can be timed; the calls are counted per thread.
+ * <p>
+ * The latencies are exposed through an MXBean named {@value #OBJECT_NAME_PREFIX}<em>name</em>, which is registered when the bridge is constructed. A summary of the latencies of the last interval
+ * is logged through {@link Limb} every summary interval. Call {@link #close()} to log the last summary, unregister the MXBean and stop the timer.
+ * <p>
+ * Note that <code>Log</code> classes cache the result of <code>shouldLog</code>, so it is called far less often than the log methods.
+ */
+public class TimingLogBridge extends LogBridgeDecorator implements TimingLogBridgeMXBean {
+
+    /**
+     * The operations that are timed.
+     */
+    public enum Operation {
+        SHOULD_LOG("shouldLog"), LOG_ONE_MESSAGE("logOneMessage"), LOG_EVENT("logEvent");
+
+        private final String methodName;
+
+        private Operation(String methodName) {
+            this.methodName = methodName;
+        }
+
+        public String getMethodName() {
+            return methodName;
+        }
+    }
+
+    public static final String OBJECT_NAME_PREFIX = "org.znerd.logdoc:type=TimingLogBridge,name=";
+
+    /**
+     * The default interval between two summaries, in milliseconds.
+     */
+    public static final long DEFAULT_SUMMARY_INTERVAL = 60000L;
+
+    private static final Operation[] OPERATIONS = Operation.values();
+    private static final LogLevel[] LEVELS = LogLevel.values();
+
+    private final String name;
+    private final int sampleInterval;
+    private final long summaryInterval;
+    private final AtomicReferenceArray<LatencyHistogram> histograms = new AtomicReferenceArray<LatencyHistogram>(OPERATIONS.length * LEVELS.length);
+    private final LatencyHistogram.Snapshot[] summarized = new LatencyHistogram.Snapshot[OPERATIONS.length * LEVELS.length];
+    private final ThreadLocal<int[]> callCounts = new ThreadLocal<int[]>() {
+        @Override
+        protected int[] initialValue() {
+            return new int[1];
+        }
+    };
+    private final Timer timer;
+    private final ObjectName objectName;
+    private volatile boolean closed;
+
+    /**
+     * Constructs a new <code>TimingLogBridge</code> that times every call and logs a summary every {@value #DEFAULT_SUMMARY_INTERVAL} milliseconds. It is named after the class of the wrapped bridge.
+     *
+     * @param delegate
+     *        the {@link LogBridge} to time, cannot be <code>null</code>.
+     */
+    public TimingLogBridge(LogBridge delegate) {
+        this(delegate, delegate == null ? null : delegate.getClass().getSimpleName(), 1, DEFAULT_SUMMARY_INTERVAL);
+    }
+
+    /**
+     * Constructs a new <code>TimingLogBridge</code> and registers its MXBean.
+     *
+     * @param delegate
+     *        the {@link LogBridge} to time, cannot be <code>null</code>.
+     * @param name
+     *        the name of this bridge in the MXBean name and the summaries, cannot be <code>null</code>.
+     * @param sampleInterval
+     *        the number of calls per timed call, must be at least 1.
+     * @param summaryInterval
+     *        the interval between two summaries in milliseconds, or <code>0</code> to log no summaries.
+     */
+    public TimingLogBridge(LogBridge delegate, String name, int sampleInterval, long summaryInterval) {
+        super(delegate);
+        Preconditions.checkArgument(name == null, "name == null");
+        Preconditions.checkArgument(sampleInterval < 1, "sampleInterval (" + sampleInterval + ") < 1");
+        Preconditions.checkArgument(summaryInterval < 0L, "summaryInterval (" + summaryInterval + ") < 0");
+
+        this.name = name;
+        this.sampleInterval = sampleInterval;
+        this.summaryInterval = summaryInterval;
+
+        if (summaryInterval > 0L) {
+            timer = new Timer("Logdoc TimingLogBridge " + name, true);
+            timer.scheduleAtFixedRate(new TimerTask() {
+                @Override
+                public void run() {
+                    logSummary();
+                }
+            }, summaryInterval, summaryInterval);
+        } else {
+            timer = null;
+        }
+        objectName = register();
+    }
+
+    private ObjectName register() {
+        String objectName = OBJECT_NAME_PREFIX + ObjectName.quote(name);
+        try {
+            return ManagementFactory.getPlatformMBeanServer().registerMBean(this, new ObjectName(objectName)).getObjectName();
+        } catch (JMException cause) {
+            Limb.log(LogLevel.WARNING, "Failed to register MXBean " + objectName + '.', cause);
+        } catch (SecurityException cause) {
+            Limb.log(LogLevel.WARNING, "Not allowed to register MXBean " + objectName + '.', cause);
+        }
+        return null;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public String getDelegateClassName() {
+        return getDelegate().getClass().getName();
+    }
+
+    @Override
+    public int getSampleInterval() {
+        return sampleInterval;
+    }
+
+    public long getSummaryInterval() {
+        return summaryInterval;
+    }
+
+    /**
+     * Returns the histogram of an operation at a level.
+     *
+     * @return the histogram, or <code>null</code> if no call was timed yet.
+     */
+    public LatencyHistogram getHistogram(Operation operation, LogLevel level) {
+        return histograms.get(index(operation, level));
+    }
+
+    private static int index(Operation operation, LogLevel level) {
+        return operation.ordinal() * LEVELS.length + level.ordinal();
+    }
+
+    private boolean sample() {
+        if (sampleInterval == 1) {
+            return true;
+        }
+        int[] count = callCounts.get();
+        if (++count[0] < sampleInterval) {
+            return false;
+        }
+        count[0] = 0;
+        return true;
+    }
+
+    private void record(Operation operation, LogLevel level, long nanos) {
+        int index = index(operation, level);
+        LatencyHistogram histogram = histograms.get(index);
+        if (histogram == null) {
+            histograms.compareAndSet(index, null, new LatencyHistogram());
+            histogram = histograms.get(index);
+        }
+        histogram.record(nanos);
+    }
+
+    @Override
+    public boolean shouldLog(String domain, String groupId, String entryId, LogLevel level) {
+        if (level == null || !sample()) {
+            return super.shouldLog(domain, groupId, entryId, level);
+        }
+        long start = System.nanoTime();
+        try {
+            return super.shouldLog(domain, groupId, entryId, level);
+        } finally {
+            record(Operation.SHOULD_LOG, level, System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public boolean shouldLog(EntryHandle entry, LogLevel level) {
+        if (level == null || !sample()) {
+            return super.shouldLog(entry, level);
+        }
+        long start = System.nanoTime();
+        try {
+            return super.shouldLog(entry, level);
+        } finally {
+            record(Operation.SHOULD_LOG, level, System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public void logOneMessage(String fqcn, String domain, String groupId, String entryId, LogLevel level, String message, Throwable exception) {
+        if (level == null || !sample()) {
+            super.logOneMessage(fqcn, domain, groupId, entryId, level, message, exception);
+            return;
+        }
+        long start = System.nanoTime();
+        try {
+            super.logOneMessage(fqcn, domain, groupId, entryId, level, message, exception);
+        } finally {
+            record(Operation.LOG_ONE_MESSAGE, level, System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public void logOneMessage(String fqcn, EntryHandle entry, LogLevel level, String message, Throwable exception) {
+        if (level == null || !sample()) {
+            super.logOneMessage(fqcn, entry, level, message, exception);
+            return;
+        }
+        long start = System.nanoTime();
+        try {
+            super.logOneMessage(fqcn, entry, level, message, exception);
+        } finally {
+            record(Operation.LOG_ONE_MESSAGE, level, System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public void logEvent(String fqcn, EntryHandle entry, LogLevel level, LogEvent event, Throwable exception) {
+        if (level == null || !sample()) {
+            super.logEvent(fqcn, entry, level, event, exception);
+            return;
+        }
+        long start = System.nanoTime();
+        try {
+            super.logEvent(fqcn, entry, level, event, exception);
+        } finally {
+            record(Operation.LOG_EVENT, level, System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public List<Latency> getLatencies() {
+        List<Latency> latencies = new ArrayList<Latency>();
+        for (Operation operation : OPERATIONS) {
+            for (LogLevel level : LEVELS) {
+                LatencyHistogram histogram = getHistogram(operation, level);
+                if (histogram != null) {
+                    latencies.add(new Latency(operation.getMethodName(), level.name(), histogram.snapshot()));
+                }
+            }
+        }
+        return latencies;
+    }
+
+    @Override
+    public void reset() {
+        for (int i = 0; i < histograms.length(); i++) {
+            LatencyHistogram histogram = histograms.get(i);
+            if (histogram != null) {
+                histogram.reset();
+            }
+        }
+        synchronized (summarized) {
+            for (int i = 0; i < summarized.length; i++) {
+                summarized[i] = null;
+            }
+        }
+    }
+
+    /**
+     * Logs the latencies of the calls that were timed since the last summary, one line per operation and level.
+     */
+    void logSummary() {
+        synchronized (summarized) {
+            for (Operation operation : OPERATIONS) {
+                for (LogLevel level : LEVELS) {
+                    int index = index(operation, level);
+                    LatencyHistogram histogram = histograms.get(index);
+                    if (histogram == null) {
+                        continue;
+                    }
+                    LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+                    Latency latency = new Latency(operation.getMethodName(), level.name(), snapshot.since(summarized[index]));
+                    summarized[index] = snapshot;
+                    if (latency.getCount() > 0L) {
+                        Limb.log(LogLevel.INFO, "LogBridge " + name + ' ' + latency + '.');
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Logs the last summary, unregisters the MXBean and stops the summary timer. The calls are still passed to the wrapped bridge afterwards.
+     */
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        if (timer != null) {
+            timer.cancel();
+            logSummary();
+        }
+        if (objectName != null) {
+            try {
+                ManagementFactory.getPlatformMBeanServer().unregisterMBean(objectName);
+            } catch (JMException cause) {
+                Limb.log(LogLevel.WARNING, "Failed to unregister MXBean " + objectName + '.', cause);
+            }
+        }
+    }
+
+    /**
+     * Latencies of one operation at one level, in nanoseconds. Percentiles and the maximum are rounded up to the precision of the {@link LatencyHistogram}.
+     */
+    public static class Latency {
+        private final String operation;
+        private final String level;
+        private final long count;
+        private final double mean;
+        private final long p50;
+        private final long p90;
+        private final long p99;
+        private final long p999;
+        private final long max;
+
+        Latency(String operation, String level, LatencyHistogram.Snapshot snapshot) {
+            this(operation, level, snapshot.getTotalCount(), snapshot.getMean(), snapshot.getValueAtPercentile(50.0), snapshot.getValueAtPercentile(90.0), snapshot.getValueAtPercentile(99.0),
+                    snapshot.getValueAtPercentile(99.9), snapshot.getMaxValue());
+        }
+
+        @ConstructorProperties({ "operation", "level", "count", "mean", "p50", "p90", "p99", "p999", "max" })
+        public Latency(String operation, String level, long count, double mean, long p50, long p90, long p99, long p999, long max) {
+            this.operation = operation;
+            this.level = level;
+            this.count = count;
+            this.mean = mean;
+            this.p50 = p50;
+            this.p90 = p90;
+            this.p99 = p99;
+            this.p999 = p999;
+            this.max = max;
+        }
+
+        public String getOperation() {
+            return operation;
+        }
+
+        public String getLevel() {
+            return level;
+        }
+
+        /**
+         * Returns the number of calls that were timed.
+         */
+        public long getCount() {
+            return count;
+        }
+
+        public double getMean() {
+            return mean;
+        }
+
+        public long getP50() {
+            return p50;
+        }
+
+        public long getP90() {
+            return p90;
+        }
+
+        public long getP99() {
+            return p99;
+        }
+
+        public long getP999() {
+            return p999;
+        }
+
+        public long getMax() {
+            return max;
+        }
+
+        @Override
+        public String toString() {
+            return operation + ' ' + level + ": " + count + " call(s) timed, mean " + micros(mean) + ", p50 " + micros(p50) + ", p90 " + micros(p90) + ", p99 " + micros(p99) + ", p99.9 "
+                    + micros(p999) + ", max " + micros(max);
+        }
+
+        private static String micros(double nanos) {
+            return String.format(Locale.US, "%.1f us", nanos / 1000.0);
+        }
+    }
+}
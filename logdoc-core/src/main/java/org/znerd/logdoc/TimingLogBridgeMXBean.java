@@ -0,0 +1,38 @@
+// See the COPYRIGHT file for copyright and license information
+package org.znerd.logdoc;
+
+import java.util.List;
+
+/**
+ * Management interface of {@link TimingLogBridge}. Exposes the latencies of the calls to the wrapped bridge, per operation and level. Latencies are in nanoseconds.
+ */
+public interface TimingLogBridgeMXBean {
+
+    String getName();
+
+    /**
+     * Returns the class name of the wrapped bridge.
+     *
+     * @return the fully qualified class name, never <code>null</code>.
+     */
+    String getDelegateClassName();
+
+    /**
+     * Returns how many calls there are for each call that is timed.
+     *
+     * @return the interval, at least <code>1</code>.
+     */
+    int getSampleInterval();
+
+    /**
+     * Returns the latencies of each operation and level for which calls were timed since the bridge was constructed or last reset.
+     *
+     * @return the latencies, never <code>null</code>.
+     */
+    List<TimingLogBridge.Latency> getLatencies();
+
+    /**
+     * Discards all recorded latencies.
+     */
+    void reset();
+}
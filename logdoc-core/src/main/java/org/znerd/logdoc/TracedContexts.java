@@ -0,0 +1,271 @@
+// See the COPYRIGHT file for copyright and license information
+package org.znerd.logdoc;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.znerd.util.Preconditions;
+
+/**
+ * Registry of context IDs, and prefixes of context IDs, for which all entries are enabled, whatever their level. This allows logging at <code>DEBUG</code> for a single transaction without
+ * enabling <code>DEBUG</code> for all of them.
+ * <p>
+ * Generated <code>Log</code> classes consult the registry for each entry that is disabled; {@link LogFacade#shouldLog(EntryHandle, org.znerd.util.log.LogLevel)} does so too. While the
+ * registry is empty, this costs a single volatile read. Otherwise the context ID of the current thread is looked up and checked against a Bloom filter, which rejects nearly all IDs that are not
+ * registered with one hash probe per distinct prefix length.
+ * <p>
+ * The registry is an immutable snapshot that is replaced on every change, so reading it never locks. Changes are expected to be rare.
+ * <p>
+ * The bridges for backends with levels of their own pass the records of traced contexts on even if the level of the backend logger rejects them: {@link JulLogBridge} and the Log4J bridge hand
+ * them to the handlers or appenders directly, and the SLF4J bridge logs them at a higher level that is enabled. Thresholds of handlers and appenders still apply. Entries below the
+ * <code>minLevel</code> that the code was generated with cannot be enabled.
+ */
+public final class TracedContexts {
+
+    private static final Registry EMPTY = new Registry(new String[0], new String[0]);
+
+    private static volatile Registry REGISTRY = EMPTY;
+
+    private TracedContexts() {
+    }
+
+    /**
+     * Checks if the current context ID of the specified bridge is traced.
+     *
+     * @param logBridge
+     *        the bridge, not <code>null</code>.
+     * @return <code>true</code> if all entries must be enabled for the current context.
+     */
+    public static boolean isCurrentContextTraced(LogBridge logBridge) {
+        Registry registry = REGISTRY;
+        return registry != EMPTY && registry.contains(logBridge.getContextId());
+    }
+
+    /**
+     * Checks if the specified context ID is traced, either by itself or through one of its prefixes.
+     *
+     * @param contextId
+     *        the context ID, can be <code>null</code>.
+     * @return <code>true</code> if all entries must be enabled for the context.
+     */
+    public static boolean isTraced(String contextId) {
+        Registry registry = REGISTRY;
+        return registry != EMPTY && registry.contains(contextId);
+    }
+
+    /**
+     * Enables all entries for the specified context ID.
+     *
+     * @param contextId
+     *        the context ID, cannot be <code>null</code> or empty.
+     */
+    public static synchronized void addContextId(String contextId) {
+        Preconditions.checkArgument(contextId == null || contextId.length() < 1, "contextId is null or empty");
+        Set<String> contextIds = getContextIds();
+        if (!contextIds.contains(contextId)) {
+            contextIds = new TreeSet<String>(contextIds);
+            contextIds.add(contextId);
+            REGISTRY = new Registry(toArray(contextIds), REGISTRY.prefixes.toArray());
+        }
+    }
+
+    /**
+     * Enables all entries for the context IDs that start with the specified prefix.
+     *
+     * @param prefix
+     *        the prefix, cannot be <code>null</code> or empty.
+     */
+    public static synchronized void addPrefix(String prefix) {
+        Preconditions.checkArgument(prefix == null || prefix.length() < 1, "prefix is null or empty");
+        Set<String> prefixes = getPrefixes();
+        if (!prefixes.contains(prefix)) {
+            prefixes = new TreeSet<String>(prefixes);
+            prefixes.add(prefix);
+            REGISTRY = new Registry(REGISTRY.contextIds.toArray(), toArray(prefixes));
+        }
+    }
+
+    /**
+     * Stops enabling all entries for the specified context ID.
+     *
+     * @return <code>true</code> if the context ID was registered.
+     */
+    public static synchronized boolean removeContextId(String contextId) {
+        Set<String> contextIds = new TreeSet<String>(getContextIds());
+        if (!contextIds.remove(contextId)) {
+            return false;
+        }
+        REGISTRY = newRegistry(toArray(contextIds), REGISTRY.prefixes.toArray());
+        return true;
+    }
+
+    /**
+     * Stops enabling all entries for the context IDs that start with the specified prefix.
+     *
+     * @return <code>true</code> if the prefix was registered.
+     */
+    public static synchronized boolean removePrefix(String prefix) {
+        Set<String> prefixes = new TreeSet<String>(getPrefixes());
+        if (!prefixes.remove(prefix)) {
+            return false;
+        }
+        REGISTRY = newRegistry(REGISTRY.contextIds.toArray(), toArray(prefixes));
+        return true;
+    }
+
+    public static synchronized void clear() {
+        REGISTRY = EMPTY;
+    }
+
+    public static Set<String> getContextIds() {
+        return REGISTRY.contextIds.toSet();
+    }
+
+    public static Set<String> getPrefixes() {
+        return REGISTRY.prefixes.toSet();
+    }
+
+    private static Registry newRegistry(String[] contextIds, String[] prefixes) {
+        return contextIds.length == 0 && prefixes.length == 0 ? EMPTY : new Registry(contextIds, prefixes);
+    }
+
+    private static String[] toArray(Set<String> strings) {
+        return strings.toArray(new String[strings.size()]);
+    }
+
+    /**
+     * Returns the hash code of the first <code>length</code> characters of a string, which equals the hash code of that prefix as a <code>String</code>.
+     */
+    static int prefixHash(String string, int length) {
+        int hash = 0;
+        for (int i = 0; i < length; i++) {
+            hash = 31 * hash + string.charAt(i);
+        }
+        return hash;
+    }
+
+    /**
+     * Immutable set of context IDs and prefixes, with a Bloom filter in front of the hash tables.
+     */
+    private static final class Registry {
+        private final StringTable contextIds;
+        private final StringTable prefixes;
+        private final int[] prefixLengths;
+        private final long[] bloom;
+        private final int bloomMask;
+
+        Registry(String[] contextIds, String[] prefixes) {
+            this.contextIds = new StringTable(contextIds);
+            this.prefixes = new StringTable(prefixes);
+
+            TreeSet<Integer> lengths = new TreeSet<Integer>();
+            for (String prefix : prefixes) {
+                lengths.add(prefix.length());
+            }
+            prefixLengths = new int[lengths.size()];
+            int i = 0;
+            for (Integer length : lengths) {
+                prefixLengths[i++] = length;
+            }
+
+            int bits = Integer.highestOneBit(Math.max(64, (contextIds.length + prefixes.length) * 16 - 1)) * 2;
+            bloom = new long[bits / 64];
+            bloomMask = bits - 1;
+            for (String contextId : contextIds) {
+                addToBloom(contextId.hashCode());
+            }
+            for (String prefix : prefixes) {
+                addToBloom(prefix.hashCode());
+            }
+        }
+
+        private void addToBloom(int hash) {
+            int first = hash & bloomMask;
+            int second = mix(hash) & bloomMask;
+            bloom[first >>> 6] |= 1L << first;
+            bloom[second >>> 6] |= 1L << second;
+        }
+
+        private boolean mightContain(int hash) {
+            int first = hash & bloomMask;
+            int second = mix(hash) & bloomMask;
+            return (bloom[first >>> 6] & (1L << first)) != 0L && (bloom[second >>> 6] & (1L << second)) != 0L;
+        }
+
+        boolean contains(String contextId) {
+            if (contextId == null) {
+                return false;
+            }
+            if (contextIds.size() > 0) {
+                int hash = contextId.hashCode();
+                if (mightContain(hash) && contextIds.contains(contextId, contextId.length(), hash)) {
+                    return true;
+                }
+            }
+            for (int length : prefixLengths) {
+                if (length > contextId.length()) {
+                    break;
+                }
+                int hash = prefixHash(contextId, length);
+                if (mightContain(hash) && prefixes.contains(contextId, length, hash)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    /**
+     * Open-addressing hash table of strings, with linear probing.
+     */
+    private static final class StringTable {
+        private final String[] strings;
+        private final String[] slots;
+        private final int mask;
+
+        StringTable(String[] strings) {
+            this.strings = strings;
+            slots = new String[Integer.highestOneBit(Math.max(1, strings.length * 2 - 1)) * 2];
+            mask = slots.length - 1;
+            for (String string : strings) {
+                int slot = mix(string.hashCode()) & mask;
+                while (slots[slot] != null) {
+                    slot = (slot + 1) & mask;
+                }
+                slots[slot] = string;
+            }
+        }
+
+        int size() {
+            return strings.length;
+        }
+
+        /**
+         * Checks if the table contains the first <code>length</code> characters of the specified string.
+         */
+        boolean contains(String string, int length, int hash) {
+            for (int slot = mix(hash) & mask; slots[slot] != null; slot = (slot + 1) & mask) {
+                String candidate = slots[slot];
+                if (candidate.length() == length && candidate.hashCode() == hash && string.startsWith(candidate)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        String[] toArray() {
+            return strings.clone();
+        }
+
+        Set<String> toSet() {
+            return Collections.unmodifiableSet(new TreeSet<String>(Arrays.asList(strings)));
+        }
+    }
+
+    private static int mix(int hash) {
+        int mixed = hash * 0x9E3779B9;
+        return mixed ^ (mixed >>> 16);
+    }
+}
@@ -5,8 +5,11 @@ import org.znerd.util.log.LogLevel;
 
 /**
  * Implementation of a <code>LogBridge</code> that throws an <code>UnsupportedOperationException</code> from each method.
+ * <p>
+ * The only exception is {@link #resolveEntry(String, String, String)}, which succeeds, so that this bridge can be set while <code>Log</code> classes are registered. Using the returned handle
+ * fails, though.
  */
-public class UnsopLogBridge implements LogBridge {
+public class UnsopLogBridge implements EntryLogBridge {
     @Override
     public void putContextId(String newContextId) {
         throw new UnsupportedOperationException();
@@ -32,6 +35,26 @@ public class UnsopLogBridge implements LogBridge {
         throw new UnsupportedOperationException();
     }
 
+    @Override
+    public EntryHandle resolveEntry(String domain, String groupId, String entryId) {
+        return new EntryHandle(this, domain, groupId, entryId);
+    }
+
+    @Override
+    public boolean shouldLog(EntryHandle entry, LogLevel level) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void logOneMessage(String fqcn, EntryHandle entry, LogLevel level, String message, Throwable exception) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void logEvent(String fqcn, EntryHandle entry, LogLevel level, LogEvent event, Throwable exception) {
+        throw new UnsupportedOperationException();
+    }
+
     @Override
     public void setLevel(LogLevel logLevel) {
         throw new UnsupportedOperationException();
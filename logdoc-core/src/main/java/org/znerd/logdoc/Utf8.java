@@ -0,0 +1,125 @@
+// See the COPYRIGHT file for copyright and license information
+package org.znerd.logdoc;
+
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+
+/**
+ * Writes text and values as UTF-8 to a <code>ByteBuffer</code>. Used by the <code>encodeTranslation_</code> methods of generated translation bundles, which write the literal parts of each
+ * translation as pre-encoded constants (see {@link #encode(String)}) and the arguments with the <code>put</code> methods of this class.
+ * <p>
+ * All <code>put</code> methods throw a <code>BufferOverflowException</code> if the buffer does not have enough room left. The position of the buffer is then undefined; callers typically clear
+ * the buffer and try again with a larger one.
+ */
+public final class Utf8 {
+
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+    private static final byte[] TRUE = encode("true");
+    private static final byte[] FALSE = encode("false");
+    private static final byte[] MIN_LONG = encode(String.valueOf(Long.MIN_VALUE));
+
+    private Utf8() {
+    }
+
+    /**
+     * Encodes the specified text as UTF-8.
+     *
+     * @param text
+     *        the text to encode, cannot be <code>null</code>.
+     * @return the UTF-8 bytes, never <code>null</code>.
+     */
+    public static byte[] encode(String text) {
+        return text.getBytes(UTF8);
+    }
+
+    /**
+     * Writes the specified text as UTF-8. Unpaired surrogates are written as <code>'?'</code>.
+     *
+     * @param buffer
+     *        the buffer to write to, cannot be <code>null</code>.
+     * @param text
+     *        the text to write, cannot be <code>null</code>.
+     * @throws BufferOverflowException
+     *         if the buffer does not have enough room left.
+     */
+    public static void putText(ByteBuffer buffer, CharSequence text) throws BufferOverflowException {
+        int length = text.length();
+        for (int i = 0; i < length; i++) {
+            char c = text.charAt(i);
+            if (c < 0x80) {
+                buffer.put((byte) c);
+            } else if (c < 0x800) {
+                buffer.put((byte) (0xC0 | (c >> 6)));
+                buffer.put((byte) (0x80 | (c & 0x3F)));
+            } else if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(text.charAt(i + 1))) {
+                int codePoint = Character.toCodePoint(c, text.charAt(++i));
+                buffer.put((byte) (0xF0 | (codePoint >> 18)));
+                buffer.put((byte) (0x80 | ((codePoint >> 12) & 0x3F)));
+                buffer.put((byte) (0x80 | ((codePoint >> 6) & 0x3F)));
+                buffer.put((byte) (0x80 | (codePoint & 0x3F)));
+            } else if (c >= Character.MIN_SURROGATE && c <= Character.MAX_SURROGATE) {
+                buffer.put((byte) '?');
+            } else {
+                buffer.put((byte) (0xE0 | (c >> 12)));
+                buffer.put((byte) (0x80 | ((c >> 6) & 0x3F)));
+                buffer.put((byte) (0x80 | (c & 0x3F)));
+            }
+        }
+    }
+
+    /**
+     * Writes the specified value as decimal ASCII digits, preceded by a minus sign if it is negative, without creating a string.
+     *
+     * @param buffer
+     *        the buffer to write to, cannot be <code>null</code>.
+     * @param value
+     *        the value to write.
+     * @throws BufferOverflowException
+     *         if the buffer does not have enough room left.
+     */
+    public static void putLong(ByteBuffer buffer, long value) throws BufferOverflowException {
+        if (value == Long.MIN_VALUE) {
+            buffer.put(MIN_LONG);
+            return;
+        }
+        if (value < 0L) {
+            buffer.put((byte) '-');
+            value = -value;
+        }
+        int digits = 1;
+        for (long rest = value / 10L; rest > 0L; rest /= 10L) {
+            digits++;
+        }
+        int start = buffer.position();
+        if (buffer.remaining() < digits) {
+            throw new BufferOverflowException();
+        }
+        for (int i = start + digits - 1; i >= start; i--) {
+            buffer.put(i, (byte) ('0' + (int) (value % 10L)));
+            value /= 10L;
+        }
+        buffer.position(start + digits);
+    }
+
+    /**
+     * Writes the specified value as <code>Float.toString(float)</code> would.
+     */
+    public static void putFloat(ByteBuffer buffer, float value) throws BufferOverflowException {
+        putText(buffer, Float.toString(value));
+    }
+
+    /**
+     * Writes the specified value as <code>Double.toString(double)</code> would.
+     */
+    public static void putDouble(ByteBuffer buffer, double value) throws BufferOverflowException {
+        putText(buffer, Double.toString(value));
+    }
+
+    /**
+     * Writes <code>"true"</code> or <code>"false"</code>.
+     */
+    public static void putBoolean(ByteBuffer buffer, boolean value) throws BufferOverflowException {
+        buffer.put(value ? TRUE : FALSE);
+    }
+}
@@ -18,10 +18,93 @@ import org.znerd.util.log.LogLevel;
  * Code generator that transforms Logdoc input files to programming code.
  */
 public final class CodeGenerator extends Generator {
+
+    private boolean deferredTranslation;
+    private LogLevel minLevel;
+    private boolean statistics;
+    private boolean jfrEvents;
+
     public CodeGenerator(File sourceDir, File destDir) {
         super(sourceDir, destDir);
     }
 
+    /**
+     * Generates code from the command line, with the default options.
+     *
+     * @param args
+     *        the source directory and the destination directory.
+     * @throws IOException
+     *         if the code could not be generated.
+     */
+    public static final void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            throw new IllegalArgumentException("Usage: " + CodeGenerator.class.getName() + " <sourceDir> <destDir>");
+        }
+        File destDir = new File(args[1]);
+        destDir.mkdirs();
+        new CodeGenerator(new File(args[0]), destDir).generate();
+    }
+
+    /**
+     * Sets whether the generated <code>Log</code> classes defer translation. If enabled, a <code>Log</code> method captures its arguments in a {@link org.znerd.logdoc.LogEvent} and passes
+     * that to the <code>LogBridge</code>, which renders the translation only when it needs the text, possibly on another thread. By default, translation is not deferred.
+     *
+     * @param deferredTranslation
+     *        <code>true</code> to defer translation, <code>false</code> to translate on the calling thread.
+     */
+    public void setDeferredTranslation(boolean deferredTranslation) {
+        this.deferredTranslation = deferredTranslation;
+    }
+
+    public boolean isDeferredTranslation() {
+        return deferredTranslation;
+    }
+
+    /**
+     * Sets the minimum level of the entries that can be logged. Methods for entries below this level are still generated, so calling code compiles unchanged, but their bodies are empty; they
+     * cannot be enabled at runtime. By default, no entries are stripped.
+     *
+     * @param minLevel
+     *        the lowest level that is logged, or <code>null</code> to keep all entries.
+     */
+    public void setMinLevel(LogLevel minLevel) {
+        this.minLevel = minLevel;
+    }
+
+    public LogLevel getMinLevel() {
+        return minLevel;
+    }
+
+    /**
+     * Sets whether the generated <code>Log</code> classes count, for each entry, how many calls were enabled and how many were suppressed. The counts are exposed through the
+     * {@link org.znerd.logdoc.internal.LogdocStatistics} MXBean. Counting costs an atomic increment on every call, also for entries that are disabled. By default, calls are not counted.
+     *
+     * @param statistics
+     *        <code>true</code> to count calls, <code>false</code> to generate <code>Log</code> classes without counters.
+     */
+    public void setStatistics(boolean statistics) {
+        this.statistics = statistics;
+    }
+
+    public boolean isStatistics() {
+        return statistics;
+    }
+
+    /**
+     * Sets whether the generated <code>Log</code> classes emit a Java Flight Recorder event for each call of a log method whose entry is enabled, with a field for each parameter of the entry.
+     * The check is done out of line, after the level check, so disabled entries cost the same as without events; the events are only created while a recording has them enabled. The generated code requires the <code>jdk.jfr</code> module, which is part of Java 11 and up. By default, no events are generated.
+     *
+     * @param jfrEvents
+     *        <code>true</code> to generate JFR events, <code>false</code> to generate <code>Log</code> classes that do not use JFR.
+     */
+    public void setJfrEvents(boolean jfrEvents) {
+        this.jfrEvents = jfrEvents;
+    }
+
+    public boolean isJfrEvents() {
+        return jfrEvents;
+    }
+
     @Override
     protected void generateImpl(LogDef logDef, File destDir) throws IOException {
         String packageName = logDef.getPackageName();
@@ -29,17 +112,31 @@ public final class CodeGenerator extends Generator {
         File outDir = new File(destDir, packagePath);
 
         Limb.log(LogLevel.INFO, "Generating code.");
-        Processor processor = new Processor(logDef, outDir);
+        if (minLevel != null) {
+            Limb.log(LogLevel.INFO, "Generating empty methods for entries below level " + minLevel + '.');
+        }
+        Processor processor = new Processor(logDef, outDir, createOptionParams());
         processor.process();
     }
 
+    private Map<String, String> createOptionParams() {
+        Map<String, String> optionParams = new HashMap<String, String>();
+        optionParams.put("deferred_translation", String.valueOf(deferredTranslation));
+        optionParams.put("min_level", minLevel == null ? "" : minLevel.name());
+        optionParams.put("statistics", String.valueOf(statistics));
+        optionParams.put("jfr_events", String.valueOf(jfrEvents));
+        return optionParams;
+    }
+
     static class Processor {
         private final LogDef def;
         private final File outDir;
+        private final Map<String, String> optionParams;
 
-        Processor(LogDef logDef, File outDir) {
+        Processor(LogDef logDef, File outDir, Map<String, String> optionParams) {
             this.def = logDef;
             this.outDir = outDir;
+            this.optionParams = optionParams;
         }
 
         void process() throws IOException {
@@ -64,6 +161,7 @@ public final class CodeGenerator extends Generator {
             xsltParams.put("domain_name", domainName);
             xsltParams.put("package_name", packageName);
             xsltParams.put("accesslevel", accessLevel);
+            xsltParams.putAll(optionParams);
 
             Resolver resolver = def.createResolver("code/");
             new Xformer(resolver).transform(source, xsltPath, xsltParams, outDir, outFileName);
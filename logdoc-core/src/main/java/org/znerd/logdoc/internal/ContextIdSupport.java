@@ -9,7 +9,7 @@ public class ContextIdSupport {
     }
 
     public void unputContextId() {
-        contextIdPerThread.set(null);
+        contextIdPerThread.remove();
     }
 
     public String getContextId() {
@@ -0,0 +1,86 @@
+// See the COPYRIGHT file for copyright and license information
+package org.znerd.logdoc.internal;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import org.znerd.logdoc.EntryHandle;
+import org.znerd.logdoc.TracedContexts;
+import org.znerd.util.log.LogLevel;
+
+/**
+ * Cache of the <em>enabled</em> decision for each entry of a <code>Log</code> class, indexed by entry. Once an entry has been evaluated, checking it again costs one array load and one compare.
+ * The load is a volatile read, so a guard that is inlined into a loop still sees the decisions being cleared after a level change.
+ * <p>
+ * The cache is cleared through {@link LogCentral#refreshLevels()}, which first increments the global level epoch. An evaluation that overlaps with such a change is not stored, since it may
+ * reflect the old configuration.
+ * <p>
+ * Entries that are disabled are still enabled for the contexts registered with {@link TracedContexts}. That check is not cached, since it depends on the context of the calling thread.
+ * <p>
+ * If the cache is constructed with {@link EntryStatistics}, each check is counted there as an enabled or suppressed call.
+ */
+public final class EnabledCache {
+
+    private static final int UNKNOWN = 0;
+    private static final int ENABLED = 1;
+    private static final int DISABLED = -1;
+
+    private final AtomicIntegerArray states;
+    private final EntryStatistics statistics;
+
+    public EnabledCache(int size) {
+        states = new AtomicIntegerArray(size);
+        statistics = null;
+    }
+
+    public EnabledCache(EntryStatistics statistics) {
+        states = new AtomicIntegerArray(statistics.size());
+        this.statistics = statistics;
+    }
+
+    /**
+     * Checks if the specified entry should be logged, consulting the bridge only if the decision is not cached.
+     *
+     * @param index
+     *            the index of the entry in the <code>Log</code> class.
+     * @param entry
+     *            the entry, not <code>null</code>.
+     * @param level
+     *            the level of the entry, not <code>null</code>.
+     * @return <code>true</code> if the entry should be logged, otherwise <code>false</code>.
+     */
+    public boolean isEnabled(int index, EntryHandle entry, LogLevel level) {
+        int state = states.get(index);
+        boolean enabled = state == UNKNOWN ? evaluate(index, entry, level) : state == ENABLED;
+        if (!enabled && TracedContexts.isCurrentContextTraced(entry.getLogBridge())) {
+            enabled = true;
+        }
+        if (statistics != null) {
+            statistics.count(index, enabled);
+        }
+        return enabled;
+    }
+
+    private boolean evaluate(int index, EntryHandle entry, LogLevel level) {
+        int epoch = LogCentral.getLevelEpoch();
+        boolean enabled = entry.getLogBridge().shouldLog(entry, level);
+        synchronized (this) {
+            if (epoch == LogCentral.getLevelEpoch()) {
+                states.lazySet(index, enabled ? ENABLED : DISABLED);
+            }
+        }
+        return enabled;
+    }
+
+    public EntryStatistics getStatistics() {
+        return statistics;
+    }
+
+    /**
+     * Forgets all cached decisions.
+     */
+    public synchronized void clear() {
+        for (int i = 0; i < states.length(); i++) {
+            states.set(i, UNKNOWN);
+        }
+    }
+}
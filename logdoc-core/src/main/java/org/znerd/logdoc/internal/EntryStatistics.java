@@ -0,0 +1,193 @@
+// See the COPYRIGHT file for copyright and license information
+package org.znerd.logdoc.internal;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import org.znerd.util.Preconditions;
+import org.znerd.util.log.LogLevel;
+
+/**
+ * Counts, for each entry of a <code>Log</code> class, how many calls were enabled and how many were suppressed because of their level. Updated by {@link EnabledCache} and read by
+ * {@link LogdocStatistics}.
+ * <p>
+ * The counters are striped: each thread increments a copy in the stripe selected by its probe, and the stripes are summed when the counters are read. Stripes are separated by padding, so
+ * threads that log the same entry do not write to the same cache line. There are as many stripes as processors, rounded up to a power of two. The probe of a thread starts as a hash of its ID;
+ * when an increment fails because another thread updated the same counter, the probe is moved to another stripe, as in <code>java.util.concurrent.atomic.LongAdder</code>. Probes are shared by
+ * all <code>EntryStatistics</code>, so a thread that collides in one <code>Log</code> class moves in all of them.
+ */
+public final class EntryStatistics {
+
+    private static final ThreadLocal<int[]> PROBES = new ThreadLocal<int[]>() {
+        @Override
+        protected int[] initialValue() {
+            int probe = (int) Thread.currentThread().getId() * 0x9E3779B9;
+            return new int[] { probe == 0 ? 1 : probe };
+        }
+    };
+
+    /**
+     * Number of <code>long</code>s between two stripes, so that they do not share a cache line.
+     */
+    private static final int PADDING = 16;
+
+    private static final int SAMPLE_COUNT = 13;
+
+    private final String domain;
+    private final String[] groupIds;
+    private final String[] entryIds;
+    private final LogLevel[] levels;
+    private final int stripeMask;
+    private final int stride;
+    private final AtomicLongArray cells;
+
+    private final long[][] samples = new long[SAMPLE_COUNT][];
+    private final long[] sampleTimes = new long[SAMPLE_COUNT];
+    private int sampleIndex;
+
+    /**
+     * Constructs a new <code>EntryStatistics</code> for the entries of one <code>Log</code> class.
+     *
+     * @param domain
+     *        the domain of the <code>Log</code> class, cannot be <code>null</code>.
+     * @param entries
+     *        the group ID, entry ID and level name of each entry, in the order of the entry indexes, cannot be <code>null</code>.
+     * @throws IllegalArgumentException
+     *         if <code>domain == null || entries == null || entries.length % 3 != 0</code>, or if <code>entries</code> contains an unknown level name.
+     */
+    public EntryStatistics(String domain, String[] entries) throws IllegalArgumentException {
+        Preconditions.checkArgument(domain == null, "domain == null");
+        Preconditions.checkArgument(entries == null, "entries == null");
+        Preconditions.checkArgument(entries.length % 3 != 0, "entries.length (" + entries.length + ") is not a multiple of 3");
+
+        int size = entries.length / 3;
+        this.domain = domain;
+        groupIds = new String[size];
+        entryIds = new String[size];
+        levels = new LogLevel[size];
+        for (int i = 0; i < size; i++) {
+            groupIds[i] = entries[i * 3];
+            entryIds[i] = entries[i * 3 + 1];
+            levels[i] = LogLevel.valueOf(entries[i * 3 + 2]);
+        }
+
+        int stripes = Integer.highestOneBit(Math.max(1, Runtime.getRuntime().availableProcessors() * 2 - 1));
+        stripeMask = stripes - 1;
+        stride = size * 2 + PADDING;
+        cells = new AtomicLongArray(stripes * stride);
+    }
+
+    /**
+     * Counts one call of the entry at the specified index.
+     *
+     * @param index
+     *        the index of the entry.
+     * @param enabled
+     *        <code>true</code> if the call was enabled, <code>false</code> if it was suppressed.
+     */
+    public void count(int index, boolean enabled) {
+        int[] probe = PROBES.get();
+        int offset = index * 2 + (enabled ? 0 : 1);
+        int cell = (probe[0] & stripeMask) * stride + offset;
+        long count = cells.get(cell);
+        if (!cells.compareAndSet(cell, count, count + 1L)) {
+            probe[0] = advanceProbe(probe[0]);
+            cells.getAndIncrement((probe[0] & stripeMask) * stride + offset);
+        }
+    }
+
+    private static int advanceProbe(int probe) {
+        probe ^= probe << 13;
+        probe ^= probe >>> 17;
+        probe ^= probe << 5;
+        return probe;
+    }
+
+    public String getDomain() {
+        return domain;
+    }
+
+    public int size() {
+        return levels.length;
+    }
+
+    public String getGroupId(int index) {
+        return groupIds[index];
+    }
+
+    public String getEntryId(int index) {
+        return entryIds[index];
+    }
+
+    public LogLevel getLevel(int index) {
+        return levels[index];
+    }
+
+    public long getEnabledCount(int index) {
+        return sum(index * 2);
+    }
+
+    public long getSuppressedCount(int index) {
+        return sum(index * 2 + 1);
+    }
+
+    private long sum(int offset) {
+        long total = 0L;
+        for (int stripe = 0; stripe <= stripeMask; stripe++) {
+            total += cells.get(stripe * stride + offset);
+        }
+        return total;
+    }
+
+    private long[] snapshot() {
+        long[] counts = new long[levels.length * 2];
+        for (int offset = 0; offset < counts.length; offset++) {
+            counts[offset] = sum(offset);
+        }
+        return counts;
+    }
+
+    /**
+     * Stores the current counts, so that rates can be computed later. Called periodically by {@link LogdocStatistics}; the oldest of the last {@value #SAMPLE_COUNT} samples is used as the start
+     * of the rate interval.
+     *
+     * @param now
+     *        the current time, as returned by {@link System#nanoTime()}.
+     */
+    synchronized void sample(long now) {
+        sampleIndex = (sampleIndex + 1) % SAMPLE_COUNT;
+        samples[sampleIndex] = snapshot();
+        sampleTimes[sampleIndex] = now;
+    }
+
+    /**
+     * Computes the number of enabled and suppressed calls per second for each entry, since the oldest sample.
+     *
+     * @param now
+     *        the current time, as returned by {@link System#nanoTime()}.
+     * @return the rates, with the enabled rate of entry <code>i</code> at index <code>2 * i</code> and the suppressed rate at <code>2 * i + 1</code>, or <code>null</code> if there is no sample
+     *         yet.
+     */
+    synchronized double[] rates(long now) {
+        int oldest = (sampleIndex + 1) % SAMPLE_COUNT;
+        if (samples[oldest] == null) {
+            oldest = 0;
+            while (oldest < SAMPLE_COUNT && samples[oldest] == null) {
+                oldest++;
+            }
+            if (oldest == SAMPLE_COUNT) {
+                return null;
+            }
+        }
+
+        long[] start = samples[oldest];
+        double seconds = (now - sampleTimes[oldest]) / 1e9;
+        double[] rates = new double[start.length];
+        if (seconds > 0.0) {
+            long[] current = snapshot();
+            for (int i = 0; i < rates.length; i++) {
+                rates[i] = (current[i] - start[i]) / seconds;
+            }
+        }
+        return rates;
+    }
+}
@@ -0,0 +1,179 @@
+// See the COPYRIGHT file for copyright and license information
+package org.znerd.logdoc.internal;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Histogram of latencies in nanoseconds, with a fixed relative precision, in the style of HdrHistogram. Used by {@link org.znerd.logdoc.TimingLogBridge}.
+ * <p>
+ * Values below {@value #SUB_BUCKET_COUNT} each have their own bucket. Above that, every power of two is split into {@value #SUB_BUCKET_HALF_COUNT} buckets of equal width, so a recorded value is
+ * off by at most 1/{@value #SUB_BUCKET_HALF_COUNT} (about 3%). Values of {@value #MAX_TRACKABLE_VALUE} nanoseconds (about 69 seconds) and more are counted in the last bucket.
+ * <p>
+ * Recording a value is a single atomic increment, so threads never block each other. Reading is done through a {@link Snapshot}, which is not an atomic view of the counts, but close enough for
+ * monitoring.
+ */
+public final class LatencyHistogram {
+
+    static final int SUB_BUCKET_BITS = 6;
+    static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+    static final int SUB_BUCKET_HALF_COUNT = SUB_BUCKET_COUNT / 2;
+    static final long MAX_TRACKABLE_VALUE = (1L << 36) - 1L;
+
+    private static final int BUCKET_COUNT = bucketIndex(MAX_TRACKABLE_VALUE) + 1;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT);
+
+    /**
+     * Records one value.
+     *
+     * @param nanos
+     *        the latency in nanoseconds; negative values are recorded as <code>0</code>.
+     */
+    public void record(long nanos) {
+        counts.incrementAndGet(bucketIndex(nanos));
+    }
+
+    /**
+     * Copies the current counts.
+     *
+     * @return the snapshot, never <code>null</code>.
+     */
+    public Snapshot snapshot() {
+        long[] copy = new long[BUCKET_COUNT];
+        for (int i = 0; i < copy.length; i++) {
+            copy[i] = counts.get(i);
+        }
+        return new Snapshot(copy);
+    }
+
+    /**
+     * Sets all counts to zero. Values that are recorded concurrently may or may not be kept.
+     */
+    public void reset() {
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            counts.set(i, 0L);
+        }
+    }
+
+    static int bucketIndex(long value) {
+        if (value < SUB_BUCKET_COUNT) {
+            return value < 0L ? 0 : (int) value;
+        }
+        long clamped = Math.min(value, MAX_TRACKABLE_VALUE);
+        int shift = 64 - Long.numberOfLeadingZeros(clamped) - SUB_BUCKET_BITS;
+        int subBucket = (int) (clamped >>> shift) - SUB_BUCKET_HALF_COUNT;
+        return SUB_BUCKET_COUNT + (shift - 1) * SUB_BUCKET_HALF_COUNT + subBucket;
+    }
+
+    /**
+     * Returns the lowest value that is counted in the specified bucket.
+     */
+    static long lowestValue(int index) {
+        if (index < SUB_BUCKET_COUNT) {
+            return index;
+        }
+        int shift = (index - SUB_BUCKET_COUNT) / SUB_BUCKET_HALF_COUNT + 1;
+        long subBucket = (index - SUB_BUCKET_COUNT) % SUB_BUCKET_HALF_COUNT + SUB_BUCKET_HALF_COUNT;
+        return subBucket << shift;
+    }
+
+    /**
+     * Returns the highest value that is counted in the specified bucket.
+     */
+    static long highestValue(int index) {
+        return index + 1 < BUCKET_COUNT ? lowestValue(index + 1) - 1L : MAX_TRACKABLE_VALUE;
+    }
+
+    /**
+     * Counts of a {@link LatencyHistogram} at some point in time.
+     */
+    public static final class Snapshot {
+        private final long[] counts;
+        private final long totalCount;
+
+        private Snapshot(long[] counts) {
+            this.counts = counts;
+            long total = 0L;
+            for (long count : counts) {
+                total += count;
+            }
+            totalCount = total;
+        }
+
+        /**
+         * Returns the values recorded since an earlier snapshot of the same histogram.
+         *
+         * @param earlier
+         *        the earlier snapshot, or <code>null</code> to return this snapshot.
+         * @return the difference, never <code>null</code>.
+         */
+        public Snapshot since(Snapshot earlier) {
+            if (earlier == null) {
+                return this;
+            }
+            long[] difference = new long[counts.length];
+            for (int i = 0; i < counts.length; i++) {
+                difference[i] = Math.max(0L, counts[i] - earlier.counts[i]);
+            }
+            return new Snapshot(difference);
+        }
+
+        public long getTotalCount() {
+            return totalCount;
+        }
+
+        /**
+         * Returns the value below or at which the specified percentage of the recorded values falls, rounded up to the highest value of its bucket.
+         *
+         * @param percentile
+         *        the percentage, between <code>0.0</code> and <code>100.0</code>.
+         * @return the value in nanoseconds, or <code>0</code> if no values were recorded.
+         */
+        public long getValueAtPercentile(double percentile) {
+            if (totalCount == 0L) {
+                return 0L;
+            }
+            long rank = Math.max(1L, (long) Math.ceil(Math.min(100.0, Math.max(0.0, percentile)) / 100.0 * totalCount));
+            long seen = 0L;
+            for (int i = 0; i < counts.length; i++) {
+                seen += counts[i];
+                if (seen >= rank) {
+                    return highestValue(i);
+                }
+            }
+            return MAX_TRACKABLE_VALUE;
+        }
+
+        /**
+         * Returns the highest recorded value, rounded up to the highest value of its bucket.
+         *
+         * @return the value in nanoseconds, or <code>0</code> if no values were recorded.
+         */
+        public long getMaxValue() {
+            for (int i = counts.length - 1; i >= 0; i--) {
+                if (counts[i] > 0L) {
+                    return highestValue(i);
+                }
+            }
+            return 0L;
+        }
+
+        /**
+         * Returns the mean of the recorded values, taking the middle of each bucket.
+         *
+         * @return the mean in nanoseconds, or <code>0.0</code> if no values were recorded.
+         */
+        public double getMean() {
+            if (totalCount == 0L) {
+                return 0.0;
+            }
+            double sum = 0.0;
+            for (int i = 0; i < counts.length; i++) {
+                if (counts[i] > 0L) {
+                    sum += counts[i] * ((lowestValue(i) + highestValue(i)) / 2.0);
+                }
+            }
+            return sum / totalCount;
+        }
+    }
+}
@@ -0,0 +1,74 @@
+// See the COPYRIGHT file for copyright and license information
+package org.znerd.logdoc.internal;
+
+import java.util.Timer;
+import java.util.TimerTask;
+
+import org.znerd.util.log.Limb;
+import org.znerd.util.log.LogLevel;
+
+/**
+ * Calls {@link LogCentral#refreshLevels()} periodically, for bridges whose backend does not report level changes, such as Log4J and SLF4J. This bounds how long a level change made in the backend
+ * configuration, for example by a file watcher, goes unnoticed by the cached <em>enabled</em> decisions. {@link org.znerd.logdoc.Library#setLogBridge(org.znerd.logdoc.LogBridge)} starts the
+ * refresh while such a bridge is in use and stops it when another bridge is set.
+ * <p>
+ * The interval is read from the system property {@value #INTERVAL_PROPERTY}, in milliseconds, and defaults to {@value #DEFAULT_INTERVAL}. An interval of <code>0</code> disables the periodic
+ * refresh; {@link org.znerd.logdoc.Library#refreshLevels()} must then be called after each change.
+ */
+public final class LevelRefresher {
+
+    public static final String INTERVAL_PROPERTY = "org.znerd.logdoc.levelRefreshInterval";
+    public static final long DEFAULT_INTERVAL = 10000L;
+
+    private static Timer TIMER;
+
+    private LevelRefresher() {
+    }
+
+    /**
+     * Starts the periodic refresh, unless it is running already or disabled.
+     */
+    public static synchronized void start() {
+        if (TIMER != null) {
+            return;
+        }
+        long interval = determineInterval();
+        if (interval <= 0L) {
+            return;
+        }
+        TIMER = new Timer("Logdoc level refresh", true);
+        TIMER.schedule(new TimerTask() {
+            @Override
+            public void run() {
+                LogCentral.refreshLevels();
+            }
+        }, interval, interval);
+    }
+
+    /**
+     * Stops the periodic refresh, if it is running.
+     */
+    public static synchronized void stop() {
+        if (TIMER != null) {
+            TIMER.cancel();
+            TIMER = null;
+        }
+    }
+
+    public static synchronized boolean isRunning() {
+        return TIMER != null;
+    }
+
+    private static long determineInterval() {
+        String interval = System.getProperty(INTERVAL_PROPERTY);
+        if (interval == null || interval.trim().length() < 1) {
+            return DEFAULT_INTERVAL;
+        }
+        try {
+            return Long.parseLong(interval.trim());
+        } catch (NumberFormatException cause) {
+            Limb.log(LogLevel.WARNING, "Invalid value \"" + interval + "\" for system property " + INTERVAL_PROPERTY + "; using " + DEFAULT_INTERVAL + " ms.");
+            return DEFAULT_INTERVAL;
+        }
+    }
+}
@@ -1,9 +1,21 @@
 // See the COPYRIGHT file for copyright and license information
 package org.znerd.logdoc.internal;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.znerd.logdoc.ContextBufferingLogBridge;
+import org.znerd.logdoc.EntryDescriptor;
+import org.znerd.logdoc.EntryLogBridge;
 import org.znerd.logdoc.Library;
+import org.znerd.logdoc.LogBridge;
+import org.znerd.logdoc.LogBridgeDecorator;
+import org.znerd.logdoc.LogFacade;
 import org.znerd.logdoc.UnsupportedLocaleException;
 import org.znerd.util.Preconditions;
+import org.znerd.util.log.Limb;
+import org.znerd.util.log.LogLevel;
 
 /**
  * Central class for <em>logdoc</em> logging.
@@ -11,6 +23,7 @@ import org.znerd.util.Preconditions;
 public final class LogCentral {
 
     private static LogController[] CONTROLLERS;
+    private static volatile int LEVEL_EPOCH;
 
     private LogCentral() {
     }
@@ -57,6 +70,23 @@ public final class LogCentral {
             throw new UnsupportedLocaleException(locale);
         }
 
+        addController(controller);
+
+        LogdocManagement.register();
+
+        // Expose the call counters, if the Log class keeps them
+        EntryStatistics statistics = controller.getStatistics();
+        if (statistics != null) {
+            LogdocStatistics.add(statistics);
+        }
+    }
+
+    private static synchronized void addController(LogController controller) {
+
+        // Bind the entries while holding the lock, so a concurrent bridge change cannot be missed
+        EntryLogBridge logBridge = LogFacade.asEntryLogBridge(Library.getLogBridge());
+        bindEntries(controller, logBridge, isContextBuffering(logBridge));
+
         // Add it to the list of registered controllers
         if (CONTROLLERS == null) {
             CONTROLLERS = new LogController[] { controller };
@@ -69,6 +99,48 @@ public final class LogCentral {
         }
     }
 
+    /**
+     * Returns the registered controllers.
+     *
+     * @return a copy of the array of registered {@link LogController}s, never <code>null</code>.
+     */
+    static synchronized LogController[] getControllers() {
+        return CONTROLLERS == null ? new LogController[0] : CONTROLLERS.clone();
+    }
+
+    /**
+     * Returns the entries of all registered <em>logdoc</em> <code>Log</code> classes, in the order in which the classes were registered. Within a class, the entries are ordered by ordinal.
+     *
+     * @return an unmodifiable list of the {@link EntryDescriptor}s, never <code>null</code>.
+     */
+    public static List<EntryDescriptor> getEntryDescriptors() {
+        List<EntryDescriptor> descriptors = new ArrayList<EntryDescriptor>();
+        for (LogController controller : getControllers()) {
+            descriptors.addAll(controller.getEntryDescriptors());
+        }
+        return Collections.unmodifiableList(descriptors);
+    }
+
+    /**
+     * Returns the entries of the registered <em>logdoc</em> <code>Log</code> class for the specified domain.
+     *
+     * @param domain
+     *            the domain, cannot be <code>null</code>.
+     * @return an unmodifiable list of the {@link EntryDescriptor}s, ordered by ordinal, or an empty list if no <code>Log</code> class is registered for the domain.
+     * @throws IllegalArgumentException
+     *             if <code>domain == null</code>.
+     */
+    public static List<EntryDescriptor> getEntryDescriptors(String domain) throws IllegalArgumentException {
+        Preconditions.checkArgument(domain == null, "domain == null");
+        for (LogController controller : getControllers()) {
+            List<EntryDescriptor> descriptors = controller.getEntryDescriptors();
+            if (!descriptors.isEmpty() && descriptors.get(0).getDomain().equals(domain)) {
+                return descriptors;
+            }
+        }
+        return Collections.emptyList();
+    }
+
     /**
      * Sets the locale on all <em>logdoc</em> <code>Log</code> classes.
      * 
@@ -100,4 +172,61 @@ public final class LogCentral {
             CONTROLLERS[i].setLocale(newLocale);
         }
     }
+
+    /**
+     * Resolves the entries of all <em>logdoc</em> <code>Log</code> classes against the specified bridge.
+     *
+     * @param logBridge
+     *            the new {@link LogBridge}, cannot be <code>null</code>.
+     * @throws IllegalArgumentException
+     *             if <code>logBridge == null</code>.
+     */
+    public static synchronized void bindEntries(LogBridge logBridge) throws IllegalArgumentException {
+        Preconditions.checkArgument(logBridge == null, "logBridge == null");
+        EntryLogBridge entryLogBridge = LogFacade.asEntryLogBridge(logBridge);
+        boolean contextBuffering = isContextBuffering(entryLogBridge);
+        int size = (CONTROLLERS == null) ? 0 : CONTROLLERS.length;
+        for (int i = 0; i < size; i++) {
+            bindEntries(CONTROLLERS[i], entryLogBridge, contextBuffering);
+        }
+    }
+
+    private static void bindEntries(LogController controller, EntryLogBridge logBridge, boolean contextBuffering) {
+        controller.bindEntries(logBridge);
+
+        // A ContextBufferingLogBridge enables entries below the level of the wrapped bridge, so an eager Log class would translate messages that are then dropped
+        if (contextBuffering && !controller.isTranslationDeferred()) {
+            Limb.log(LogLevel.WARNING, "Log class " + controller + " translates each message before passing it to ContextBufferingLogBridge, also when it is dropped. Generate it with the deferredTranslation option.");
+        }
+    }
+
+    private static boolean isContextBuffering(LogBridge logBridge) {
+        for (LogBridge current = logBridge; current instanceof LogBridgeDecorator; current = ((LogBridgeDecorator) current).getDelegate()) {
+            if (current instanceof ContextBufferingLogBridge) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns the level epoch, which is incremented each time the level configuration may have changed.
+     *
+     * @return the current level epoch.
+     */
+    public static int getLevelEpoch() {
+        return LEVEL_EPOCH;
+    }
+
+    /**
+     * Signals that the level configuration may have changed, either in Logdoc or in the logging backend. Increments the level epoch and lets all <em>logdoc</em> <code>Log</code> classes forget
+     * their cached <em>enabled</em> decisions.
+     */
+    public static synchronized void refreshLevels() {
+        LEVEL_EPOCH++;
+        int size = (CONTROLLERS == null) ? 0 : CONTROLLERS.length;
+        for (int i = 0; i < size; i++) {
+            CONTROLLERS[i].refreshLevels();
+        }
+    }
 }
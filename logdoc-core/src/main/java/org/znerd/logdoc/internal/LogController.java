@@ -1,6 +1,11 @@
 // See the COPYRIGHT file for copyright and license information
 package org.znerd.logdoc.internal;
 
+import java.util.Collections;
+import java.util.List;
+
+import org.znerd.logdoc.EntryDescriptor;
+import org.znerd.logdoc.EntryLogBridge;
 import org.znerd.logdoc.UnsupportedLocaleException;
 
 /**
@@ -33,6 +38,17 @@ public abstract class LogController {
      */
     public abstract boolean isLocaleSupported(String locale);
 
+    /**
+     * Returns the locales supported by the <code>Log</code> class.
+     * <p>
+     * The default implementation returns an empty array. It is overridden by generated <code>Log</code> classes.
+     *
+     * @return the supported locales, never <code>null</code>.
+     */
+    public String[] getSupportedLocales() {
+        return new String[0];
+    }
+
     /**
      * Activates the specified locale.
      * <p>
@@ -42,4 +58,56 @@ public abstract class LogController {
      *            the new locale, not <code>null</code>.
      */
     public abstract void setLocale(String newLocale);
+
+    /**
+     * Resolves all entries of the <code>Log</code> class against the specified bridge. Called when this controller is registered and each time the bridge is changed.
+     * <p>
+     * The default implementation does nothing. It is overridden by <code>Log</code> classes that keep an {@link org.znerd.logdoc.EntryHandle} per entry.
+     *
+     * @param logBridge
+     *            the {@link EntryLogBridge} to resolve the entries against, not <code>null</code>.
+     */
+    public void bindEntries(EntryLogBridge logBridge) {
+    }
+
+    /**
+     * Indicates whether the <code>Log</code> class passes {@link org.znerd.logdoc.LogEvent}s to the bridge, so that messages are only translated when the bridge needs the text.
+     * <p>
+     * The default implementation returns <code>false</code>. It is overridden by <code>Log</code> classes generated with the <code>deferredTranslation</code> option.
+     *
+     * @return <code>true</code> if translation is deferred, <code>false</code> if each message is translated before it is passed to the bridge.
+     */
+    public boolean isTranslationDeferred() {
+        return false;
+    }
+
+    /**
+     * Forgets any cached <em>enabled</em> decisions, because the level configuration may have changed.
+     * <p>
+     * The default implementation does nothing. It is overridden by <code>Log</code> classes that cache these decisions.
+     */
+    public void refreshLevels() {
+    }
+
+    /**
+     * Returns the call counters of the <code>Log</code> class, which are exposed through {@link LogdocStatistics}.
+     * <p>
+     * The default implementation returns <code>null</code>. It is overridden by <code>Log</code> classes that count calls.
+     *
+     * @return the {@link EntryStatistics}, or <code>null</code> if calls are not counted.
+     */
+    public EntryStatistics getStatistics() {
+        return null;
+    }
+
+    /**
+     * Returns the catalog of the entries of the <code>Log</code> class, which is aggregated by {@link LogCentral#getEntryDescriptors()}.
+     * <p>
+     * The default implementation returns an empty list. It is overridden by generated <code>Log</code> classes.
+     *
+     * @return the descriptors, ordered by ordinal, never <code>null</code>.
+     */
+    public List<EntryDescriptor> getEntryDescriptors() {
+        return Collections.emptyList();
+    }
 }
@@ -0,0 +1,206 @@
+// See the COPYRIGHT file for copyright and license information
+package org.znerd.logdoc.internal;
+
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+import org.znerd.logdoc.Library;
+import org.znerd.logdoc.LogBridge;
+import org.znerd.logdoc.TracedContexts;
+import org.znerd.util.log.Limb;
+import org.znerd.util.log.LogLevel;
+
+/**
+ * MXBean for changing the Logdoc configuration at runtime. It is registered with the platform MBean server as {@value #OBJECT_NAME} when the first <code>Log</code> class is registered with
+ * {@link LogCentral}.
+ * <p>
+ * All operations go through {@link Library}, which publishes the configuration as an immutable snapshot and lets the <code>Log</code> classes re-evaluate their cached <em>enabled</em>
+ * decisions, so the logging path needs no locking to see the changes.
+ */
+public final class LogdocManagement implements LogdocManagementMXBean {
+
+    public static final String OBJECT_NAME = "org.znerd.logdoc:type=LogdocManagement";
+
+    private static boolean REGISTERED;
+
+    LogdocManagement() {
+    }
+
+    static synchronized void register() {
+        if (REGISTERED) {
+            return;
+        }
+        REGISTERED = true;
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(new LogdocManagement(), new ObjectName(OBJECT_NAME));
+        } catch (JMException cause) {
+            Limb.log(LogLevel.WARNING, "Failed to register MXBean " + OBJECT_NAME + '.', cause);
+        } catch (SecurityException cause) {
+            Limb.log(LogLevel.WARNING, "Not allowed to register MXBean " + OBJECT_NAME + '.', cause);
+        }
+    }
+
+    @Override
+    public String getLocale() {
+        return Library.getLocale();
+    }
+
+    @Override
+    public void setLocale(String locale) {
+        Library.setLocale(locale);
+    }
+
+    @Override
+    public String getLogBridgeClassName() {
+        return Library.getLogBridge().getClass().getName();
+    }
+
+    @Override
+    public void setLogBridgeClassName(String className) {
+        Library.setLogBridge(createLogBridge(className));
+    }
+
+    private static LogBridge createLogBridge(String className) {
+        try {
+            Class<?> c = Class.forName(className);
+            try {
+                Method getInstance = c.getMethod("getInstance");
+                if (Modifier.isStatic(getInstance.getModifiers())) {
+                    return (LogBridge) getInstance.invoke(null);
+                }
+            } catch (NoSuchMethodException cause) {
+                // Fall back to the constructor
+            }
+            return (LogBridge) c.getConstructor().newInstance();
+        } catch (InvocationTargetException cause) {
+            throw new IllegalArgumentException("Failed to create LogBridge of class " + className + ": " + cause.getCause());
+        } catch (Exception cause) {
+            throw new IllegalArgumentException("Failed to create LogBridge of class " + className + ": " + cause);
+        }
+    }
+
+    @Override
+    public String getLogFilterClassName() {
+        return Library.getLogFilter().getClass().getName();
+    }
+
+    @Override
+    public void setLogFilterClassName(String className) {
+        try {
+            Library.setLogFilterByClassName(className);
+        } catch (Exception cause) {
+            throw new IllegalArgumentException("Failed to create LogFilter of class " + className + ": " + cause);
+        }
+    }
+
+    @Override
+    public String getLevel() {
+        return Library.getLogBridge().getLevel().name();
+    }
+
+    @Override
+    public void setLevel(String level) {
+        Library.getLogBridge().setLevel(parseLevel(level));
+    }
+
+    @Override
+    public Map<String, String> getLevelOverrides() {
+        Map<String, String> overrides = new TreeMap<String, String>();
+        for (Map.Entry<String, LogLevel> override : Library.getLevelOverrides().entrySet()) {
+            overrides.put(override.getKey(), override.getValue().name());
+        }
+        return overrides;
+    }
+
+    @Override
+    public void setLevelOverride(String domain, String groupId, String level) {
+        String group = isEmpty(groupId) ? null : groupId.trim();
+        LogLevel logLevel = isEmpty(level) ? null : parseLevel(level);
+        Library.setLevelOverride(domain == null ? null : domain.trim(), group, logLevel);
+    }
+
+    @Override
+    public void clearLevelOverrides() {
+        Library.clearLevelOverrides();
+    }
+
+    @Override
+    public void refreshLevels() {
+        Library.refreshLevels();
+    }
+
+    @Override
+    public String[] getTracedContextIds() {
+        return toArray(TracedContexts.getContextIds());
+    }
+
+    @Override
+    public String[] getTracedContextPrefixes() {
+        return toArray(TracedContexts.getPrefixes());
+    }
+
+    @Override
+    public void traceContextId(String contextId) {
+        TracedContexts.addContextId(contextId);
+    }
+
+    @Override
+    public void traceContextPrefix(String prefix) {
+        TracedContexts.addPrefix(prefix);
+    }
+
+    @Override
+    public boolean untraceContextId(String contextId) {
+        return TracedContexts.removeContextId(contextId);
+    }
+
+    @Override
+    public boolean untraceContextPrefix(String prefix) {
+        return TracedContexts.removePrefix(prefix);
+    }
+
+    @Override
+    public void clearTracedContexts() {
+        TracedContexts.clear();
+    }
+
+    private static String[] toArray(Set<String> strings) {
+        return strings.toArray(new String[strings.size()]);
+    }
+
+    @Override
+    public String[] getLogControllers() {
+        LogController[] controllers = LogCentral.getControllers();
+        String[] descriptions = new String[controllers.length];
+        for (int i = 0; i < controllers.length; i++) {
+            StringBuilder description = new StringBuilder(controllers[i].toString()).append(':');
+            String[] locales = controllers[i].getSupportedLocales();
+            for (int j = 0; j < locales.length; j++) {
+                description.append(j == 0 ? " " : ", ").append(locales[j]);
+            }
+            descriptions[i] = description.toString();
+        }
+        return descriptions;
+    }
+
+    private static boolean isEmpty(String s) {
+        return s == null || s.trim().length() < 1;
+    }
+
+    private static LogLevel parseLevel(String level) {
+        try {
+            return LogLevel.valueOf(level.trim().toUpperCase(Locale.ENGLISH));
+        } catch (RuntimeException cause) {
+            throw new IllegalArgumentException("Invalid level \"" + level + "\". Expected DEBUG, INFO, NOTICE, WARNING, ERROR or FATAL.");
+        }
+    }
+}
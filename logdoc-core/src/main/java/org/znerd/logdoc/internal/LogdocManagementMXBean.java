@@ -0,0 +1,94 @@
+// See the COPYRIGHT file for copyright and license information
+package org.znerd.logdoc.internal;
+
+import java.util.Map;
+
+/**
+ * Management interface of {@link LogdocManagement}. Allows changing the Logdoc configuration at runtime, through JMX.
+ * <p>
+ * Levels are passed by name: <code>DEBUG</code>, <code>INFO</code>, <code>NOTICE</code>, <code>WARNING</code>, <code>ERROR</code> or <code>FATAL</code>.
+ */
+public interface LogdocManagementMXBean {
+
+    String getLocale();
+
+    /**
+     * Sets the locale on all <code>Log</code> classes, see {@link org.znerd.logdoc.Library#setLocale(String)}.
+     */
+    void setLocale(String locale);
+
+    String getLogBridgeClassName();
+
+    /**
+     * Sets the {@link org.znerd.logdoc.LogBridge}. The class must have a public static <code>getInstance()</code> method or a public no-argument constructor.
+     */
+    void setLogBridgeClassName(String className);
+
+    String getLogFilterClassName();
+
+    /**
+     * Sets the {@link org.znerd.logdoc.LogFilter}, see {@link org.znerd.logdoc.Library#setLogFilterByClassName(String)}.
+     */
+    void setLogFilterClassName(String className);
+
+    /**
+     * Returns the level of the current {@link org.znerd.logdoc.LogBridge}.
+     */
+    String getLevel();
+
+    /**
+     * Sets the level of the current {@link org.znerd.logdoc.LogBridge}, see {@link org.znerd.logdoc.LogBridge#setLevel(org.znerd.util.log.LogLevel)}.
+     */
+    void setLevel(String level);
+
+    /**
+     * Returns the level overrides, keyed by domain, or by domain and group ID separated by a colon.
+     */
+    Map<String, String> getLevelOverrides();
+
+    /**
+     * Overrides the level of a domain or an entry group, see {@link org.znerd.logdoc.Library#setLevelOverride(String, String, org.znerd.util.log.LogLevel)}.
+     *
+     * @param domain
+     *        the domain.
+     * @param groupId
+     *        the entry group ID, or an empty string to override the level of the whole domain.
+     * @param level
+     *        the level, or an empty string to remove the override.
+     */
+    void setLevelOverride(String domain, String groupId, String level);
+
+    void clearLevelOverrides();
+
+    /**
+     * Makes all <code>Log</code> classes re-evaluate which entries are enabled, see {@link org.znerd.logdoc.Library#refreshLevels()}.
+     */
+    void refreshLevels();
+
+    String[] getTracedContextIds();
+
+    String[] getTracedContextPrefixes();
+
+    /**
+     * Enables all entries, whatever their level, while the specified context ID is set, see {@link org.znerd.logdoc.TracedContexts}.
+     */
+    void traceContextId(String contextId);
+
+    /**
+     * Enables all entries, whatever their level, while a context ID that starts with the specified prefix is set.
+     */
+    void traceContextPrefix(String prefix);
+
+    boolean untraceContextId(String contextId);
+
+    boolean untraceContextPrefix(String prefix);
+
+    void clearTracedContexts();
+
+    /**
+     * Returns the registered <code>Log</code> classes, each with the locales it supports.
+     *
+     * @return the controllers, for example <code>"org.znerd.mylibrary.Log$Controller: en_US, nl_NL"</code>.
+     */
+    String[] getLogControllers();
+}
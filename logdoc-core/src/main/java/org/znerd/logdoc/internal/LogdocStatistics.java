@@ -0,0 +1,243 @@
+// See the COPYRIGHT file for copyright and license information
+package org.znerd.logdoc.internal;
+
+import java.beans.ConstructorProperties;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Timer;
+import java.util.TimerTask;
+import java.util.TreeMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+import org.znerd.util.log.Limb;
+import org.znerd.util.log.LogLevel;
+
+/**
+ * MXBean that exposes the {@link EntryStatistics} of all registered <code>Log</code> classes. It is registered with the platform MBean server as {@value #OBJECT_NAME} when the first
+ * <code>Log</code> class that counts calls is registered with {@link LogCentral}.
+ * <p>
+ * Every {@value #SAMPLE_INTERVAL} milliseconds a background timer stores the counts, so that the rates can be computed over the last minute.
+ */
+public final class LogdocStatistics implements LogdocStatisticsMXBean {
+
+    public static final String OBJECT_NAME = "org.znerd.logdoc:type=LogdocStatistics";
+
+    static final long SAMPLE_INTERVAL = 5000L;
+
+    private static final LogdocStatistics INSTANCE = new LogdocStatistics();
+
+    private final List<EntryStatistics> statistics = new CopyOnWriteArrayList<EntryStatistics>();
+    private Timer timer;
+
+    private LogdocStatistics() {
+    }
+
+    public static LogdocStatistics getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Adds the counters of a <code>Log</code> class. The first time this is called, the MXBean is registered and the sampling timer is started.
+     *
+     * @param entryStatistics
+     *        the counters, not <code>null</code>.
+     */
+    static void add(EntryStatistics entryStatistics) {
+        entryStatistics.sample(System.nanoTime());
+        INSTANCE.statistics.add(entryStatistics);
+        INSTANCE.start();
+    }
+
+    private synchronized void start() {
+        if (timer != null) {
+            return;
+        }
+        timer = new Timer("Logdoc statistics", true);
+        timer.scheduleAtFixedRate(new TimerTask() {
+            @Override
+            public void run() {
+                long now = System.nanoTime();
+                for (EntryStatistics entryStatistics : statistics) {
+                    entryStatistics.sample(now);
+                }
+            }
+        }, SAMPLE_INTERVAL, SAMPLE_INTERVAL);
+
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(this, new ObjectName(OBJECT_NAME));
+        } catch (JMException cause) {
+            Limb.log(LogLevel.WARNING, "Failed to register MXBean " + OBJECT_NAME + '.', cause);
+        } catch (SecurityException cause) {
+            Limb.log(LogLevel.WARNING, "Not allowed to register MXBean " + OBJECT_NAME + '.', cause);
+        }
+    }
+
+    @Override
+    public long getEnabledCount() {
+        long total = 0L;
+        for (EntryCounts counts : getEntries()) {
+            total += counts.getEnabledCount();
+        }
+        return total;
+    }
+
+    @Override
+    public long getSuppressedCount() {
+        long total = 0L;
+        for (EntryCounts counts : getEntries()) {
+            total += counts.getSuppressedCount();
+        }
+        return total;
+    }
+
+    @Override
+    public double getEnabledRate() {
+        double total = 0.0;
+        for (EntryCounts counts : getEntries()) {
+            total += counts.getEnabledRate();
+        }
+        return total;
+    }
+
+    @Override
+    public double getSuppressedRate() {
+        double total = 0.0;
+        for (EntryCounts counts : getEntries()) {
+            total += counts.getSuppressedRate();
+        }
+        return total;
+    }
+
+    @Override
+    public List<EntryCounts> getEntries() {
+        long now = System.nanoTime();
+        List<EntryCounts> entries = new ArrayList<EntryCounts>();
+        for (EntryStatistics entryStatistics : statistics) {
+            double[] rates = entryStatistics.rates(now);
+            for (int i = 0; i < entryStatistics.size(); i++) {
+                double enabledRate = rates == null ? 0.0 : rates[i * 2];
+                double suppressedRate = rates == null ? 0.0 : rates[i * 2 + 1];
+                entries.add(new EntryCounts(entryStatistics.getDomain(), entryStatistics.getGroupId(i), entryStatistics.getEntryId(i), entryStatistics.getLevel(i).name(),
+                        entryStatistics.getEnabledCount(i), entryStatistics.getSuppressedCount(i), enabledRate, suppressedRate));
+            }
+        }
+        return entries;
+    }
+
+    @Override
+    public List<Counts> getDomains() {
+        Map<String, Counts> sums = new TreeMap<String, Counts>();
+        for (EntryCounts counts : getEntries()) {
+            add(sums, counts.getDomain(), counts);
+        }
+        return new ArrayList<Counts>(sums.values());
+    }
+
+    @Override
+    public List<Counts> getGroups() {
+        Map<String, Counts> sums = new TreeMap<String, Counts>();
+        for (EntryCounts counts : getEntries()) {
+            add(sums, counts.getDomain() + '.' + counts.getGroupId(), counts);
+        }
+        return new ArrayList<Counts>(sums.values());
+    }
+
+    @Override
+    public List<Counts> getLevels() {
+        Map<String, Counts> sums = new TreeMap<String, Counts>();
+        for (EntryCounts counts : getEntries()) {
+            add(sums, counts.getLevel(), counts);
+        }
+        return new ArrayList<Counts>(sums.values());
+    }
+
+    private static void add(Map<String, Counts> sums, String name, Counts counts) {
+        Counts sum = sums.get(name);
+        if (sum == null) {
+            sums.put(name, new Counts(name, counts.getEnabledCount(), counts.getSuppressedCount(), counts.getEnabledRate(), counts.getSuppressedRate()));
+        } else {
+            sums.put(name, new Counts(name, sum.getEnabledCount() + counts.getEnabledCount(), sum.getSuppressedCount() + counts.getSuppressedCount(), sum.getEnabledRate()
+                    + counts.getEnabledRate(), sum.getSuppressedRate() + counts.getSuppressedRate()));
+        }
+    }
+
+    /**
+     * Number of calls and rates, for an entry or summed over a number of entries.
+     */
+    public static class Counts {
+        private final String name;
+        private final long enabledCount;
+        private final long suppressedCount;
+        private final double enabledRate;
+        private final double suppressedRate;
+
+        @ConstructorProperties({ "name", "enabledCount", "suppressedCount", "enabledRate", "suppressedRate" })
+        public Counts(String name, long enabledCount, long suppressedCount, double enabledRate, double suppressedRate) {
+            this.name = name;
+            this.enabledCount = enabledCount;
+            this.suppressedCount = suppressedCount;
+            this.enabledRate = enabledRate;
+            this.suppressedRate = suppressedRate;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public long getEnabledCount() {
+            return enabledCount;
+        }
+
+        public long getSuppressedCount() {
+            return suppressedCount;
+        }
+
+        public double getEnabledRate() {
+            return enabledRate;
+        }
+
+        public double getSuppressedRate() {
+            return suppressedRate;
+        }
+    }
+
+    /**
+     * Number of calls and rates of a single entry, named by its category.
+     */
+    public static final class EntryCounts extends Counts {
+        private final String domain;
+        private final String groupId;
+        private final String entryId;
+        private final String level;
+
+        @ConstructorProperties({ "domain", "groupId", "entryId", "level", "enabledCount", "suppressedCount", "enabledRate", "suppressedRate" })
+        public EntryCounts(String domain, String groupId, String entryId, String level, long enabledCount, long suppressedCount, double enabledRate, double suppressedRate) {
+            super(domain + '.' + groupId + '.' + entryId, enabledCount, suppressedCount, enabledRate, suppressedRate);
+            this.domain = domain;
+            this.groupId = groupId;
+            this.entryId = entryId;
+            this.level = level;
+        }
+
+        public String getDomain() {
+            return domain;
+        }
+
+        public String getGroupId() {
+            return groupId;
+        }
+
+        public String getEntryId() {
+            return entryId;
+        }
+
+        public String getLevel() {
+            return level;
+        }
+    }
+}
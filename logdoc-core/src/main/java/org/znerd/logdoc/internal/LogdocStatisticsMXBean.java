@@ -0,0 +1,47 @@
+// See the COPYRIGHT file for copyright and license information
+package org.znerd.logdoc.internal;
+
+import java.util.List;
+
+/**
+ * Management interface of {@link LogdocStatistics}. Exposes how often the entries of all registered <code>Log</code> classes were called, split into enabled calls and calls that were suppressed
+ * because of their level. Rates are in calls per second, over the last minute.
+ */
+public interface LogdocStatisticsMXBean {
+
+    long getEnabledCount();
+
+    long getSuppressedCount();
+
+    double getEnabledRate();
+
+    double getSuppressedRate();
+
+    /**
+     * Returns the counts of each entry, named by category.
+     *
+     * @return the counts, never <code>null</code>.
+     */
+    List<LogdocStatistics.EntryCounts> getEntries();
+
+    /**
+     * Returns the counts summed per domain.
+     *
+     * @return the counts, never <code>null</code>.
+     */
+    List<LogdocStatistics.Counts> getDomains();
+
+    /**
+     * Returns the counts summed per entry group, named by domain and group ID separated by a dot.
+     *
+     * @return the counts, never <code>null</code>.
+     */
+    List<LogdocStatistics.Counts> getGroups();
+
+    /**
+     * Returns the counts summed per level.
+     *
+     * @return the counts, never <code>null</code>.
+     */
+    List<LogdocStatistics.Counts> getLevels();
+}
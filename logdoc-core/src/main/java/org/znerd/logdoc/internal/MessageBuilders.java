@@ -0,0 +1,82 @@
+// See the COPYRIGHT file for copyright and license information
+package org.znerd.logdoc.internal;
+
+/**
+ * Per-thread buffers for composing messages, so that bridges do not need to allocate a new <code>StringBuilder</code> and intermediate strings for every message.
+ * <p>
+ * A buffer obtained with {@link #acquire()} must be given back with {@link #release(StringBuilder)}, typically in a <code>finally</code> block. If a thread acquires a buffer while it still holds
+ * one, for example because rendering a message logs another message, a fresh buffer is returned instead. Buffers that have grown very large are not retained.
+ */
+public final class MessageBuilders {
+
+    private static final int INITIAL_CAPACITY = 256;
+    private static final int MAX_RETAINED_CAPACITY = 16384;
+
+    private static final ThreadLocal<Holder> HOLDERS = new ThreadLocal<Holder>() {
+        @Override
+        protected Holder initialValue() {
+            return new Holder();
+        }
+    };
+
+    private MessageBuilders() {
+    }
+
+    /**
+     * Obtains an empty buffer for the current thread.
+     *
+     * @return an empty <code>StringBuilder</code>, never <code>null</code>.
+     */
+    public static StringBuilder acquire() {
+        Holder holder = HOLDERS.get();
+        if (holder.inUse) {
+            return new StringBuilder(INITIAL_CAPACITY);
+        }
+        holder.inUse = true;
+        StringBuilder builder = holder.builder;
+        builder.setLength(0);
+        return builder;
+    }
+
+    /**
+     * Gives back a buffer obtained with {@link #acquire()}.
+     *
+     * @param builder
+     *        the buffer, cannot be <code>null</code>.
+     */
+    public static void release(StringBuilder builder) {
+        Holder holder = HOLDERS.get();
+        if (holder.builder == builder) {
+            holder.inUse = false;
+            if (builder.capacity() > MAX_RETAINED_CAPACITY) {
+                holder.builder = new StringBuilder(INITIAL_CAPACITY);
+            }
+        }
+    }
+
+    /**
+     * Copies the contents of the specified buffer to a per-thread character array, so it can be written to a <code>Writer</code> without creating a string. The array is only valid until the
+     * next call on the same thread.
+     *
+     * @param builder
+     *        the buffer to copy, cannot be <code>null</code>.
+     * @return a character array that holds the contents of the buffer, starting at index 0; it may be longer than the buffer.
+     */
+    public static char[] toChars(StringBuilder builder) {
+        Holder holder = HOLDERS.get();
+        int length = builder.length();
+        char[] chars = holder.chars;
+        if (chars.length < length || (chars.length > MAX_RETAINED_CAPACITY && length <= MAX_RETAINED_CAPACITY)) {
+            chars = new char[Math.max(length, INITIAL_CAPACITY)];
+            holder.chars = chars;
+        }
+        builder.getChars(0, length, chars, 0);
+        return chars;
+    }
+
+    private static final class Holder {
+        private StringBuilder builder = new StringBuilder(INITIAL_CAPACITY);
+        private char[] chars = new char[INITIAL_CAPACITY];
+        private boolean inUse;
+    }
+}
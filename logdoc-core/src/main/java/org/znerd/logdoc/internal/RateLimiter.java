@@ -0,0 +1,227 @@
+// See the COPYRIGHT file for copyright and license information
+package org.znerd.logdoc.internal;
+
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.Timer;
+import java.util.TimerTask;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.znerd.logdoc.EntryHandle;
+import org.znerd.logdoc.LogFacade;
+import org.znerd.util.Preconditions;
+import org.znerd.util.log.LogLevel;
+
+/**
+ * Limits how often a single log entry is logged, as configured with the <code>rateLimit</code>, <code>burst</code> and <code>firstN</code> attributes of the entry. Generated <code>Log</code>
+ * classes keep one limiter per limited entry and consult it before any translation work is done.
+ * <p>
+ * The rate limit is a token bucket, implemented as a generic cell rate algorithm: a single <code>AtomicLong</code> holds the time at which the bucket will be full again, so acquiring a token is one
+ * read and one compare-and-set, without locking. Messages that are suppressed are counted; at most once per summary interval the count is logged under the same entry, so the suppression itself
+ * is visible.
+ * <p>
+ * The summary is logged by the next call of the entry once the interval has passed. Limiters with suppressed messages are also registered with a background thread, which logs their summaries
+ * when the entry has gone quiet, so the suppression at the end of an incident is reported as well. The thread only runs while such limiters exist. {@link #reportAll()} logs all pending
+ * summaries right away.
+ */
+public final class RateLimiter {
+
+    /**
+     * The default interval between two summaries of suppressed messages, in milliseconds.
+     */
+    public static final long DEFAULT_SUMMARY_INTERVAL = 60000L;
+
+    private static final long NANOS_PER_SECOND = 1000000000L;
+    private static final long NANOS_PER_MILLI = 1000000L;
+    private static final long SWEEP_INTERVAL = 1000L;
+
+    private static final Queue<RateLimiter> PENDING = new ConcurrentLinkedQueue<RateLimiter>();
+    private static Timer SWEEPER;
+
+    private final long emissionInterval;
+    private final long tolerance;
+    private final long firstN;
+    private final long summaryInterval;
+    private final AtomicLong theoreticalArrival;
+    private final AtomicLong logged = new AtomicLong();
+    private final AtomicLong suppressed = new AtomicLong();
+    private final AtomicLong lastSummary;
+    private final AtomicBoolean pending = new AtomicBoolean();
+
+    // The call that was suppressed last, for the summary logged by the background thread
+    private volatile String summaryFqcn;
+    private volatile EntryHandle summaryEntry;
+    private volatile LogLevel summaryLevel;
+
+    /**
+     * Constructs a new <code>RateLimiter</code> that reports suppressed messages every {@value #DEFAULT_SUMMARY_INTERVAL} milliseconds.
+     *
+     * @param rateLimit
+     *        the maximum number of messages per second in the long run, or <code>0</code> for no rate limit.
+     * @param burst
+     *        the number of messages that may be logged at once, or <code>0</code> for the number of messages allowed per second (but at least one). Ignored if there is no rate limit.
+     * @param firstN
+     *        the total number of messages to log, or <code>0</code> for no such limit.
+     * @throws IllegalArgumentException
+     *         if <code>rateLimit &lt; 0 || burst &lt; 0 || firstN &lt; 0</code>.
+     */
+    public RateLimiter(double rateLimit, int burst, long firstN) throws IllegalArgumentException {
+        this(rateLimit, burst, firstN, DEFAULT_SUMMARY_INTERVAL);
+    }
+
+    RateLimiter(double rateLimit, int burst, long firstN, long summaryInterval) throws IllegalArgumentException {
+        Preconditions.checkArgument(!(rateLimit >= 0.0), "rateLimit < 0 || rateLimit is NaN");
+        Preconditions.checkArgument(burst < 0, "burst < 0");
+        Preconditions.checkArgument(firstN < 0L, "firstN < 0");
+        Preconditions.checkArgument(summaryInterval < 0L, "summaryInterval < 0");
+
+        if (rateLimit > 0.0) {
+            emissionInterval = Math.max(1L, (long) (NANOS_PER_SECOND / rateLimit));
+            int effectiveBurst = burst > 0 ? burst : (int) Math.max(1.0, Math.min(Integer.MAX_VALUE, Math.ceil(rateLimit)));
+            tolerance = (long) Math.min(Long.MAX_VALUE / 4, (effectiveBurst - 1) * (double) emissionInterval);
+        } else {
+            emissionInterval = 0L;
+            tolerance = 0L;
+        }
+        this.firstN = firstN;
+        this.summaryInterval = summaryInterval * NANOS_PER_MILLI;
+
+        long now = System.nanoTime();
+        theoreticalArrival = new AtomicLong(now);
+        lastSummary = new AtomicLong(now - this.summaryInterval);
+    }
+
+    /**
+     * Checks if a message for the entry may be logged now. If not, the message is counted as suppressed. If messages were suppressed and the summary interval has passed since the last summary,
+     * a summary is logged first.
+     *
+     * @param fqcn
+     *        the fully qualified name of the calling <code>Log</code> class, not <code>null</code>.
+     * @param entry
+     *        the entry, not <code>null</code>.
+     * @param level
+     *        the level of the entry, not <code>null</code>.
+     * @return <code>true</code> if the message may be logged, <code>false</code> if it must be suppressed.
+     */
+    public boolean tryAcquire(String fqcn, EntryHandle entry, LogLevel level) {
+        long now = System.nanoTime();
+        boolean acquired = acquire(now);
+        if (!acquired) {
+            summaryFqcn = fqcn;
+            summaryEntry = entry;
+            summaryLevel = level;
+            suppressed.incrementAndGet();
+        }
+        if (suppressed.get() > 0L) {
+            reportSuppressed(now, fqcn, entry, level);
+            if (suppressed.get() > 0L && !pending.get() && pending.compareAndSet(false, true)) {
+                PENDING.add(this);
+                startSweeper();
+            }
+        }
+        return acquired;
+    }
+
+    private boolean acquire(long now) {
+        if (firstN > 0L && logged.get() >= firstN) {
+            return false;
+        }
+        if (emissionInterval > 0L) {
+            long arrival;
+            long base;
+            do {
+                arrival = theoreticalArrival.get();
+                base = arrival - now > 0L ? arrival : now;
+                if (base - now > tolerance) {
+                    return false;
+                }
+            } while (!theoreticalArrival.compareAndSet(arrival, base + emissionInterval));
+        }
+        return firstN == 0L || logged.getAndIncrement() < firstN;
+    }
+
+    private void reportSuppressed(long now, String fqcn, EntryHandle entry, LogLevel level) {
+        long last = lastSummary.get();
+        if (now - last >= summaryInterval && lastSummary.compareAndSet(last, now)) {
+            report(fqcn, entry, level);
+        }
+    }
+
+    private void report(String fqcn, EntryHandle entry, LogLevel level) {
+        long count = suppressed.getAndSet(0L);
+        if (count > 0L) {
+            LogFacade.log(fqcn, entry, level, "Suppressed " + count + " message(s) for log entry " + entry.getCategory() + ", because it exceeded its configured rateLimit or firstN.");
+        }
+    }
+
+    /**
+     * Logs the summaries of all limiters that have suppressed messages since their last summary, even if their summary interval has not passed. Called before the <code>LogBridge</code> is
+     * changed, so that the summaries go to the bridge that the suppressed messages were meant for.
+     */
+    public static void reportAll() {
+        sweep(true);
+    }
+
+    static void sweep(boolean all) {
+        long now = System.nanoTime();
+        for (Iterator<RateLimiter> i = PENDING.iterator(); i.hasNext();) {
+            if (i.next().sweep(now, all)) {
+                i.remove();
+            }
+        }
+        stopSweeperIfIdle();
+    }
+
+    /**
+     * Logs the summary of this limiter if its summary interval has passed, or if <code>all</code> is set.
+     *
+     * @return <code>true</code> if no suppressed messages are left to report, so this limiter no longer needs to be swept.
+     */
+    private boolean sweep(long now, boolean all) {
+        long last = lastSummary.get();
+        if (suppressed.get() > 0L && (all || now - last >= summaryInterval) && lastSummary.compareAndSet(last, now)) {
+            report(summaryFqcn, summaryEntry, summaryLevel);
+        }
+        if (suppressed.get() > 0L) {
+            return false;
+        }
+        pending.set(false);
+
+        // A message suppressed in the meantime saw this limiter as still registered
+        return !(suppressed.get() > 0L && pending.compareAndSet(false, true));
+    }
+
+    private static synchronized void startSweeper() {
+        if (SWEEPER == null) {
+            SWEEPER = new Timer("Logdoc rate limiter summaries", true);
+            SWEEPER.schedule(new TimerTask() {
+                @Override
+                public void run() {
+                    sweep(false);
+                }
+            }, SWEEP_INTERVAL, SWEEP_INTERVAL);
+        }
+    }
+
+    private static synchronized void stopSweeperIfIdle() {
+        if (SWEEPER != null && PENDING.isEmpty()) {
+            SWEEPER.cancel();
+            SWEEPER = null;
+        }
+    }
+
+    static synchronized boolean isSweeping() {
+        return SWEEPER != null;
+    }
+
+    /**
+     * Returns the number of suppressed messages that have not been reported in a summary yet.
+     *
+     * @return the number of messages, at least <code>0</code>.
+     */
+    public long getSuppressedCount() {
+        return suppressed.get();
+    }
+}
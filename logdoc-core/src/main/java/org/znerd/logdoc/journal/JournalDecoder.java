@@ -0,0 +1,278 @@
+// See the COPYRIGHT file for copyright and license information
+package org.znerd.logdoc.journal;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+import org.w3c.dom.NodeList;
+import org.xml.sax.SAXException;
+import org.znerd.logdoc.LogDef;
+import org.znerd.logdoc.UnsupportedLocaleException;
+import org.znerd.util.Preconditions;
+
+/**
+ * Translates journal records, as written by {@link JournalLogBridge}, by interpreting the translation bundles of one or more log definitions. Records of entries that are not in any of the
+ * log definitions are rendered as the entry ID followed by the arguments.
+ * <p>
+ * Can be run from the command line:
+ *
+ * <pre>
+ * java org.znerd.logdoc.journal.JournalDecoder &lt;locale&gt; &lt;segment file or directory&gt; &lt;logdoc directory&gt;...
+ * </pre>
+ *
+ * This writes the records of the specified segment, or of all segments in the specified directory, to standard output, one line per record, in the same format as
+ * {@link org.znerd.logdoc.PrintWriterLogBridge} but preceded by the time.
+ */
+public final class JournalDecoder {
+
+    private final String locale;
+    private final Map<String, Map<String, Translation>> translationsByDomain = new HashMap<String, Map<String, Translation>>();
+
+    /**
+     * Constructs a new <code>JournalDecoder</code> for the specified locale.
+     *
+     * @param locale
+     *        the locale to translate to, for example <code>"en_US"</code>, cannot be <code>null</code>.
+     */
+    public JournalDecoder(String locale) {
+        Preconditions.checkArgument(locale == null, "locale == null");
+        this.locale = locale;
+    }
+
+    public String getLocale() {
+        return locale;
+    }
+
+    /**
+     * Adds the entries and translations of the specified log definition.
+     *
+     * @param logDef
+     *        the log definition, cannot be <code>null</code>.
+     * @throws UnsupportedLocaleException
+     *         if the log definition has no translation bundle for the locale of this decoder.
+     */
+    public void addLogDef(LogDef logDef) throws UnsupportedLocaleException {
+        Preconditions.checkArgument(logDef == null, "logDef == null");
+        Document bundle = logDef.getTranslations().get(locale);
+        if (bundle == null) {
+            throw new UnsupportedLocaleException(locale);
+        }
+
+        Map<String, List<String>> parameterNames = new HashMap<String, List<String>>();
+        NodeList entryElements = logDef.getXML().getDocumentElement().getElementsByTagName("entry");
+        for (int i = 0; i < entryElements.getLength(); i++) {
+            Element entryElement = (Element) entryElements.item(i);
+            List<String> names = new ArrayList<String>();
+            NodeList paramElements = entryElement.getElementsByTagName("param");
+            for (int j = 0; j < paramElements.getLength(); j++) {
+                names.add(((Element) paramElements.item(j)).getAttribute("name"));
+            }
+            parameterNames.put(entryElement.getAttribute("id"), names);
+        }
+
+        Map<String, Translation> translations = new HashMap<String, Translation>();
+        NodeList translationElements = bundle.getDocumentElement().getElementsByTagName("translation");
+        for (int i = 0; i < translationElements.getLength(); i++) {
+            Element translationElement = (Element) translationElements.item(i);
+            String entryId = translationElement.getAttribute("entry");
+            List<String> names = parameterNames.get(entryId);
+            if (names != null) {
+                translations.put(entryId, new Translation(translationElement, names));
+            }
+        }
+        translationsByDomain.put(logDef.getDomainName(), translations);
+    }
+
+    /**
+     * Translates the specified record.
+     *
+     * @param record
+     *        the record, cannot be <code>null</code>.
+     * @return the translated message, never <code>null</code>.
+     */
+    public String translate(JournalRecord record) {
+        Preconditions.checkArgument(record == null, "record == null");
+        if (record.getMessage() != null) {
+            return record.getMessage();
+        }
+
+        Map<String, Translation> translations = translationsByDomain.get(record.getDomain());
+        Translation translation = translations == null ? null : translations.get(record.getEntryId());
+        StringBuilder buffer = new StringBuilder(128);
+        if (translation == null) {
+            buffer.append(record.getEntryId()).append(record.getArguments());
+        } else {
+            translation.appendTo(buffer, record);
+        }
+        return buffer.toString();
+    }
+
+    /**
+     * Formats the specified record as a line of text, like <code>PrintWriterLogBridge</code> does, preceded by the time and followed by the stack trace, if any.
+     *
+     * @param record
+     *        the record, cannot be <code>null</code>.
+     * @param dateFormat
+     *        the format for the time, cannot be <code>null</code>.
+     * @return the formatted record, without a trailing line separator, never <code>null</code>.
+     */
+    public String format(JournalRecord record, SimpleDateFormat dateFormat) {
+        Preconditions.checkArgument(dateFormat == null, "dateFormat == null");
+        StringBuilder buffer = new StringBuilder(160);
+        buffer.append(dateFormat.format(new Date(record.getTimestamp()))).append(' ');
+        buffer.append(record.getLevel().name()).append(" [");
+        if (record.getContextId() != null) {
+            buffer.append(record.getContextId());
+        }
+        buffer.append("] ").append(record.getCategory()).append(' ');
+        buffer.append(translate(record));
+        if (record.getStackTrace() != null) {
+            buffer.append(System.getProperty("line.separator")).append(record.getStackTrace().trim());
+        }
+        return buffer.toString();
+    }
+
+    /**
+     * Decodes journal segments from the command line.
+     *
+     * @param args
+     *        the locale, a segment file or a directory with segment files, and one or more directories with a <code>log.xml</code> file.
+     * @throws IOException
+     *         if a segment or log definition could not be read.
+     * @throws SAXException
+     *         if a log definition could not be parsed.
+     */
+    public static final void main(String[] args) throws IOException, SAXException {
+        if (args.length < 3) {
+            throw new IllegalArgumentException("Usage: " + JournalDecoder.class.getName() + " <locale> <segment file or directory> <logdoc directory>...");
+        }
+        JournalDecoder decoder = new JournalDecoder(args[0]);
+        for (int i = 2; i < args.length; i++) {
+            decoder.addLogDef(LogDef.loadFromDirectory(new File(args[i])));
+        }
+
+        File input = new File(args[1]);
+        List<File> segments = new ArrayList<File>();
+        if (input.isDirectory()) {
+            File[] files = input.listFiles();
+            if (files != null) {
+                for (File file : files) {
+                    if (file.isFile() && file.getName().endsWith(JournalFormat.SUFFIX)) {
+                        segments.add(file);
+                    }
+                }
+            }
+            // Sequence numbers are zero-padded, so sorting by name puts the segments of each journal in order
+            Collections.sort(segments);
+        } else {
+            segments.add(input);
+        }
+
+        SimpleDateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss.SSS");
+        PrintWriter out = new PrintWriter(new OutputStreamWriter(System.out, "UTF-8"));
+        try {
+            for (File segment : segments) {
+                JournalReader reader = new JournalReader(segment);
+                for (JournalRecord record = reader.next(); record != null; record = reader.next()) {
+                    out.println(decoder.format(record, dateFormat));
+                }
+            }
+        } finally {
+            out.flush();
+        }
+    }
+
+    /**
+     * Translation of one entry.
+     */
+    private static final class Translation {
+        private final List<Object> parts = new ArrayList<Object>();
+
+        Translation(Element element, List<String> parameterNames) {
+            for (Node node = element.getFirstChild(); node != null; node = node.getNextSibling()) {
+                if (node.getNodeType() == Node.TEXT_NODE || node.getNodeType() == Node.CDATA_SECTION_NODE) {
+                    parts.add(normalize(node.getNodeValue()));
+                } else if (node.getNodeType() == Node.ELEMENT_NODE) {
+                    Element child = (Element) node;
+                    boolean quoted = "quoted".equals(child.getAttribute("format"));
+                    if ("value-of-param".equals(child.getTagName())) {
+                        parts.add(new Reference(false, parameterNames.indexOf(child.getAttribute("name")), quoted));
+                    } else {
+                        parts.add(new Reference(true, "class".equals(child.getAttribute("name")) ? 0 : 1, quoted));
+                    }
+                }
+            }
+        }
+
+        // Collapses each sequence of whitespace into a single space, like the code generator does
+        private static String normalize(String text) {
+            StringBuilder buffer = new StringBuilder(text.length());
+            boolean previousIsSpace = false;
+            for (int i = 0; i < text.length(); i++) {
+                char c = text.charAt(i);
+                boolean space = c == ' ' || c == '\n' || c == '\t' || c == '\r';
+                if (!space) {
+                    buffer.append(c);
+                } else if (!previousIsSpace) {
+                    buffer.append(' ');
+                }
+                previousIsSpace = space;
+            }
+            return buffer.toString();
+        }
+
+        void appendTo(StringBuilder buffer, JournalRecord record) {
+            for (Object part : parts) {
+                if (part instanceof String) {
+                    buffer.append((String) part);
+                } else {
+                    ((Reference) part).appendTo(buffer, record);
+                }
+            }
+        }
+    }
+
+    /**
+     * Reference to an argument or to a property of the exception, in a translation.
+     */
+    private static final class Reference {
+        private final boolean exceptionProperty;
+        private final int index;
+        private final boolean quoted;
+
+        Reference(boolean exceptionProperty, int index, boolean quoted) {
+            this.exceptionProperty = exceptionProperty;
+            this.index = index;
+            this.quoted = quoted;
+        }
+
+        void appendTo(StringBuilder buffer, JournalRecord record) {
+            Object value;
+            if (exceptionProperty) {
+                value = index == 0 ? record.getExceptionClass() : record.getExceptionMessage();
+            } else {
+                List<Object> arguments = record.getArguments();
+                value = index >= 0 && index < arguments.size() ? arguments.get(index) : null;
+            }
+            if (value == null) {
+                buffer.append("(null)");
+            } else if (quoted) {
+                buffer.append('"').append(value).append('"');
+            } else {
+                buffer.append(value);
+            }
+        }
+    }
+}
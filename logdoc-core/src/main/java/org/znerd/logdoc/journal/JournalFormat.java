@@ -0,0 +1,126 @@
+// See the COPYRIGHT file for copyright and license information
+package org.znerd.logdoc.journal;
+
+import java.io.File;
+import java.io.FileFilter;
+import java.util.Arrays;
+import java.util.Comparator;
+
+import org.znerd.util.log.LogLevel;
+
+/**
+ * Constants and helpers that describe the layout of journal segment files.
+ * <p>
+ * A segment starts with a header of {@link #HEADER_SIZE} bytes: the {@link #MAGIC} bytes, the format {@link #VERSION} (<code>int</code>), the segment sequence number (<code>long</code>)
+ * and the creation time (<code>long</code>). It is followed by records, each starting with a type byte. The unused remainder of a segment is zero, which reads as {@link #END}. All numbers
+ * are big-endian.
+ * <ul>
+ * <li>{@link #DEFINE}: ordinal (<code>int</code>), domain, group ID and entry ID (texts). Written before the first record of an entry in each segment, so every segment can be decoded on its
+ * own.
+ * <li>{@link #EVENT}: timestamp (<code>long</code>), ordinal (<code>int</code>), level (<code>byte</code>), context ID (text), argument count (<code>byte</code>), the arguments, each a
+ * tag byte followed by the value, and the exception.
+ * <li>{@link #MESSAGE}: like {@link #EVENT}, but with the translated message (text) instead of the arguments.
+ * </ul>
+ * A text is a length in bytes (<code>int</code>, <code>-1</code> for <code>null</code>) followed by the characters in modified UTF-8, as written by
+ * {@link java.io.DataOutput#writeUTF(String)}. An exception is a flag byte; if it is <code>1</code>, it is followed by the class name, the message and the stack trace (texts).
+ */
+final class JournalFormat {
+
+    static final byte[] MAGIC = { 'L', 'O', 'G', 'D', 'O', 'C', 'J', 'R' };
+    static final int VERSION = 1;
+    static final int HEADER_SIZE = 32;
+
+    static final byte END = 0;
+    static final byte DEFINE = 1;
+    static final byte EVENT = 2;
+    static final byte MESSAGE = 3;
+
+    static final byte NULL = 0;
+    static final byte INT8 = 1;
+    static final byte INT16 = 2;
+    static final byte INT32 = 3;
+    static final byte INT64 = 4;
+    static final byte FLOAT32 = 5;
+    static final byte FLOAT64 = 6;
+    static final byte BOOLEAN = 7;
+    static final byte TEXT = 8;
+
+    static final int MAX_ARGUMENTS = 255;
+
+    static final String SUFFIX = ".journal";
+
+    private static final LogLevel[] LEVELS = { LogLevel.DEBUG, LogLevel.INFO, LogLevel.NOTICE, LogLevel.WARNING, LogLevel.ERROR, LogLevel.FATAL };
+
+    private JournalFormat() {
+    }
+
+    static byte encodeLevel(LogLevel level) {
+        for (int i = 0; i < LEVELS.length; i++) {
+            if (LEVELS[i] == level) {
+                return (byte) i;
+            }
+        }
+        throw new IllegalArgumentException("Unknown level: " + level + '.');
+    }
+
+    static LogLevel decodeLevel(byte code) {
+        if (code < 0 || code >= LEVELS.length) {
+            throw new IllegalArgumentException("Unknown level code: " + code + '.');
+        }
+        return LEVELS[code];
+    }
+
+    static String segmentFileName(String name, long sequence) {
+        String number = Long.toString(sequence);
+        StringBuilder builder = new StringBuilder(name.length() + 20 + SUFFIX.length());
+        builder.append(name).append('-');
+        for (int i = number.length(); i < 12; i++) {
+            builder.append('0');
+        }
+        return builder.append(number).append(SUFFIX).toString();
+    }
+
+    /**
+     * Returns the sequence number of the specified segment file.
+     *
+     * @return the sequence number, or <code>-1</code> if the file name does not match that of a segment with the specified name.
+     */
+    static long sequenceOf(File file, String name) {
+        String fileName = file.getName();
+        int start = name.length() + 1;
+        if (!fileName.startsWith(name + '-') || !fileName.endsWith(SUFFIX) || fileName.length() <= start + SUFFIX.length()) {
+            return -1L;
+        }
+        String number = fileName.substring(start, fileName.length() - SUFFIX.length());
+        for (int i = 0; i < number.length(); i++) {
+            if (!Character.isDigit(number.charAt(i))) {
+                return -1L;
+            }
+        }
+        return Long.parseLong(number);
+    }
+
+    /**
+     * Lists the segment files with the specified name in the specified directory, oldest first.
+     */
+    static File[] listSegments(File directory, final String name) {
+        File[] files = directory.listFiles(new FileFilter() {
+            @Override
+            public boolean accept(File file) {
+                return file.isFile() && sequenceOf(file, name) >= 0L;
+            }
+        });
+        if (files == null) {
+            return new File[0];
+        }
+        Arrays.sort(files, new Comparator<File>() {
+            @Override
+            public int compare(File file1, File file2) {
+                long sequence1 = sequenceOf(file1, name);
+                long sequence2 = sequenceOf(file2, name);
+                return sequence1 < sequence2 ? -1 : (sequence1 == sequence2 ? 0 : 1);
+            }
+        });
+        return files;
+    }
+}
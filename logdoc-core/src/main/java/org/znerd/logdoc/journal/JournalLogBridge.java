@@ -0,0 +1,348 @@
+// See the COPYRIGHT file for copyright and license information
+package org.znerd.logdoc.journal;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.znerd.logdoc.AbstractLogBridge;
+import org.znerd.logdoc.EntryHandle;
+import org.znerd.logdoc.LogEvent;
+import org.znerd.logdoc.internal.ContextIdSupport;
+import org.znerd.util.Preconditions;
+import org.znerd.util.log.Limb;
+import org.znerd.util.log.LogLevel;
+
+/**
+ * <code>LogBridge</code> that writes binary records to memory-mapped segment files, instead of formatting text. A record holds the time, the entry, the level, the context ID and the typed
+ * arguments; translating is left to {@link JournalDecoder}, which can do so later, in any locale. This only works for <code>Log</code> classes generated with the
+ * <code>deferredTranslation</code> option, since those pass the arguments as a {@link LogEvent}; other messages are stored as translated text.
+ * <p>
+ * Records are encoded in a per-thread buffer and then copied into the current segment under a short lock. When a segment is full, a new one is started, and the oldest segments are deleted
+ * so that at most the configured number remain. Segment files are named <code><em>name</em>-<em>sequence</em>.journal</code>; see {@link JournalFormat} for their layout. Exceptions are
+ * stored with their stack trace as text.
+ * <p>
+ * Records are in the operating system's page cache as soon as they are written, so they survive the process exiting or crashing. Call {@link #close()} to also write them to disk.
+ */
+public class JournalLogBridge extends AbstractLogBridge implements Closeable {
+
+    public static final int DEFAULT_SEGMENT_SIZE = 64 * 1024 * 1024;
+    public static final int DEFAULT_MAX_SEGMENTS = 16;
+
+    private static final int MAX_RETAINED_ENCODER_CAPACITY = 64 * 1024;
+
+    private final File directory;
+    private final String name;
+    private final int segmentSize;
+    private final int maxSegments;
+    private final ContextIdSupport contextIdSupport = new ContextIdSupport();
+    private final ConcurrentMap<String, JournalEntryHandle> entries = new ConcurrentHashMap<String, JournalEntryHandle>();
+    private final AtomicInteger nextOrdinal = new AtomicInteger();
+    private final AtomicLong droppedCount = new AtomicLong();
+    private final ThreadLocal<RecordEncoder> encoders = new ThreadLocal<RecordEncoder>() {
+        @Override
+        protected RecordEncoder initialValue() {
+            return new RecordEncoder();
+        }
+    };
+    private final Object lock = new Object();
+
+    // Guarded by lock
+    private long sequence;
+    private FileChannel channel;
+    private MappedByteBuffer segment;
+    private boolean closed;
+
+    public JournalLogBridge(File directory, String name) throws IOException {
+        this(directory, name, DEFAULT_SEGMENT_SIZE, DEFAULT_MAX_SEGMENTS);
+    }
+
+    /**
+     * Constructs a new <code>JournalLogBridge</code> and starts a new segment. Existing segments with the same name are kept, up to the maximum number of segments.
+     *
+     * @param directory
+     *        the directory to write the segments to, cannot be <code>null</code>; created if it does not exist.
+     * @param name
+     *        the name of the journal, used as the prefix of the segment file names, cannot be <code>null</code> or empty.
+     * @param segmentSize
+     *        the size of each segment in bytes, must be at least 4 KiB.
+     * @param maxSegments
+     *        the maximum number of segments to keep, must be at least 1.
+     * @throws IOException
+     *         if the first segment could not be created.
+     */
+    public JournalLogBridge(File directory, String name, int segmentSize, int maxSegments) throws IOException {
+        Preconditions.checkArgument(directory == null, "directory == null");
+        Preconditions.checkArgument(name == null || name.length() < 1, "name is null or empty");
+        Preconditions.checkArgument(segmentSize < 4096, "segmentSize (" + segmentSize + ") < 4096");
+        Preconditions.checkArgument(maxSegments < 1, "maxSegments (" + maxSegments + ") < 1");
+        this.directory = directory;
+        this.name = name;
+        this.segmentSize = segmentSize;
+        this.maxSegments = maxSegments;
+
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Failed to create directory \"" + directory.getPath() + "\".");
+        }
+        File[] existing = JournalFormat.listSegments(directory, name);
+        if (existing.length > 0) {
+            sequence = JournalFormat.sequenceOf(existing[existing.length - 1], name) + 1L;
+        }
+        synchronized (lock) {
+            openSegment();
+        }
+    }
+
+    public File getDirectory() {
+        return directory;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getSegmentSize() {
+        return segmentSize;
+    }
+
+    public int getMaxSegments() {
+        return maxSegments;
+    }
+
+    /**
+     * Returns the number of records that were not written, because they did not fit in a segment or because a segment could not be created.
+     */
+    public long getDroppedCount() {
+        return droppedCount.get();
+    }
+
+    @Override
+    public void putContextId(String newContextId) {
+        contextIdSupport.putContextId(newContextId);
+    }
+
+    @Override
+    public void unputContextId() {
+        contextIdSupport.unputContextId();
+    }
+
+    @Override
+    public String getContextId() {
+        return contextIdSupport.getContextId();
+    }
+
+    @Override
+    public boolean shouldLog(String domain, String groupId, String entryId, LogLevel level) {
+        return getLevel(domain, groupId).isSmallerThanOrEqualTo(level);
+    }
+
+    @Override
+    public EntryHandle resolveEntry(String domain, String groupId, String entryId) {
+        return getEntry(domain, groupId, entryId);
+    }
+
+    private JournalEntryHandle getEntry(String domain, String groupId, String entryId) {
+        String category = domain + '.' + groupId + '.' + entryId;
+        JournalEntryHandle entry = entries.get(category);
+        if (entry == null) {
+            JournalEntryHandle newEntry = new JournalEntryHandle(this, domain, groupId, entryId, nextOrdinal.getAndIncrement());
+            entry = entries.putIfAbsent(category, newEntry);
+            if (entry == null) {
+                entry = newEntry;
+            }
+        }
+        return entry;
+    }
+
+    private JournalEntryHandle getEntry(EntryHandle entry) {
+        if (entry instanceof JournalEntryHandle && entry.getLogBridge() == this) {
+            return (JournalEntryHandle) entry;
+        } else {
+            return getEntry(entry.getDomain(), entry.getGroupId(), entry.getEntryId());
+        }
+    }
+
+    @Override
+    public void logOneMessage(String fqcn, String domain, String groupId, String entryId, LogLevel level, String message, Throwable exception) {
+        logMessage(getEntry(domain, groupId, entryId), level, message, exception);
+    }
+
+    @Override
+    public void logOneMessage(String fqcn, EntryHandle entry, LogLevel level, String message, Throwable exception) {
+        logMessage(getEntry(entry), level, message, exception);
+    }
+
+    private void logMessage(JournalEntryHandle entry, LogLevel level, String message, Throwable exception) {
+        RecordEncoder encoder = acquireEncoder();
+        try {
+            encoder.encodeMessage(System.currentTimeMillis(), entry.ordinal, level, getContextId(), message, exception);
+            append(entry, encoder);
+        } finally {
+            releaseEncoder(encoder);
+        }
+    }
+
+    @Override
+    public void logEvent(String fqcn, EntryHandle entry, LogLevel level, LogEvent event, Throwable exception) {
+        JournalEntryHandle journalEntry = getEntry(entry);
+        RecordEncoder encoder = acquireEncoder();
+        try {
+            long timestamp = System.currentTimeMillis();
+            encoder.beginEvent(timestamp, journalEntry.ordinal, level, getContextId());
+            if (event.writeArguments(encoder)) {
+                encoder.endEvent(exception);
+            } else {
+                encoder.encodeMessage(timestamp, journalEntry.ordinal, level, getContextId(), event.render(), exception);
+            }
+            append(journalEntry, encoder);
+        } finally {
+            releaseEncoder(encoder);
+        }
+    }
+
+    private RecordEncoder acquireEncoder() {
+        RecordEncoder encoder = encoders.get();
+        if (encoder.inUse) {
+            // Logging while encoding, for example from a toString() method
+            return new RecordEncoder();
+        }
+        encoder.inUse = true;
+        return encoder;
+    }
+
+    private void releaseEncoder(RecordEncoder encoder) {
+        if (encoder.bytes().length > MAX_RETAINED_ENCODER_CAPACITY) {
+            encoders.remove();
+        } else {
+            encoder.inUse = false;
+        }
+    }
+
+    private void append(JournalEntryHandle entry, RecordEncoder encoder) {
+        synchronized (lock) {
+            if (segment != null && segment.remaining() < requiredSpace(entry, encoder)) {
+                rotate();
+            }
+            if (segment == null || segment.remaining() < requiredSpace(entry, encoder)) {
+                droppedCount.incrementAndGet();
+                return;
+            }
+            if (entry.definedInSegment != sequence) {
+                segment.put(entry.defineRecord);
+                entry.definedInSegment = sequence;
+            }
+            segment.put(encoder.bytes(), 0, encoder.length());
+        }
+    }
+
+    // Called with lock held
+    private int requiredSpace(JournalEntryHandle entry, RecordEncoder encoder) {
+        return encoder.length() + (entry.definedInSegment == sequence ? 0 : entry.defineRecord.length);
+    }
+
+    // Called with lock held
+    private void rotate() {
+        closeSegment();
+        sequence++;
+        try {
+            openSegment();
+        } catch (IOException cause) {
+            Limb.log(LogLevel.ERROR, "Failed to create journal segment " + JournalFormat.segmentFileName(name, sequence) + '.', cause);
+        }
+    }
+
+    // Called with lock held
+    private void openSegment() throws IOException {
+        if (closed) {
+            return;
+        }
+        File file = new File(directory, JournalFormat.segmentFileName(name, sequence));
+        RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw");
+        try {
+            randomAccessFile.setLength(segmentSize);
+            channel = randomAccessFile.getChannel();
+            segment = channel.map(FileChannel.MapMode.READ_WRITE, 0L, segmentSize);
+        } catch (IOException cause) {
+            randomAccessFile.close();
+            throw cause;
+        }
+        segment.put(JournalFormat.MAGIC);
+        segment.putInt(JournalFormat.VERSION);
+        segment.putLong(sequence);
+        segment.putLong(System.currentTimeMillis());
+        segment.position(JournalFormat.HEADER_SIZE);
+        deleteOldSegments();
+    }
+
+    // Called with lock held
+    private void closeSegment() {
+        if (segment == null) {
+            return;
+        }
+        try {
+            segment.force();
+            channel.close();
+        } catch (IOException cause) {
+            Limb.log(LogLevel.WARNING, "Failed to close journal segment " + JournalFormat.segmentFileName(name, sequence) + '.', cause);
+        }
+        segment = null;
+        channel = null;
+    }
+
+    private void deleteOldSegments() {
+        File[] segments = JournalFormat.listSegments(directory, name);
+        for (int i = 0; i < segments.length - maxSegments; i++) {
+            if (!segments[i].delete()) {
+                Limb.log(LogLevel.WARNING, "Failed to delete journal segment " + segments[i].getPath() + '.');
+            }
+        }
+    }
+
+    /**
+     * Writes the current segment to disk, without closing this bridge.
+     */
+    public void flush() {
+        synchronized (lock) {
+            if (segment != null) {
+                segment.force();
+            }
+        }
+    }
+
+    /**
+     * Writes the current segment to disk and closes it. Records logged afterwards are dropped. The segment file stays mapped until the buffer is garbage collected, since Java has no way to unmap
+     * it explicitly.
+     */
+    @Override
+    public void close() {
+        synchronized (lock) {
+            closeSegment();
+            closed = true;
+        }
+    }
+
+    /**
+     * Entry handle that holds the ordinal by which records refer to the entry, and its definition record.
+     */
+    private static final class JournalEntryHandle extends EntryHandle {
+        private final int ordinal;
+        private final byte[] defineRecord;
+        private long definedInSegment = -1L;
+
+        JournalEntryHandle(JournalLogBridge logBridge, String domain, String groupId, String entryId, int ordinal) {
+            super(logBridge, domain, groupId, entryId);
+            this.ordinal = ordinal;
+            RecordEncoder encoder = new RecordEncoder();
+            encoder.encodeDefine(ordinal, domain, groupId, entryId);
+            defineRecord = new byte[encoder.length()];
+            System.arraycopy(encoder.bytes(), 0, defineRecord, 0, defineRecord.length);
+        }
+    }
+}
@@ -0,0 +1,214 @@
+// See the COPYRIGHT file for copyright and license information
+package org.znerd.logdoc.journal;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.znerd.util.Preconditions;
+import org.znerd.util.log.LogLevel;
+
+/**
+ * Reads the records of one journal segment, as written by {@link JournalLogBridge}.
+ */
+public final class JournalReader {
+
+    private final File file;
+    private final ByteBuffer buffer;
+    private final long sequence;
+    private final long created;
+    private final Map<Integer, String[]> entries = new HashMap<Integer, String[]>();
+
+    /**
+     * Opens the specified segment and reads its header.
+     *
+     * @param file
+     *        the segment file, cannot be <code>null</code>.
+     * @throws IOException
+     *         if the file could not be read or is not a journal segment.
+     */
+    public JournalReader(File file) throws IOException {
+        Preconditions.checkArgument(file == null, "file == null");
+        this.file = file;
+
+        RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r");
+        try {
+            FileChannel channel = randomAccessFile.getChannel();
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0L, channel.size());
+        } finally {
+            randomAccessFile.close();
+        }
+
+        if (buffer.remaining() < JournalFormat.HEADER_SIZE) {
+            throw new IOException("File " + file.getPath() + " is not a journal segment: too short.");
+        }
+        byte[] magic = new byte[JournalFormat.MAGIC.length];
+        buffer.get(magic);
+        if (!Arrays.equals(magic, JournalFormat.MAGIC)) {
+            throw new IOException("File " + file.getPath() + " is not a journal segment.");
+        }
+        int version = buffer.getInt();
+        if (version != JournalFormat.VERSION) {
+            throw new IOException("Journal segment " + file.getPath() + " has unsupported version " + version + '.');
+        }
+        sequence = buffer.getLong();
+        created = buffer.getLong();
+        buffer.position(JournalFormat.HEADER_SIZE);
+    }
+
+    /**
+     * Lists the segments of the journal with the specified name, oldest first.
+     *
+     * @param directory
+     *        the directory that contains the segments, cannot be <code>null</code>.
+     * @param name
+     *        the name of the journal, cannot be <code>null</code>.
+     * @return the segment files, never <code>null</code>.
+     */
+    public static File[] listSegments(File directory, String name) {
+        Preconditions.checkArgument(directory == null, "directory == null");
+        Preconditions.checkArgument(name == null, "name == null");
+        return JournalFormat.listSegments(directory, name);
+    }
+
+    public long getSequence() {
+        return sequence;
+    }
+
+    /**
+     * Returns the time the segment was created.
+     *
+     * @return the time, in milliseconds since the epoch.
+     */
+    public long getCreated() {
+        return created;
+    }
+
+    /**
+     * Reads the next record.
+     *
+     * @return the record, or <code>null</code> if there are no more records.
+     * @throws IOException
+     *         if the segment is corrupt.
+     */
+    public JournalRecord next() throws IOException {
+        try {
+            while (buffer.hasRemaining()) {
+                byte type = buffer.get();
+                if (type == JournalFormat.END) {
+                    return null;
+                } else if (type == JournalFormat.DEFINE) {
+                    int ordinal = buffer.getInt();
+                    entries.put(Integer.valueOf(ordinal), new String[] { readText(), readText(), readText() });
+                } else if (type == JournalFormat.EVENT || type == JournalFormat.MESSAGE) {
+                    return readRecord(type);
+                } else {
+                    throw corrupt("unknown record type " + type);
+                }
+            }
+            return null;
+        } catch (BufferUnderflowException cause) {
+            throw corrupt("truncated record");
+        }
+    }
+
+    private JournalRecord readRecord(byte type) throws IOException {
+        long timestamp = buffer.getLong();
+        int ordinal = buffer.getInt();
+        String[] entry = entries.get(Integer.valueOf(ordinal));
+        if (entry == null) {
+            throw corrupt("undefined entry ordinal " + ordinal);
+        }
+        LogLevel level;
+        try {
+            level = JournalFormat.decodeLevel(buffer.get());
+        } catch (IllegalArgumentException cause) {
+            throw corrupt(cause.getMessage());
+        }
+        String contextId = readText();
+
+        List<Object> arguments = null;
+        String message = null;
+        if (type == JournalFormat.EVENT) {
+            int count = buffer.get() & 0xFF;
+            arguments = new ArrayList<Object>(count);
+            for (int i = 0; i < count; i++) {
+                arguments.add(readArgument());
+            }
+        } else {
+            message = readText();
+        }
+
+        String exceptionClass = null, exceptionMessage = null, stackTrace = null;
+        if (buffer.get() != 0) {
+            exceptionClass = readText();
+            exceptionMessage = readText();
+            stackTrace = readText();
+        }
+        return new JournalRecord(timestamp, entry, level, contextId, arguments, message, exceptionClass, exceptionMessage, stackTrace);
+    }
+
+    private Object readArgument() throws IOException {
+        byte tag = buffer.get();
+        switch (tag) {
+            case JournalFormat.NULL:
+                return null;
+            case JournalFormat.INT8:
+                return Byte.valueOf(buffer.get());
+            case JournalFormat.INT16:
+                return Short.valueOf(buffer.getShort());
+            case JournalFormat.INT32:
+                return Integer.valueOf(buffer.getInt());
+            case JournalFormat.INT64:
+                return Long.valueOf(buffer.getLong());
+            case JournalFormat.FLOAT32:
+                return Float.valueOf(buffer.getFloat());
+            case JournalFormat.FLOAT64:
+                return Double.valueOf(buffer.getDouble());
+            case JournalFormat.BOOLEAN:
+                return Boolean.valueOf(buffer.get() != 0);
+            case JournalFormat.TEXT:
+                return readText();
+            default:
+                throw corrupt("unknown argument tag " + tag);
+        }
+    }
+
+    private String readText() throws IOException {
+        int length = buffer.getInt();
+        if (length < 0) {
+            return null;
+        }
+        if (length > buffer.remaining()) {
+            throw corrupt("text length " + length + " exceeds segment");
+        }
+        char[] chars = new char[length];
+        int count = 0;
+        int end = buffer.position() + length;
+        while (buffer.position() < end) {
+            int b = buffer.get() & 0xFF;
+            if (b < 0x80) {
+                chars[count++] = (char) b;
+            } else if ((b & 0xE0) == 0xC0) {
+                chars[count++] = (char) (((b & 0x1F) << 6) | (buffer.get() & 0x3F));
+            } else if ((b & 0xF0) == 0xE0) {
+                chars[count++] = (char) (((b & 0x0F) << 12) | ((buffer.get() & 0x3F) << 6) | (buffer.get() & 0x3F));
+            } else {
+                throw corrupt("invalid text encoding");
+            }
+        }
+        return new String(chars, 0, count);
+    }
+
+    private IOException corrupt(String detail) {
+        return new IOException("Journal segment " + file.getPath() + " is corrupt at position " + buffer.position() + ": " + detail + '.');
+    }
+}
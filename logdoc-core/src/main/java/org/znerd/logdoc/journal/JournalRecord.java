@@ -0,0 +1,124 @@
+// See the COPYRIGHT file for copyright and license information
+package org.znerd.logdoc.journal;
+
+import java.util.Collections;
+import java.util.List;
+
+import org.znerd.util.log.LogLevel;
+
+/**
+ * Record read from a journal segment by a {@link JournalReader}. Holds either the arguments of the entry, or, for messages that were not logged through a generated <code>Log</code> class
+ * with deferred translation, the translated message.
+ */
+public final class JournalRecord {
+
+    private final long timestamp;
+    private final String domain;
+    private final String groupId;
+    private final String entryId;
+    private final LogLevel level;
+    private final String contextId;
+    private final List<Object> arguments;
+    private final String message;
+    private final String exceptionClass;
+    private final String exceptionMessage;
+    private final String stackTrace;
+
+    JournalRecord(long timestamp, String[] entry, LogLevel level, String contextId, List<Object> arguments, String message, String exceptionClass, String exceptionMessage, String stackTrace) {
+        this.timestamp = timestamp;
+        this.domain = entry[0];
+        this.groupId = entry[1];
+        this.entryId = entry[2];
+        this.level = level;
+        this.contextId = contextId;
+        this.arguments = arguments == null ? null : Collections.unmodifiableList(arguments);
+        this.message = message;
+        this.exceptionClass = exceptionClass;
+        this.exceptionMessage = exceptionMessage;
+        this.stackTrace = stackTrace;
+    }
+
+    /**
+     * Returns the time the record was logged.
+     *
+     * @return the time, in milliseconds since the epoch.
+     */
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    public String getDomain() {
+        return domain;
+    }
+
+    public String getGroupId() {
+        return groupId;
+    }
+
+    public String getEntryId() {
+        return entryId;
+    }
+
+    public String getCategory() {
+        return domain + '.' + groupId + '.' + entryId;
+    }
+
+    public LogLevel getLevel() {
+        return level;
+    }
+
+    /**
+     * Returns the context ID at the time the record was logged.
+     *
+     * @return the context ID, or <code>null</code> if there was none.
+     */
+    public String getContextId() {
+        return contextId;
+    }
+
+    /**
+     * Returns the arguments, in the order of the parameters in <code>log.xml</code>. Values are <code>Byte</code>, <code>Short</code>, <code>Integer</code>, <code>Long</code>,
+     * <code>Float</code>, <code>Double</code>, <code>Boolean</code> or <code>String</code>, the latter also for <code>object</code> parameters, or <code>null</code>.
+     *
+     * @return the unmodifiable list of arguments, or <code>null</code> if this record holds a translated message instead.
+     */
+    public List<Object> getArguments() {
+        return arguments;
+    }
+
+    /**
+     * Returns the translated message.
+     *
+     * @return the message, or <code>null</code> if this record holds arguments instead.
+     */
+    public String getMessage() {
+        return message;
+    }
+
+    /**
+     * Returns the class name of the exception.
+     *
+     * @return the class name, or <code>null</code> if no exception was logged.
+     */
+    public String getExceptionClass() {
+        return exceptionClass;
+    }
+
+    public String getExceptionMessage() {
+        return exceptionMessage;
+    }
+
+    /**
+     * Returns the stack trace of the exception, as printed by {@link Throwable#printStackTrace()}.
+     *
+     * @return the stack trace, or <code>null</code> if no exception was logged.
+     */
+    public String getStackTrace() {
+        return stackTrace;
+    }
+
+    @Override
+    public String toString() {
+        return getCategory() + (arguments == null ? " " + message : " " + arguments);
+    }
+}
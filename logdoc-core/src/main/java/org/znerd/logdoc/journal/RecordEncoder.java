@@ -0,0 +1,208 @@
+// See the COPYRIGHT file for copyright and license information
+package org.znerd.logdoc.journal;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+
+import org.znerd.logdoc.ArgumentWriter;
+import org.znerd.util.log.LogLevel;
+
+/**
+ * Encodes one record at a time into a reusable byte array, in the layout described by {@link JournalFormat}. Not thread-safe; {@link JournalLogBridge} keeps one per thread.
+ */
+final class RecordEncoder implements ArgumentWriter {
+
+    private static final int INITIAL_CAPACITY = 256;
+
+    private byte[] bytes = new byte[INITIAL_CAPACITY];
+    private int length;
+    private int argumentCountPosition;
+    private int argumentCount;
+    boolean inUse;
+
+    byte[] bytes() {
+        return bytes;
+    }
+
+    int length() {
+        return length;
+    }
+
+    void beginEvent(long timestamp, int ordinal, LogLevel level, String contextId) {
+        beginRecord(JournalFormat.EVENT, timestamp, ordinal, level, contextId);
+        argumentCountPosition = length;
+        argumentCount = 0;
+        putByte((byte) 0);
+    }
+
+    void endEvent(Throwable exception) {
+        bytes[argumentCountPosition] = (byte) argumentCount;
+        putException(exception);
+    }
+
+    void encodeMessage(long timestamp, int ordinal, LogLevel level, String contextId, String message, Throwable exception) {
+        beginRecord(JournalFormat.MESSAGE, timestamp, ordinal, level, contextId);
+        putText(message);
+        putException(exception);
+    }
+
+    void encodeDefine(int ordinal, String domain, String groupId, String entryId) {
+        length = 0;
+        putByte(JournalFormat.DEFINE);
+        putInt(ordinal);
+        putText(domain);
+        putText(groupId);
+        putText(entryId);
+    }
+
+    private void beginRecord(byte type, long timestamp, int ordinal, LogLevel level, String contextId) {
+        length = 0;
+        putByte(type);
+        putLong(timestamp);
+        putInt(ordinal);
+        putByte(JournalFormat.encodeLevel(level));
+        putText(contextId);
+    }
+
+    private void putException(Throwable exception) {
+        if (exception == null) {
+            putByte((byte) 0);
+        } else {
+            putByte((byte) 1);
+            putText(exception.getClass().getName());
+            putText(exception.getMessage());
+            StringWriter stackTrace = new StringWriter();
+            exception.printStackTrace(new PrintWriter(stackTrace));
+            putText(stackTrace.toString());
+        }
+    }
+
+    private void startArgument(byte tag) {
+        if (argumentCount >= JournalFormat.MAX_ARGUMENTS) {
+            throw new IllegalStateException("More than " + JournalFormat.MAX_ARGUMENTS + " arguments.");
+        }
+        argumentCount++;
+        putByte(tag);
+    }
+
+    @Override
+    public void writeNull() {
+        startArgument(JournalFormat.NULL);
+    }
+
+    @Override
+    public void writeInt8(byte value) {
+        startArgument(JournalFormat.INT8);
+        putByte(value);
+    }
+
+    @Override
+    public void writeInt16(short value) {
+        startArgument(JournalFormat.INT16);
+        ensureCapacity(2);
+        bytes[length++] = (byte) (value >>> 8);
+        bytes[length++] = (byte) value;
+    }
+
+    @Override
+    public void writeInt32(int value) {
+        startArgument(JournalFormat.INT32);
+        putInt(value);
+    }
+
+    @Override
+    public void writeInt64(long value) {
+        startArgument(JournalFormat.INT64);
+        putLong(value);
+    }
+
+    @Override
+    public void writeFloat32(float value) {
+        startArgument(JournalFormat.FLOAT32);
+        putInt(Float.floatToIntBits(value));
+    }
+
+    @Override
+    public void writeFloat64(double value) {
+        startArgument(JournalFormat.FLOAT64);
+        putLong(Double.doubleToLongBits(value));
+    }
+
+    @Override
+    public void writeBoolean(boolean value) {
+        startArgument(JournalFormat.BOOLEAN);
+        putByte(value ? (byte) 1 : (byte) 0);
+    }
+
+    @Override
+    public void writeText(String value) {
+        if (value == null) {
+            writeNull();
+        } else {
+            startArgument(JournalFormat.TEXT);
+            putText(value);
+        }
+    }
+
+    @Override
+    public void writeObject(Object value) {
+        writeText(value == null ? null : value.toString());
+    }
+
+    private void putByte(byte value) {
+        ensureCapacity(1);
+        bytes[length++] = value;
+    }
+
+    private void putInt(int value) {
+        ensureCapacity(4);
+        bytes[length++] = (byte) (value >>> 24);
+        bytes[length++] = (byte) (value >>> 16);
+        bytes[length++] = (byte) (value >>> 8);
+        bytes[length++] = (byte) value;
+    }
+
+    private void putLong(long value) {
+        putInt((int) (value >>> 32));
+        putInt((int) value);
+    }
+
+    private void putText(String value) {
+        if (value == null) {
+            putInt(-1);
+            return;
+        }
+
+        int lengthPosition = length;
+        putInt(0);
+        int count = value.length();
+        ensureCapacity(count * 3);
+        for (int i = 0; i < count; i++) {
+            char c = value.charAt(i);
+            if (c >= 0x0001 && c <= 0x007F) {
+                bytes[length++] = (byte) c;
+            } else if (c <= 0x07FF) {
+                bytes[length++] = (byte) (0xC0 | ((c >> 6) & 0x1F));
+                bytes[length++] = (byte) (0x80 | (c & 0x3F));
+            } else {
+                bytes[length++] = (byte) (0xE0 | ((c >> 12) & 0x0F));
+                bytes[length++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                bytes[length++] = (byte) (0x80 | (c & 0x3F));
+            }
+        }
+        int byteCount = length - lengthPosition - 4;
+        bytes[lengthPosition] = (byte) (byteCount >>> 24);
+        bytes[lengthPosition + 1] = (byte) (byteCount >>> 16);
+        bytes[lengthPosition + 2] = (byte) (byteCount >>> 8);
+        bytes[lengthPosition + 3] = (byte) byteCount;
+    }
+
+    private void ensureCapacity(int extra) {
+        int required = length + extra;
+        if (required > bytes.length) {
+            byte[] newBytes = new byte[Math.max(required, bytes.length * 2)];
+            System.arraycopy(bytes, 0, newBytes, 0, length);
+            bytes = newBytes;
+        }
+    }
+}
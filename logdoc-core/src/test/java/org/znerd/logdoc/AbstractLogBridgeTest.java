@@ -3,7 +3,9 @@ package org.znerd.logdoc;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
 import org.junit.Before;
@@ -16,16 +18,16 @@ public abstract class AbstractLogBridgeTest {
     private static final String GROUP_ID = "sample";
     private static final String ENTRY_ID = "9011";
     
-    private LogBridge logBridge;
+    private EntryLogBridge logBridge;
 
     @Before
     public final void initLogBridge() throws Exception {
-        logBridge = provideLogBridge();
+        logBridge = LogFacade.asEntryLogBridge(provideLogBridge());
     }
 
     protected abstract LogBridge provideLogBridge();
 
-    protected LogBridge getLogBridge() {
+    protected EntryLogBridge getLogBridge() {
         return logBridge;
     }
 
@@ -141,4 +143,24 @@ public abstract class AbstractLogBridgeTest {
         assertFalse(logBridge.shouldLog(DOMAIN, GROUP_ID, ENTRY_ID, LogLevel.ERROR));
         assertTrue(logBridge.shouldLog(DOMAIN, GROUP_ID, ENTRY_ID, LogLevel.FATAL));
     }
+
+    @Test
+    public void testResolveEntry() {
+        EntryHandle entry = logBridge.resolveEntry(DOMAIN, GROUP_ID, ENTRY_ID);
+        assertNotNull(entry);
+        assertSame(logBridge, entry.getLogBridge());
+        assertEquals(DOMAIN + '.' + GROUP_ID + '.' + ENTRY_ID, entry.getCategory());
+    }
+
+    @Test
+    public void testShouldLogWithEntryHandle() {
+        EntryHandle entry = logBridge.resolveEntry(DOMAIN, GROUP_ID, ENTRY_ID);
+        logBridge.setLevel(LogLevel.WARNING);
+        assertFalse(logBridge.shouldLog(entry, LogLevel.DEBUG));
+        assertFalse(logBridge.shouldLog(entry, LogLevel.INFO));
+        assertFalse(logBridge.shouldLog(entry, LogLevel.NOTICE));
+        assertTrue(logBridge.shouldLog(entry, LogLevel.WARNING));
+        assertTrue(logBridge.shouldLog(entry, LogLevel.ERROR));
+        assertTrue(logBridge.shouldLog(entry, LogLevel.FATAL));
+    }
 }
@@ -0,0 +1,64 @@
+// See the COPYRIGHT file for copyright and license information
+package org.znerd.logdoc;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.lang.reflect.Method;
+
+/**
+ * Measures the number of bytes allocated by the current thread, using the allocation counter of the HotSpot <code>ThreadMXBean</code>. Tests should skip their allocation assertions when
+ * {@link #isSupported()} returns <code>false</code>.
+ */
+final class AllocationMeter {
+
+    private static final ThreadMXBean THREAD_BEAN = ManagementFactory.getThreadMXBean();
+    private static final Method ALLOCATED_BYTES_METHOD = findAllocatedBytesMethod();
+
+    private AllocationMeter() {
+    }
+
+    private static Method findAllocatedBytesMethod() {
+        try {
+            Class<?> hotSpotThreadBean = Class.forName("com.sun.management.ThreadMXBean");
+            Method method = hotSpotThreadBean.getMethod("getThreadAllocatedBytes", long.class);
+            method.invoke(THREAD_BEAN, Long.valueOf(Thread.currentThread().getId()));
+            return method;
+        } catch (Exception cause) {
+            return null;
+        }
+    }
+
+    static boolean isSupported() {
+        return ALLOCATED_BYTES_METHOD != null;
+    }
+
+    static long allocatedBytes() {
+        try {
+            return ((Long) ALLOCATED_BYTES_METHOD.invoke(THREAD_BEAN, Long.valueOf(Thread.currentThread().getId()))).longValue();
+        } catch (Exception cause) {
+            throw new IllegalStateException("Failed to determine the number of allocated bytes.", cause);
+        }
+    }
+
+    /**
+     * Runs the specified action the specified number of times to warm up, then the same number of times again while measuring, and returns the average number of bytes allocated per run.
+     * The few bytes that the measurement itself allocates are rounded away, as long as the number of iterations is large enough.
+     *
+     * @param iterations
+     *        the number of times to run the action, should be at least several thousands.
+     * @param action
+     *        the action to measure, cannot be <code>null</code>.
+     * @return the average number of bytes allocated per run, rounded down.
+     */
+    static long bytesPerRun(int iterations, Runnable action) {
+        for (int i = 0; i < iterations; i++) {
+            action.run();
+        }
+
+        long before = allocatedBytes();
+        for (int i = 0; i < iterations; i++) {
+            action.run();
+        }
+        return (allocatedBytes() - before) / iterations;
+    }
+}
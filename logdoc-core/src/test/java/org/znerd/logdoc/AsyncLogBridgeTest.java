@@ -0,0 +1,256 @@
+// See the COPYRIGHT file for copyright and license information
+package org.znerd.logdoc;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.util.concurrent.CountDownLatch;
+
+import org.junit.After;
+import org.junit.Test;
+import org.znerd.util.log.LogLevel;
+
+public class AsyncLogBridgeTest extends AbstractLogBridgeTest {
+
+    private static final String LINE_SEPARATOR = System.getProperty("line.separator");
+
+    private StringWriter stringWriter;
+
+    @Override
+    protected LogBridge provideLogBridge() {
+        final boolean writeImmediately = true;
+        stringWriter = new StringWriter();
+        PrintWriter printWriter = new PrintWriter(stringWriter, writeImmediately);
+        return new AsyncLogBridge(new PrintWriterLogBridge(printWriter));
+    }
+
+    private AsyncLogBridge getAsyncLogBridge() {
+        return (AsyncLogBridge) super.getLogBridge();
+    }
+
+    @After
+    public void closeLogBridge() {
+        getAsyncLogBridge().close();
+    }
+
+    @Test
+    public void testDefaults() {
+        AsyncLogBridge logBridge = getAsyncLogBridge();
+        assertEquals(AsyncLogBridge.DEFAULT_CAPACITY, logBridge.getCapacity());
+        assertSame(AsyncLogBridge.OverflowPolicy.BLOCK, logBridge.getOverflowPolicy());
+        assertSame(LogLevel.ERROR, logBridge.getSynchronousLevel());
+        assertEquals(0L, logBridge.getDroppedCount());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testCapacityMustBePowerOfTwo() {
+        new AsyncLogBridge(new PrintWriterLogBridge(new PrintWriter(new StringWriter())), 100, AsyncLogBridge.OverflowPolicy.BLOCK);
+    }
+
+    @Test
+    public void testMessagesAreWrittenAfterFlush() throws InterruptedException {
+        AsyncLogBridge logBridge = getAsyncLogBridge();
+        EntryHandle entry = logBridge.resolveEntry("org.znerd", "sample", "9876");
+        logBridge.logOneMessage(getClass().getName(), entry, LogLevel.INFO, "One", null);
+        logBridge.logOneMessage(getClass().getName(), "org.znerd", "sample", "9877", LogLevel.WARNING, "Two", null);
+        logBridge.flush();
+
+        String expected = "INFO [] org.znerd.sample.9876 One" + LINE_SEPARATOR + "WARNING [] org.znerd.sample.9877 Two" + LINE_SEPARATOR;
+        assertEquals(expected, stringWriter.toString());
+        assertEquals(2L, logBridge.getEnqueuedCount());
+    }
+
+    @Test
+    public void testContextIdIsCapturedWhenLogging() throws InterruptedException {
+        AsyncLogBridge logBridge = getAsyncLogBridge();
+        logBridge.putContextId("CONTEXT-1");
+        try {
+            logBridge.logOneMessage(getClass().getName(), "org.znerd", "sample", "9876", LogLevel.INFO, "Bla", null);
+        } finally {
+            logBridge.unputContextId();
+        }
+        logBridge.flush();
+
+        assertEquals("INFO [CONTEXT-1] org.znerd.sample.9876 Bla" + LINE_SEPARATOR, stringWriter.toString());
+    }
+
+    @Test
+    public void testEventIsRenderedOnBackgroundThread() throws InterruptedException {
+        AsyncLogBridge logBridge = getAsyncLogBridge();
+        EntryHandle entry = logBridge.resolveEntry("org.znerd", "sample", "9876");
+        ThreadRecordingEvent event = new ThreadRecordingEvent();
+        logBridge.logEvent(getClass().getName(), entry, LogLevel.INFO, event, null);
+        logBridge.flush();
+
+        assertEquals("INFO [] org.znerd.sample.9876 Rendered" + LINE_SEPARATOR, stringWriter.toString());
+        assertTrue(event.renderThread != null && event.renderThread != Thread.currentThread());
+    }
+
+    @Test
+    public void testSynchronousLevelBypassesBuffer() {
+        AsyncLogBridge logBridge = getAsyncLogBridge();
+        logBridge.logOneMessage(getClass().getName(), "org.znerd", "sample", "9876", LogLevel.ERROR, "Bla", null);
+
+        assertEquals("ERROR [] org.znerd.sample.9876 Bla" + LINE_SEPARATOR, stringWriter.toString());
+        assertEquals(0L, logBridge.getEnqueuedCount());
+    }
+
+    @Test
+    public void testCloseWritesBufferedMessages() {
+        AsyncLogBridge logBridge = getAsyncLogBridge();
+        logBridge.setSynchronousLevel(null);
+        for (int i = 0; i < 100; i++) {
+            logBridge.logOneMessage(getClass().getName(), "org.znerd", "sample", "9876", LogLevel.FATAL, "Bla", null);
+        }
+        logBridge.close();
+
+        assertEquals(100, stringWriter.toString().split(LINE_SEPARATOR).length);
+    }
+
+    @Test
+    public void testDropNewestWhenFull() throws InterruptedException {
+        BlockingLogBridge delegate = new BlockingLogBridge();
+        AsyncLogBridge logBridge = new AsyncLogBridge(delegate, 4, AsyncLogBridge.OverflowPolicy.DROP_NEWEST);
+        try {
+            for (int i = 0; i < 10; i++) {
+                logBridge.logOneMessage(getClass().getName(), "org.znerd", "sample", "9876", LogLevel.INFO, "Bla", null);
+            }
+            assertTrue(logBridge.getDroppedCount() > 0L);
+            assertEquals(10L, logBridge.getEnqueuedCount() + logBridge.getDroppedCount());
+        } finally {
+            delegate.release.countDown();
+            logBridge.close();
+        }
+        assertEquals(logBridge.getEnqueuedCount(), delegate.getCount());
+    }
+
+    @Test
+    public void testDropBelowLevelKeepsImportantMessages() throws InterruptedException {
+        BlockingLogBridge delegate = new BlockingLogBridge();
+        AsyncLogBridge logBridge = new AsyncLogBridge(delegate, 2, AsyncLogBridge.OverflowPolicy.DROP_BELOW_LEVEL);
+        logBridge.setSynchronousLevel(null);
+        try {
+            for (int i = 0; i < 5; i++) {
+                logBridge.logOneMessage(getClass().getName(), "org.znerd", "sample", "9876", LogLevel.DEBUG, "Bla", null);
+            }
+            assertTrue(logBridge.getDroppedCount() > 0L);
+        } finally {
+            delegate.release.countDown();
+        }
+        long dropped = logBridge.getDroppedCount();
+        logBridge.logOneMessage(getClass().getName(), "org.znerd", "sample", "9876", LogLevel.WARNING, "Bla", null);
+        logBridge.close();
+        assertEquals(dropped, logBridge.getDroppedCount());
+    }
+
+    @Test
+    public void testBlockedMessageIsWrittenWhenClosing() throws InterruptedException {
+        BlockingLogBridge delegate = new BlockingLogBridge();
+        final AsyncLogBridge logBridge = new AsyncLogBridge(delegate, 2, AsyncLogBridge.OverflowPolicy.BLOCK);
+        logBridge.setSynchronousLevel(null);
+        for (int i = 0; i < 3; i++) {
+            logBridge.logOneMessage(getClass().getName(), "org.znerd", "sample", "9876", LogLevel.INFO, "Bla", null);
+        }
+        Thread producer = new Thread() {
+            @Override
+            public void run() {
+                logBridge.logOneMessage(AsyncLogBridgeTest.class.getName(), "org.znerd", "sample", "9876", LogLevel.INFO, "Blocked", null);
+            }
+        };
+        producer.start();
+        Thread closer = new Thread() {
+            @Override
+            public void run() {
+                logBridge.close();
+            }
+        };
+        closer.start();
+        Thread.sleep(50L);
+        delegate.release.countDown();
+
+        producer.join(5000L);
+        closer.join(5000L);
+        assertFalse(producer.isAlive());
+        assertFalse(closer.isAlive());
+        assertEquals(4L, delegate.getCount());
+    }
+
+    @Test
+    public void testFlushWaitsForConsumer() throws InterruptedException {
+        BlockingLogBridge delegate = new BlockingLogBridge();
+        AsyncLogBridge logBridge = new AsyncLogBridge(delegate, 4, AsyncLogBridge.OverflowPolicy.BLOCK);
+        try {
+            logBridge.logOneMessage(getClass().getName(), "org.znerd", "sample", "9876", LogLevel.INFO, "Bla", null);
+            final CountDownLatch released = delegate.release;
+            new Thread() {
+                @Override
+                public void run() {
+                    try {
+                        Thread.sleep(50L);
+                    } catch (InterruptedException cause) {
+                        Thread.currentThread().interrupt();
+                    }
+                    released.countDown();
+                }
+            }.start();
+            logBridge.flush();
+            assertEquals(1L, delegate.getCount());
+        } finally {
+            delegate.release.countDown();
+            logBridge.close();
+        }
+    }
+
+    private static class ThreadRecordingEvent extends LogEvent {
+        private volatile Thread renderThread;
+
+        @Override
+        public String render() {
+            renderThread = Thread.currentThread();
+            return "Rendered";
+        }
+    }
+
+    private static class BlockingLogBridge extends AbstractLogBridge {
+        private final CountDownLatch release = new CountDownLatch(1);
+        private long count;
+
+        @Override
+        public void putContextId(String newContextId) {
+        }
+
+        @Override
+        public void unputContextId() {
+        }
+
+        @Override
+        public String getContextId() {
+            return null;
+        }
+
+        @Override
+        public boolean shouldLog(String domain, String groupId, String entryId, LogLevel level) {
+            return true;
+        }
+
+        @Override
+        public void logOneMessage(String fqcn, String domain, String groupId, String entryId, LogLevel level, String message, Throwable exception) {
+            try {
+                release.await();
+            } catch (InterruptedException cause) {
+                Thread.currentThread().interrupt();
+            }
+            synchronized (this) {
+                count++;
+            }
+        }
+
+        synchronized long getCount() {
+            return count;
+        }
+    }
+}
@@ -0,0 +1,171 @@
+// See the COPYRIGHT file for copyright and license information
+package org.znerd.logdoc;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+
+import org.junit.Test;
+import org.znerd.util.log.LogLevel;
+
+public class ContextBufferingLogBridgeTest extends AbstractLogBridgeTest {
+
+    private static final String LINE_SEPARATOR = System.getProperty("line.separator");
+
+    private StringWriter stringWriter;
+    private EntryHandle entry;
+
+    @Override
+    protected LogBridge provideLogBridge() {
+        stringWriter = new StringWriter();
+        PrintWriterLogBridge printWriterLogBridge = new PrintWriterLogBridge(new PrintWriter(stringWriter, true));
+        printWriterLogBridge.setLevel(LogLevel.WARNING);
+        ContextBufferingLogBridge logBridge = new ContextBufferingLogBridge(printWriterLogBridge, LogLevel.INFO, 3);
+        entry = logBridge.resolveEntry("org.znerd", "sample", "9876");
+        return logBridge;
+    }
+
+    private ContextBufferingLogBridge getContextBufferingLogBridge() {
+        return (ContextBufferingLogBridge) super.getLogBridge();
+    }
+
+    private void log(LogLevel level, String message) {
+        getLogBridge().logOneMessage(getClass().getName(), entry, level, message, null);
+    }
+
+    @Override
+    @Test
+    public void testShouldLogWithEntryHandle() {
+        EntryLogBridge logBridge = getLogBridge();
+        logBridge.setLevel(LogLevel.WARNING);
+        assertFalse(logBridge.shouldLog(entry, LogLevel.DEBUG));
+        assertTrue(logBridge.shouldLog(entry, LogLevel.INFO));
+        assertTrue(logBridge.shouldLog(entry, LogLevel.NOTICE));
+        assertTrue(logBridge.shouldLog(entry, LogLevel.WARNING));
+        assertTrue(logBridge.shouldLog(entry, LogLevel.ERROR));
+    }
+
+    @Test
+    public void testRecordsOutsideContextAreNotBuffered() {
+        log(LogLevel.INFO, "Dropped");
+        log(LogLevel.WARNING, "Written");
+        assertEquals("WARNING [] org.znerd.sample.9876 Written" + LINE_SEPARATOR, stringWriter.toString());
+        assertEquals(0, getContextBufferingLogBridge().getBufferedCount());
+    }
+
+    @Test
+    public void testBufferIsDiscardedIfContextDoesNotFail() {
+        ContextBufferingLogBridge logBridge = getContextBufferingLogBridge();
+        logBridge.putContextId("TX-1");
+        log(LogLevel.INFO, "Detail 1");
+        log(LogLevel.NOTICE, "Detail 2");
+        log(LogLevel.WARNING, "Warning");
+        log(LogLevel.DEBUG, "Below capture level");
+        assertEquals(2, logBridge.getBufferedCount());
+        logBridge.unputContextId();
+
+        assertEquals("WARNING [TX-1] org.znerd.sample.9876 Warning" + LINE_SEPARATOR, stringWriter.toString());
+        assertEquals(2L, logBridge.getDiscardedCount());
+        assertEquals(0, logBridge.getBufferedCount());
+    }
+
+    @Test
+    public void testBufferIsWrittenBeforeError() {
+        ContextBufferingLogBridge logBridge = getContextBufferingLogBridge();
+        logBridge.putContextId("TX-2");
+        log(LogLevel.INFO, "Detail 1");
+        log(LogLevel.ERROR, "Failed");
+        log(LogLevel.INFO, "Detail 2");
+        logBridge.unputContextId();
+
+        assertEquals("INFO [TX-2] org.znerd.sample.9876 Detail 1" + LINE_SEPARATOR + "ERROR [TX-2] org.znerd.sample.9876 Failed" + LINE_SEPARATOR
+                + "INFO [TX-2] org.znerd.sample.9876 Detail 2" + LINE_SEPARATOR, stringWriter.toString());
+        assertEquals(0L, logBridge.getDiscardedCount());
+    }
+
+    @Test
+    public void testOldestRecordsAreDroppedWhenBufferIsFull() {
+        ContextBufferingLogBridge logBridge = getContextBufferingLogBridge();
+        logBridge.putContextId("TX-3");
+        for (int i = 1; i <= 5; i++) {
+            log(LogLevel.INFO, "Detail " + i);
+        }
+        log(LogLevel.FATAL, "Failed");
+        logBridge.unputContextId();
+
+        assertEquals("INFO [TX-3] org.znerd.sample.9876 Dropped 2 earlier record(s) of this context, because the buffer holds at most 3." + LINE_SEPARATOR
+                + "INFO [TX-3] org.znerd.sample.9876 Detail 3" + LINE_SEPARATOR + "INFO [TX-3] org.znerd.sample.9876 Detail 4" + LINE_SEPARATOR
+                + "INFO [TX-3] org.znerd.sample.9876 Detail 5" + LINE_SEPARATOR + "FATAL [TX-3] org.znerd.sample.9876 Failed" + LINE_SEPARATOR, stringWriter.toString());
+        assertEquals(2L, logBridge.getDiscardedCount());
+    }
+
+    @Test
+    public void testFailureOfNestedContextFailsEnclosingContext() {
+        ContextBufferingLogBridge logBridge = getContextBufferingLogBridge();
+        ContextScope outer = ContextScope.open(logBridge, "OUTER");
+        try {
+            log(LogLevel.INFO, "Outer detail");
+            ContextScope inner = ContextScope.open(logBridge, "INNER");
+            try {
+                log(LogLevel.INFO, "Inner detail");
+                log(LogLevel.ERROR, "Failed");
+            } finally {
+                inner.close();
+            }
+            log(LogLevel.INFO, "Outer after");
+        } finally {
+            outer.close();
+        }
+
+        assertEquals("INFO [OUTER] org.znerd.sample.9876 Outer detail" + LINE_SEPARATOR + "INFO [INNER] org.znerd.sample.9876 Inner detail" + LINE_SEPARATOR
+                + "ERROR [INNER] org.znerd.sample.9876 Failed" + LINE_SEPARATOR + "INFO [OUTER] org.znerd.sample.9876 Outer after" + LINE_SEPARATOR, stringWriter.toString());
+    }
+
+    @Test
+    public void testNestedContextIsDiscardedSeparately() {
+        ContextBufferingLogBridge logBridge = getContextBufferingLogBridge();
+        ContextScope outer = ContextScope.open(logBridge, "OUTER");
+        try {
+            log(LogLevel.INFO, "Outer detail");
+            ContextScope inner = ContextScope.open(logBridge, "INNER");
+            try {
+                log(LogLevel.INFO, "Inner detail");
+            } finally {
+                inner.close();
+            }
+            assertEquals(1, logBridge.getBufferedCount());
+            log(LogLevel.ERROR, "Failed");
+        } finally {
+            outer.close();
+        }
+
+        assertEquals("INFO [OUTER] org.znerd.sample.9876 Outer detail" + LINE_SEPARATOR + "ERROR [OUTER] org.znerd.sample.9876 Failed" + LINE_SEPARATOR, stringWriter.toString());
+        assertEquals(1L, logBridge.getDiscardedCount());
+    }
+
+    @Test
+    public void testNestedContextWithSameIdKeepsEnclosingBuffer() {
+        ContextBufferingLogBridge logBridge = getContextBufferingLogBridge();
+        ContextScope outer = ContextScope.open(logBridge, "TX-4");
+        try {
+            log(LogLevel.INFO, "Outer detail");
+            ContextScope inner = ContextScope.open(logBridge, "TX-4");
+            try {
+                log(LogLevel.INFO, "Inner detail");
+                assertEquals(1, logBridge.getBufferedCount());
+            } finally {
+                inner.close();
+            }
+            assertEquals(1, logBridge.getBufferedCount());
+            log(LogLevel.ERROR, "Failed");
+        } finally {
+            outer.close();
+        }
+
+        assertEquals("INFO [TX-4] org.znerd.sample.9876 Outer detail" + LINE_SEPARATOR + "ERROR [TX-4] org.znerd.sample.9876 Failed" + LINE_SEPARATOR, stringWriter.toString());
+        assertEquals(0, logBridge.getBufferedCount());
+    }
+}
@@ -0,0 +1,44 @@
+// See the COPYRIGHT file for copyright and license information
+package org.znerd.logdoc;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.junit.Test;
+
+public class ContextIdGeneratorTest {
+
+    @Test
+    public void testIdsHaveNodePrefix() {
+        ContextIdGenerator generator = new ContextIdGenerator("node1");
+        assertEquals("node1-0", generator.next());
+        assertEquals("node1-1", generator.next());
+        assertTrue(ContextIdGenerator.getDefault().next().matches("[0-9a-z]+-[0-9a-z]+"));
+    }
+
+    @Test
+    public void testIdsAreUniqueAcrossThreads() throws Exception {
+        final ContextIdGenerator generator = new ContextIdGenerator("node");
+        final Set<String> ids = Collections.synchronizedSet(new HashSet<String>());
+        Thread[] threads = new Thread[4];
+        for (int i = 0; i < threads.length; i++) {
+            threads[i] = new Thread() {
+                @Override
+                public void run() {
+                    for (int j = 0; j < ContextIdGenerator.BLOCK_SIZE * 3; j++) {
+                        ids.add(generator.next());
+                    }
+                }
+            };
+            threads[i].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(threads.length * ContextIdGenerator.BLOCK_SIZE * 3, ids.size());
+    }
+}
@@ -0,0 +1,119 @@
+// See the COPYRIGHT file for copyright and license information
+package org.znerd.logdoc;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ContextScopeTest {
+
+    private LogBridge logBridge;
+
+    @Before
+    public void setUp() {
+        logBridge = new PrintWriterLogBridge(new PrintWriter(new StringWriter()));
+        Library.setLogBridge(logBridge);
+    }
+
+    @After
+    public void tearDown() {
+        Library.resetLogBridge();
+    }
+
+    @Test
+    public void testNestedScopesRestorePreviousContextId() {
+        ContextScope outer = ContextScope.open("outer");
+        try {
+            assertEquals("outer", logBridge.getContextId());
+            ContextScope inner = ContextScope.open("inner");
+            try {
+                assertEquals("inner", logBridge.getContextId());
+                assertEquals("outer", inner.getPreviousContextId());
+            } finally {
+                inner.close();
+            }
+            assertEquals("outer", logBridge.getContextId());
+        } finally {
+            outer.close();
+        }
+        assertNull(logBridge.getContextId());
+    }
+
+    @Test
+    public void testCloseTwiceHasNoEffect() {
+        ContextScope outer = ContextScope.open("outer");
+        ContextScope inner = ContextScope.open("inner");
+        inner.close();
+        inner.close();
+        assertEquals("outer", logBridge.getContextId());
+        outer.close();
+        assertNull(logBridge.getContextId());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testContextIdCannotBeNull() {
+        ContextScope.open(null);
+    }
+
+    @Test
+    public void testExecutorServicePropagatesContextId() throws Exception {
+        ExecutorService executor = ContextExecutors.propagating(Executors.newSingleThreadExecutor());
+        try {
+            Callable<String> getContextId = new Callable<String>() {
+                @Override
+                public String call() {
+                    return LogFacade.getContextId();
+                }
+            };
+            ContextScope scope = ContextScope.open("REQUEST-1");
+            try {
+                assertEquals("REQUEST-1", executor.submit(getContextId).get());
+            } finally {
+                scope.close();
+            }
+            assertNull(executor.submit(getContextId).get());
+        } finally {
+            executor.shutdown();
+            executor.awaitTermination(10L, TimeUnit.SECONDS);
+        }
+    }
+
+    @Test
+    public void testExecutorPropagatesContextId() throws Exception {
+        ExecutorService pool = Executors.newSingleThreadExecutor();
+        try {
+            final String[] seen = new String[2];
+            ContextScope scope = ContextScope.open("REQUEST-2");
+            try {
+                ContextExecutors.propagating(pool).execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        seen[0] = LogFacade.getContextId();
+                    }
+                });
+            } finally {
+                scope.close();
+            }
+            pool.submit(new Runnable() {
+                @Override
+                public void run() {
+                    seen[1] = LogFacade.getContextId();
+                }
+            }).get();
+            assertEquals("REQUEST-2", seen[0]);
+            assertNull(seen[1]);
+        } finally {
+            pool.shutdown();
+        }
+    }
+}
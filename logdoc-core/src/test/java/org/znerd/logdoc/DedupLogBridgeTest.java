@@ -0,0 +1,174 @@
+// See the COPYRIGHT file for copyright and license information
+package org.znerd.logdoc;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+
+import org.junit.After;
+import org.junit.Test;
+import org.znerd.util.log.LogLevel;
+
+public class DedupLogBridgeTest extends AbstractLogBridgeTest {
+
+    private static final String LINE_SEPARATOR = System.getProperty("line.separator");
+
+    private StringWriter stringWriter;
+
+    @Override
+    protected LogBridge provideLogBridge() {
+        stringWriter = new StringWriter();
+        return new DedupLogBridge(new PrintWriterLogBridge(new PrintWriter(stringWriter, true)), 60000L, 16, DedupLogBridge.Mode.MESSAGE);
+    }
+
+    private DedupLogBridge getDedupLogBridge() {
+        return (DedupLogBridge) super.getLogBridge();
+    }
+
+    @After
+    public void closeLogBridge() {
+        getDedupLogBridge().close();
+    }
+
+    @Test
+    public void testDefaults() {
+        DedupLogBridge logBridge = new DedupLogBridge(new PrintWriterLogBridge(new PrintWriter(new StringWriter())));
+        try {
+            assertEquals(DedupLogBridge.DEFAULT_WINDOW, logBridge.getWindow());
+            assertEquals(DedupLogBridge.DEFAULT_CAPACITY, logBridge.getCapacity());
+            assertSame(DedupLogBridge.Mode.MESSAGE, logBridge.getMode());
+        } finally {
+            logBridge.close();
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testCapacityMustBePowerOfTwo() {
+        new DedupLogBridge(new PrintWriterLogBridge(new PrintWriter(new StringWriter())), 1000L, 100, DedupLogBridge.Mode.MESSAGE);
+    }
+
+    @Test
+    public void testRepeatsAreCounted() {
+        DedupLogBridge logBridge = getDedupLogBridge();
+        EntryHandle entry = logBridge.resolveEntry("org.znerd", "sample", "9876");
+        for (int i = 0; i < 5; i++) {
+            logBridge.logOneMessage(getClass().getName(), entry, LogLevel.INFO, "Same", null);
+        }
+        logBridge.logOneMessage(getClass().getName(), entry, LogLevel.INFO, "Other", null);
+        assertEquals("INFO [] org.znerd.sample.9876 Same" + LINE_SEPARATOR + "INFO [] org.znerd.sample.9876 Other" + LINE_SEPARATOR, stringWriter.toString());
+        assertEquals(4L, logBridge.getSuppressedCount());
+
+        logBridge.flush();
+        assertEquals("INFO [] org.znerd.sample.9876 Same" + LINE_SEPARATOR + "INFO [] org.znerd.sample.9876 Other" + LINE_SEPARATOR
+                + "INFO [] org.znerd.sample.9876 Repeated 4 more time(s) within 60000 ms: Same" + LINE_SEPARATOR, stringWriter.toString());
+    }
+
+    @Test
+    public void testEvictionKeepsContextIdOfLoggingThread() {
+        stringWriter = new StringWriter();
+        DedupLogBridge logBridge = new DedupLogBridge(new PrintWriterLogBridge(new PrintWriter(stringWriter, true)), 60000L, 1, DedupLogBridge.Mode.MESSAGE);
+        try {
+            EntryHandle entry = logBridge.resolveEntry("org.znerd", "sample", "9876");
+            logBridge.logOneMessage(getClass().getName(), entry, LogLevel.INFO, "Same", null);
+            logBridge.logOneMessage(getClass().getName(), entry, LogLevel.INFO, "Same", null);
+
+            logBridge.putContextId("CONTEXT-1");
+            try {
+                logBridge.logOneMessage(getClass().getName(), entry, LogLevel.INFO, "Other", null);
+                assertEquals("CONTEXT-1", logBridge.getContextId());
+                logBridge.logOneMessage(getClass().getName(), entry, LogLevel.INFO, "Third", null);
+            } finally {
+                logBridge.unputContextId();
+            }
+
+            logBridge.flush();
+            assertEquals("INFO [] org.znerd.sample.9876 Same" + LINE_SEPARATOR + "INFO [CONTEXT-1] org.znerd.sample.9876 Other" + LINE_SEPARATOR
+                    + "INFO [CONTEXT-1] org.znerd.sample.9876 Third" + LINE_SEPARATOR + "INFO [] org.znerd.sample.9876 Repeated 1 more time(s) within 60000 ms: Same" + LINE_SEPARATOR,
+                    stringWriter.toString());
+        } finally {
+            logBridge.close();
+        }
+    }
+
+    @Test
+    public void testSameExceptionIsSuppressed() {
+        DedupLogBridge logBridge = getDedupLogBridge();
+        EntryHandle entry = logBridge.resolveEntry("org.znerd", "sample", "104");
+        for (int i = 0; i < 3; i++) {
+            logBridge.logOneMessage(getClass().getName(), entry, LogLevel.ERROR, "Failed", newException("Disk full"));
+        }
+        logBridge.logOneMessage(getClass().getName(), entry, LogLevel.ERROR, "Failed", newException("Disk on fire"));
+        assertEquals(2L, logBridge.getSuppressedCount());
+    }
+
+    private static Exception newException(String message) {
+        return new IllegalStateException(message);
+    }
+
+    @Test
+    public void testWindowIsClosedByBackgroundThread() throws InterruptedException {
+        stringWriter = new StringWriter();
+        DedupLogBridge logBridge = new DedupLogBridge(new PrintWriterLogBridge(new PrintWriter(stringWriter, true)), 10L, 16, DedupLogBridge.Mode.MESSAGE);
+        try {
+            EntryHandle entry = logBridge.resolveEntry("org.znerd", "sample", "9876");
+            logBridge.logOneMessage(getClass().getName(), entry, LogLevel.INFO, "Same", null);
+            logBridge.logOneMessage(getClass().getName(), entry, LogLevel.INFO, "Same", null);
+            for (int i = 0; i < 500 && !stringWriter.toString().contains("Repeated"); i++) {
+                Thread.sleep(10L);
+            }
+            assertEquals("INFO [] org.znerd.sample.9876 Same" + LINE_SEPARATOR + "INFO [] org.znerd.sample.9876 Repeated 1 more time(s) within 10 ms: Same" + LINE_SEPARATOR,
+                    stringWriter.toString());
+
+            // A new window starts with the next occurrence
+            logBridge.logOneMessage(getClass().getName(), entry, LogLevel.INFO, "Same", null);
+            assertEquals(3, stringWriter.toString().split(LINE_SEPARATOR).length);
+        } finally {
+            logBridge.close();
+        }
+    }
+
+    @Test
+    public void testArgumentsModeDoesNotRenderRepeats() {
+        DedupLogBridge logBridge = new DedupLogBridge(new PrintWriterLogBridge(new PrintWriter(stringWriter, true)), 60000L, 16, DedupLogBridge.Mode.ARGUMENTS);
+        try {
+            EntryHandle entry = logBridge.resolveEntry("org.znerd", "sample", "200");
+            CountingEvent first = new CountingEvent("key");
+            CountingEvent repeat = new CountingEvent("key");
+            CountingEvent other = new CountingEvent("other key");
+            logBridge.logEvent(getClass().getName(), entry, LogLevel.ERROR, first, null);
+            logBridge.logEvent(getClass().getName(), entry, LogLevel.ERROR, repeat, null);
+            logBridge.logEvent(getClass().getName(), entry, LogLevel.ERROR, other, null);
+            assertEquals(1, first.renderCount);
+            assertEquals(0, repeat.renderCount);
+            assertEquals(1, other.renderCount);
+            assertEquals(1L, logBridge.getSuppressedCount());
+        } finally {
+            logBridge.close();
+        }
+        assertEquals("ERROR [] org.znerd.sample.200 Missing resource key" + LINE_SEPARATOR + "ERROR [] org.znerd.sample.200 Missing resource other key" + LINE_SEPARATOR
+                + "ERROR [] org.znerd.sample.200 Repeated 1 more time(s) within 60000 ms: Missing resource key" + LINE_SEPARATOR, stringWriter.toString());
+    }
+
+    private static final class CountingEvent extends LogEvent {
+        private final String key;
+        int renderCount;
+
+        CountingEvent(String key) {
+            this.key = key;
+        }
+
+        @Override
+        public String render() {
+            renderCount++;
+            return "Missing resource " + key;
+        }
+
+        @Override
+        public boolean writeArguments(ArgumentWriter writer) {
+            writer.writeText(key);
+            return true;
+        }
+    }
+}
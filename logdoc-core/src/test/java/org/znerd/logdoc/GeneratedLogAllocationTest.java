@@ -0,0 +1,86 @@
+// See the COPYRIGHT file for copyright and license information
+package org.znerd.logdoc;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+import java.io.PrintWriter;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.znerd.logdoc.test.Log;
+import org.znerd.util.log.LogLevel;
+
+/**
+ * Verifies the number of bytes allocated per call to a <code>Log</code> method generated from the <code>log.xml</code> in the test resources. A disabled entry must not allocate at all; an
+ * enabled entry, logged through a <code>PrintWriterLogBridge</code> that discards its output, must stay within {@link #ENABLED_BUDGET}. A change to the code templates that adds boxing or
+ * intermediate strings makes this test fail.
+ * <p>
+ * Skipped on JVMs that cannot measure allocations, see {@link AllocationMeter}.
+ */
+public class GeneratedLogAllocationTest {
+
+    private static final int ITERATIONS = 20000;
+    private static final String PATH = "/index.html";
+    private static final Long DURATION = Long.valueOf(1234L);
+
+    /**
+     * The maximum number of bytes allocated per call for an enabled entry with a <code>text</code> and an <code>int64</code> parameter. This covers the translated message, which is
+     * built in a presized <code>StringBuilder</code>: 296 bytes on Java 8 and 192 bytes on Java 17, where strings store Latin-1 text in one byte per character.
+     */
+    private static final long ENABLED_BUDGET = 350L;
+
+    private PrintWriterLogBridge logBridge;
+
+    @Before
+    public void setUp() {
+        assumeTrue(AllocationMeter.isSupported());
+        logBridge = new PrintWriterLogBridge(new PrintWriter(new NullWriter()));
+        Library.setLogBridge(logBridge);
+    }
+
+    @After
+    public void tearDown() {
+        Library.resetLogBridge();
+    }
+
+    @Test
+    public void testDisabledEntriesDoNotAllocate() {
+        logBridge.setLevel(LogLevel.FATAL);
+        long allocated = AllocationMeter.bytesPerRun(ITERATIONS, new Runnable() {
+            @Override
+            public void run() {
+                Log.log_1000(PATH, "secret");
+                Log.log_1001(PATH, DURATION);
+            }
+        });
+        assertEquals(0L, allocated);
+    }
+
+    @Test
+    public void testDisabledEntryWithExceptionDoesNotAllocate() {
+        logBridge.setLevel(LogLevel.FATAL);
+        final Exception exception = new Exception();
+        long allocated = AllocationMeter.bytesPerRun(ITERATIONS, new Runnable() {
+            @Override
+            public void run() {
+                Log.log_1002(exception, PATH);
+            }
+        });
+        assertEquals(0L, allocated);
+    }
+
+    @Test
+    public void testEnabledEntryStaysWithinBudget() {
+        logBridge.setLevel(LogLevel.DEBUG);
+        long allocated = AllocationMeter.bytesPerRun(ITERATIONS, new Runnable() {
+            @Override
+            public void run() {
+                Log.log_1001(PATH, DURATION);
+            }
+        });
+        assertTrue("Allocated " + allocated + " bytes per call, budget is " + ENABLED_BUDGET + '.', allocated <= ENABLED_BUDGET);
+    }
+}
@@ -2,8 +2,11 @@
 package org.znerd.logdoc;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
 
 import java.util.logging.Formatter;
 import java.util.logging.Level;
@@ -65,6 +68,62 @@ public class JulLogBridgeTest extends AbstractLogBridgeTest {
         rootLogger.setLevel(originalLevel);
     }
 
+    @Test
+    public void testLevelOverrideIsSetOnBackendLogger() {
+        JulLogBridge logBridge = JulLogBridge.getInstance();
+        LogBridge originalLogBridge = Library.getLogBridge();
+        Logger groupLogger = Logger.getLogger("org.znerd.override");
+        groupLogger.setLevel(Level.WARNING);
+        Library.setLogBridge(logBridge);
+        try {
+            assertFalse(logBridge.shouldLog("org.znerd", "override", "1234", LogLevel.DEBUG));
+            Library.setLevelOverride("org.znerd", "override", LogLevel.DEBUG);
+            assertSame(Level.FINE, groupLogger.getLevel());
+            assertTrue(logBridge.shouldLog("org.znerd", "override", "1234", LogLevel.DEBUG));
+
+            Library.clearLevelOverrides();
+            assertSame(Level.WARNING, groupLogger.getLevel());
+        } finally {
+            Library.clearLevelOverrides();
+            Library.setLogBridge(originalLogBridge);
+            groupLogger.setLevel(null);
+        }
+    }
+
+    @Test
+    public void testTracedRecordReachesHandlerBelowLoggerLevel() {
+        Logger groupLogger = Logger.getLogger("org.znerd.traced");
+        groupLogger.setLevel(Level.INFO);
+        TracedContexts.addContextId("TRACED-1");
+        JulLogBridge logBridge = JulLogBridge.getInstance();
+        EntryHandle entry = logBridge.resolveEntry("org.znerd", "traced", "1234");
+        try {
+            logBridge.putContextId("UNTRACED-1");
+            try {
+                logBridge.logOneMessage(DEFAULT_FQCN, entry, LogLevel.DEBUG, "Dropped", null);
+            } finally {
+                logBridge.unputContextId();
+            }
+            assertNull(testHandler.getLastLogRecord());
+
+            logBridge.putContextId("TRACED-1");
+            try {
+                logBridge.logOneMessage(DEFAULT_FQCN, entry, LogLevel.DEBUG, "Traced", null);
+            } finally {
+                logBridge.unputContextId();
+            }
+            LogRecord lastRecord = testHandler.getLastLogRecord();
+            assertNotNull(lastRecord);
+            assertSame(Level.FINE, lastRecord.getLevel());
+            assertEquals("org.znerd.traced.1234", lastRecord.getLoggerName());
+            assertEquals(DEFAULT_FQCN, lastRecord.getSourceClassName());
+            assertEquals("DEBUG [TRACED-1] org.znerd.traced.1234 Traced", lastRecord.getMessage());
+        } finally {
+            TracedContexts.clear();
+            groupLogger.setLevel(null);
+        }
+    }
+
     @Test
     public void testLogOneMessage() {
         Throwable exception = null;
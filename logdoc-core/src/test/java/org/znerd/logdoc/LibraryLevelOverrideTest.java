@@ -0,0 +1,121 @@
+// See the COPYRIGHT file for copyright and license information
+package org.znerd.logdoc;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.znerd.logdoc.internal.EnabledCache;
+import org.znerd.logdoc.internal.LogCentral;
+import org.znerd.util.log.LogLevel;
+
+public class LibraryLevelOverrideTest {
+
+    @Before @After
+    public void reset() {
+        Library.clearLevelOverrides();
+    }
+
+    @Test
+    public void testGroupOverrideTakesPrecedenceOverDomainOverride() {
+        assertNull(Library.getLevelOverride("org.znerd", "sample"));
+        Library.setLevelOverride("org.znerd", null, LogLevel.WARNING);
+        Library.setLevelOverride("org.znerd", "sample", LogLevel.DEBUG);
+        assertSame(LogLevel.DEBUG, Library.getLevelOverride("org.znerd", "sample"));
+        assertSame(LogLevel.WARNING, Library.getLevelOverride("org.znerd", "other"));
+        assertNull(Library.getLevelOverride("org.other", "sample"));
+        assertEquals("{org.znerd=WARNING, org.znerd:sample=DEBUG}", Library.getLevelOverrides().toString());
+
+        Library.setLevelOverride("org.znerd", "sample", null);
+        assertSame(LogLevel.WARNING, Library.getLevelOverride("org.znerd", "sample"));
+        Library.setLevelOverride("org.znerd", null, null);
+        assertTrue(Library.getLevelOverrides().isEmpty());
+    }
+
+    @Test
+    public void testOverrideReplacesBridgeLevel() {
+        PrintWriterLogBridge logBridge = new PrintWriterLogBridge(new PrintWriter(new StringWriter()));
+        logBridge.setLevel(LogLevel.INFO);
+        Library.setLevelOverride("org.znerd", "sample", LogLevel.DEBUG);
+        assertTrue(logBridge.shouldLog("org.znerd", "sample", "9011", LogLevel.DEBUG));
+        assertFalse(logBridge.shouldLog("org.znerd", "other", "9011", LogLevel.DEBUG));
+
+        Library.setLevelOverride("org.znerd", "other", LogLevel.ERROR);
+        assertFalse(logBridge.shouldLog("org.znerd", "other", "9011", LogLevel.WARNING));
+    }
+
+    @Test
+    public void testOverrideIsPassedToBridgeBehindDecorator() {
+        RecordingLogBridge logBridge = new RecordingLogBridge(false);
+        LogBridge originalLogBridge = Library.getLogBridge();
+        Library.setLevelOverride("org.znerd", null, LogLevel.WARNING);
+        Library.setLogBridge(new LogBridgeDecorator(logBridge) {
+        });
+        try {
+            Library.setLevelOverride("org.znerd", "sample", LogLevel.DEBUG);
+            Library.clearLevelOverrides();
+        } finally {
+            Library.setLogBridge(originalLogBridge);
+        }
+        assertEquals("[org.znerd/null=WARNING, org.znerd/sample=DEBUG, org.znerd/null=null, org.znerd/sample=null]", logBridge.changes.toString());
+    }
+
+    @Test
+    public void testRejectedOverrideIsNotStored() {
+        LogBridge originalLogBridge = Library.getLogBridge();
+        Library.setLogBridge(new RecordingLogBridge(true));
+        try {
+            Library.setLevelOverride("org.znerd", "sample", LogLevel.DEBUG);
+            fail("Expected UnsupportedOperationException");
+        } catch (UnsupportedOperationException cause) {
+            assertTrue(Library.getLevelOverrides().isEmpty());
+        } finally {
+            Library.setLogBridge(originalLogBridge);
+        }
+    }
+
+    @Test
+    public void testOverrideClearsCachedDecisions() {
+        PrintWriterLogBridge logBridge = new PrintWriterLogBridge(new PrintWriter(new StringWriter()));
+        logBridge.setLevel(LogLevel.INFO);
+        EntryHandle entry = logBridge.resolveEntry("org.znerd", "sample", "9011");
+        EnabledCache cache = new EnabledCache(1);
+        assertFalse(cache.isEnabled(0, entry, LogLevel.DEBUG));
+
+        // The cache is not registered, so clear it the way LogCentral would
+        int epoch = LogCentral.getLevelEpoch();
+        Library.setLevelOverride("org.znerd", "sample", LogLevel.DEBUG);
+        assertTrue(LogCentral.getLevelEpoch() != epoch);
+        cache.clear();
+        assertTrue(cache.isEnabled(0, entry, LogLevel.DEBUG));
+    }
+
+    private static class RecordingLogBridge extends PrintWriterLogBridge {
+        private final boolean reject;
+        private final List<String> changes = new ArrayList<String>();
+
+        RecordingLogBridge(boolean reject) {
+            super(new PrintWriter(new StringWriter()));
+            this.reject = reject;
+        }
+
+        @Override
+        protected void levelOverrideChanged(String domain, String groupId, LogLevel level) {
+            if (reject && level != null) {
+                throw new UnsupportedOperationException();
+            }
+            changes.add(domain + '/' + groupId + '=' + level);
+        }
+    }
+}
@@ -2,12 +2,21 @@
 package org.znerd.logdoc;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
 
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.List;
+
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
+import org.znerd.logdoc.internal.LevelRefresher;
+import org.znerd.logdoc.test.Log;
+import org.znerd.util.log.LogLevel;
 
 public class LibraryLogBridgeTest {
 
@@ -33,4 +42,68 @@ public class LibraryLogBridgeTest {
         Library.setLogBridge(logBridge);
         assertEquals(logBridge, Library.getLogBridge());
     }
+
+    @Test
+    public void testLogBridgeWithoutEntryHandles() {
+        LegacyLogBridge logBridge = new LegacyLogBridge();
+        Library.setLogBridge(logBridge);
+        assertEquals(logBridge, Library.getLogBridge());
+        Log.log_1001("/index.html", null);
+        assertEquals(1, logBridge.messages.size());
+        assertEquals("org.znerd.logdoc.test.requests.1001 INFO", logBridge.messages.get(0));
+    }
+
+    @Test
+    public void testLevelsAreRefreshedPeriodicallyWhileBridgeWithoutReportsIsInUse() {
+        assertFalse(LevelRefresher.isRunning());
+        LogBridge logBridge = new PrintWriterLogBridge(new PrintWriter(new StringWriter())) {
+            @Override
+            protected boolean isLevelChangeReported() {
+                return false;
+            }
+        };
+        Library.setLogBridge(logBridge);
+        assertTrue(LevelRefresher.isRunning());
+        Library.resetLogBridge();
+        assertFalse(LevelRefresher.isRunning());
+    }
+
+    /**
+     * Bridge that implements only the <code>String</code>-based methods, like bridges written before {@link EntryLogBridge} existed.
+     */
+    private static final class LegacyLogBridge implements LogBridge {
+        private final List<String> messages = new ArrayList<String>();
+
+        @Override
+        public void putContextId(String newContextId) {
+        }
+
+        @Override
+        public void unputContextId() {
+        }
+
+        @Override
+        public String getContextId() {
+            return null;
+        }
+
+        @Override
+        public boolean shouldLog(String domain, String groupId, String entryId, LogLevel level) {
+            return true;
+        }
+
+        @Override
+        public void logOneMessage(String fqcn, String domain, String groupId, String entryId, LogLevel level, String message, Throwable exception) {
+            messages.add(domain + '.' + groupId + '.' + entryId + ' ' + level);
+        }
+
+        @Override
+        public void setLevel(LogLevel logLevel) {
+        }
+
+        @Override
+        public LogLevel getLevel() {
+            return LogLevel.DEBUG;
+        }
+    }
 }
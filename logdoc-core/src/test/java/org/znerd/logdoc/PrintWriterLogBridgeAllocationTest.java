@@ -0,0 +1,85 @@
+// See the COPYRIGHT file for copyright and license information
+package org.znerd.logdoc;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assume.assumeTrue;
+
+import java.io.PrintWriter;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.znerd.util.log.LogLevel;
+
+/**
+ * Verifies that logging an enabled message through a <code>PrintWriterLogBridge</code> does not allocate, once the per-thread buffers are in place. Skipped on JVMs that cannot measure
+ * allocations, see {@link AllocationMeter}.
+ */
+public class PrintWriterLogBridgeAllocationTest {
+
+    private static final int ITERATIONS = 20000;
+
+    private PrintWriterLogBridge logBridge;
+    private EntryHandle entry;
+
+    @Before
+    public void setUp() {
+        assumeTrue(AllocationMeter.isSupported());
+        logBridge = new PrintWriterLogBridge(new PrintWriter(new NullWriter()));
+        entry = logBridge.resolveEntry("org.znerd", "sample", "9876");
+    }
+
+    @Test
+    public void testLogEventDoesNotAllocate() {
+        final LogEvent event = new SampleEvent(12345, "some description");
+        long allocated = AllocationMeter.bytesPerRun(ITERATIONS, new Runnable() {
+            @Override
+            public void run() {
+                logBridge.logEvent(getClass().getName(), entry, LogLevel.INFO, event, null);
+            }
+        });
+        assertEquals(0L, allocated);
+    }
+
+    @Test
+    public void testLogOneMessageDoesNotAllocate() {
+        final String message = "Starting transaction 12345.";
+        long allocated = AllocationMeter.bytesPerRun(ITERATIONS, new Runnable() {
+            @Override
+            public void run() {
+                logBridge.logOneMessage(getClass().getName(), entry, LogLevel.INFO, message, null);
+            }
+        });
+        assertEquals(0L, allocated);
+    }
+
+    /**
+     * Event that renders like the code generated for an entry with an <code>int32</code> and a <code>text</code> parameter.
+     */
+    private static final class SampleEvent extends LogEvent {
+        private final int id;
+        private final String description;
+
+        SampleEvent(int id, String description) {
+            this.id = id;
+            this.description = description;
+        }
+
+        @Override
+        public String render() {
+            StringBuilder buffer = new StringBuilder(70);
+            appendTo(buffer);
+            return buffer.toString();
+        }
+
+        @Override
+        public void appendTo(StringBuilder buffer) {
+            buffer.append("Starting transaction ");
+            buffer.append(id);
+            buffer.append(" (description: ");
+            buffer.append('"');
+            buffer.append(description);
+            buffer.append('"');
+            buffer.append(").");
+        }
+    }
+}
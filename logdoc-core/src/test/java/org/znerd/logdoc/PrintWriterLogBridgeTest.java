@@ -3,10 +3,16 @@ package org.znerd.logdoc;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
 import java.io.PrintWriter;
 import java.io.StringWriter;
+import java.io.Writer;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
 
 import org.junit.Test;
 import org.znerd.util.log.LogLevel;
@@ -115,6 +121,132 @@ public class PrintWriterLogBridgeTest extends AbstractLogBridgeTest {
         }
     }
 
+    @Test
+    public void testLogOneMessageWithEntryHandle() {
+        String fqcn = getClass().getName();
+        EntryHandle entry = getLogBridge().resolveEntry("org.znerd", "sample", "9876");
+        LogLevel level = LogLevel.FATAL;
+        String message = "Bla";
+        Throwable exception = null;
+        getLogBridge().logOneMessage(fqcn, entry, level, message, exception);
+
+        String outputString = stringWriter.toString();
+        String expectedComposedMessage = level.name() + " [] org.znerd.sample.9876 " + message + System.getProperty("line.separator");
+        assertEquals(expectedComposedMessage, outputString);
+    }
+
+    @Test
+    public void testLogEventIsRendered() {
+        String fqcn = getClass().getName();
+        EntryHandle entry = getLogBridge().resolveEntry("org.znerd", "sample", "9876");
+        LogLevel level = LogLevel.INFO;
+        LogEvent event = new LogEvent() {
+            @Override
+            public String render() {
+                return "Rendered";
+            }
+        };
+        Throwable exception = null;
+        getLogBridge().logEvent(fqcn, entry, level, event, exception);
+
+        String outputString = stringWriter.toString();
+        String expectedComposedMessage = level.name() + " [] org.znerd.sample.9876 Rendered" + System.getProperty("line.separator");
+        assertEquals(expectedComposedMessage, outputString);
+    }
+
+    @Test
+    public void testRecordWithExceptionIsWrittenAtOnce() {
+        final List<String> writes = new ArrayList<String>();
+        Writer recordingWriter = new Writer() {
+            @Override
+            public void write(char[] chars, int offset, int length) {
+                writes.add(new String(chars, offset, length));
+            }
+
+            @Override
+            public void flush() {
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+        PrintWriterLogBridge logBridge = new PrintWriterLogBridge(new PrintWriter(recordingWriter));
+        EntryHandle entry = logBridge.resolveEntry("org.znerd", "sample", "9876");
+        Throwable exception = new RuntimeException("Failure");
+        logBridge.logOneMessage(getClass().getName(), entry, LogLevel.ERROR, "Bla", exception);
+
+        assertEquals(1, writes.size());
+        assertEquals("ERROR [] org.znerd.sample.9876 Bla" + System.getProperty("line.separator") + stackTraceToString(exception), writes.get(0));
+    }
+
+    @Test
+    public void testStreamIsFlushedAfterEachRecordUnlessTurnedOff() {
+        final int[] flushes = new int[1];
+        Writer countingWriter = new Writer() {
+            @Override
+            public void write(char[] chars, int offset, int length) {
+            }
+
+            @Override
+            public void flush() {
+                flushes[0]++;
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+        PrintWriterLogBridge logBridge = new PrintWriterLogBridge(new PrintWriter(countingWriter));
+        assertTrue(logBridge.isAutoFlush());
+        logBridge.logOneMessage(getClass().getName(), "org.znerd", "sample", "9876", LogLevel.INFO, "Bla", null);
+        assertEquals(1, flushes[0]);
+
+        logBridge.setAutoFlush(false);
+        logBridge.logOneMessage(getClass().getName(), "org.znerd", "sample", "9876", LogLevel.INFO, "Bla", null);
+        assertEquals(1, flushes[0]);
+    }
+
+    @Test
+    public void testTimestampFormat() {
+        PrintWriterLogBridge logBridge = getPrintWriterLogBridge();
+        assertNull(logBridge.getTimestampFormat());
+        logBridge.setTimestampFormat("'T'yyyy");
+        assertEquals("'T'yyyy", logBridge.getTimestampFormat());
+
+        EntryHandle entry = logBridge.resolveEntry("org.znerd", "sample", "9876");
+        logBridge.logOneMessage(getClass().getName(), entry, LogLevel.INFO, "Bla", null);
+        logBridge.setTimestampFormat(null);
+        logBridge.logOneMessage(getClass().getName(), entry, LogLevel.INFO, "Bla", null);
+
+        String lineSeparator = System.getProperty("line.separator");
+        String year = new SimpleDateFormat("yyyy").format(new Date());
+        assertEquals("T" + year + " INFO [] org.znerd.sample.9876 Bla" + lineSeparator + "INFO [] org.znerd.sample.9876 Bla" + lineSeparator, stringWriter.toString());
+    }
+
+    @Test
+    public void testComposeMessageCanBeOverridden() {
+        StringWriter output = new StringWriter();
+        PrintWriterLogBridge logBridge = new PrintWriterLogBridge(new PrintWriter(output)) {
+            @Override
+            protected String composeMessage(String fqcn, String domain, String groupId, String entryId, LogLevel level, String message, Throwable exception) {
+                return entryId + ": " + message;
+            }
+        };
+        EntryHandle entry = logBridge.resolveEntry("org.znerd", "sample", "9876");
+        LogEvent event = new LogEvent() {
+            @Override
+            public String render() {
+                return "Rendered";
+            }
+        };
+        logBridge.logEvent(getClass().getName(), entry, LogLevel.INFO, event, null);
+        logBridge.logOneMessage(getClass().getName(), "org.znerd", "sample", "1234", LogLevel.INFO, "Bla", null);
+
+        String lineSeparator = System.getProperty("line.separator");
+        assertEquals("9876: Rendered" + lineSeparator + "1234: Bla" + lineSeparator, output.toString());
+    }
+
     private String stackTraceToString(Throwable exception) {
         final StringWriter stringWriter = new StringWriter();
         final PrintWriter printWriter = new PrintWriter(stringWriter);
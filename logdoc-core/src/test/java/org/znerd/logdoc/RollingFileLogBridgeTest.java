@@ -0,0 +1,269 @@
+// See the COPYRIGHT file for copyright and license information
+package org.znerd.logdoc;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.zip.GZIPInputStream;
+
+import org.junit.After;
+import org.junit.Test;
+import org.znerd.util.log.LogLevel;
+
+public class RollingFileLogBridgeTest extends AbstractLogBridgeTest {
+
+    private File directory;
+
+    @Override
+    protected LogBridge provideLogBridge() {
+        try {
+            directory = File.createTempFile("logdoc-", "-rolling");
+            directory.delete();
+            return new RollingFileLogBridge(new File(directory, "test.log"));
+        } catch (IOException cause) {
+            throw new IllegalStateException(cause);
+        }
+    }
+
+    private RollingFileLogBridge getRollingFileLogBridge() {
+        return (RollingFileLogBridge) getLogBridge();
+    }
+
+    @After
+    public void tearDown() {
+        getRollingFileLogBridge().close();
+        File[] files = directory.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        directory.delete();
+    }
+
+    @Test
+    public void testLinesHaveSameFormatAsPrintWriterLogBridge() throws Exception {
+        StringWriter expected = new StringWriter();
+        PrintWriterLogBridge printWriterLogBridge = new PrintWriterLogBridge(new PrintWriter(expected));
+        RollingFileLogBridge logBridge = getRollingFileLogBridge();
+        logBoth(printWriterLogBridge, logBridge, "Blablabla é € 𝄞", null);
+        logBoth(printWriterLogBridge, logBridge, "Failed", new RuntimeException("5ome øthër messa9è"));
+        logBridge.flush();
+
+        assertEquals(expected.toString(), new String(read(logBridge.getFile()), "UTF-8"));
+    }
+
+    private void logBoth(PrintWriterLogBridge printWriterLogBridge, RollingFileLogBridge logBridge, String message, Throwable exception) {
+        for (EntryLogBridge bridge : Arrays.<EntryLogBridge> asList(printWriterLogBridge, logBridge)) {
+            EntryHandle entry = bridge.resolveEntry("org.znerd", "sample", "9876");
+            bridge.putContextId("CONTEXT-1");
+            try {
+                bridge.logOneMessage(getClass().getName(), entry, LogLevel.ERROR, message, exception);
+            } finally {
+                bridge.unputContextId();
+            }
+        }
+    }
+
+    @Test
+    public void testEventsAreEncodedDirectly() throws Exception {
+        RollingFileLogBridge logBridge = getRollingFileLogBridge();
+        EntryHandle entry = logBridge.resolveEntry("org.znerd", "sample", "9876");
+        LogEvent event = new LogEvent() {
+            @Override
+            public String render() {
+                return "Rendered";
+            }
+
+            @Override
+            public boolean encodeTo(ByteBuffer buffer) {
+                for (int i = 0; i < 2000; i++) {
+                    buffer.put((byte) 'x');
+                }
+                Utf8.putText(buffer, " encoded é");
+                return true;
+            }
+        };
+        logBridge.logEvent(getClass().getName(), entry, LogLevel.INFO, event, null);
+        logBridge.flush();
+
+        StringBuilder expected = new StringBuilder("INFO [] org.znerd.sample.9876 ");
+        for (int i = 0; i < 2000; i++) {
+            expected.append('x');
+        }
+        expected.append(" encoded é").append(System.getProperty("line.separator"));
+        assertEquals(expected.toString(), new String(read(logBridge.getFile()), "UTF-8"));
+    }
+
+    @Test
+    public void testRotatedFilesAreCompressed() throws Exception {
+        RollingFileLogBridge logBridge = new RollingFileLogBridge(new File(directory, "small.log"), 100L, 0L);
+        StringBuilder expected = new StringBuilder();
+        try {
+            for (int i = 0; i < 10; i++) {
+                String message = "Message " + i + " of a series of messages that should be rotated.";
+                logBridge.logOneMessage(getClass().getName(), "org.znerd", "sample", "9876", LogLevel.INFO, message, null);
+                logBridge.flush();
+                expected.append("INFO [] org.znerd.sample.9876 ").append(message).append(System.getProperty("line.separator"));
+            }
+        } finally {
+            logBridge.close();
+        }
+
+        File[] files = directory.listFiles();
+        Arrays.sort(files);
+        int archiveCount = 0;
+        ByteArrayOutputStream actual = new ByteArrayOutputStream();
+        for (File archive : files) {
+            if (archive.getName().startsWith("small.log.")) {
+                assertTrue(archive.getName(), archive.getName().endsWith(".gz"));
+                actual.write(gunzip(archive));
+                archiveCount++;
+            }
+        }
+        assertEquals(9, archiveCount);
+        actual.write(read(logBridge.getFile()));
+        assertEquals(expected.toString(), actual.toString("UTF-8"));
+    }
+
+    @Test
+    public void testFileIsRotatedByAge() throws Exception {
+        RollingFileLogBridge logBridge = new RollingFileLogBridge(new File(directory, "aged.log"), RollingFileLogBridge.DEFAULT_MAX_FILE_SIZE, 1L);
+        logBridge.setCompress(false);
+        try {
+            logBridge.logOneMessage(getClass().getName(), "org.znerd", "sample", "9876", LogLevel.INFO, "First", null);
+            logBridge.flush();
+            Thread.sleep(5L);
+            logBridge.logOneMessage(getClass().getName(), "org.znerd", "sample", "9876", LogLevel.INFO, "Second", null);
+            logBridge.flush();
+        } finally {
+            logBridge.close();
+        }
+
+        assertEquals("INFO [] org.znerd.sample.9876 Second" + System.getProperty("line.separator"), new String(read(logBridge.getFile()), "UTF-8"));
+        assertTrue(new File(directory, "aged.log").exists());
+        assertEquals(3, directory.list().length);
+    }
+
+    @Test
+    public void testEmptyFileIsNotRotatedByAge() throws Exception {
+        RollingFileLogBridge logBridge = new RollingFileLogBridge(new File(directory, "empty.log"), RollingFileLogBridge.DEFAULT_MAX_FILE_SIZE, 1L);
+        logBridge.setCompress(false);
+        try {
+            Thread.sleep(5L);
+            logBridge.logOneMessage(getClass().getName(), "org.znerd", "sample", "9876", LogLevel.INFO, "First", null);
+            logBridge.flush();
+        } finally {
+            logBridge.close();
+        }
+
+        assertEquals("INFO [] org.znerd.sample.9876 First" + System.getProperty("line.separator"), new String(read(logBridge.getFile()), "UTF-8"));
+        assertEquals(2, directory.list().length);
+    }
+
+    @Test
+    public void testConcurrentRecordsAreAllWrittenInOrder() throws Exception {
+        final RollingFileLogBridge logBridge = getRollingFileLogBridge();
+        logBridge.setMaxPendingSize(4096);
+        final int threadCount = 4;
+        final int recordCount = 2000;
+        Thread[] threads = new Thread[threadCount];
+        for (int t = 0; t < threadCount; t++) {
+            final String entryId = String.valueOf(t);
+            threads[t] = new Thread() {
+                @Override
+                public void run() {
+                    for (int i = 0; i < recordCount; i++) {
+                        logBridge.logOneMessage(RollingFileLogBridgeTest.class.getName(), "org.znerd", "sample", entryId, LogLevel.INFO, String.valueOf(i), null);
+                    }
+                }
+            };
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        logBridge.flush();
+
+        int[] next = new int[threadCount];
+        for (String line : new String(read(logBridge.getFile()), "UTF-8").split(System.getProperty("line.separator"))) {
+            String[] parts = line.split(" ");
+            int thread = Integer.parseInt(parts[2].substring("org.znerd.sample.".length()));
+            assertEquals(next[thread]++, Integer.parseInt(parts[3]));
+        }
+        for (int t = 0; t < threadCount; t++) {
+            assertEquals(recordCount, next[t]);
+        }
+        assertEquals(0L, logBridge.getDroppedCount());
+    }
+
+    @Test
+    public void testFileIsReopenedAfterFailedRotation() throws Exception {
+        File subdirectory = new File(directory, "sub");
+        File file = new File(subdirectory, "reopen.log");
+        RollingFileLogBridge logBridge = new RollingFileLogBridge(file, 100L, 0L);
+        logBridge.setCompress(false);
+        try {
+            logBridge.logOneMessage(getClass().getName(), "org.znerd", "sample", "9876", LogLevel.INFO, "First, a bit longer.", null);
+            logBridge.flush();
+
+            // Rotating fails to open the new file while the directory is gone
+            assertTrue(file.delete());
+            assertTrue(subdirectory.delete());
+            logBridge.logOneMessage(getClass().getName(), "org.znerd", "sample", "9876", LogLevel.INFO, "Second, long enough to rotate the file.", null);
+            logBridge.flush();
+            assertEquals(1L, logBridge.getDroppedCount());
+
+            // Too short to rotate the file again, so the next commit has to open it
+            assertTrue(subdirectory.mkdir());
+            logBridge.logOneMessage(getClass().getName(), "org.znerd", "sample", "9876", LogLevel.INFO, "Third", null);
+            logBridge.flush();
+        } finally {
+            logBridge.close();
+        }
+
+        assertEquals("INFO [] org.znerd.sample.9876 Third" + System.getProperty("line.separator"), new String(read(file), "UTF-8"));
+        assertEquals(1L, logBridge.getDroppedCount());
+        assertTrue(file.delete());
+        assertTrue(subdirectory.delete());
+    }
+
+    @Test
+    public void testMessagesAfterCloseAreDropped() {
+        RollingFileLogBridge logBridge = getRollingFileLogBridge();
+        logBridge.close();
+        logBridge.logOneMessage(getClass().getName(), "org.znerd", "sample", "9876", LogLevel.INFO, "Bla", null);
+        assertEquals(1L, logBridge.getDroppedCount());
+        assertEquals(0L, logBridge.getFile().length());
+    }
+
+    private static byte[] read(File file) throws IOException {
+        return readFully(new FileInputStream(file));
+    }
+
+    private static byte[] gunzip(File file) throws IOException {
+        return readFully(new GZIPInputStream(new FileInputStream(file)));
+    }
+
+    private static byte[] readFully(InputStream in) throws IOException {
+        try {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[4096];
+            for (int count = in.read(buffer); count >= 0; count = in.read(buffer)) {
+                out.write(buffer, 0, count);
+            }
+            return out.toByteArray();
+        } finally {
+            in.close();
+        }
+    }
+}
@@ -0,0 +1,131 @@
+// See the COPYRIGHT file for copyright and license information
+package org.znerd.logdoc;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.lang.management.ManagementFactory;
+import java.util.List;
+
+import javax.management.JMX;
+import javax.management.ObjectName;
+
+import org.junit.After;
+import org.junit.Test;
+import org.znerd.logdoc.internal.LatencyHistogram;
+import org.znerd.util.log.LogLevel;
+
+public class TimingLogBridgeTest extends AbstractLogBridgeTest {
+
+    private static final String LINE_SEPARATOR = System.getProperty("line.separator");
+
+    private StringWriter stringWriter;
+
+    @Override
+    protected LogBridge provideLogBridge() {
+        stringWriter = new StringWriter();
+        return new TimingLogBridge(new PrintWriterLogBridge(new PrintWriter(stringWriter, true)), "TimingLogBridgeTest", 1, 0L);
+    }
+
+    private TimingLogBridge getTimingLogBridge() {
+        return (TimingLogBridge) super.getLogBridge();
+    }
+
+    @After
+    public void closeLogBridge() {
+        getTimingLogBridge().close();
+    }
+
+    @Test
+    public void testCallsAreTimedPerOperationAndLevel() {
+        TimingLogBridge logBridge = getTimingLogBridge();
+        EntryHandle entry = logBridge.resolveEntry("org.znerd", "sample", "9876");
+        logBridge.shouldLog(entry, LogLevel.INFO);
+        logBridge.logOneMessage(getClass().getName(), entry, LogLevel.INFO, "First", null);
+        logBridge.logOneMessage(getClass().getName(), entry, LogLevel.ERROR, "Second", null);
+        logBridge.logOneMessage(getClass().getName(), "org.znerd", "sample", "9876", LogLevel.ERROR, "Third", null);
+
+        assertEquals("INFO [] org.znerd.sample.9876 First" + LINE_SEPARATOR + "ERROR [] org.znerd.sample.9876 Second" + LINE_SEPARATOR + "ERROR [] org.znerd.sample.9876 Third"
+                + LINE_SEPARATOR, stringWriter.toString());
+        assertEquals(1L, count(logBridge, TimingLogBridge.Operation.SHOULD_LOG, LogLevel.INFO));
+        assertEquals(1L, count(logBridge, TimingLogBridge.Operation.LOG_ONE_MESSAGE, LogLevel.INFO));
+        assertEquals(2L, count(logBridge, TimingLogBridge.Operation.LOG_ONE_MESSAGE, LogLevel.ERROR));
+        assertNull(logBridge.getHistogram(TimingLogBridge.Operation.LOG_EVENT, LogLevel.INFO));
+    }
+
+    @Test
+    public void testOneCallInSampleIntervalIsTimed() {
+        TimingLogBridge logBridge = new TimingLogBridge(new PrintWriterLogBridge(new PrintWriter(new StringWriter())), "TimingLogBridgeTest-sampled", 10, 0L);
+        try {
+            for (int i = 0; i < 95; i++) {
+                logBridge.shouldLog("org.znerd", "sample", "9876", LogLevel.DEBUG);
+            }
+            assertEquals(9L, count(logBridge, TimingLogBridge.Operation.SHOULD_LOG, LogLevel.DEBUG));
+        } finally {
+            logBridge.close();
+        }
+    }
+
+    @Test
+    public void testSlowCallsShowInPercentiles() {
+        TimingLogBridge logBridge = new TimingLogBridge(new PrintWriterLogBridge(new PrintWriter(new StringWriter())) {
+            @Override
+            public void logOneMessage(String fqcn, EntryHandle entry, LogLevel level, String message, Throwable exception) {
+                if ("Slow".equals(message)) {
+                    try {
+                        Thread.sleep(20L);
+                    } catch (InterruptedException cause) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+            }
+        }, "TimingLogBridgeTest-slow", 1, 0L);
+        try {
+            EntryHandle entry = logBridge.resolveEntry("org.znerd", "sample", "9876");
+            for (int i = 0; i < 98; i++) {
+                logBridge.logOneMessage(getClass().getName(), entry, LogLevel.WARNING, "Fast", null);
+            }
+            logBridge.logOneMessage(getClass().getName(), entry, LogLevel.WARNING, "Slow", null);
+            logBridge.logOneMessage(getClass().getName(), entry, LogLevel.WARNING, "Slow", null);
+
+            TimingLogBridge.Latency latency = logBridge.getLatencies().get(0);
+            assertEquals("logOneMessage", latency.getOperation());
+            assertEquals("WARNING", latency.getLevel());
+            assertEquals(100L, latency.getCount());
+            assertTrue(latency.getP50() < 20000000L);
+            assertTrue(latency.getP99() >= 20000000L);
+            assertTrue(latency.getMax() >= 20000000L);
+        } finally {
+            logBridge.close();
+        }
+    }
+
+    @Test
+    public void testLatenciesAreExposedThroughPlatformMBeanServer() throws Exception {
+        TimingLogBridge logBridge = getTimingLogBridge();
+        logBridge.logOneMessage(getClass().getName(), logBridge.resolveEntry("org.znerd", "sample", "9876"), LogLevel.INFO, "Bla", null);
+
+        ObjectName name = new ObjectName(TimingLogBridge.OBJECT_NAME_PREFIX + ObjectName.quote("TimingLogBridgeTest"));
+        assertTrue(ManagementFactory.getPlatformMBeanServer().isRegistered(name));
+        TimingLogBridgeMXBean bean = JMX.newMXBeanProxy(ManagementFactory.getPlatformMBeanServer(), name, TimingLogBridgeMXBean.class);
+        assertEquals(PrintWriterLogBridge.class.getName(), bean.getDelegateClassName());
+        List<TimingLogBridge.Latency> latencies = bean.getLatencies();
+        assertEquals(1, latencies.size());
+        assertEquals(1L, latencies.get(0).getCount());
+
+        bean.reset();
+        assertEquals(0L, bean.getLatencies().get(0).getCount());
+
+        logBridge.close();
+        assertFalse(ManagementFactory.getPlatformMBeanServer().isRegistered(name));
+    }
+
+    private static long count(TimingLogBridge logBridge, TimingLogBridge.Operation operation, LogLevel level) {
+        LatencyHistogram histogram = logBridge.getHistogram(operation, level);
+        return histogram == null ? 0L : histogram.snapshot().getTotalCount();
+    }
+}
@@ -0,0 +1,88 @@
+// See the COPYRIGHT file for copyright and license information
+package org.znerd.logdoc;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+
+import org.junit.After;
+import org.junit.Test;
+import org.znerd.util.log.LogLevel;
+
+public class TracedContextsTest {
+
+    @After
+    public void tearDown() {
+        TracedContexts.clear();
+    }
+
+    @Test
+    public void testContextIds() {
+        assertFalse(TracedContexts.isTraced("REQUEST-1"));
+        TracedContexts.addContextId("REQUEST-1");
+        assertTrue(TracedContexts.isTraced("REQUEST-1"));
+        assertFalse(TracedContexts.isTraced("REQUEST-10"));
+        assertFalse(TracedContexts.isTraced("REQUEST-"));
+        assertFalse(TracedContexts.isTraced(null));
+        assertEquals(1, TracedContexts.getContextIds().size());
+
+        assertTrue(TracedContexts.removeContextId("REQUEST-1"));
+        assertFalse(TracedContexts.removeContextId("REQUEST-1"));
+        assertFalse(TracedContexts.isTraced("REQUEST-1"));
+    }
+
+    @Test
+    public void testPrefixes() {
+        TracedContexts.addPrefix("tenant42-");
+        TracedContexts.addPrefix("batch");
+        assertTrue(TracedContexts.isTraced("tenant42-abc"));
+        assertTrue(TracedContexts.isTraced("tenant42-"));
+        assertTrue(TracedContexts.isTraced("batch-7"));
+        assertFalse(TracedContexts.isTraced("tenant4"));
+        assertFalse(TracedContexts.isTraced("tenant43-abc"));
+        assertFalse(TracedContexts.isTraced("xbatch"));
+
+        assertTrue(TracedContexts.removePrefix("batch"));
+        assertFalse(TracedContexts.isTraced("batch-7"));
+        assertTrue(TracedContexts.isTraced("tenant42-abc"));
+    }
+
+    @Test
+    public void testManyContextIds() {
+        for (int i = 0; i < 1000; i += 2) {
+            TracedContexts.addContextId("ID-" + i);
+        }
+        for (int i = 0; i < 1000; i++) {
+            assertEquals("ID-" + i, i % 2 == 0, TracedContexts.isTraced("ID-" + i));
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testEmptyPrefixIsRejected() {
+        TracedContexts.addPrefix("");
+    }
+
+    @Test
+    public void testShouldLogIsForcedForTracedContext() {
+        PrintWriterLogBridge logBridge = new PrintWriterLogBridge(new PrintWriter(new StringWriter()));
+        logBridge.setLevel(LogLevel.INFO);
+        EntryHandle entry = logBridge.resolveEntry("org.znerd", "sample", "9011");
+        TracedContexts.addPrefix("DEBUG-");
+
+        ContextScope scope = ContextScope.open(logBridge, "DEBUG-REQUEST");
+        try {
+            assertTrue(LogFacade.shouldLog(entry, LogLevel.DEBUG));
+        } finally {
+            scope.close();
+        }
+        scope = ContextScope.open(logBridge, "OTHER-REQUEST");
+        try {
+            assertFalse(LogFacade.shouldLog(entry, LogLevel.DEBUG));
+        } finally {
+            scope.close();
+        }
+    }
+}
@@ -0,0 +1,65 @@
+// See the COPYRIGHT file for copyright and license information
+package org.znerd.logdoc;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+
+import org.junit.Test;
+
+public class Utf8Test {
+
+    private static String written(ByteBuffer buffer) throws Exception {
+        return new String(buffer.array(), 0, buffer.position(), "UTF-8");
+    }
+
+    @Test
+    public void testPutLongWritesDigits() throws Exception {
+        long[] values = { 0L, 7L, -7L, 10L, 1234567890L, -1234567890L, Long.MAX_VALUE, Long.MIN_VALUE };
+        for (long value : values) {
+            ByteBuffer buffer = ByteBuffer.allocate(32);
+            Utf8.putLong(buffer, value);
+            assertEquals(String.valueOf(value), written(buffer));
+        }
+    }
+
+    @Test
+    public void testPutTextMatchesStringEncoding() throws Exception {
+        String text = "Blablabla é € 𝄞 \u0000 end";
+        ByteBuffer buffer = ByteBuffer.allocate(64);
+        Utf8.putText(buffer, text);
+        assertEquals(text, written(buffer));
+        assertEquals(text.getBytes("UTF-8").length, buffer.position());
+    }
+
+    @Test
+    public void testPutTextReplacesUnpairedSurrogates() throws Exception {
+        ByteBuffer buffer = ByteBuffer.allocate(16);
+        Utf8.putText(buffer, "a\uD834b");
+        assertEquals("a?b", written(buffer));
+    }
+
+    @Test
+    public void testPutOtherValues() throws Exception {
+        ByteBuffer buffer = ByteBuffer.allocate(64);
+        Utf8.putBoolean(buffer, true);
+        buffer.put((byte) ' ');
+        Utf8.putFloat(buffer, 1.5f);
+        buffer.put((byte) ' ');
+        Utf8.putDouble(buffer, -0.25);
+        assertEquals("true 1.5 -0.25", written(buffer));
+    }
+
+    @Test
+    public void testPutLongOverflow() {
+        ByteBuffer buffer = ByteBuffer.allocate(3);
+        try {
+            Utf8.putLong(buffer, 1234L);
+            fail("Expected BufferOverflowException.");
+        } catch (BufferOverflowException cause) {
+            // as expected
+        }
+    }
+}
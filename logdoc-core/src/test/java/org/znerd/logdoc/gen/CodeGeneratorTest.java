@@ -0,0 +1,204 @@
+// See the COPYRIGHT file for copyright and license information
+package org.znerd.logdoc.gen;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.znerd.util.log.LogLevel;
+
+/**
+ * Tests the code generated by <code>CodeGenerator</code> for the options it supports, using the Logdoc definitions in the <code>logdoc</code> test resource directory.
+ */
+public class CodeGeneratorTest {
+
+    private File sourceDir;
+    private File destDir;
+
+    @Before
+    public void setUp() throws Exception {
+        sourceDir = new File(getClass().getResource("/logdoc/log.xml").toURI()).getParentFile();
+        destDir = File.createTempFile("logdoc-", "-gen");
+        destDir.delete();
+        destDir.mkdirs();
+    }
+
+    @After
+    public void tearDown() {
+        delete(destDir);
+    }
+
+    private void delete(File file) {
+        File[] children = file.listFiles();
+        if (children != null) {
+            for (File child : children) {
+                delete(child);
+            }
+        }
+        file.delete();
+    }
+
+    private String generateLog(CodeGenerator generator) throws IOException {
+        generator.generate();
+        return read(new File(destDir, "org/znerd/logdoc/test/Log.java"));
+    }
+
+    private String read(File file) throws IOException {
+        StringBuilder builder = new StringBuilder();
+        Reader reader = new InputStreamReader(new FileInputStream(file), "UTF-8");
+        try {
+            char[] buffer = new char[4096];
+            for (int count = reader.read(buffer); count >= 0; count = reader.read(buffer)) {
+                builder.append(buffer, 0, count);
+            }
+        } finally {
+            reader.close();
+        }
+        return builder.toString();
+    }
+
+    @Test
+    public void testDefaultTranslatesOnCallingThread() throws IOException {
+        String code = generateLog(new CodeGenerator(sourceDir, destDir));
+        assertTrue(code.contains("String _translation = CURRENT_TRANSLATION_BUNDLE.translation_1001(path, duration);"));
+        assertFalse(code.contains("class Event_"));
+    }
+
+    @Test
+    public void testFilterIsAppliedInMethodBody() throws IOException {
+        String code = generateLog(new CodeGenerator(sourceDir, destDir));
+        assertTrue(code.contains("public static final void log_1000(String path, String password) {"));
+        assertTrue(code.contains("password = org.znerd.logdoc.Library.getLogFilter().filter(\"org.znerd.logdoc.test.requests.1000\", \"password\", password);"));
+    }
+
+    @Test
+    public void testDeferredTranslation() throws IOException {
+        CodeGenerator generator = new CodeGenerator(sourceDir, destDir);
+        generator.setDeferredTranslation(true);
+        String code = generateLog(generator);
+        assertTrue(code.contains("new Event_1002(_exception, path), _exception);"));
+        assertTrue(code.contains("private static final class Event_1001 extends org.znerd.logdoc.LogEvent {"));
+        assertFalse(code.contains("String _translation"));
+        assertTrue(code.contains("public boolean isTranslationDeferred() {\n         return true;"));
+    }
+
+    @Test
+    public void testDeferredTranslationWritesTypedArguments() throws IOException {
+        CodeGenerator generator = new CodeGenerator(sourceDir, destDir);
+        generator.setDeferredTranslation(true);
+        String code = generateLog(generator);
+        assertTrue(code.contains("         _writer.writeText(path);\n         if (duration == null) {\n            _writer.writeNull();\n         } else {\n            _writer.writeInt64(duration.longValue());\n         }\n         return true;"));
+    }
+
+    @Test
+    public void testTranslationsAreEncodedWithConstants() throws IOException {
+        CodeGenerator generator = new CodeGenerator(sourceDir, destDir);
+        generator.setDeferredTranslation(true);
+        String code = generateLog(generator);
+        assertTrue(code.contains("CURRENT_TRANSLATION_BUNDLE.encodeTranslation_1001(_buffer, path, duration);"));
+
+        String bundle = read(new File(destDir, "org/znerd/logdoc/test/TranslationBundle_en_US.java"));
+        assertTrue(bundle.contains("private static final byte[] _UTF8_1001_0 = org.znerd.logdoc.Utf8.encode(\"Handled request for \");"));
+        assertTrue(bundle.contains("      _buffer.put(_UTF8_1001_1);\n      if (duration == null) {\n         org.znerd.logdoc.Utf8.putText(_buffer, \"(null)\");\n      } else {\n         org.znerd.logdoc.Utf8.putLong(_buffer, duration.longValue());\n      }\n      _buffer.put(_UTF8_1001_2);"));
+    }
+
+    @Test
+    public void testRateLimitIsCheckedBeforeTranslation() throws IOException {
+        String code = generateLog(new CodeGenerator(sourceDir, destDir));
+        assertTrue(code.contains("private static final org.znerd.logdoc.internal.RateLimiter RATE_LIMITER_1002 = new org.znerd.logdoc.internal.RateLimiter(5, 20, 0L);"));
+        assertTrue(code.contains("org.znerd.logdoc.EntryHandle _entry = ENTRY_1002;\n      if (!RATE_LIMITER_1002.tryAcquire(FQCN, _entry, org.znerd.util.log.LogLevel.ERROR)) {\n         return;\n      }\n      String _translation"));
+        assertFalse(code.contains("RATE_LIMITER_1001"));
+    }
+
+    @Test
+    public void testCallsAreNotCountedByDefault() throws IOException {
+        CodeGenerator generator = new CodeGenerator(sourceDir, destDir);
+        assertFalse(generator.isStatistics());
+        String code = generateLog(generator);
+        assertTrue(code.contains("new org.znerd.logdoc.internal.EnabledCache(3);"));
+        assertFalse(code.contains("STATISTICS"));
+    }
+
+    @Test
+    public void testStatisticsCanBeEnabled() throws IOException {
+        CodeGenerator generator = new CodeGenerator(sourceDir, destDir);
+        generator.setStatistics(true);
+        String code = generateLog(generator);
+        assertTrue(code.contains("new org.znerd.logdoc.internal.EntryStatistics(\"org.znerd.logdoc.test\", new String[] {\n        \"requests\", \"1000\", \"DEBUG\",\n"));
+        assertTrue(code.contains("new org.znerd.logdoc.internal.EnabledCache(STATISTICS);"));
+        assertTrue(code.contains("public org.znerd.logdoc.internal.EntryStatistics getStatistics() {"));
+    }
+
+    @Test
+    public void testControllerListsSupportedLocales() throws IOException {
+        String code = generateLog(new CodeGenerator(sourceDir, destDir));
+        assertTrue(code.contains("public String[] getSupportedLocales() {"));
+    }
+
+    @Test
+    public void testMinLevel() throws IOException {
+        CodeGenerator generator = new CodeGenerator(sourceDir, destDir);
+        generator.setMinLevel(LogLevel.INFO);
+        String code = generateLog(generator);
+        assertTrue(code.contains("public static final void log_1000(String path, String password) {\n      // Level DEBUG is below the minimum level INFO; this entry is never logged.\n   }"));
+        assertFalse(code.contains("ENTRY_1000"));
+        assertTrue(code.contains("ENTRY_1001"));
+    }
+
+    @Test
+    public void testNoJfrEventsByDefault() throws IOException {
+        String code = generateLog(new CodeGenerator(sourceDir, destDir));
+        assertFalse(code.contains("jdk.jfr"));
+    }
+
+    @Test
+    public void testJfrEvents() throws IOException {
+        CodeGenerator generator = new CodeGenerator(sourceDir, destDir);
+        generator.setJfrEvents(true);
+        String code = generateLog(generator);
+        assertTrue(code.contains("public static final void log_1001(String path, java.lang.Long duration) {\n      if (ENABLED_CACHE.isEnabled("));
+        assertTrue(code.contains("private static void _log_1001(String path, java.lang.Long duration) {\n      if (jdk.jfr.FlightRecorder.isInitialized() && JfrEvent_1001.TYPE.isEnabled()) {\n         _jfr_1001(path, duration);\n      }"));
+        assertTrue(code.contains("static final jdk.jfr.EventType TYPE = jdk.jfr.EventType.getEventType(JfrEvent_1001.class);"));
+        assertTrue(code.contains("@jdk.jfr.Name(\"org.znerd.logdoc.test.requests.Entry1001\")"));
+        assertTrue(code.contains("private static final class JfrEvent_1001 extends jdk.jfr.Event {"));
+        assertTrue(code.contains("      long duration_;\n"));
+        assertTrue(code.contains("      if (duration != null) {\n         _event.duration_ = duration;\n      }"));
+        assertTrue(code.contains("         _event.exceptionClass = _exception.getClass().getName();"));
+    }
+
+    @Test
+    public void testJfrEventsApplyFilters() throws IOException {
+        CodeGenerator generator = new CodeGenerator(sourceDir, destDir);
+        generator.setJfrEvents(true);
+        String code = generateLog(generator);
+        assertTrue(code.contains(" _event = new JfrEvent_1000();\n      password = org.znerd.logdoc.Library.getLogFilter().filter("));
+    }
+
+    @Test
+    public void testEntryDescriptors() throws IOException {
+        CodeGenerator generator = new CodeGenerator(sourceDir, destDir);
+        generator.setMinLevel(LogLevel.INFO);
+        String code = generateLog(generator);
+        assertTrue(code.contains("new org.znerd.logdoc.EntryDescriptor(\"org.znerd.logdoc.test\", 0, \"requests\", \"1000\", org.znerd.util.log.LogLevel.DEBUG, \"log_1000\", new String[] { \"path\", \"password\" }, new String[] { \"text\", \"text\" }, false),"));
+        assertTrue(code.contains("new org.znerd.logdoc.EntryDescriptor(\"org.znerd.logdoc.test\", 2, \"requests\", \"1002\", org.znerd.util.log.LogLevel.ERROR, \"log_1002\", new String[] { \"path\" }, new String[] { \"text\" }, true)\n    }));"));
+        assertTrue(code.contains("public java.util.List<org.znerd.logdoc.EntryDescriptor> getEntryDescriptors() {\n         return ENTRY_DESCRIPTORS;"));
+    }
+
+    @Test
+    public void testTranslationBundlesAreLoadedOnDemand() throws IOException {
+        String code = generateLog(new CodeGenerator(sourceDir, destDir));
+        assertTrue(code.contains("private static final String[] SUPPORTED_LOCALES = { \"en_US\", \"nl_NL\" };\n    private static TranslationBundle CURRENT_TRANSLATION_BUNDLE;\n"));
+        assertTrue(code.contains("        if (\"nl_NL\".equals(locale)) {\n            return TranslationBundleHolder_nl_NL.SINGLETON;\n        }"));
+        assertTrue(code.contains("private static final class TranslationBundleHolder_nl_NL {\n        static final TranslationBundle SINGLETON = TranslationBundle_nl_NL.SINGLETON;\n    }"));
+        assertTrue(code.contains("CURRENT_TRANSLATION_BUNDLE = loadTranslationBundle(newLocale);"));
+        assertFalse(code.contains("HashMap"));
+    }
+}
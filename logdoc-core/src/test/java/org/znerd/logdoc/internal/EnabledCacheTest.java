@@ -0,0 +1,84 @@
+// See the COPYRIGHT file for copyright and license information
+package org.znerd.logdoc.internal;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.znerd.logdoc.EntryHandle;
+import org.znerd.logdoc.PrintWriterLogBridge;
+import org.znerd.logdoc.TracedContexts;
+import org.znerd.util.log.LogLevel;
+
+public class EnabledCacheTest {
+
+    private PrintWriterLogBridge logBridge;
+    private EntryHandle entry;
+    private EnabledCache cache;
+
+    @Before
+    public void setUp() {
+        logBridge = new PrintWriterLogBridge(new PrintWriter(new StringWriter()));
+        entry = logBridge.resolveEntry("org.znerd", "sample", "9011");
+        cache = new EnabledCache(2);
+    }
+
+    @Test
+    public void testDecisionIsCached() {
+        logBridge.setLevel(LogLevel.INFO);
+        assertTrue(cache.isEnabled(0, entry, LogLevel.INFO));
+        assertFalse(cache.isEnabled(1, entry, LogLevel.DEBUG));
+
+        // The cache is not registered with LogCentral, so it does not see the change
+        logBridge.setLevel(LogLevel.ERROR);
+        assertTrue(cache.isEnabled(0, entry, LogLevel.INFO));
+        assertFalse(cache.isEnabled(1, entry, LogLevel.DEBUG));
+    }
+
+    @Test
+    public void testClearForcesReevaluation() {
+        logBridge.setLevel(LogLevel.INFO);
+        assertTrue(cache.isEnabled(0, entry, LogLevel.INFO));
+        assertFalse(cache.isEnabled(1, entry, LogLevel.DEBUG));
+
+        logBridge.setLevel(LogLevel.DEBUG);
+        cache.clear();
+        assertTrue(cache.isEnabled(0, entry, LogLevel.INFO));
+        assertTrue(cache.isEnabled(1, entry, LogLevel.DEBUG));
+
+        logBridge.setLevel(LogLevel.WARNING);
+        cache.clear();
+        assertFalse(cache.isEnabled(0, entry, LogLevel.INFO));
+        assertFalse(cache.isEnabled(1, entry, LogLevel.DEBUG));
+    }
+
+    @Test
+    public void testTracedContextEnablesDisabledEntries() {
+        logBridge.setLevel(LogLevel.INFO);
+        assertFalse(cache.isEnabled(1, entry, LogLevel.DEBUG));
+        TracedContexts.addContextId("TRACED-1");
+        try {
+            assertFalse(cache.isEnabled(1, entry, LogLevel.DEBUG));
+            logBridge.putContextId("TRACED-1");
+            try {
+                assertTrue(cache.isEnabled(1, entry, LogLevel.DEBUG));
+            } finally {
+                logBridge.unputContextId();
+            }
+            assertFalse(cache.isEnabled(1, entry, LogLevel.DEBUG));
+        } finally {
+            TracedContexts.clear();
+        }
+    }
+
+    @Test
+    public void testRefreshLevelsIncrementsEpoch() {
+        int epoch = LogCentral.getLevelEpoch();
+        LogCentral.refreshLevels();
+        assertTrue(LogCentral.getLevelEpoch() != epoch);
+    }
+}
@@ -0,0 +1,95 @@
+// See the COPYRIGHT file for copyright and license information
+package org.znerd.logdoc.internal;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+
+import org.junit.Test;
+import org.znerd.logdoc.EntryHandle;
+import org.znerd.logdoc.PrintWriterLogBridge;
+import org.znerd.util.log.LogLevel;
+
+public class EntryStatisticsTest {
+
+    private static final String[] ENTRIES = { "sample", "9011", "INFO", "sample", "9012", "DEBUG" };
+
+    @Test
+    public void testMetadata() {
+        EntryStatistics statistics = new EntryStatistics("org.znerd", ENTRIES);
+        assertEquals("org.znerd", statistics.getDomain());
+        assertEquals(2, statistics.size());
+        assertEquals("sample", statistics.getGroupId(1));
+        assertEquals("9012", statistics.getEntryId(1));
+        assertSame(LogLevel.DEBUG, statistics.getLevel(1));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testEntriesMustComeInTriples() {
+        new EntryStatistics("org.znerd", new String[] { "sample", "9011" });
+    }
+
+    @Test
+    public void testCountsFromAllThreadsAreSummed() throws InterruptedException {
+        final EntryStatistics statistics = new EntryStatistics("org.znerd", ENTRIES);
+        Thread[] threads = new Thread[4];
+        for (int t = 0; t < threads.length; t++) {
+            threads[t] = new Thread() {
+                @Override
+                public void run() {
+                    for (int i = 0; i < 10000; i++) {
+                        statistics.count(0, true);
+                        statistics.count(1, i % 4 != 0);
+                    }
+                }
+            };
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertEquals(40000L, statistics.getEnabledCount(0));
+        assertEquals(0L, statistics.getSuppressedCount(0));
+        assertEquals(30000L, statistics.getEnabledCount(1));
+        assertEquals(10000L, statistics.getSuppressedCount(1));
+    }
+
+    @Test
+    public void testRatesAreComputedSinceOldestSample() {
+        EntryStatistics statistics = new EntryStatistics("org.znerd", ENTRIES);
+        assertNull(statistics.rates(0L));
+
+        statistics.sample(0L);
+        for (int i = 0; i < 20; i++) {
+            statistics.count(0, true);
+        }
+        statistics.count(1, false);
+        double[] rates = statistics.rates(2000000000L);
+        assertEquals(10.0, rates[0], 0.0);
+        assertEquals(0.0, rates[1], 0.0);
+        assertEquals(0.0, rates[2], 0.0);
+        assertEquals(0.5, rates[3], 0.0);
+    }
+
+    @Test
+    public void testEnabledCacheCountsChecks() {
+        PrintWriterLogBridge logBridge = new PrintWriterLogBridge(new PrintWriter(new StringWriter()));
+        logBridge.setLevel(LogLevel.INFO);
+        EntryHandle entry = logBridge.resolveEntry("org.znerd", "sample", "9011");
+        EntryStatistics statistics = new EntryStatistics("org.znerd", ENTRIES);
+        EnabledCache cache = new EnabledCache(statistics);
+        for (int i = 0; i < 3; i++) {
+            cache.isEnabled(0, entry, LogLevel.INFO);
+            cache.isEnabled(1, entry, LogLevel.DEBUG);
+        }
+
+        assertEquals(3L, statistics.getEnabledCount(0));
+        assertEquals(0L, statistics.getSuppressedCount(0));
+        assertEquals(0L, statistics.getEnabledCount(1));
+        assertEquals(3L, statistics.getSuppressedCount(1));
+    }
+}
@@ -0,0 +1,79 @@
+// See the COPYRIGHT file for copyright and license information
+package org.znerd.logdoc.internal;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class LatencyHistogramTest {
+
+    @Test
+    public void testBucketsAreContiguous() {
+        long previousHighest = -1L;
+        for (int index = 0; index <= LatencyHistogram.bucketIndex(LatencyHistogram.MAX_TRACKABLE_VALUE); index++) {
+            long lowest = LatencyHistogram.lowestValue(index);
+            assertEquals(previousHighest + 1L, lowest);
+            assertEquals(index, LatencyHistogram.bucketIndex(lowest));
+            previousHighest = LatencyHistogram.highestValue(index);
+            assertEquals(index, LatencyHistogram.bucketIndex(previousHighest));
+        }
+        assertEquals(LatencyHistogram.MAX_TRACKABLE_VALUE, previousHighest);
+    }
+
+    @Test
+    public void testRelativePrecision() {
+        for (long value = 1L; value < LatencyHistogram.MAX_TRACKABLE_VALUE; value = value * 3L + 1L) {
+            long highest = LatencyHistogram.highestValue(LatencyHistogram.bucketIndex(value));
+            assertTrue(value + " -> " + highest, highest - value <= value / LatencyHistogram.SUB_BUCKET_HALF_COUNT);
+        }
+    }
+
+    @Test
+    public void testOutOfRangeValuesAreClamped() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(-5L);
+        histogram.record(Long.MAX_VALUE);
+        LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+        assertEquals(2L, snapshot.getTotalCount());
+        assertEquals(0L, snapshot.getValueAtPercentile(50.0));
+        assertEquals(LatencyHistogram.MAX_TRACKABLE_VALUE, snapshot.getMaxValue());
+    }
+
+    @Test
+    public void testPercentiles() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long value = 1L; value <= 1000L; value++) {
+            histogram.record(value * 1000L);
+        }
+        LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+        assertEquals(1000L, snapshot.getTotalCount());
+        assertWithinPrecision(500000L, snapshot.getValueAtPercentile(50.0));
+        assertWithinPrecision(990000L, snapshot.getValueAtPercentile(99.0));
+        assertWithinPrecision(1000000L, snapshot.getValueAtPercentile(100.0));
+        assertWithinPrecision(1000000L, snapshot.getMaxValue());
+        assertEquals(500500.0, snapshot.getMean(), 500500.0 / LatencyHistogram.SUB_BUCKET_HALF_COUNT);
+    }
+
+    private static void assertWithinPrecision(long expected, long actual) {
+        assertTrue(expected + " <= " + actual, actual >= expected);
+        assertTrue(actual + " <= " + expected + " + 1/" + LatencyHistogram.SUB_BUCKET_HALF_COUNT, actual - expected <= expected / LatencyHistogram.SUB_BUCKET_HALF_COUNT);
+    }
+
+    @Test
+    public void testSince() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(100L);
+        LatencyHistogram.Snapshot first = histogram.snapshot();
+        histogram.record(5000L);
+        histogram.record(5000L);
+        LatencyHistogram.Snapshot interval = histogram.snapshot().since(first);
+        assertEquals(2L, interval.getTotalCount());
+        assertEquals(LatencyHistogram.highestValue(LatencyHistogram.bucketIndex(5000L)), interval.getValueAtPercentile(0.0));
+
+        histogram.reset();
+        assertEquals(0L, histogram.snapshot().getTotalCount());
+        assertEquals(0L, histogram.snapshot().getMaxValue());
+        assertEquals(0.0, histogram.snapshot().getMean(), 0.0);
+    }
+}
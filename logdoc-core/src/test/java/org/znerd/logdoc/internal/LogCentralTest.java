@@ -0,0 +1,67 @@
+// See the COPYRIGHT file for copyright and license information
+package org.znerd.logdoc.internal;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.znerd.logdoc.EntryDescriptor;
+import org.znerd.logdoc.test.Log;
+import org.znerd.util.log.LogLevel;
+
+/**
+ * Tests the entry catalog of <code>LogCentral</code>, using the <code>Log</code> class generated from the <code>log.xml</code> in the test resources.
+ */
+public class LogCentralTest {
+
+    @Before
+    public void setUp() {
+        LogCentral.forceInit(Log.class);
+    }
+
+    @Test
+    public void testOrdinalsAreDense() {
+        List<EntryDescriptor> descriptors = LogCentral.getEntryDescriptors("org.znerd.logdoc.test");
+        assertEquals(3, descriptors.size());
+        for (int i = 0; i < descriptors.size(); i++) {
+            assertEquals(i, descriptors.get(i).getOrdinal());
+        }
+        assertSame(Log.getEntryDescriptors(), descriptors);
+    }
+
+    @Test
+    public void testDescriptor() {
+        EntryDescriptor descriptor = Log.getEntryDescriptors().get(2);
+        assertEquals("org.znerd.logdoc.test.requests.1002", descriptor.getCategory());
+        assertEquals("requests", descriptor.getGroupId());
+        assertEquals("1002", descriptor.getEntryId());
+        assertSame(LogLevel.ERROR, descriptor.getLevel());
+        assertEquals("log_1002", descriptor.getMethodName());
+        assertEquals(Arrays.asList("path"), descriptor.getParamNames());
+        assertEquals(Arrays.asList("text"), descriptor.getParamTypes());
+        assertTrue(descriptor.hasException());
+
+        descriptor = Log.getEntryDescriptors().get(1);
+        assertEquals("log_1001", descriptor.getMethodName());
+        assertEquals(Arrays.asList("path", "duration"), descriptor.getParamNames());
+        assertEquals(Arrays.asList("text", "int64"), descriptor.getParamTypes());
+        assertFalse(descriptor.hasException());
+    }
+
+    @Test
+    public void testAllLogsAreAggregated() {
+        assertTrue(LogCentral.getEntryDescriptors().containsAll(Log.getEntryDescriptors()));
+        assertTrue(LogCentral.getEntryDescriptors("no.such.domain").isEmpty());
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testCatalogIsUnmodifiable() {
+        LogCentral.getEntryDescriptors().clear();
+    }
+}
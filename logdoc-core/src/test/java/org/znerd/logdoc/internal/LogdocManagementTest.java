@@ -0,0 +1,106 @@
+// See the COPYRIGHT file for copyright and license information
+package org.znerd.logdoc.internal;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Collections;
+
+import org.junit.After;
+import org.junit.Test;
+import org.znerd.logdoc.Library;
+import org.znerd.logdoc.NullLogFilter;
+import org.znerd.logdoc.SimpleLogFilter;
+import org.znerd.logdoc.StderrLogBridge;
+import org.znerd.logdoc.TracedContexts;
+import org.znerd.util.log.LogLevel;
+
+public class LogdocManagementTest {
+
+    private final LogdocManagement management = new LogdocManagement();
+
+    @After
+    public void reset() {
+        Library.clearLevelOverrides();
+        Library.resetLogBridge();
+        Library.setLogFilter(new SimpleLogFilter());
+        TracedContexts.clear();
+    }
+
+    @Test
+    public void testLevelOverrides() {
+        management.setLevelOverride("org.znerd", "sample", "debug");
+        management.setLevelOverride("org.znerd", "", "ERROR");
+        assertSame(LogLevel.DEBUG, Library.getLevelOverride("org.znerd", "sample"));
+        assertEquals("ERROR", management.getLevelOverrides().get("org.znerd"));
+
+        management.setLevelOverride("org.znerd", "sample", "");
+        assertEquals(Collections.singletonMap("org.znerd", "ERROR"), management.getLevelOverrides());
+        management.clearLevelOverrides();
+        assertTrue(management.getLevelOverrides().isEmpty());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidLevelIsRejected() {
+        management.setLevelOverride("org.znerd", "sample", "VERBOSE");
+    }
+
+    @Test
+    public void testTracedContexts() {
+        management.traceContextId("REQUEST-1");
+        management.traceContextPrefix("tenant42-");
+        assertTrue(TracedContexts.isTraced("REQUEST-1"));
+        assertTrue(TracedContexts.isTraced("tenant42-abc"));
+        assertArrayEquals(new String[] { "REQUEST-1" }, management.getTracedContextIds());
+        assertArrayEquals(new String[] { "tenant42-" }, management.getTracedContextPrefixes());
+
+        assertTrue(management.untraceContextId("REQUEST-1"));
+        assertFalse(TracedContexts.isTraced("REQUEST-1"));
+        management.clearTracedContexts();
+        assertEquals(0, management.getTracedContextPrefixes().length);
+    }
+
+    @Test
+    public void testLogBridgeAndFilterByClassName() {
+        management.setLogBridgeClassName(StderrLogBridge.class.getName());
+        assertEquals(StderrLogBridge.class.getName(), management.getLogBridgeClassName());
+        management.setLogBridgeClassName("org.znerd.logdoc.JulLogBridge");
+        assertEquals("org.znerd.logdoc.JulLogBridge", management.getLogBridgeClassName());
+
+        management.setLogFilterClassName(NullLogFilter.class.getName());
+        assertEquals(NullLogFilter.class.getName(), management.getLogFilterClassName());
+    }
+
+    @Test
+    public void testLogControllersAreListedWithLocales() {
+        new LogController() {
+            @Override
+            public boolean isLocaleSupported(String locale) {
+                return true;
+            }
+
+            @Override
+            public String[] getSupportedLocales() {
+                return new String[] { "en_US", "nl_NL" };
+            }
+
+            @Override
+            public void setLocale(String newLocale) {
+            }
+
+            @Override
+            public String toString() {
+                return "TestController";
+            }
+        };
+
+        boolean found = false;
+        for (String controller : management.getLogControllers()) {
+            found |= controller.equals("TestController: en_US, nl_NL");
+        }
+        assertTrue(found);
+    }
+}
@@ -0,0 +1,54 @@
+// See the COPYRIGHT file for copyright and license information
+package org.znerd.logdoc.internal;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.management.ManagementFactory;
+import java.util.List;
+
+import javax.management.JMX;
+import javax.management.ObjectName;
+
+import org.junit.Test;
+
+public class LogdocStatisticsTest {
+
+    @Test
+    public void testCountsAreExposedThroughPlatformMBeanServer() throws Exception {
+        EntryStatistics statistics = new EntryStatistics("org.znerd.statistics", new String[] { "first", "1", "INFO", "first", "2", "ERROR", "second", "3", "INFO" });
+        LogdocStatistics.add(statistics);
+        statistics.count(0, true);
+        statistics.count(0, false);
+        statistics.count(1, true);
+        statistics.count(2, true);
+
+        ObjectName name = new ObjectName(LogdocStatistics.OBJECT_NAME);
+        assertTrue(ManagementFactory.getPlatformMBeanServer().isRegistered(name));
+        LogdocStatisticsMXBean bean = JMX.newMXBeanProxy(ManagementFactory.getPlatformMBeanServer(), name, LogdocStatisticsMXBean.class);
+
+        LogdocStatistics.EntryCounts entry = find(bean.getEntries(), "org.znerd.statistics.first.1");
+        assertEquals("org.znerd.statistics", entry.getDomain());
+        assertEquals("first", entry.getGroupId());
+        assertEquals("1", entry.getEntryId());
+        assertEquals("INFO", entry.getLevel());
+        assertEquals(1L, entry.getEnabledCount());
+        assertEquals(1L, entry.getSuppressedCount());
+
+        LogdocStatistics.Counts domain = find(bean.getDomains(), "org.znerd.statistics");
+        assertEquals(3L, domain.getEnabledCount());
+        assertEquals(1L, domain.getSuppressedCount());
+        assertEquals(2L, find(bean.getGroups(), "org.znerd.statistics.first").getEnabledCount());
+        assertEquals(1L, find(bean.getGroups(), "org.znerd.statistics.second").getEnabledCount());
+        assertTrue(bean.getEnabledCount() >= 3L);
+    }
+
+    private static <T extends LogdocStatistics.Counts> T find(List<T> counts, String name) {
+        for (T candidate : counts) {
+            if (candidate.getName().equals(name)) {
+                return candidate;
+            }
+        }
+        throw new AssertionError("No counts for " + name + " in " + counts.size() + " rows");
+    }
+}
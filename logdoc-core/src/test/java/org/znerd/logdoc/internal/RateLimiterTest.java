@@ -0,0 +1,125 @@
+// See the COPYRIGHT file for copyright and license information
+package org.znerd.logdoc.internal;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.znerd.logdoc.EntryHandle;
+import org.znerd.logdoc.PrintWriterLogBridge;
+import org.znerd.util.log.LogLevel;
+
+public class RateLimiterTest {
+
+    private static final String FQCN = RateLimiterTest.class.getName();
+
+    private StringWriter output;
+    private EntryHandle entry;
+
+    @Before
+    public void setUp() {
+        output = new StringWriter();
+        PrintWriterLogBridge logBridge = new PrintWriterLogBridge(new PrintWriter(output));
+        logBridge.setLevel(LogLevel.DEBUG);
+        entry = logBridge.resolveEntry("org.znerd", "sample", "9012");
+    }
+
+    @Test
+    public void testBurstIsAllowedThenLimited() {
+        // One message per 1000 seconds, so no new token arrives during the test
+        RateLimiter limiter = new RateLimiter(0.001, 3, 0L, RateLimiter.DEFAULT_SUMMARY_INTERVAL);
+        assertTrue(limiter.tryAcquire(FQCN, entry, LogLevel.INFO));
+        assertTrue(limiter.tryAcquire(FQCN, entry, LogLevel.INFO));
+        assertTrue(limiter.tryAcquire(FQCN, entry, LogLevel.INFO));
+        assertFalse(limiter.tryAcquire(FQCN, entry, LogLevel.INFO));
+        assertFalse(limiter.tryAcquire(FQCN, entry, LogLevel.INFO));
+    }
+
+    @Test
+    public void testTokensAreRefilled() throws InterruptedException {
+        RateLimiter limiter = new RateLimiter(100.0, 1, 0L, RateLimiter.DEFAULT_SUMMARY_INTERVAL);
+        assertTrue(limiter.tryAcquire(FQCN, entry, LogLevel.INFO));
+        assertFalse(limiter.tryAcquire(FQCN, entry, LogLevel.INFO));
+        Thread.sleep(20L);
+        assertTrue(limiter.tryAcquire(FQCN, entry, LogLevel.INFO));
+    }
+
+    @Test
+    public void testFirstN() {
+        RateLimiter limiter = new RateLimiter(0.0, 0, 2L, RateLimiter.DEFAULT_SUMMARY_INTERVAL);
+        assertTrue(limiter.tryAcquire(FQCN, entry, LogLevel.INFO));
+        assertTrue(limiter.tryAcquire(FQCN, entry, LogLevel.INFO));
+        for (int i = 0; i < 10; i++) {
+            assertFalse(limiter.tryAcquire(FQCN, entry, LogLevel.INFO));
+        }
+    }
+
+    @Test
+    public void testSuppressedMessagesAreSummarized() {
+        RateLimiter limiter = new RateLimiter(0.0, 0, 1L, 0L);
+        assertTrue(limiter.tryAcquire(FQCN, entry, LogLevel.WARNING));
+        assertEquals("", output.toString());
+
+        assertFalse(limiter.tryAcquire(FQCN, entry, LogLevel.WARNING));
+        assertTrue(output.toString(), output.toString().startsWith("WARNING [] org.znerd.sample.9012 Suppressed 1 message(s) for log entry org.znerd.sample.9012"));
+        assertEquals(0L, limiter.getSuppressedCount());
+    }
+
+    @Test
+    public void testSummariesAreThrottled() {
+        RateLimiter limiter = new RateLimiter(0.0, 0, 1L, RateLimiter.DEFAULT_SUMMARY_INTERVAL);
+        limiter.tryAcquire(FQCN, entry, LogLevel.WARNING);
+        for (int i = 0; i < 5; i++) {
+            limiter.tryAcquire(FQCN, entry, LogLevel.WARNING);
+        }
+
+        // The first suppression is reported right away, the rest waits for the next interval
+        String[] lines = output.toString().split(System.getProperty("line.separator"));
+        assertEquals(1, lines.length);
+        assertEquals(4L, limiter.getSuppressedCount());
+    }
+
+    @Test
+    public void testSummaryIsLoggedAfterEntryGoesQuiet() throws InterruptedException {
+        RateLimiter limiter = new RateLimiter(0.0, 0, 1L, 50L);
+        limiter.tryAcquire(FQCN, entry, LogLevel.WARNING);
+        limiter.tryAcquire(FQCN, entry, LogLevel.WARNING);
+        limiter.tryAcquire(FQCN, entry, LogLevel.WARNING);
+        limiter.tryAcquire(FQCN, entry, LogLevel.WARNING);
+        assertEquals(2L, limiter.getSuppressedCount());
+        assertTrue(RateLimiter.isSweeping());
+
+        // No more calls of the entry, so only the background thread can log the summary
+        for (int i = 0; i < 500 && limiter.getSuppressedCount() > 0L; i++) {
+            Thread.sleep(10L);
+        }
+        String[] lines = output.toString().split(System.getProperty("line.separator"));
+        assertEquals(2, lines.length);
+        assertTrue(lines[1], lines[1].startsWith("WARNING [] org.znerd.sample.9012 Suppressed 2 message(s)"));
+    }
+
+    @Test
+    public void testPendingSummariesAreReportedRightAway() {
+        RateLimiter limiter = new RateLimiter(0.0, 0, 1L, RateLimiter.DEFAULT_SUMMARY_INTERVAL);
+        limiter.tryAcquire(FQCN, entry, LogLevel.WARNING);
+        limiter.tryAcquire(FQCN, entry, LogLevel.WARNING);
+        limiter.tryAcquire(FQCN, entry, LogLevel.WARNING);
+        assertEquals(1L, limiter.getSuppressedCount());
+
+        RateLimiter.reportAll();
+        assertEquals(0L, limiter.getSuppressedCount());
+        String[] lines = output.toString().split(System.getProperty("line.separator"));
+        assertEquals(2, lines.length);
+        assertTrue(lines[1], lines[1].startsWith("WARNING [] org.znerd.sample.9012 Suppressed 1 message(s)"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNegativeRateLimitIsRejected() {
+        new RateLimiter(-1.0, 0, 0L);
+    }
+}
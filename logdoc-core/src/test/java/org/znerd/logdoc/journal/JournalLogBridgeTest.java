@@ -0,0 +1,157 @@
+// See the COPYRIGHT file for copyright and license information
+package org.znerd.logdoc.journal;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.text.SimpleDateFormat;
+import java.util.Arrays;
+
+import org.junit.After;
+import org.junit.Test;
+import org.znerd.logdoc.AbstractLogBridgeTest;
+import org.znerd.logdoc.ArgumentWriter;
+import org.znerd.logdoc.EntryHandle;
+import org.znerd.logdoc.LogBridge;
+import org.znerd.logdoc.LogDef;
+import org.znerd.logdoc.LogEvent;
+import org.znerd.util.log.LogLevel;
+
+public class JournalLogBridgeTest extends AbstractLogBridgeTest {
+
+    private static final String DOMAIN = "org.znerd.logdoc.test";
+
+    private File directory;
+
+    @Override
+    protected LogBridge provideLogBridge() {
+        try {
+            directory = File.createTempFile("logdoc-", "-journal");
+            directory.delete();
+            return new JournalLogBridge(directory, "test", 4096, 2);
+        } catch (IOException cause) {
+            throw new IllegalStateException(cause);
+        }
+    }
+
+    private JournalLogBridge getJournalLogBridge() {
+        return (JournalLogBridge) getLogBridge();
+    }
+
+    @After
+    public void tearDown() {
+        getJournalLogBridge().close();
+        File[] files = directory.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        directory.delete();
+    }
+
+    private JournalReader openFirstSegment() throws IOException {
+        getJournalLogBridge().flush();
+        return new JournalReader(JournalReader.listSegments(directory, "test")[0]);
+    }
+
+    @Test
+    public void testEventArgumentsAreStoredTyped() throws IOException {
+        JournalLogBridge logBridge = getJournalLogBridge();
+        EntryHandle entry = logBridge.resolveEntry(DOMAIN, "requests", "1001");
+        logBridge.putContextId("CONTEXT-1");
+        try {
+            logBridge.logEvent(getClass().getName(), entry, LogLevel.INFO, new RequestHandledEvent("/index.html", Long.valueOf(42L)), null);
+        } finally {
+            logBridge.unputContextId();
+        }
+
+        JournalReader reader = openFirstSegment();
+        JournalRecord record = reader.next();
+        assertEquals(DOMAIN + ".requests.1001", record.getCategory());
+        assertEquals(LogLevel.INFO, record.getLevel());
+        assertEquals("CONTEXT-1", record.getContextId());
+        assertEquals(Arrays.<Object> asList("/index.html", Long.valueOf(42L)), record.getArguments());
+        assertNull(record.getMessage());
+        assertNull(reader.next());
+    }
+
+    @Test
+    public void testMessagesAreStoredAsText() throws IOException {
+        JournalLogBridge logBridge = getJournalLogBridge();
+        logBridge.logOneMessage(getClass().getName(), "org.znerd", "sample", "9876", LogLevel.WARNING, "Blä", new IllegalStateException("Broken"));
+
+        JournalRecord record = openFirstSegment().next();
+        assertEquals("Blä", record.getMessage());
+        assertNull(record.getArguments());
+        assertEquals(IllegalStateException.class.getName(), record.getExceptionClass());
+        assertEquals("Broken", record.getExceptionMessage());
+        assertTrue(record.getStackTrace().startsWith(IllegalStateException.class.getName() + ": Broken"));
+    }
+
+    @Test
+    public void testDecoderTranslatesArguments() throws Exception {
+        JournalLogBridge logBridge = getJournalLogBridge();
+        EntryHandle entry = logBridge.resolveEntry(DOMAIN, "requests", "1001");
+        logBridge.logEvent(getClass().getName(), entry, LogLevel.INFO, new RequestHandledEvent("/index.html", null), null);
+
+        JournalDecoder decoder = new JournalDecoder("en_US");
+        decoder.addLogDef(LogDef.loadFromDirectory(new File(getClass().getResource("/logdoc/log.xml").toURI()).getParentFile()));
+        JournalRecord record = openFirstSegment().next();
+        assertEquals("Handled request for \"/index.html\" in (null) ms.", decoder.translate(record));
+        String line = decoder.format(record, new SimpleDateFormat("HH:mm"));
+        assertTrue(line, line.endsWith(" INFO [] org.znerd.logdoc.test.requests.1001 Handled request for \"/index.html\" in (null) ms."));
+    }
+
+    @Test
+    public void testSegmentsAreRotatedAndRemoved() throws IOException {
+        JournalLogBridge logBridge = getJournalLogBridge();
+        EntryHandle entry = logBridge.resolveEntry(DOMAIN, "requests", "1001");
+        for (int i = 0; i < 1000; i++) {
+            logBridge.logEvent(getClass().getName(), entry, LogLevel.INFO, new RequestHandledEvent("/index.html", Long.valueOf(i)), null);
+        }
+        logBridge.flush();
+
+        File[] segments = JournalReader.listSegments(directory, "test");
+        assertEquals(2, segments.length);
+        JournalReader reader = new JournalReader(segments[1]);
+        JournalRecord last = null;
+        for (JournalRecord record = reader.next(); record != null; record = reader.next()) {
+            last = record;
+        }
+        assertEquals(Long.valueOf(999L), last.getArguments().get(1));
+        assertEquals(0L, logBridge.getDroppedCount());
+    }
+
+    /**
+     * Event like the one generated for entry 1001 of the test <code>log.xml</code>.
+     */
+    private static final class RequestHandledEvent extends LogEvent {
+        private final String path;
+        private final Long duration;
+
+        RequestHandledEvent(String path, Long duration) {
+            this.path = path;
+            this.duration = duration;
+        }
+
+        @Override
+        public String render() {
+            return "Handled request for \"" + path + "\" in " + duration + " ms.";
+        }
+
+        @Override
+        public boolean writeArguments(ArgumentWriter writer) {
+            writer.writeText(path);
+            if (duration == null) {
+                writer.writeNull();
+            } else {
+                writer.writeInt64(duration.longValue());
+            }
+            return true;
+        }
+    }
+}
@@ -1,12 +1,38 @@
 // See the COPYRIGHT file for copyright and license information
 package org.znerd.logdoc.log4j;
 
+import java.util.HashMap;
+import java.util.Map;
+
+import org.apache.log4j.Appender;
+import org.apache.log4j.Category;
 import org.apache.log4j.Level;
+import org.apache.log4j.LogManager;
 import org.apache.log4j.Logger;
 import org.apache.log4j.NDC;
+import org.apache.log4j.spi.HierarchyEventListener;
+import org.apache.log4j.spi.LoggingEvent;
 import org.znerd.logdoc.AbstractLogBridge;
+import org.znerd.logdoc.EntryHandle;
+import org.znerd.logdoc.Library;
+import org.znerd.logdoc.LogEvent;
+import org.znerd.logdoc.TracedContexts;
+import org.znerd.logdoc.internal.LevelRefresher;
 import org.znerd.util.log.LogLevel;
 
+/**
+ * <code>LogBridge</code> implementation that sends all messages to Log4J.
+ * <p>
+ * Log4J does not report level changes. This bridge calls {@link Library#refreshLevels()} when appenders are added to or removed from the Log4J hierarchy, which happens when Log4J is
+ * reconfigured, for example by <code>configureAndWatch</code>. Levels set directly on a Log4J <code>Logger</code> are picked up by the periodic refresh of {@link LevelRefresher}, which runs
+ * while this bridge is in use, or right away by calling {@link Library#refreshLevels()}.
+ * <p>
+ * A level override set through {@link Library#setLevelOverride(String, String, LogLevel)} is also set on the Log4J <code>Logger</code> named after the domain or group, so that the entry
+ * loggers below it inherit the level. The previous level of that <code>Logger</code> is restored when the override is removed. Appender thresholds are not changed.
+ * <p>
+ * A message of a context that is traced through {@link TracedContexts} is passed to the appenders even if the level of its Log4J <code>Logger</code> rejects it. Appender thresholds still
+ * apply.
+ */
 public final class Log4jLogBridge extends AbstractLogBridge {
 
     private static final Log4jLogBridge SINGLETON_INSTANCE = new Log4jLogBridge();
@@ -17,13 +43,44 @@ public final class Log4jLogBridge extends AbstractLogBridge {
     private static final Level LOG4J_ERROR_LEVEL = Level.ERROR;
     private static final Level LOG4J_FATAL_LEVEL = Level.FATAL;
 
+    private final Map<Logger, Level> originalLevels = new HashMap<Logger, Level>();
+
     private Log4jLogBridge() {
+        LogManager.getLoggerRepository().addHierarchyEventListener(new HierarchyEventListener() {
+            @Override
+            public void addAppenderEvent(Category category, Appender appender) {
+                Library.refreshLevels();
+            }
+
+            @Override
+            public void removeAppenderEvent(Category category, Appender appender) {
+                Library.refreshLevels();
+            }
+        });
     }
 
     public static Log4jLogBridge getInstance() {
         return SINGLETON_INSTANCE;
     }
 
+    @Override
+    protected boolean isLevelChangeReported() {
+        return false;
+    }
+
+    @Override
+    protected synchronized void levelOverrideChanged(String domain, String groupId, LogLevel level) {
+        Logger logger = Logger.getLogger(groupId == null ? domain : domain + '.' + groupId);
+        if (level != null) {
+            if (!originalLevels.containsKey(logger)) {
+                originalLevels.put(logger, logger.getLevel());
+            }
+            logger.setLevel(toLog4jLevel(level));
+        } else if (originalLevels.containsKey(logger)) {
+            logger.setLevel(originalLevels.remove(logger));
+        }
+    }
+
     @Override
     public void putContextId(String newContextId) {
         NDC.push(newContextId);
@@ -46,7 +103,7 @@ public final class Log4jLogBridge extends AbstractLogBridge {
 
     @Override
     public boolean shouldLog(String domain, String groupId, String entryId, LogLevel level) {
-        if (! getLevel().isSmallerThanOrEqualTo(level)) {
+        if (! getLevel(domain, groupId).isSmallerThanOrEqualTo(level)) {
             return false;
         }
 
@@ -76,10 +133,59 @@ public final class Log4jLogBridge extends AbstractLogBridge {
         return Logger.getLogger(categoryId);
     }
 
+    private Logger getLogger(EntryHandle entry) {
+        if (entry instanceof Log4jEntryHandle) {
+            return ((Log4jEntryHandle) entry).logger;
+        } else {
+            return Logger.getLogger(entry.getCategory());
+        }
+    }
+
     @Override
     public void logOneMessage(String fqcn, String domain, String groupId, String entryId, LogLevel level, String message, Throwable exception) {
         Logger logger = getLogger(domain, groupId, entryId);
         Level log4jLevel = toLog4jLevel(level);
-        logger.log(fqcn, log4jLevel, message, exception);
+        log(logger, fqcn, log4jLevel, message, exception);
+    }
+
+    private void log(Logger logger, String fqcn, Level log4jLevel, Object message, Throwable exception) {
+        if (logger.isEnabledFor(log4jLevel)) {
+            logger.log(fqcn, log4jLevel, message, exception);
+        } else if (TracedContexts.isCurrentContextTraced(this)) {
+            logger.callAppenders(new LoggingEvent(fqcn, logger, log4jLevel, message, exception));
+        }
+    }
+
+    @Override
+    public EntryHandle resolveEntry(String domain, String groupId, String entryId) {
+        return new Log4jEntryHandle(this, domain, groupId, entryId);
+    }
+
+    @Override
+    public boolean shouldLog(EntryHandle entry, LogLevel level) {
+        if (! getLevel(entry.getDomain(), entry.getGroupId()).isSmallerThanOrEqualTo(level)) {
+            return false;
+        }
+        return getLogger(entry).isEnabledFor(toLog4jLevel(level));
+    }
+
+    @Override
+    public void logOneMessage(String fqcn, EntryHandle entry, LogLevel level, String message, Throwable exception) {
+        log(getLogger(entry), fqcn, toLog4jLevel(level), message, exception);
+    }
+
+    @Override
+    public void logEvent(String fqcn, EntryHandle entry, LogLevel level, LogEvent event, Throwable exception) {
+        // Log4J accepts any object as message and only renders it when an appender needs the text
+        log(getLogger(entry), fqcn, toLog4jLevel(level), event, exception);
+    }
+
+    private static final class Log4jEntryHandle extends EntryHandle {
+        private final Logger logger;
+
+        Log4jEntryHandle(Log4jLogBridge logBridge, String domain, String groupId, String entryId) {
+            super(logBridge, domain, groupId, entryId);
+            logger = Logger.getLogger(getCategory());
+        }
     }
 }
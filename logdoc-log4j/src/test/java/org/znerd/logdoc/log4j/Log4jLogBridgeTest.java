@@ -1,12 +1,26 @@
 // See the COPYRIGHT file for copyright and license information
 package org.znerd.logdoc.log4j;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+
 import org.apache.log4j.Level;
 import org.apache.log4j.Logger;
 import org.junit.After;
 import org.junit.Before;
+import org.junit.Test;
 import org.znerd.logdoc.AbstractLogBridgeTest;
+import org.znerd.logdoc.EntryHandle;
+import org.znerd.logdoc.Library;
 import org.znerd.logdoc.LogBridge;
+import org.znerd.logdoc.TracedContexts;
+import org.znerd.logdoc.internal.LevelRefresher;
+import org.znerd.logdoc.internal.LogCentral;
+import org.znerd.util.log.LogLevel;
 
 public class Log4jLogBridgeTest extends AbstractLogBridgeTest {
     
@@ -40,4 +54,75 @@ public class Log4jLogBridgeTest extends AbstractLogBridgeTest {
     protected LogBridge provideLogBridge() {
         return Log4jLogBridge.getInstance();
     }
+
+    @Test
+    public void testReconfigurationRefreshesLevels() {
+        Log4jLogBridge.getInstance();
+        int epoch = LogCentral.getLevelEpoch();
+        TestAppender appender = new TestAppender();
+        Logger.getRootLogger().addAppender(appender);
+        Logger.getRootLogger().removeAppender(appender);
+        assertTrue(LogCentral.getLevelEpoch() > epoch);
+    }
+
+    @Test
+    public void testLevelsAreRefreshedPeriodicallyWhileInUse() {
+        LogBridge originalLogBridge = Library.getLogBridge();
+        Library.setLogBridge(Log4jLogBridge.getInstance());
+        try {
+            assertTrue(LevelRefresher.isRunning());
+        } finally {
+            Library.setLogBridge(originalLogBridge);
+        }
+        assertFalse(LevelRefresher.isRunning());
+    }
+
+    @Test
+    public void testTracedMessageReachesAppenderBelowLoggerLevel() {
+        Logger groupLogger = Logger.getLogger("org.znerd.traced");
+        groupLogger.setLevel(Level.INFO);
+        TracedContexts.addContextId("TRACED-1");
+        Log4jLogBridge logBridge = Log4jLogBridge.getInstance();
+        EntryHandle entry = logBridge.resolveEntry("org.znerd", "traced", "1234");
+        try {
+            logBridge.putContextId("UNTRACED-1");
+            try {
+                logBridge.logOneMessage(getClass().getName(), entry, LogLevel.DEBUG, "Dropped", null);
+            } finally {
+                logBridge.unputContextId();
+            }
+            logBridge.putContextId("TRACED-1");
+            try {
+                logBridge.logOneMessage(getClass().getName(), entry, LogLevel.DEBUG, "Traced", null);
+            } finally {
+                logBridge.unputContextId();
+            }
+            assertEquals(Arrays.asList("Traced"), testAppender.getMessages());
+        } finally {
+            TracedContexts.clear();
+            groupLogger.setLevel(null);
+        }
+    }
+
+    @Test
+    public void testLevelOverrideIsSetOnBackendLogger() {
+        Log4jLogBridge logBridge = Log4jLogBridge.getInstance();
+        LogBridge originalLogBridge = Library.getLogBridge();
+        Logger groupLogger = Logger.getLogger("org.znerd.override");
+        groupLogger.setLevel(Level.WARN);
+        Library.setLogBridge(logBridge);
+        try {
+            assertFalse(logBridge.shouldLog("org.znerd", "override", "1234", LogLevel.DEBUG));
+            Library.setLevelOverride("org.znerd", "override", LogLevel.DEBUG);
+            assertSame(Level.DEBUG, groupLogger.getLevel());
+            assertTrue(logBridge.shouldLog("org.znerd", "override", "1234", LogLevel.DEBUG));
+
+            Library.clearLevelOverrides();
+            assertSame(Level.WARN, groupLogger.getLevel());
+        } finally {
+            Library.clearLevelOverrides();
+            Library.setLogBridge(originalLogBridge);
+            groupLogger.setLevel(null);
+        }
+    }
 }
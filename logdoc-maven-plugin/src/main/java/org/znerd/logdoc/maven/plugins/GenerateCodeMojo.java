@@ -2,11 +2,13 @@
 package org.znerd.logdoc.maven.plugins;
 
 import java.io.File;
+import java.util.Locale;
 
 import org.apache.maven.plugin.AbstractMojo;
 import org.apache.maven.plugin.MojoExecutionException;
 import org.apache.maven.project.MavenProject;
 import org.znerd.logdoc.gen.CodeGenerator;
+import org.znerd.util.log.LogLevel;
 
 /**
  * A Maven plugin for generating source files and/or documentation from Logdoc definitions.
@@ -34,16 +36,65 @@ public class GenerateCodeMojo extends AbstractMojo {
      * @required
      */
     private File out;
-    
+
+    /**
+     * Whether the generated <code>Log</code> classes defer translation until the <code>LogBridge</code> needs the message text.
+     *
+     * @parameter expression="${logdoc.deferredTranslation}" default-value="false"
+     */
+    private boolean deferredTranslation;
+
+    /**
+     * The minimum level of the entries that can be logged, for example <code>INFO</code>. Methods for entries below this level are generated with empty bodies. Optional; by default all
+     * entries are kept.
+     *
+     * @parameter expression="${logdoc.minLevel}"
+     */
+    private String minLevel;
+
+    /**
+     * Whether the generated <code>Log</code> classes count the enabled and suppressed calls of each entry, for the <code>LogdocStatistics</code> MXBean.
+     *
+     * @parameter expression="${logdoc.statistics}" default-value="false"
+     */
+    private boolean statistics;
+
+    /**
+     * Whether the generated <code>Log</code> classes emit a Java Flight Recorder event for each call of a log method whose entry is enabled. The generated code requires Java 11 or up.
+     *
+     * @parameter expression="${logdoc.jfrEvents}" default-value="false"
+     */
+    private boolean jfrEvents;
+
     private LogdocMojoSupport support = new LogdocMojoSupport();
 
     @Override
     public void execute() throws MojoExecutionException {
         support.sendInternalLoggingThroughMaven(getLog());
-        support.generate(new CodeGenerator(in, out));
+        support.generate(createGenerator());
         markGeneratedSourcesForCompilation();
     }
 
+    private CodeGenerator createGenerator() throws MojoExecutionException {
+        CodeGenerator generator = new CodeGenerator(in, out);
+        generator.setDeferredTranslation(deferredTranslation);
+        generator.setMinLevel(parseMinLevel());
+        generator.setStatistics(statistics);
+        generator.setJfrEvents(jfrEvents);
+        return generator;
+    }
+
+    private LogLevel parseMinLevel() throws MojoExecutionException {
+        if (minLevel == null || minLevel.trim().length() < 1) {
+            return null;
+        }
+        try {
+            return LogLevel.valueOf(minLevel.trim().toUpperCase(Locale.ENGLISH));
+        } catch (IllegalArgumentException cause) {
+            throw new MojoExecutionException("Invalid minLevel \"" + minLevel + "\". Expected DEBUG, INFO, NOTICE, WARNING, ERROR or FATAL.");
+        }
+    }
+
     private void markGeneratedSourcesForCompilation() {
         project.addCompileSourceRoot(out.getAbsolutePath());
     }
@@ -5,12 +5,42 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.slf4j.MDC;
 import org.znerd.logdoc.AbstractLogBridge;
+import org.znerd.logdoc.EntryHandle;
+import org.znerd.logdoc.LogEvent;
+import org.znerd.logdoc.TracedContexts;
+import org.znerd.logdoc.internal.LevelRefresher;
+import org.znerd.logdoc.internal.MessageBuilders;
 import org.znerd.util.log.LogLevel;
 
+/**
+ * <code>LogBridge</code> implementation that sends all messages to SLF4J.
+ * <p>
+ * SLF4J does not report level changes. They are picked up by the periodic refresh of {@link LevelRefresher}, which runs while this bridge is in use, or right away by calling {@link org.znerd.logdoc.Library#refreshLevels()} after
+ * reconfiguring the underlying logging framework.
+ * <p>
+ * Level overrides are not supported, since SLF4J cannot change the level of a logger: {@link org.znerd.logdoc.Library#setLevelOverride(String, String, LogLevel)} throws an
+ * <code>UnsupportedOperationException</code> while this bridge is in use, and overrides that were set before are ignored. Change the level in the configuration of the underlying logging
+ * framework instead.
+ * <p>
+ * SLF4J cannot pass a message to a logger whose level rejects it. A message of a context that is traced through {@link TracedContexts} that would be rejected is therefore logged at the lowest
+ * higher level that is enabled, prefixed with its own level, for example <code>"DEBUG: "</code>.
+ */
 public class Slf4jLogBridge extends AbstractLogBridge {
 
     private static final String CONTEXT_ID_KEY = "contextID";
 
+    @Override
+    protected boolean isLevelChangeReported() {
+        return false;
+    }
+
+    @Override
+    protected void levelOverrideChanged(String domain, String groupId, LogLevel level) throws UnsupportedOperationException {
+        if (level != null) {
+            throw new UnsupportedOperationException("Slf4jLogBridge does not support level overrides; change the level in the configuration of the underlying logging framework instead.");
+        }
+    }
+
     @Override
     public void putContextId(String newContextId) {
         MDC.put(CONTEXT_ID_KEY, newContextId);
@@ -42,6 +72,24 @@ public class Slf4jLogBridge extends AbstractLogBridge {
         return categoryId;
     }
 
+    private Logger getLogger(EntryHandle entry) {
+        if (entry instanceof Slf4jEntryHandle) {
+            return ((Slf4jEntryHandle) entry).logger;
+        } else {
+            return LoggerFactory.getLogger(entry.getCategory());
+        }
+    }
+
+    @Override
+    public EntryHandle resolveEntry(String domain, String groupId, String entryId) {
+        return new Slf4jEntryHandle(this, domain, groupId, entryId);
+    }
+
+    @Override
+    public boolean shouldLog(EntryHandle entry, LogLevel level) {
+        return isLevelEnabled(getLogger(entry), level);
+    }
+
     private boolean isLevelEnabled(Logger logger, LogLevel level) {
         if (LogLevel.DEBUG.equals(level)) {
             return logger.isDebugEnabled();
@@ -60,6 +108,29 @@ public class Slf4jLogBridge extends AbstractLogBridge {
         logOneMessage(logger, level, message, exception);
     }
 
+    @Override
+    public void logOneMessage(String fqcn, EntryHandle entry, LogLevel level, String message, Throwable exception) {
+        logOneMessage(getLogger(entry), level, message, exception);
+    }
+
+    @Override
+    public void logEvent(String fqcn, EntryHandle entry, LogLevel level, LogEvent event, Throwable exception) {
+        final String outputMessage;
+        if (LogLevel.NOTICE.equals(level) || LogLevel.FATAL.equals(level)) {
+            StringBuilder builder = MessageBuilders.acquire();
+            try {
+                builder.append(level.name()).append(": ");
+                event.appendTo(builder);
+                outputMessage = builder.toString();
+            } finally {
+                MessageBuilders.release(builder);
+            }
+        } else {
+            outputMessage = event.render();
+        }
+        logOneMessageImpl(getLogger(entry), level, outputMessage, exception);
+    }
+
     private void logOneMessage(Logger logger, LogLevel level, String message, Throwable exception) {
         final String outputMessage = createOutputMessage(level, message);
         logOneMessageImpl(logger, level, outputMessage, exception);
@@ -76,6 +147,17 @@ public class Slf4jLogBridge extends AbstractLogBridge {
     }
 
     private void logOneMessageImpl(Logger logger, LogLevel level, String message, Throwable exception) {
+        if (TracedContexts.isCurrentContextTraced(this) && !isLevelEnabled(logger, level)) {
+            LogLevel enabledLevel = findHigherEnabledLevel(logger, level);
+            if (enabledLevel == null) {
+                return;
+            }
+            // NOTICE and FATAL messages already carry their level
+            if (!LogLevel.NOTICE.equals(level) && !LogLevel.FATAL.equals(level)) {
+                message = level.name() + ": " + message;
+            }
+            level = enabledLevel;
+        }
         if (LogLevel.DEBUG.equals(level)) {
             logger.debug(message, exception);
         } else if (LogLevel.INFO.equals(level) || LogLevel.NOTICE.equals(level)) {
@@ -86,4 +168,22 @@ public class Slf4jLogBridge extends AbstractLogBridge {
             logger.error(message, exception);
         }
     }
+
+    private LogLevel findHigherEnabledLevel(Logger logger, LogLevel level) {
+        for (LogLevel candidate : new LogLevel[] { LogLevel.INFO, LogLevel.WARNING, LogLevel.ERROR }) {
+            if (!candidate.isSmallerThanOrEqualTo(level) && isLevelEnabled(logger, candidate)) {
+                return candidate;
+            }
+        }
+        return null;
+    }
+
+    private static final class Slf4jEntryHandle extends EntryHandle {
+        private final Logger logger;
+
+        Slf4jEntryHandle(Slf4jLogBridge logBridge, String domain, String groupId, String entryId) {
+            super(logBridge, domain, groupId, entryId);
+            logger = LoggerFactory.getLogger(getCategory());
+        }
+    }
 }